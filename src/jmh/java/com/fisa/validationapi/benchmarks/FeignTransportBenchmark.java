@@ -0,0 +1,147 @@
+package com.fisa.validationapi.benchmarks;
+
+import com.fisa.validationapi.infrastructure.adapters.output.feign.PartyServiceClient;
+import com.sun.net.httpserver.HttpServer;
+import feign.Client;
+import feign.Feign;
+import feign.Request;
+import feign.Util;
+import feign.codec.Decoder;
+import feign.hc5.ApacheHttp5Client;
+import feign.http2client.Http2Client;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cloud.openfeign.support.SpringMvcContract;
+import org.springframework.http.ResponseEntity;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Llamada a Party Service por Feign contra un servidor HTTP local (stub del JDK) con cada transporte:
+ * - urlconnection: cliente por defecto de Feign (HttpURLConnection, keep-alive de la JVM con 5 conexiones libres por destino)
+ * - hc5: pool de Apache HttpClient 5 con la configuración de application.yml
+ * - jdk: HttpClient del JDK pidiendo HTTP/2 (el stub solo habla HTTP/1.1, así que mide su pool HTTP/1.1)
+ * Al terminar cada prueba se imprime cuántas conexiones TCP distintas abrió el cliente contra el stub.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(16)
+// Sin TCP_NODELAY el stub del JDK suma ~40 ms por petición (Nagle + ACK retrasado) y ocultaría la diferencia entre transportes
+@Fork(value = 1, jvmArgsAppend = "-Dsun.net.httpserver.nodelay=true")
+public class FeignTransportBenchmark {
+
+    @Param({"urlconnection", "hc5", "jdk"})
+    public String transport;
+
+    private final Set<InetSocketAddress> clientSockets = ConcurrentHashMap.newKeySet();
+    private final AtomicLong requests = new AtomicLong();
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private CloseableHttpClient apacheHttpClient;
+    private PartyServiceClient partyServiceClient;
+    private byte[] payload;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        byte[] partyResponse = Payloads.partyResponse(512).getBytes(StandardCharsets.UTF_8);
+        serverExecutor = Executors.newFixedThreadPool(32);
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 512);
+        server.setExecutor(serverExecutor);
+        server.createContext("/bian-party/v1/parties", exchange -> {
+            // Cada puerto remoto distinto es un socket abierto por el cliente
+            clientSockets.add(exchange.getRemoteAddress());
+            requests.incrementAndGet();
+            exchange.getRequestBody().readAllBytes();
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(201, partyResponse.length);
+            try (OutputStream body = exchange.getResponseBody()) {
+                body.write(partyResponse);
+            }
+        });
+        server.start();
+
+        // Mismos timeouts por petición que party-service en application.yml
+        Request.Options options = new Request.Options(1, TimeUnit.SECONDS, 4, TimeUnit.SECONDS, true);
+        // Solo se mide el transporte: la respuesta se lee como texto sin convertidores de Spring
+        Decoder decoder = (response, type) ->
+                ResponseEntity.status(response.status()).body(Util.toString(response.body().asReader(StandardCharsets.UTF_8)));
+
+        partyServiceClient = Feign.builder()
+                .client(client())
+                .contract(new SpringMvcContract())
+                .decoder(decoder)
+                .options(options)
+                .target(PartyServiceClient.class, "http://localhost:" + server.getAddress().getPort());
+        payload = Payloads.onboardingRequest(512).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        System.out.printf("%n[transport=%s] %d peticiones, %d conexiones TCP abiertas contra el stub%n",
+                transport, requests.get(), clientSockets.size());
+        if (apacheHttpClient != null) {
+            apacheHttpClient.close();
+        }
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Benchmark
+    public ResponseEntity<String> createParty() {
+        return partyServiceClient.createParty(payload);
+    }
+
+    private Client client() {
+        return switch (transport) {
+            case "urlconnection" -> new Client.Default(null, null);
+            case "hc5" -> {
+                // Valores de spring.cloud.openfeign.httpclient y http.client.max-idle-time
+                apacheHttpClient = HttpClients.custom()
+                        .setConnectionManager(PoolingHttpClientConnectionManagerBuilder.create()
+                                .setMaxConnTotal(200)
+                                .setMaxConnPerRoute(64)
+                                .setConnectionTimeToLive(TimeValue.ofMinutes(5))
+                                .build())
+                        .evictExpiredConnections()
+                        .evictIdleConnections(TimeValue.ofSeconds(30))
+                        .disableCookieManagement()
+                        .build();
+                yield new ApacheHttp5Client(apacheHttpClient);
+            }
+            case "jdk" -> new Http2Client(java.net.http.HttpClient.newBuilder()
+                    .version(java.net.http.HttpClient.Version.HTTP_2)
+                    .build());
+            default -> throw new IllegalArgumentException("Transporte desconocido: " + transport);
+        };
+    }
+}
@@ -0,0 +1,92 @@
+package com.fisa.validationapi.benchmarks;
+
+import com.fisa.validationapi.domain.models.IdempotencyRecord;
+import com.fisa.validationapi.domain.models.enums.IdempotencyStatus;
+import com.fisa.validationapi.infrastructure.adapters.output.redis.IdempotencyRecordRedisSerializer;
+import com.fisa.validationapi.infrastructure.config.RedisConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara el serializador binario de IdempotencyRecord con el JSON polimórfico anterior (ns/op).
+ * Los bytes por llave de cada formato se imprimen al preparar cada combinación de parámetros.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IdempotencyRecordSerializerBenchmark {
+
+    // Tamaño aproximado del cuerpo de respuesta guardado (bytes)
+    @Param({"64", "1024", "16384"})
+    public int bodySize;
+
+    private GenericJackson2JsonRedisSerializer jsonSerializer;
+    private IdempotencyRecordRedisSerializer binarySerializer;
+
+    private IdempotencyRecord record;
+    private byte[] jsonBytes;
+    private byte[] binaryBytes;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        jsonSerializer = RedisConfig.legacyJsonSerializer();
+        binarySerializer = new IdempotencyRecordRedisSerializer(jsonSerializer, 4096);
+
+        record = IdempotencyRecord.builder()
+                .key("c7a1d9e2-5b6f-4a34-9f0e-2d8b7c6a5e41")
+                .status(IdempotencyStatus.COMPLETED)
+                .httpStatusCode(201)
+                .responseBody(Payloads.partyResponse(bodySize))
+                .createdAt(LocalDateTime.now())
+                .build();
+
+        jsonBytes = jsonSerializer.serialize(record);
+        binaryBytes = binarySerializer.serialize(record);
+
+        System.out.printf("%nBytes por llave (cuerpo ~%d B): json=%d binario=%d%n",
+                bodySize, jsonBytes.length, binaryBytes.length);
+    }
+
+    @Benchmark
+    public byte[] serializeJson() {
+        return jsonSerializer.serialize(record);
+    }
+
+    @Benchmark
+    public byte[] serializeBinary() {
+        return binarySerializer.serialize(record);
+    }
+
+    @Benchmark
+    public Object deserializeJson() {
+        return jsonSerializer.deserialize(jsonBytes);
+    }
+
+    @Benchmark
+    public IdempotencyRecord deserializeBinary() {
+        return binarySerializer.deserialize(binaryBytes);
+    }
+
+    @Benchmark
+    public IdempotencyRecord deserializeLegacyJsonThroughBinary() {
+        // Ruta de compatibilidad durante el despliegue: valor antiguo leído por el serializador nuevo
+        return binarySerializer.deserialize(jsonBytes);
+    }
+}
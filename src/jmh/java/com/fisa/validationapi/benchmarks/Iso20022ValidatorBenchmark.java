@@ -0,0 +1,62 @@
+package com.fisa.validationapi.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fisa.validationapi.application.services.Iso20022ValidatorService;
+import com.fisa.validationapi.application.services.rules.Pacs008ReferenceDataRules;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara las reglas precompiladas contra el modo "deep" (ensamblaje MX + XML),
+ * con payloads válidos e inválidos (código de país inexistente) de varios tamaños.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class Iso20022ValidatorBenchmark {
+
+    @Param({"false", "true"})
+    public boolean deepMode;
+
+    // Tamaño aproximado del payload (bytes); el relleno va después del bloque 'referenceData'
+    @Param({"512", "8192", "65536"})
+    public int payloadSize;
+
+    // false: la regla del código de país falla (incluye el costo de la excepción)
+    @Param({"true", "false"})
+    public boolean valid;
+
+    private Iso20022ValidatorService validator;
+    private byte[] payload;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        validator = new Iso20022ValidatorService(new ObjectMapper(), Pacs008ReferenceDataRules.RULES, deepMode);
+        payload = Payloads.onboardingRequest(payloadSize, valid ? "EC" : "ZZZ").getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public Object validate() {
+        try {
+            return validator.validateJsonStructure(payload);
+        } catch (IllegalArgumentException e) {
+            return e;
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.fisa.validationapi.benchmarks;
+
+import com.fisa.validationapi.ValidationApiApplication;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntFunction;
+
+/**
+ * Prueba de carga de extremo a extremo de POST /api/v1/compliance/validate.
+ * Arranca el servicio completo con el perfil "loadtest" (idempotencia en memoria, sin Redis, Config Server ni Eureka)
+ * y stubs locales de Party Service y notification-api con latencia y tasa de error configurables.
+ * Cada escenario corre en lazo cerrado (N clientes concurrentes, cada uno envía la siguiente petición al recibir
+ * la respuesta) y reporta throughput, percentiles de latencia (HdrHistogram) y los códigos HTTP recibidos.
+ * <p>
+ * Uso: mvn -Pbenchmark,loadtest verify -DskipTests -Dloadtest.args="-Dloadtest.concurrency=64 -Dloadtest.party.latency=50ms"
+ * <ul>
+ *   <li>loadtest.requests: peticiones medidas por escenario (5000)</li>
+ *   <li>loadtest.warmup: peticiones de calentamiento descartadas (2000)</li>
+ *   <li>loadtest.concurrency: clientes concurrentes (32)</li>
+ *   <li>loadtest.scenarios: escenarios a ejecutar, separados por coma (todos)</li>
+ *   <li>loadtest.payload-size: tamaño aproximado del cuerpo en bytes (1024)</li>
+ *   <li>loadtest.duplicates: peticiones simultáneas por llave en concurrent-duplicates (4)</li>
+ *   <li>loadtest.party.latency / loadtest.party.error-rate: stub de Party Service (20ms / 0)</li>
+ *   <li>loadtest.notification.latency / loadtest.notification.error-rate: stub de notification-api (5ms / 0)</li>
+ *   <li>loadtest.profiles: perfiles de Spring adicionales (ej: virtual-threads)</li>
+ * </ul>
+ */
+public final class LoadTestRunner {
+
+    private static final String PATH = "/api/v1/compliance/validate";
+
+    // Latencias registradas en microsegundos, hasta 60 s con 3 dígitos significativos
+    private static final long MAX_LATENCY_MICROS = 60_000_000L;
+
+    enum Scenario {
+        // Llave nueva por petición: flujo completo (bloqueo, validación ISO, Party Service, guardado y correo)
+        NEW_KEYS("new-keys"),
+        // Llaves ya resueltas: se responde el resultado guardado sin llamar a Party Service
+        REPLAYS("replays"),
+        // Varias peticiones simultáneas con la misma llave: una procesa y el resto recibe 409 (o espera el resultado)
+        CONCURRENT_DUPLICATES("concurrent-duplicates"),
+        // Payload que viola las reglas ISO (país inexistente): 400 sin llamar a Party Service
+        INVALID_PAYLOADS("invalid-payloads");
+
+        private final String id;
+
+        Scenario(String id) {
+            this.id = id;
+        }
+
+        static Scenario of(String id) {
+            return Arrays.stream(values())
+                    .filter(scenario -> scenario.id.equals(id.trim()))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException("Escenario desconocido: " + id));
+        }
+    }
+
+    private record Result(Scenario scenario, int requests, long elapsedNanos, Histogram latencies, Map<Integer, LongAdder> statuses) {
+    }
+
+    private final int requests = Integer.getInteger("loadtest.requests", 5_000);
+    private final int warmup = Integer.getInteger("loadtest.warmup", 2_000);
+    private final int concurrency = Integer.getInteger("loadtest.concurrency", 32);
+    private final int duplicates = Integer.getInteger("loadtest.duplicates", 4);
+    private final String runId = UUID.randomUUID().toString().substring(0, 8);
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(2))
+            .build();
+
+    private final byte[] validPayload;
+    private final byte[] invalidPayload;
+    private URI endpoint;
+
+    private LoadTestRunner() {
+        int payloadSize = Integer.getInteger("loadtest.payload-size", 1024);
+        validPayload = Payloads.onboardingRequest(payloadSize).getBytes(StandardCharsets.UTF_8);
+        invalidPayload = Payloads.onboardingRequest(payloadSize, "ZZZ").getBytes(StandardCharsets.UTF_8);
+    }
+
+    public static void main(String[] args) throws Exception {
+        // Sin TCP_NODELAY los stubs del JDK suman ~40 ms por petición (Nagle + ACK retrasado); se lee al crear el primer servidor
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        new LoadTestRunner().run();
+    }
+
+    private void run() throws Exception {
+        List<Scenario> scenarios = Arrays.stream(System.getProperty("loadtest.scenarios",
+                        "new-keys,replays,concurrent-duplicates,invalid-payloads").split(","))
+                .map(Scenario::of)
+                .toList();
+
+        try (StubServer party = new StubServer("PartyService", "/bian-party/v1/parties", 201,
+                Payloads.partyResponse(512).getBytes(StandardCharsets.UTF_8),
+                duration("loadtest.party.latency", "20ms"), Double.parseDouble(System.getProperty("loadtest.party.error-rate", "0")));
+             StubServer notification = new StubServer("NotificationAPI", "/api/v1/notifications/email", 202, new byte[0],
+                     duration("loadtest.notification.latency", "5ms"), Double.parseDouble(System.getProperty("loadtest.notification.error-rate", "0")));
+             ConfigurableApplicationContext context = startApplication(party, notification)) {
+
+            endpoint = URI.create("http://localhost:" + context.getEnvironment().getProperty("local.server.port") + PATH);
+
+            // Calentamiento (JIT, pools de conexiones, cachés): no se reporta
+            execute(Scenario.NEW_KEYS, warmup, "warmup");
+
+            List<Result> results = new ArrayList<>();
+            for (Scenario scenario : scenarios) {
+                results.add(execute(scenario, requests, scenario.id));
+            }
+
+            report(results);
+            System.out.printf("Stubs: party-service %d peticiones (%d errores simulados), notification-api %d peticiones (%d errores simulados)%n",
+                    party.requests(), party.errors(), notification.requests(), notification.errors());
+        }
+    }
+
+    private ConfigurableApplicationContext startApplication(StubServer party, StubServer notification) {
+        List<String> profiles = new ArrayList<>(List.of("loadtest"));
+        String extraProfiles = System.getProperty("loadtest.profiles", "");
+        if (!extraProfiles.isBlank()) {
+            profiles.addAll(Arrays.asList(extraProfiles.split(",")));
+        }
+        // Argumentos de línea de comandos: prevalecen sobre application-loadtest.yml
+        return new SpringApplicationBuilder(ValidationApiApplication.class)
+                .profiles(profiles.toArray(String[]::new))
+                .run("--server.port=0",
+                        "--spring.cloud.config.enabled=false",
+                        "--party.service.url=" + party.url(),
+                        "--notification.api.url=" + notification.url());
+    }
+
+    private Result execute(Scenario scenario, int count, String keyPrefix) throws Exception {
+        IntFunction<String> keys = switch (scenario) {
+            case NEW_KEYS, INVALID_PAYLOADS -> i -> runId + "-" + keyPrefix + "-" + i;
+            // Peticiones consecutivas comparten llave: los clientes las toman casi a la vez
+            case CONCURRENT_DUPLICATES -> i -> runId + "-" + keyPrefix + "-" + (i / duplicates);
+            case REPLAYS -> {
+                // Llaves resueltas antes de medir (fuera de la medición)
+                int pool = Math.min(count, 1_000);
+                execute(Scenario.NEW_KEYS, pool, keyPrefix);
+                yield i -> runId + "-" + keyPrefix + "-" + (i % pool);
+            }
+        };
+        byte[] payload = scenario == Scenario.INVALID_PAYLOADS ? invalidPayload : validPayload;
+
+        Histogram latencies = new ConcurrentHistogram(MAX_LATENCY_MICROS, 3);
+        Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+        AtomicInteger next = new AtomicInteger();
+
+        long start = System.nanoTime();
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> futures = new ArrayList<>(concurrency);
+            for (int c = 0; c < concurrency; c++) {
+                futures.add(clients.submit(() -> {
+                    for (int i = next.getAndIncrement(); i < count; i = next.getAndIncrement()) {
+                        long sent = System.nanoTime();
+                        int status = send(keys.apply(i), payload);
+                        latencies.recordValue(Math.min((System.nanoTime() - sent) / 1_000, MAX_LATENCY_MICROS));
+                        statuses.computeIfAbsent(status, s -> new LongAdder()).increment();
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        return new Result(scenario, count, System.nanoTime() - start, latencies, statuses);
+    }
+
+    // Código HTTP de la respuesta, o 0 si la petición no llegó a completarse (conexión rechazada, timeout)
+    private int send(String idempotencyKey, byte[] payload) {
+        HttpRequest request = HttpRequest.newBuilder(endpoint)
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .header("x-idempotency-key", idempotencyKey)
+                .header("x-fapi-interaction-id", UUID.randomUUID().toString())
+                .header("Consent-ID", "loadtest-consent")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(payload))
+                .build();
+        try {
+            return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (IOException e) {
+            return 0;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 0;
+        }
+    }
+
+    private void report(List<Result> results) {
+        System.out.printf("%nValidationController de extremo a extremo: %d clientes concurrentes, %d peticiones por escenario%n",
+                concurrency, requests);
+        System.out.printf("%-24s %10s %10s %10s %10s %10s %10s  %s%n",
+                "escenario", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms", "media ms", "respuestas HTTP");
+        for (Result result : results) {
+            Histogram h = result.latencies();
+            System.out.printf("%-24s %10.0f %10.2f %10.2f %10.2f %10.2f %10.2f  %s%n",
+                    result.scenario().id,
+                    result.requests() / (result.elapsedNanos() / 1e9),
+                    h.getValueAtPercentile(50) / 1e3,
+                    h.getValueAtPercentile(99) / 1e3,
+                    h.getValueAtPercentile(99.9) / 1e3,
+                    h.getMaxValue() / 1e3,
+                    h.getMean() / 1e3,
+                    new TreeMap<>(result.statuses()));
+        }
+        System.out.println();
+    }
+
+    // Mismo formato que las duraciones de application.yml (ej: 20ms, 1s)
+    private static Duration duration(String property, String defaultValue) {
+        return DurationStyle.detectAndParse(System.getProperty(property, defaultValue));
+    }
+}
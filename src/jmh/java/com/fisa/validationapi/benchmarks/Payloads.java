@@ -0,0 +1,57 @@
+package com.fisa.validationapi.benchmarks;
+
+/**
+ * Cuerpos JSON sintéticos para los benchmarks.
+ */
+final class Payloads {
+
+    private Payloads() {
+    }
+
+    /**
+     * Petición de onboarding válida, rellenada con direcciones adicionales hasta aproximadamente el tamaño pedido.
+     */
+    static String onboardingRequest(int approximateSize) {
+        return onboardingRequest(approximateSize, "EC");
+    }
+
+    /**
+     * Petición de onboarding con el código de país indicado (ej: "ZZZ" para una petición que viola las reglas ISO).
+     */
+    static String onboardingRequest(int approximateSize, String countryCode) {
+        StringBuilder json = new StringBuilder(approximateSize + 256);
+        json.append("{\"referenceData\":{")
+                .append("\"fullLegalName\":\"Comercializadora Andina de Servicios S.A.\",")
+                .append("\"identityNumber\":\"1790012345001\",")
+                .append("\"countryCode\":\"").append(countryCode).append("\",\"townName\":\"Quito\"},\"addresses\":[");
+        int i = 0;
+        while (json.length() < approximateSize) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"line\":\"Av. Amazonas N").append(i).append("-45\",\"city\":\"Quito\"}");
+            i++;
+        }
+        return json.append("]}").toString();
+    }
+
+    /**
+     * Respuesta típica del Party Service, rellenada con notas hasta aproximadamente el tamaño pedido.
+     */
+    static String partyResponse(int approximateSize) {
+        StringBuilder json = new StringBuilder(approximateSize + 256);
+        json.append("{\"partyRefId\":\"PTY-000123456\",\"referenceData\":{")
+                .append("\"fullLegalName\":\"Comercializadora Andina de Servicios S.A.\",")
+                .append("\"identityNumber\":\"1790012345001\",")
+                .append("\"countryCode\":\"EC\",\"townName\":\"Quito\"},\"notes\":[");
+        int i = 0;
+        while (json.length() < approximateSize) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"seq\":").append(i).append(",\"text\":\"Registro de auditoria del onboarding ").append(i).append("\"}");
+            i++;
+        }
+        return json.append("]}").toString();
+    }
+}
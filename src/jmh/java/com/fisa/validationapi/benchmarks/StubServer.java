@@ -0,0 +1,89 @@
+package com.fisa.validationapi.benchmarks;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stub HTTP local (servidor del JDK) que sustituye a un servicio remoto en las pruebas de carga:
+ * responde siempre el mismo cuerpo tras una latencia simulada y falla con 500 en la proporción indicada.
+ * Cada petición se atiende en un hilo virtual, así la latencia simulada no limita la concurrencia del stub.
+ */
+final class StubServer implements AutoCloseable {
+
+    static {
+        // El servidor del JDK cierra las conexiones inactivas por encima de 200: con más clientes concurrentes
+        // el pool de HttpClient 5 reutilizaría sockets ya cerrados ("failed to respond")
+        System.getProperties().putIfAbsent("sun.net.httpserver.maxIdleConnections", "1024");
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+
+    /**
+     * @param latency   Tiempo de respuesta simulado (uniforme entre la mitad y 1,5 veces este valor).
+     * @param errorRate Proporción de peticiones que responden 500 (0 a 1).
+     */
+    StubServer(String origin, String path, int status, byte[] body, Duration latency, double errorRate) throws IOException {
+        byte[] errorBody = ("{\"origin\":\"" + origin + "\",\"errorType\":\"InternalServerError\",\"message\":\"Error simulado por el stub\"}")
+                .getBytes(StandardCharsets.UTF_8);
+        long latencyNanos = latency.toNanos();
+
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1024);
+        server.setExecutor(executor);
+        server.createContext(path, exchange -> {
+            requests.incrementAndGet();
+            exchange.getRequestBody().readAllBytes();
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            if (latencyNanos > 0) {
+                try {
+                    Thread.sleep(Duration.ofNanos(latencyNanos / 2 + random.nextLong(latencyNanos + 1)));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            boolean fail = random.nextDouble() < errorRate;
+            byte[] response = fail ? errorBody : body;
+            if (fail) {
+                errors.incrementAndGet();
+            }
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(fail ? 500 : status, response.length == 0 ? -1 : response.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(response);
+            }
+        });
+        server.start();
+    }
+
+    String url() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    long requests() {
+        return requests.get();
+    }
+
+    long errors() {
+        return errors.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
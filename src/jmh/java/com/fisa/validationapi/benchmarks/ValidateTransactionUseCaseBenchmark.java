@@ -0,0 +1,118 @@
+package com.fisa.validationapi.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fisa.validationapi.application.services.IdempotencyService;
+import com.fisa.validationapi.application.services.Iso20022ValidatorService;
+import com.fisa.validationapi.application.services.PayloadFingerprint;
+import com.fisa.validationapi.application.services.ValidationMetrics;
+import com.fisa.validationapi.application.services.rules.Pacs008ReferenceDataRules;
+import com.fisa.validationapi.application.usecases.ValidateTransactionUseCaseImpl;
+import com.fisa.validationapi.domain.models.IdempotencyRecord;
+import com.fisa.validationapi.infrastructure.adapters.output.feign.PartyServiceClient;
+import com.fisa.validationapi.infrastructure.adapters.output.journal.NoOpPartyCallJournal;
+import com.fisa.validationapi.infrastructure.adapters.output.memory.InMemoryIdempotencyAdapter;
+import com.fisa.validationapi.infrastructure.adapters.output.notification.AlertAggregator;
+import com.fisa.validationapi.infrastructure.adapters.output.notification.AsyncNotificationDispatcher;
+import com.fisa.validationapi.infrastructure.adapters.output.redis.IdempotencyRetentionPolicy;
+import com.fisa.validationapi.infrastructure.config.IdempotencyProperties;
+import com.fisa.validationapi.infrastructure.config.NotificationProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.ResponseEntity;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Flujo completo de ValidateTransactionUseCaseImpl con Redis, Party Service y notification-api
+ * sustituidos por dobles en memoria sin latencia: mide solo el costo propio del servicio (µs/op).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidateTransactionUseCaseBenchmark {
+
+    // Tamaño aproximado del payload (bytes)
+    @Param({"512", "8192"})
+    public int payloadSize;
+
+    // false: la validación ISO falla (registro FAILED + correo de alerta)
+    @Param({"true", "false"})
+    public boolean valid;
+
+    private final AtomicLong keySequence = new AtomicLong();
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private PartyServiceClient partyServiceClient;
+    private AsyncNotificationDispatcher notificationDispatcher;
+    private ValidateTransactionUseCaseImpl useCase;
+    private byte[] payload;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String partyResponse = Payloads.partyResponse(512);
+        partyServiceClient = partyJson -> ResponseEntity.status(201).body(partyResponse);
+
+        // Cola amplia y cliente vacío: el despachador no debe descartar correos durante la medición
+        NotificationProperties notificationProperties = new NotificationProperties();
+        notificationProperties.setCapacity(100_000);
+        notificationDispatcher = new AsyncNotificationDispatcher(request -> { }, notificationProperties, new SimpleMeterRegistry());
+        notificationDispatcher.start();
+
+        payload = Payloads.onboardingRequest(payloadSize, valid ? "EC" : "ZZZ").getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Setup(Level.Iteration)
+    public void newRepository() {
+        // Cada iteración empieza con un repositorio pequeño (solo la llave repetida)
+        InMemoryIdempotencyAdapter repository = new InMemoryIdempotencyAdapter(
+                new IdempotencyRetentionPolicy(new IdempotencyProperties.Retention(), new SimpleMeterRegistry()));
+        useCase = new ValidateTransactionUseCaseImpl(
+                new IdempotencyService(repository),
+                new Iso20022ValidatorService(objectMapper, Pacs008ReferenceDataRules.RULES, false),
+                partyServiceClient,
+                notificationDispatcher,
+                new AlertAggregator(notificationDispatcher, Duration.ofMinutes(1), new SimpleMeterRegistry()),
+                objectMapper,
+                Runnable::run,
+                new ValidationMetrics(new SimpleMeterRegistry()),
+                new PayloadFingerprint(objectMapper.getFactory()),
+                NoOpPartyCallJournal.INSTANCE);
+        useCase.validateAndProcess("replayed-key", payload);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        notificationDispatcher.stop();
+    }
+
+    @Benchmark
+    public IdempotencyRecord newRequest() {
+        // Llave nueva: bloqueo, validación, llamada a Party, guardado y correo
+        return useCase.validateAndProcess("key-" + keySequence.incrementAndGet(), payload);
+    }
+
+    @Benchmark
+    public IdempotencyRecord replayedRequest() {
+        // Reintento de una llave ya resuelta: solo la consulta de idempotencia
+        return useCase.validateAndProcess("replayed-key", payload);
+    }
+}
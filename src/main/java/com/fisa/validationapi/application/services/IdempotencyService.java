@@ -3,54 +3,131 @@ package com.fisa.validationapi.application.services;
 import com.fisa.validationapi.domain.models.IdempotencyRecord;
 import com.fisa.validationapi.domain.models.enums.IdempotencyStatus;
 import com.fisa.validationapi.domain.ports.out.IdempotencyRepositoryPort;
-import lombok.RequiredArgsConstructor;
+import com.fisa.validationapi.domain.ports.out.IdempotencyResultPort;
 import lombok.extern.slf4j.Slf4j;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 
 @Slf4j
-@RequiredArgsConstructor
 public class IdempotencyService {
 
     private final IdempotencyRepositoryPort idempotencyRepository;
 
+    // Modo opcional "wait-for-result": null si los reintentos concurrentes reciben 409 de inmediato
+    private final IdempotencyResultPort resultPort;
+    private final Duration waitTimeout;
+
+    // Vida del bloqueo durante la llamada a Party Service (diario activo); null si el bloqueo sigue con su lease normal
+    private final Duration partyCallLease;
+
+    public IdempotencyService(IdempotencyRepositoryPort idempotencyRepository) {
+        this(idempotencyRepository, null, Duration.ZERO);
+    }
+
+    public IdempotencyService(IdempotencyRepositoryPort idempotencyRepository, IdempotencyResultPort resultPort, Duration waitTimeout) {
+        this(idempotencyRepository, resultPort, waitTimeout, null);
+    }
+
+    public IdempotencyService(IdempotencyRepositoryPort idempotencyRepository, IdempotencyResultPort resultPort, Duration waitTimeout,
+                              Duration partyCallLease) {
+        this.idempotencyRepository = idempotencyRepository;
+        this.resultPort = resultPort;
+        this.waitTimeout = waitTimeout;
+        this.partyCallLease = partyCallLease;
+    }
+
     /**
      * Intenta iniciar una transacción idempotente.
      * * @param key La llave de idempotencia (x-idempotency-key).
+     * @param payloadHash Huella del payload (queda en el registro para detectar la reutilización de la llave).
      * @return Optional vacío si es una petición nueva (SE PUEDE PROCESAR).
      * Optional con IdempotencyRecord si ya existe (YA FUE PROCESADA o está en proceso).
      * @throws RuntimeException Si Redis está caído (Fail-Safe: no procesar si no se puede bloquear).
      */
-    public Optional<IdempotencyRecord> checkAndLock(String key) {
-        // Buscar si ya existe la llave
-        Optional<IdempotencyRecord> existingRecord = idempotencyRepository.findByKey(key);
-
-        if (existingRecord.isPresent()) {
-            log.info("Idempotency: Llave {} encontrada con estado {}", key, existingRecord.get().getStatus());
-            return existingRecord; // Devolver el registro existente indicando conflicto.
-        }
-
-        // Si no existe, se crea el bloqueo (Estado: PROCESSING)
-        log.info("Idempotency: Llave {} nueva. Bloqueando...", key);
-
+    public Optional<IdempotencyRecord> checkAndLock(String key, long payloadHash) {
         IdempotencyRecord newRecord = IdempotencyRecord.builder()
                 .key(key)
                 .status(IdempotencyStatus.PROCESSING)
                 .createdAt(LocalDateTime.now())
+                .payloadHash(payloadHash)
                 .build();
 
-        // Guardar en Redis.
+        // Buscar la llave y, si no existe, crear el bloqueo (Estado: PROCESSING) en una sola operación atómica.
         // Si Redis falla aquí, el Adapter lanzará excepción y el flujo se detendrá (Correcto).
-        idempotencyRepository.save(newRecord);
+        Optional<IdempotencyRecord> existingRecord = idempotencyRepository.acquireLock(newRecord);
+
+        if (existingRecord.isPresent()) {
+            log.info("Idempotency: Llave {} encontrada con estado {}", key, existingRecord.get().getStatus());
+            return existingRecord; // Devolver el registro existente indicando conflicto.
+        }
 
+        log.info("Idempotency: Llave {} nueva. Bloqueada.", key);
         return Optional.empty(); // Indicar que se puede proseguir, pues no hay conflicto de idempotency-key.
     }
 
+    /**
+     * Si el registro existente sigue en PROCESSING y el modo "wait-for-result" está activo,
+     * espera (como máximo el timeout configurado) el resultado final de la petición original.
+     * @return El registro final, o el mismo registro recibido si no se espera o no terminó a tiempo.
+     */
+    public IdempotencyRecord awaitIfProcessing(IdempotencyRecord existing) {
+        if (resultPort == null || existing.getStatus() != IdempotencyStatus.PROCESSING) {
+            return existing;
+        }
+        log.info("Idempotency: Llave {} en proceso. Esperando su resultado (máx. {} ms)", existing.getKey(), waitTimeout.toMillis());
+        return resultPort.awaitResult(existing.getKey(), waitTimeout).orElse(existing);
+    }
+
+    /**
+     * Igual que {@link #checkAndLock} para varias llaves de una carga masiva, en una sola ida y vuelta a Redis.
+     * @param payloadHashes Huella del payload de cada llave, en el mismo orden.
+     * @return Un resultado por llave, en el mismo orden recibido.
+     */
+    public List<Optional<IdempotencyRecord>> checkAndLockAll(List<String> keys, long[] payloadHashes) {
+        LocalDateTime now = LocalDateTime.now();
+        List<IdempotencyRecord> newRecords = new ArrayList<>(keys.size());
+        for (int i = 0; i < keys.size(); i++) {
+            newRecords.add(IdempotencyRecord.builder()
+                    .key(keys.get(i))
+                    .status(IdempotencyStatus.PROCESSING)
+                    .createdAt(now)
+                    .payloadHash(payloadHashes[i])
+                    .build());
+        }
+
+        List<Optional<IdempotencyRecord>> existingRecords = idempotencyRepository.acquireLocks(newRecords);
+
+        long locked = existingRecords.stream().filter(Optional::isEmpty).count();
+        log.info("Idempotency: {} de {} llaves nuevas bloqueadas.", locked, keys.size());
+        return existingRecords;
+    }
+
+    /**
+     * Justo antes de llamar a Party Service: extiende el bloqueo de la llave al lease de la llamada (sin renovar),
+     * para que un reintento en otro nodo no lo tome mientras el diario de este nodo no la haya reconciliado.
+     * Sin lease de llamada configurado no hace nada.
+     * @return false si el bloqueo ya no pertenece a esta petición: no se debe llamar a Party Service.
+     * @throws RuntimeException Si Redis está caído (no se llama a Party Service sin asegurar el bloqueo).
+     */
+    public boolean holdForPartyCall(String key) {
+        if (partyCallLease == null) {
+            return true;
+        }
+        boolean held = idempotencyRepository.holdLock(key, partyCallLease);
+        if (!held) {
+            log.warn("Idempotency: Llave {} perdió su bloqueo antes de llamar a Party Service", key);
+        }
+        return held;
+    }
+
     /**
      * Finaliza la transacción exitosamente guardando la respuesta.
      */
-    public void saveSuccess(String key, int httpStatus, String responseBody) {
+    public void saveSuccess(String key, long payloadHash, int httpStatus, String responseBody) {
         log.info("Idempotency: Actualizando llave {} a COMPLETED", key);
 
         IdempotencyRecord record = IdempotencyRecord.builder()
@@ -59,24 +136,37 @@ public class IdempotencyService {
                 .httpStatusCode(httpStatus)
                 .responseBody(responseBody)
                 .createdAt(LocalDateTime.now())
+                .payloadHash(payloadHash)
                 .build();
 
         idempotencyRepository.save(record);
+        notifyWaiters(record);
     }
 
     /**
      * Marca la transacción como fallida para permitir reintentos futuros (o bloquear según regla).
+     * @param httpStatus Código HTTP con el que se respondió (se repite en los reintentos).
+     * @param responseBody Cuerpo JSON con el que se respondió: los reintentos y las esperas reciben exactamente este.
      */
-    public void saveFailure(String key, String errorDetail) {
+    public void saveFailure(String key, long payloadHash, int httpStatus, String responseBody) {
         log.warn("Idempotency: Marcando llave {} como FAILED", key);
 
         IdempotencyRecord record = IdempotencyRecord.builder()
                 .key(key)
                 .status(IdempotencyStatus.FAILED)
-                .responseBody(errorDetail) // Se guarda el error para auditoría
+                .httpStatusCode(httpStatus)
+                .responseBody(responseBody) // Se guarda el error para auditoría
                 .createdAt(LocalDateTime.now())
+                .payloadHash(payloadHash)
                 .build();
 
         idempotencyRepository.save(record);
+        notifyWaiters(record);
+    }
+
+    private void notifyWaiters(IdempotencyRecord record) {
+        if (resultPort != null) {
+            resultPort.resultSaved(record);
+        }
     }
 }
\ No newline at end of file
@@ -1,111 +1,167 @@
 package com.fisa.validationapi.application.services;
 
-import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fisa.validationapi.application.services.rules.CountryCodes;
+import com.fisa.validationapi.application.services.rules.IsoRuleSet;
+import com.fisa.validationapi.application.services.rules.IsoRuleViolationException;
+import com.fisa.validationapi.application.services.rules.Pacs008ReferenceDataRules;
+import com.fisa.validationapi.domain.models.PartyReferenceData;
 import com.prowidesoftware.swift.model.mx.MxPacs00800108;
 import com.prowidesoftware.swift.model.mx.dic.*;
-import lombok.RequiredArgsConstructor;
+import com.github.benmanes.caffeine.cache.Cache;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.stereotype.Service;
 
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
 import java.time.OffsetDateTime;
+import java.time.ZoneId;
 
 @Slf4j
-@Service
-@RequiredArgsConstructor
 public class Iso20022ValidatorService {
 
-    private final ObjectMapper objectMapper;
-
-    public void validateJsonStructure(String jsonPayload) {
-        log.info("Iniciando 'Trial Assembly' con ISO 20022 (pacs.008.001.08)...");
+    // Partes invariables del mensaje de prueba (modo deep): no se modifican tras crearse
+    private static final SettlementInstruction7 SETTLEMENT_INSTRUCTION = settlementInstruction();
+    private static final ActiveCurrencyAndAmount ZERO_USD = zeroUsd();
 
-        try {
-            JsonNode root = objectMapper.readTree(jsonPayload);
-            JsonNode refData = root.path("referenceData");
+    // Deudor sintético del calentamiento
+    private static final PartyReferenceData WARM_UP_DATA = PartyReferenceData.builder()
+            .fullLegalName("Warm Up")
+            .identityNumber("0000000000")
+            .countryCode("EC")
+            .townName("Quito")
+            .build();
 
-            if (refData.isMissingNode()) {
-                throw new IllegalArgumentException("El bloque 'referenceData' es obligatorio.");
-            }
+    private final ObjectMapper objectMapper;
 
-            // Mensaje Raíz
-            MxPacs00800108 mx = new MxPacs00800108();
+    // Reglas ISO precompiladas que se evalúan directamente sobre el JSON
+    private final IsoRuleSet rules;
 
-            // structura Principal
-            FIToFICustomerCreditTransferV08 creditTransfer = new FIToFICustomerCreditTransferV08();
+    // Modo "deep": además de las reglas, ensambla el mensaje MX completo y genera su XML ("Trial Assembly")
+    private final boolean deepMode;
 
-            // Header
-            GroupHeader93 grpHdr = new GroupHeader93();
-            grpHdr.setMsgId("VALIDATION-" + System.currentTimeMillis());
-            grpHdr.setCreDtTm(OffsetDateTime.now());
-            grpHdr.setNbOfTxs("1"); // Número de transacciones (obligatorio en algunos validadores)
+    // Veredictos recientes por huella del payload (null = sin caché, se valida siempre).
+    // La huella de 64 bits solo ubica la entrada: el veredicto se reutiliza si además coincide el SHA-256 del payload
+    private final Cache<Long, Verdict> verdicts;
 
-            // Settlement Info (Obligatorio para que sea un pacs.008 válido semánticamente)
-            SettlementInstruction7 sttlmInf = new SettlementInstruction7();
-            sttlmInf.setSttlmMtd(SettlementMethod1Code.CLRG); // Método de liquidación: Clearing
-            grpHdr.setSttlmInf(sttlmInf);
+    // Validaciones en curso por SHA-256 del payload: peticiones simultáneas con el mismo payload comparten una sola.
+    // La huella de 64 bits no sirve de llave: un payload fabricado para colisionar recibiría el veredicto de otro
+    private final SingleFlight<ByteBuffer, Verdict> validations;
 
-            creditTransfer.setGrpHdr(grpHdr);
+    /**
+     * Resultado de validar un payload: los datos extraídos o la regla y el mensaje con los que se rechazó.
+     * Las reglas son deterministas, así que el mismo payload siempre produce el mismo veredicto.
+     * Guarda la regla y no la excepción: cada petición rechazada lanza la suya (sin pila ni supresiones compartidas).
+     * Guarda también el SHA-256 del payload evaluado: solo se reutiliza para un payload con los mismos bytes.
+     */
+    public record Verdict(PartyReferenceData referenceData, String rule, String message, byte[] digest) {
 
-            // Transacción
-            CreditTransferTransaction39 txInfo = new CreditTransferTransaction39();
+        static Verdict rejected(IllegalArgumentException e, byte[] digest) {
+            String rule = e instanceof IsoRuleViolationException violation ? violation.getRule() : ValidationMetrics.MALFORMED_RULE;
+            return new Verdict(null, rule, e.getMessage(), digest);
+        }
 
-            // ID de Pago
-            PaymentIdentification7 pmtId = new PaymentIdentification7();
-            pmtId.setEndToEndId("E2E-" + System.currentTimeMillis());
-            pmtId.setTxId("TX-" + System.currentTimeMillis()); // Transaction ID también suele ser requerido
-            txInfo.setPmtId(pmtId);
+        boolean matches(byte[] payloadDigest) {
+            return MessageDigest.isEqual(digest, payloadDigest);
+        }
 
-            // Deudor / Debtor (Validación de datos)
-            PartyIdentification135 debtor = new PartyIdentification135();
+        boolean isRejected() {
+            return rule != null;
+        }
 
-            // --- Validar Nombre ---
-            String fullName = refData.path("fullLegalName").asText();
-            if (fullName != null && fullName.length() > 140) {
-                throw new IllegalArgumentException("ISO Rule Violation: Name exceeds 140 chars");
-            }
-            debtor.setNm(fullName);
+        IsoRuleViolationException violation() {
+            return new IsoRuleViolationException(rule, message);
+        }
+    }
 
-            // --- Validar Dirección ---
-            PostalAddress24 address = new PostalAddress24();
-            String countryCode = refData.path("countryCode").asText();
+    public Iso20022ValidatorService(ObjectMapper objectMapper, IsoRuleSet rules, boolean deepMode) {
+        this(objectMapper, rules, deepMode, null);
+    }
 
-            if (countryCode != null) {
-                if (!countryCode.matches("^[A-Z]{3}$") && !countryCode.matches("^[A-Z]{2}$")) {
-                    throw new IllegalArgumentException("ISO Rule Violation: Invalid Country Code format");
-                }
-                // Ajuste a 2 letras para Prowide
-                address.setCtry(countryCode.substring(0, 2));
-            }
+    public Iso20022ValidatorService(ObjectMapper objectMapper, IsoRuleSet rules, boolean deepMode, Cache<Long, Verdict> verdicts) {
+        this(objectMapper, rules, deepMode, verdicts, new SingleFlight<>());
+    }
 
-            String townName = refData.path("townName").asText();
-            address.setTwnNm(townName);
-            debtor.setPstlAdr(address);
+    public Iso20022ValidatorService(ObjectMapper objectMapper, IsoRuleSet rules, boolean deepMode, Cache<Long, Verdict> verdicts,
+                                    SingleFlight<ByteBuffer, Verdict> validations) {
+        this.objectMapper = objectMapper;
+        this.rules = rules;
+        this.deepMode = deepMode;
+        this.verdicts = verdicts;
+        this.validations = validations;
+    }
 
-            txInfo.setDbtr(debtor);
+    /**
+     * Igual que {@link #validateJsonStructure(byte[])}, pero un payload idéntico a otro validado hace poco
+     * reutiliza su veredicto (válido o rechazado) sin volver a recorrer el JSON.
+     * Peticiones simultáneas con el mismo payload esperan una única validación (también sin caché).
+     * "Idéntico" es byte a byte (SHA-256): un payload con la misma huella y otros bytes se valida por su cuenta
+     * y reemplaza la entrada de la caché.
+     * @param payloadHash Huella del payload (PayloadFingerprint).
+     */
+    public PartyReferenceData validateJsonStructure(byte[] jsonPayload, long payloadHash) {
+        byte[] digest = digest(jsonPayload);
+        Verdict verdict = verdicts != null ? verdicts.getIfPresent(payloadHash) : null;
+        if (verdict == null || !verdict.matches(digest)) {
+            // Fuera de la caché: su carga atómica bloquearía también otras llaves del mismo bucket mientras se valida
+            verdict = validations.execute(ByteBuffer.wrap(digest), () -> {
+                Verdict evaluated = evaluate(jsonPayload, digest);
+                if (verdicts != null) {
+                    verdicts.put(payloadHash, evaluated);
+                }
+                return evaluated;
+            });
+        }
+        if (verdict.isRejected()) {
+            throw verdict.violation();
+        }
+        return verdict.referenceData();
+    }
 
-            // Monto
-            ActiveCurrencyAndAmount amount = new ActiveCurrencyAndAmount();
-            amount.setCcy("USD");
-            amount.setValue(BigDecimal.ZERO);
-            txInfo.setIntrBkSttlmAmt(amount);
+    /**
+     * Indica si {@link #validateJsonStructure(byte[], long)} puede ocupar el hilo más que unos microsegundos:
+     * en modo deep (ensamblaje MX + XML) o si ya hay una validación del mismo payload en curso que habría que esperar.
+     * Un veredicto en caché del mismo payload se responde sin bloquear.
+     */
+    public boolean mayBlock(byte[] jsonPayload, long payloadHash) {
+        byte[] digest = digest(jsonPayload);
+        Verdict cached = verdicts != null ? verdicts.getIfPresent(payloadHash) : null;
+        if (cached != null && cached.matches(digest)) {
+            return false;
+        }
+        return deepMode || validations.isRunning(ByteBuffer.wrap(digest));
+    }
 
-            // Charge Bearer (Quién paga la comisión). Es obligatorio en pacs.008
-            txInfo.setChrgBr(ChargeBearerType1Code.DEBT);
+    /**
+     * Valida el payload en una sola pasada de streaming (sin construir un árbol JsonNode),
+     * leyendo directamente los bytes UTF-8 del cuerpo (sin decodificarlos antes a String).
+     * @return Los datos de 'referenceData' necesarios aguas abajo.
+     * @throws IllegalArgumentException Si el payload incumple alguna regla o no es un JSON válido.
+     */
+    public PartyReferenceData validateJsonStructure(byte[] jsonPayload) {
+        try {
+            return validate(objectMapper.getFactory().createParser(jsonPayload));
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Datos inválidos ISO 20022: " + e.getMessage());
+        }
+    }
 
-            // Ensamblaje Final
-            creditTransfer.addCdtTrfTxInf(txInfo);
-            mx.setFIToFICstmrCdtTrf(creditTransfer);
+    private PartyReferenceData validate(JsonParser jsonParser) {
+        log.info("Iniciando validación ISO 20022 (pacs.008.001.08)...");
 
-            // Generar XML
-            String xmlResult = mx.message();
+        try (JsonParser parser = jsonParser) {
+            PartyReferenceData referenceData = extract(parser);
 
-            if (xmlResult == null || xmlResult.isEmpty()) {
-                throw new IllegalArgumentException("Fallo interno generando XML ISO.");
+            if (deepMode) {
+                assembleMessage(referenceData);
             }
 
             log.info("Compliance ISO 20022 Verificado Correctamente.");
+            return referenceData;
 
         } catch (IllegalArgumentException e) {
             throw e;
@@ -114,4 +170,131 @@ public class Iso20022ValidatorService {
             throw new IllegalArgumentException("Datos inválidos ISO 20022: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    private PartyReferenceData extract(JsonParser parser) throws IOException {
+        IsoRuleSet.FieldValues values = rules.validate(parser);
+        return PartyReferenceData.builder()
+                .fullLegalName(values.get(Pacs008ReferenceDataRules.FULL_LEGAL_NAME))
+                .identityNumber(values.get(Pacs008ReferenceDataRules.IDENTITY_NUMBER))
+                .countryCode(values.get(Pacs008ReferenceDataRules.COUNTRY_CODE))
+                .townName(values.get(Pacs008ReferenceDataRules.TOWN_NAME))
+                .build();
+    }
+
+    private Verdict evaluate(byte[] jsonPayload, byte[] digest) {
+        try {
+            return new Verdict(validateJsonStructure(jsonPayload), null, null, digest);
+        } catch (IllegalArgumentException e) {
+            return Verdict.rejected(e, digest);
+        }
+    }
+
+    private static byte[] digest(byte[] jsonPayload) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(jsonPayload);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e); // Obligatorio en toda JVM
+        }
+    }
+
+    /**
+     * Inicializa al arrancar lo que la primera validación en modo deep pagaría en la petición del cliente:
+     * el contexto JAXB de Prowide para pacs.008 (cientos de ms). Sin modo deep no hace nada.
+     */
+    public void warmUp() {
+        if (!deepMode) {
+            return;
+        }
+        assembleMessage(WARM_UP_DATA);
+    }
+
+    /**
+     * Recorre las reglas sobre un payload sintético las veces indicadas (compilación JIT antes de la primera petición),
+     * sin los logs por petición ni la caché de veredictos. Los rechazos se descartan.
+     */
+    public void warmUpRules(byte[] jsonPayload, int iterations) {
+        for (int i = 0; i < iterations; i++) {
+            try (JsonParser parser = objectMapper.getFactory().createParser(jsonPayload)) {
+                extract(parser);
+            } catch (IllegalArgumentException | IOException ignored) {
+                // Payload rechazado: también es un camino que se quiere compilar
+            }
+        }
+    }
+
+    /**
+     * "Trial Assembly": construye el mensaje pacs.008 completo con los datos del deudor y genera el XML.
+     * Solo se ejecuta en modo deep, ya que el marshalling XML es costoso y las reglas ya cubren los datos.
+     * Las partes invariables del mensaje son constantes compartidas (el marshalling solo las lee);
+     * por petición se crean el encabezado, los identificadores y el deudor.
+     */
+    private void assembleMessage(PartyReferenceData refData) {
+        log.info("Iniciando 'Trial Assembly' con ISO 20022 (pacs.008.001.08)...");
+
+        // Una sola lectura del reloj para la fecha de creación y los identificadores
+        Instant now = Instant.now();
+        String timestamp = String.valueOf(now.toEpochMilli());
+
+        // Header
+        GroupHeader93 grpHdr = new GroupHeader93();
+        grpHdr.setMsgId("VALIDATION-" + timestamp);
+        grpHdr.setCreDtTm(OffsetDateTime.ofInstant(now, ZoneId.systemDefault()));
+        grpHdr.setNbOfTxs("1"); // Número de transacciones (obligatorio en algunos validadores)
+        grpHdr.setSttlmInf(SETTLEMENT_INSTRUCTION);
+
+        // Transacción
+        CreditTransferTransaction39 txInfo = new CreditTransferTransaction39();
+
+        // ID de Pago
+        PaymentIdentification7 pmtId = new PaymentIdentification7();
+        pmtId.setEndToEndId("E2E-" + timestamp);
+        pmtId.setTxId("TX-" + timestamp); // Transaction ID también suele ser requerido
+        txInfo.setPmtId(pmtId);
+
+        // Deudor / Debtor (Validación de datos)
+        PartyIdentification135 debtor = new PartyIdentification135();
+
+        // --- Nombre ---
+        debtor.setNm(refData.getFullLegalName());
+
+        // --- Dirección ---
+        PostalAddress24 address = new PostalAddress24();
+        // Conversión a alpha-2 para Prowide (ej: "AUT" -> "AT"); el código ya fue validado por las reglas
+        address.setCtry(CountryCodes.toAlpha2(refData.getCountryCode()));
+        address.setTwnNm(refData.getTownName());
+        debtor.setPstlAdr(address);
+
+        txInfo.setDbtr(debtor);
+        txInfo.setIntrBkSttlmAmt(ZERO_USD);
+        txInfo.setChrgBr(ChargeBearerType1Code.DEBT); // Quién paga la comisión (obligatorio en pacs.008)
+
+        // Ensamblaje Final
+        FIToFICustomerCreditTransferV08 creditTransfer = new FIToFICustomerCreditTransferV08();
+        creditTransfer.setGrpHdr(grpHdr);
+        creditTransfer.addCdtTrfTxInf(txInfo);
+        MxPacs00800108 mx = new MxPacs00800108();
+        mx.setFIToFICstmrCdtTrf(creditTransfer);
+
+        // Generar XML
+        String xmlResult = mx.message();
+
+        if (xmlResult == null || xmlResult.isEmpty()) {
+            throw new IllegalArgumentException("Fallo interno generando XML ISO.");
+        }
+    }
+
+    // Settlement Info (obligatorio para que sea un pacs.008 válido semánticamente): liquidación por Clearing
+    private static SettlementInstruction7 settlementInstruction() {
+        SettlementInstruction7 sttlmInf = new SettlementInstruction7();
+        sttlmInf.setSttlmMtd(SettlementMethod1Code.CLRG);
+        return sttlmInf;
+    }
+
+    // Monto de la transacción de prueba
+    private static ActiveCurrencyAndAmount zeroUsd() {
+        ActiveCurrencyAndAmount amount = new ActiveCurrencyAndAmount();
+        amount.setCcy("USD");
+        amount.setValue(BigDecimal.ZERO);
+        return amount;
+    }
+}
@@ -0,0 +1,82 @@
+package com.fisa.validationapi.application.services;
+
+import com.fisa.validationapi.domain.models.IdempotencyRecord;
+import com.fisa.validationapi.domain.models.PendingPartyCall;
+import com.fisa.validationapi.domain.models.enums.IdempotencyStatus;
+import com.fisa.validationapi.domain.ports.out.IdempotencyRepositoryPort;
+import com.fisa.validationapi.domain.ports.out.PartyCallJournalPort;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Reconcilia las llamadas a Party Service que quedaron sin cerrar en el diario: al arrancar, las que el nodo dejó
+ * al caer; y periódicamente, las de esta ejecución cuya petición no alcanzó a guardar el estado final (ej: Redis caído),
+ * para que sus segmentos del diario puedan borrarse.
+ * Si Party Service alcanzó a responder, se guarda ese resultado (el cliente recibe el alta en su reintento);
+ * si no, no se sabe si el alta se creó y la llave queda como FAILED (500) para revisión manual, en vez de
+ * quedar libre y permitir un reintento que podría duplicar el alta.
+ * <p>
+ * Mientras dura la llamada el bloqueo vive el lease de llamada (idempotency.retention.processing.party-call-lease,
+ * sin renovar), así los reintentos reciben 409 en cualquier nodo hasta esta reconciliación. Si el nodo no vuelve
+ * antes de que se cumpla, la llave se libera y un reintento puede volver a llamar a Party Service.
+ * Solo se reemplaza el bloqueo tomado por la petición registrada: uno creado después de la intención es de otra petición.
+ * Una llamada de esta ejecución se reconcilia solo pasada la antigüedad mínima, que debe superar el timeout
+ * de la llamada a Party Service (antes de eso la petición puede seguir en curso).
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class PartyCallRecoveryService {
+
+    static final String INTERRUPTED_ERROR = "{\"error\": \"Fallo crítico en ValidationAPI: Llamada a Party Service interrumpida sin resultado registrado\"}";
+
+    private final PartyCallJournalPort journal;
+    private final IdempotencyService idempotencyService;
+    private final IdempotencyRepositoryPort idempotencyRepository;
+
+    /**
+     * @param minAge Antigüedad mínima de las llamadas abiertas en esta ejecución (las de la anterior van siempre).
+     * @return Cantidad de llamadas reconciliadas (las que fallan se reintentan en la próxima pasada).
+     */
+    public int recover(Duration minAge) {
+        int recovered = 0;
+        for (PendingPartyCall call : journal.pending(minAge)) {
+            try {
+                reconcile(call);
+                journal.done(call.getIdempotencyKey());
+                recovered++;
+            } catch (Exception e) {
+                // La llave sigue abierta en el diario
+                log.error("Recovery: No se pudo reconciliar la llave {}: {}", call.getIdempotencyKey(), e.getMessage());
+            }
+        }
+        return recovered;
+    }
+
+    private void reconcile(PendingPartyCall call) {
+        String key = call.getIdempotencyKey();
+        Optional<IdempotencyRecord> current = idempotencyRepository.findByKey(key);
+        // Ya resuelta (se guardó antes de caer) o tomada por otra petición tras vencer el lease
+        if (current.isPresent() && (current.get().getStatus() != IdempotencyStatus.PROCESSING
+                || !current.get().matchesPayload(call.getPayloadHash())
+                || lockedAfter(current.get(), call))) {
+            log.info("Recovery: Llave {} ya resuelta ({}); no se modifica", key, current.get().getStatus());
+            return;
+        }
+
+        if (call.hasOutcome()) {
+            log.warn("Recovery: Guardando la respuesta de Party Service de la llave {} registrada antes de la caída", key);
+            idempotencyService.saveSuccess(key, call.getPayloadHash(), call.getHttpStatusCode(), call.getResponseBody());
+        } else {
+            log.error("Recovery: Llave {} sin resultado de Party Service registrado; el alta pudo crearse y requiere revisión", key);
+            idempotencyService.saveFailure(key, call.getPayloadHash(), 500, INTERRUPTED_ERROR);
+        }
+    }
+
+    // El bloqueo propio se toma antes de registrar la intención; uno posterior es de un reintento en otro nodo
+    private static boolean lockedAfter(IdempotencyRecord lock, PendingPartyCall call) {
+        return lock.getCreatedAt() != null && call.getStartedAt() != null && lock.getCreatedAt().isAfter(call.getStartedAt());
+    }
+}
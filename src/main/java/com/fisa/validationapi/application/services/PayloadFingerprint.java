@@ -0,0 +1,48 @@
+package com.fisa.validationapi.application.services;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import org.apache.commons.codec.digest.MurmurHash3;
+
+import java.io.IOException;
+
+/**
+ * Huella de 64 bits de un payload JSON (MurmurHash3 x64 sobre su forma compacta).
+ * El JSON se recorre en streaming y se reescribe token a token sin espacios y con los escapes normalizados,
+ * así dos envíos equivalentes con distinto formato producen la misma huella. El orden de los campos sí cuenta.
+ * Un payload que no es JSON válido se resume sobre sus bytes tal cual.
+ */
+public class PayloadFingerprint {
+
+    private static final int SEED = 0;
+
+    private final JsonFactory jsonFactory;
+
+    public PayloadFingerprint(JsonFactory jsonFactory) {
+        this.jsonFactory = jsonFactory;
+    }
+
+    public long of(byte[] jsonPayload) {
+        byte[] canonical;
+        try {
+            canonical = compact(jsonPayload);
+        } catch (IOException e) {
+            canonical = jsonPayload;
+        }
+        return MurmurHash3.hash128x64(canonical, 0, canonical.length, SEED)[0];
+    }
+
+    private byte[] compact(byte[] jsonPayload) throws IOException {
+        try (ByteArrayBuilder output = new ByteArrayBuilder(jsonPayload.length)) {
+            try (JsonParser parser = jsonFactory.createParser(jsonPayload);
+                 JsonGenerator generator = jsonFactory.createGenerator(output)) {
+                while (parser.nextToken() != null) {
+                    generator.copyCurrentEvent(parser);
+                }
+            }
+            return output.toByteArray();
+        }
+    }
+}
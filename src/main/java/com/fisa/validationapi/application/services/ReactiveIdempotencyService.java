@@ -0,0 +1,96 @@
+package com.fisa.validationapi.application.services;
+
+import com.fisa.validationapi.domain.models.IdempotencyRecord;
+import com.fisa.validationapi.domain.models.enums.IdempotencyStatus;
+import com.fisa.validationapi.domain.ports.out.ReactiveIdempotencyRepositoryPort;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Variante no bloqueante de {@link IdempotencyService} para el modo reactivo.
+ * Un reintento que llega con la llave en PROCESSING recibe el registro tal cual (409); el modo "wait-for-result" no aplica.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class ReactiveIdempotencyService {
+
+    private final ReactiveIdempotencyRepositoryPort idempotencyRepository;
+
+    // Vida del bloqueo durante la llamada a Party Service (diario activo); null si el bloqueo sigue con su lease normal
+    private final Duration partyCallLease;
+
+    /**
+     * Intenta iniciar una transacción idempotente.
+     * @return Vacío si es una petición nueva (SE PUEDE PROCESAR), o el registro existente.
+     *         Error si Redis está caído (Fail-Safe: no procesar si no se puede bloquear).
+     */
+    public Mono<IdempotencyRecord> checkAndLock(String key, long payloadHash) {
+        return Mono.defer(() -> {
+            IdempotencyRecord newRecord = IdempotencyRecord.builder()
+                    .key(key)
+                    .status(IdempotencyStatus.PROCESSING)
+                    .createdAt(LocalDateTime.now())
+                    .payloadHash(payloadHash)
+                    .build();
+
+            return idempotencyRepository.acquireLock(newRecord)
+                    .doOnNext(existing -> log.info("Idempotency: Llave {} encontrada con estado {}", key, existing.getStatus()))
+                    .switchIfEmpty(Mono.fromRunnable(() -> log.info("Idempotency: Llave {} nueva. Bloqueada.", key)));
+        });
+    }
+
+    /**
+     * Justo antes de llamar a Party Service: extiende el bloqueo de la llave al lease de la llamada
+     * (ver {@link IdempotencyService#holdForPartyCall}).
+     * @return false si el bloqueo ya no pertenece a esta petición: no se debe llamar a Party Service.
+     */
+    public Mono<Boolean> holdForPartyCall(String key) {
+        if (partyCallLease == null) {
+            return Mono.just(true);
+        }
+        return idempotencyRepository.holdLock(key, partyCallLease)
+                .doOnNext(held -> {
+                    if (!held) {
+                        log.warn("Idempotency: Llave {} perdió su bloqueo antes de llamar a Party Service", key);
+                    }
+                });
+    }
+
+    /**
+     * Finaliza la transacción exitosamente guardando la respuesta.
+     */
+    public Mono<Void> saveSuccess(String key, long payloadHash, int httpStatus, String responseBody) {
+        return Mono.defer(() -> {
+            log.info("Idempotency: Actualizando llave {} a COMPLETED", key);
+            return idempotencyRepository.save(IdempotencyRecord.builder()
+                    .key(key)
+                    .status(IdempotencyStatus.COMPLETED)
+                    .httpStatusCode(httpStatus)
+                    .responseBody(responseBody)
+                    .createdAt(LocalDateTime.now())
+                    .payloadHash(payloadHash)
+                    .build());
+        });
+    }
+
+    /**
+     * Marca la transacción como fallida con el código HTTP y el cuerpo JSON que recibirán los reintentos.
+     */
+    public Mono<Void> saveFailure(String key, long payloadHash, int httpStatus, String responseBody) {
+        return Mono.defer(() -> {
+            log.warn("Idempotency: Marcando llave {} como FAILED", key);
+            return idempotencyRepository.save(IdempotencyRecord.builder()
+                    .key(key)
+                    .status(IdempotencyStatus.FAILED)
+                    .httpStatusCode(httpStatus)
+                    .responseBody(responseBody) // Se guarda el error para auditoría
+                    .createdAt(LocalDateTime.now())
+                    .payloadHash(payloadHash)
+                    .build());
+        });
+    }
+}
@@ -0,0 +1,69 @@
+package com.fisa.validationapi.application.services;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Agrupa ejecuciones simultáneas con la misma llave dentro del nodo ("single-flight"): la primera petición
+ * ejecuta la tarea en su propio hilo y las que llegan mientras sigue en curso esperan su resultado (o su excepción)
+ * en vez de repetirla. Nada se conserva al terminar: una petición posterior vuelve a ejecutar la tarea.
+ * Sin bloqueos propios: solo putIfAbsent/remove sobre un ConcurrentHashMap de CompletableFuture.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder shared = new LongAdder();
+
+    public V execute(K key, Supplier<V> task) {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            shared.increment();
+            return join(existing);
+        }
+
+        try {
+            V value = task.get();
+            flight.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    /**
+     * @return true si hay una ejecución en curso con esta llave (una nueva llamada con ella esperaría su resultado).
+     */
+    public boolean isRunning(K key) {
+        return inFlight.containsKey(key);
+    }
+
+    /**
+     * @return Ejecuciones que reutilizaron el resultado de otra en curso (métrica validation.coalesced).
+     */
+    public long sharedCount() {
+        return shared.sum();
+    }
+
+    // La excepción de la ejecución original se propaga tal cual a quienes la esperaban
+    private static <V> V join(CompletableFuture<V> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
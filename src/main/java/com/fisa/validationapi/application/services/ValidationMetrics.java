@@ -0,0 +1,130 @@
+package com.fisa.validationapi.application.services;
+
+import com.fisa.validationapi.domain.models.IdempotencyRecord;
+import com.fisa.validationapi.domain.models.enums.IdempotencyStatus;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Métricas del flujo de validación: un Timer por etapa (con buckets SLO para histogramas en Prometheus),
+ * resultados por estado de idempotencia y violaciones por regla ISO.
+ * Todos los medidores se registran una sola vez; en el camino caliente solo se leen de mapas ya construidos.
+ * Las etiquetas son de baja cardinalidad (etapa, estado, nombre de regla), nunca llaves ni mensajes.
+ */
+public class ValidationMetrics {
+
+    // Buckets del histograma de latencia por etapa
+    private static final Duration[] STAGE_SLOS = {
+            Duration.ofMillis(5), Duration.ofMillis(10), Duration.ofMillis(25), Duration.ofMillis(50),
+            Duration.ofMillis(100), Duration.ofMillis(250), Duration.ofMillis(500),
+            Duration.ofSeconds(1), Duration.ofMillis(2500), Duration.ofSeconds(5)
+    };
+
+    // Violaciones que no vienen de una regla declarada (ej: JSON mal formado)
+    public static final String MALFORMED_RULE = "malformed";
+
+    public enum Stage {
+        // Huella del payload (detección de llaves reutilizadas y caché de veredictos ISO)
+        PAYLOAD_HASH("payload_hash"),
+        IDEMPOTENCY_CHECK("idempotency_check"),
+        // Bloqueo de una ventana completa de la carga masiva (una sola ida y vuelta por ventana)
+        IDEMPOTENCY_CHECK_BATCH("idempotency_check_batch"),
+        ISO_VALIDATION("iso_validation"),
+        PARTY_CALL("party_call"),
+        // Registro durable de la respuesta de Party Service en el diario local (si está activo)
+        JOURNAL("journal"),
+        IDEMPOTENCY_SAVE("idempotency_save"),
+        NOTIFICATION("notification"),
+        // Espera del resultado de otra petición con la misma llave (modo "wait-for-result")
+        RESULT_WAIT("result_wait");
+
+        private final String tag;
+
+        Stage(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    private final MeterRegistry meterRegistry;
+    private final Map<Stage, Timer> stageTimers = new EnumMap<>(Stage.class);
+    private final Map<IdempotencyStatus, Counter> processedOutcomes = new EnumMap<>(IdempotencyStatus.class);
+    private final Map<IdempotencyStatus, Counter> replayedOutcomes = new EnumMap<>(IdempotencyStatus.class);
+    private final ConcurrentMap<String, Counter> violations = new ConcurrentHashMap<>();
+    private final Counter keyReuses;
+
+    public ValidationMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+
+        for (Stage stage : Stage.values()) {
+            stageTimers.put(stage, Timer.builder("validation.stage.duration")
+                    .description("Duración de cada etapa del flujo de validación")
+                    .tag("stage", stage.tag)
+                    .serviceLevelObjectives(STAGE_SLOS)
+                    .register(meterRegistry));
+        }
+        for (IdempotencyStatus status : IdempotencyStatus.values()) {
+            processedOutcomes.put(status, outcomeCounter(status, false));
+            replayedOutcomes.put(status, outcomeCounter(status, true));
+        }
+        keyReuses = Counter.builder("validation.idempotency.key_reuse")
+                .description("Peticiones rechazadas (422) por reutilizar una llave de idempotencia con otro payload")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return Marca de tiempo para {@link #record(Stage, long)}.
+     */
+    public long start() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Registra la duración de una etapa desde la marca devuelta por {@link #start()}.
+     */
+    public void record(Stage stage, long startNanos) {
+        stageTimers.get(stage).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Cuenta el resultado de una petición.
+     * @param replayed true si la respuesta salió del registro de idempotencia (reintento o petición en curso).
+     */
+    public void outcome(IdempotencyRecord result, boolean replayed) {
+        (replayed ? replayedOutcomes : processedOutcomes).get(result.getStatus()).increment();
+    }
+
+    /**
+     * Cuenta una petición rechazada por reutilizar la llave con un payload distinto.
+     */
+    public void keyReuse() {
+        keyReuses.increment();
+    }
+
+    /**
+     * Cuenta una petición rechazada por una regla ISO.
+     * @param rule Identificador estable de la regla (conjunto cerrado declarado en el código).
+     */
+    public void violation(String rule) {
+        violations.computeIfAbsent(rule, r -> Counter.builder("validation.iso.violations")
+                .description("Peticiones rechazadas por regla ISO 20022")
+                .tag("rule", r)
+                .register(meterRegistry))
+                .increment();
+    }
+
+    private Counter outcomeCounter(IdempotencyStatus status, boolean replayed) {
+        return Counter.builder("validation.outcome")
+                .description("Resultados del flujo de validación por estado de idempotencia")
+                .tag("status", status.name())
+                .tag("replayed", String.valueOf(replayed))
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,97 @@
+package com.fisa.validationapi.application.services.rules;
+
+/**
+ * Tabla estática de códigos de país ISO 3166-1 (alpha-2 y alpha-3).
+ * Cada código se indexa directamente por sus letras (26x26 para alpha-2, 26x26x26 para alpha-3),
+ * por lo que validar y convertir no usa expresiones regulares ni crea objetos.
+ */
+public final class CountryCodes {
+
+    // Pares "alpha-2 alpha-3" de los 249 códigos oficiales ISO 3166-1
+    private static final String ISO_3166 = """
+            AF AFG AX ALA AL ALB DZ DZA AS ASM AD AND AO AGO AI AIA AQ ATA AG ATG AR ARG AM ARM AW ABW AU AUS
+            AT AUT AZ AZE BS BHS BH BHR BD BGD BB BRB BY BLR BE BEL BZ BLZ BJ BEN BM BMU BT BTN BO BOL BQ BES
+            BA BIH BW BWA BV BVT BR BRA IO IOT BN BRN BG BGR BF BFA BI BDI CV CPV KH KHM CM CMR CA CAN KY CYM
+            CF CAF TD TCD CL CHL CN CHN CX CXR CC CCK CO COL KM COM CG COG CD COD CK COK CR CRI CI CIV HR HRV
+            CU CUB CW CUW CY CYP CZ CZE DK DNK DJ DJI DM DMA DO DOM EC ECU EG EGY SV SLV GQ GNQ ER ERI EE EST
+            SZ SWZ ET ETH FK FLK FO FRO FJ FJI FI FIN FR FRA GF GUF PF PYF TF ATF GA GAB GM GMB GE GEO DE DEU
+            GH GHA GI GIB GR GRC GL GRL GD GRD GP GLP GU GUM GT GTM GG GGY GN GIN GW GNB GY GUY HT HTI HM HMD
+            VA VAT HN HND HK HKG HU HUN IS ISL IN IND ID IDN IR IRN IQ IRQ IE IRL IM IMN IL ISR IT ITA JM JAM
+            JP JPN JE JEY JO JOR KZ KAZ KE KEN KI KIR KP PRK KR KOR KW KWT KG KGZ LA LAO LV LVA LB LBN LS LSO
+            LR LBR LY LBY LI LIE LT LTU LU LUX MO MAC MK MKD MG MDG MW MWI MY MYS MV MDV ML MLI MT MLT MH MHL
+            MQ MTQ MR MRT MU MUS YT MYT MX MEX FM FSM MD MDA MC MCO MN MNG ME MNE MS MSR MA MAR MZ MOZ MM MMR
+            NA NAM NR NRU NP NPL NL NLD NC NCL NZ NZL NI NIC NE NER NG NGA NU NIU NF NFK MP MNP NO NOR OM OMN
+            PK PAK PW PLW PS PSE PA PAN PG PNG PY PRY PE PER PH PHL PN PCN PL POL PT PRT PR PRI QA QAT RE REU
+            RO ROU RU RUS RW RWA BL BLM SH SHN KN KNA LC LCA MF MAF PM SPM VC VCT WS WSM SM SMR ST STP SA SAU
+            SN SEN RS SRB SC SYC SL SLE SG SGP SX SXM SK SVK SI SVN SB SLB SO SOM ZA ZAF GS SGS SS SSD ES ESP
+            LK LKA SD SDN SR SUR SJ SJM SE SWE CH CHE SY SYR TW TWN TJ TJK TZ TZA TH THA TL TLS TG TGO TK TKL
+            TO TON TT TTO TN TUN TR TUR TM TKM TC TCA TV TUV UG UGA UA UKR AE ARE GB GBR US USA UM UMI UY URY
+            UZ UZB VU VUT VE VEN VN VNM VG VGB VI VIR WF WLF EH ESH YE YEM ZM ZMB ZW ZWE
+            """;
+
+    private static final int LETTERS = 26;
+
+    // Índice alpha-2 (0..675) -> código alpha-2 canónico, o null si no está asignado
+    private static final String[] ALPHA2 = new String[LETTERS * LETTERS];
+
+    // Índice alpha-3 (0..17575) -> índice alpha-2 + 1 (0 = no asignado)
+    private static final short[] ALPHA3_TO_ALPHA2 = new short[LETTERS * LETTERS * LETTERS];
+
+    static {
+        String[] tokens = ISO_3166.trim().split("\\s+");
+        for (int i = 0; i < tokens.length; i += 2) {
+            int alpha2 = index(tokens[i], 2);
+            int alpha3 = index(tokens[i + 1], 3);
+            if (alpha2 < 0 || alpha3 < 0 || ALPHA2[alpha2] != null || ALPHA3_TO_ALPHA2[alpha3] != 0) {
+                throw new ExceptionInInitializerError("Tabla ISO 3166 inválida en " + tokens[i] + "/" + tokens[i + 1]);
+            }
+            ALPHA2[alpha2] = tokens[i];
+            ALPHA3_TO_ALPHA2[alpha3] = (short) (alpha2 + 1);
+        }
+    }
+
+    private CountryCodes() {
+    }
+
+    /**
+     * @return true si el código es un alpha-2 o alpha-3 ISO 3166-1 asignado (en mayúsculas).
+     */
+    public static boolean isValid(String code) {
+        return toAlpha2(code) != null;
+    }
+
+    /**
+     * Convierte un código alpha-2 o alpha-3 a su alpha-2 (ej: "AUT" -> "AT", "EC" -> "EC").
+     * @return El código alpha-2 canónico, o null si el código no existe.
+     */
+    public static String toAlpha2(String code) {
+        if (code == null) {
+            return null;
+        }
+        if (code.length() == 2) {
+            int alpha2 = index(code, 2);
+            return alpha2 >= 0 ? ALPHA2[alpha2] : null;
+        }
+        if (code.length() == 3) {
+            int alpha3 = index(code, 3);
+            return alpha3 >= 0 && ALPHA3_TO_ALPHA2[alpha3] != 0 ? ALPHA2[ALPHA3_TO_ALPHA2[alpha3] - 1] : null;
+        }
+        return null;
+    }
+
+    // Posición del código en la tabla (base 26), o -1 si contiene algo distinto de A-Z
+    private static int index(String code, int length) {
+        if (code.length() != length) {
+            return -1;
+        }
+        int index = 0;
+        for (int i = 0; i < length; i++) {
+            int letter = code.charAt(i) - 'A';
+            if (letter < 0 || letter >= LETTERS) {
+                return -1;
+            }
+            index = index * LETTERS + letter;
+        }
+        return index;
+    }
+}
@@ -0,0 +1,31 @@
+package com.fisa.validationapi.application.services.rules;
+
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * Restricción sobre el valor textual de un campo del payload.
+ * Un campo ausente se evalúa como texto vacío.
+ * @param rule Identificador estable de la regla (se usa en logs y métricas).
+ * @param message Mensaje devuelto al TPP si la restricción no se cumple.
+ * @param check Condición que debe cumplir el valor.
+ */
+public record FieldConstraint(String rule, String message, Predicate<String> check) {
+
+    public static FieldConstraint maxLength(String rule, int max, String message) {
+        return new FieldConstraint(rule, message, value -> value.length() <= max);
+    }
+
+    /**
+     * Código de país ISO 3166-1 asignado, alpha-2 o alpha-3 (búsqueda en tabla, sin regex).
+     */
+    public static FieldConstraint countryCode(String rule, String message) {
+        return new FieldConstraint(rule, message, CountryCodes::isValid);
+    }
+
+    public static FieldConstraint pattern(String rule, String regex, String message) {
+        // El patrón se compila una sola vez al construir el conjunto de reglas
+        Pattern compiled = Pattern.compile(regex);
+        return new FieldConstraint(rule, message, value -> compiled.matcher(value).matches());
+    }
+}
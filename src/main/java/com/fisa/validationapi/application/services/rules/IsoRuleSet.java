@@ -0,0 +1,185 @@
+package com.fisa.validationapi.application.services.rules;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Conjunto de reglas ISO 20022 declarado una sola vez (ruta del campo → lista de restricciones)
+ * y precompilado a un árbol de rutas, de modo que cada validación se hace en una sola pasada
+ * sobre los tokens del JSON, sin construir un árbol JsonNode.
+ * Las ramas del payload que no contienen reglas se saltan sin procesar.
+ */
+public final class IsoRuleSet {
+
+    private final List<RequiredBlock> requiredBlocks;
+    private final List<FieldRule> fieldRules;
+    private final Map<String, Integer> fieldIndexByPath;
+    private final PathNode root;
+
+    private IsoRuleSet(List<RequiredBlock> requiredBlocks, List<FieldRule> fieldRules) {
+        this.requiredBlocks = List.copyOf(requiredBlocks);
+        this.fieldRules = List.copyOf(fieldRules);
+        this.fieldIndexByPath = new HashMap<>();
+        this.root = new PathNode();
+
+        for (int i = 0; i < this.requiredBlocks.size(); i++) {
+            root.descend(this.requiredBlocks.get(i).path()).blockIndex = i;
+        }
+        for (int i = 0; i < this.fieldRules.size(); i++) {
+            root.descend(this.fieldRules.get(i).path()).fieldIndex = i;
+            fieldIndexByPath.put(this.fieldRules.get(i).path(), i);
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Recorre el documento JSON una sola vez evaluando cada restricción en cuanto aparece su campo,
+     * y se detiene en la primera violación.
+     * @param parser Parser posicionado antes del primer token del documento.
+     * @return Los valores de los campos declarados (los ausentes quedan como texto vacío).
+     * @throws IsoRuleViolationException Si alguna regla no se cumple.
+     * @throws IOException Si el JSON está mal formado.
+     */
+    public FieldValues validate(JsonParser parser) throws IOException {
+        String[] values = new String[fieldRules.size()];
+        boolean[] presentBlocks = new boolean[requiredBlocks.size()];
+
+        if (parser.nextToken() == JsonToken.START_OBJECT) {
+            walkObject(parser, root, values, presentBlocks);
+        }
+
+        // Bloques obligatorios que no aparecieron
+        for (int i = 0; i < presentBlocks.length; i++) {
+            if (!presentBlocks[i]) {
+                RequiredBlock block = requiredBlocks.get(i);
+                throw new IsoRuleViolationException(block.rule(), block.message());
+            }
+        }
+        // Campos ausentes: se evalúan como texto vacío
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == null) {
+                values[i] = "";
+                check(fieldRules.get(i), "");
+            }
+        }
+        return new FieldValues(values);
+    }
+
+    private void walkObject(JsonParser parser, PathNode node, String[] values, boolean[] presentBlocks) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            PathNode child = node.children.get(parser.currentName());
+            JsonToken token = parser.nextToken();
+
+            if (child == null) {
+                parser.skipChildren(); // Rama sin reglas: no interesa su contenido
+                continue;
+            }
+            if (child.blockIndex >= 0) {
+                presentBlocks[child.blockIndex] = true;
+            }
+
+            if (token == JsonToken.START_OBJECT && !child.children.isEmpty()) {
+                walkObject(parser, child, values, presentBlocks);
+            } else if (child.fieldIndex >= 0 && values[child.fieldIndex] == null) {
+                // Objetos, arrays y null cuentan como texto vacío; los escalares por su valor textual
+                String value = token.isScalarValue() && token != JsonToken.VALUE_NULL ? parser.getText() : "";
+                parser.skipChildren();
+                values[child.fieldIndex] = value;
+                check(fieldRules.get(child.fieldIndex), value);
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    private static void check(FieldRule field, String value) {
+        for (FieldConstraint constraint : field.constraints()) {
+            if (!constraint.check().test(value)) {
+                throw new IsoRuleViolationException(constraint.rule(), constraint.message());
+            }
+        }
+    }
+
+    /**
+     * Valores extraídos durante la validación, para no volver a leer el payload aguas abajo.
+     */
+    public final class FieldValues {
+
+        private final String[] values;
+
+        private FieldValues(String[] values) {
+            this.values = values;
+        }
+
+        /**
+         * @param path Ruta declarada en el conjunto de reglas (ej: "referenceData.countryCode").
+         */
+        public String get(String path) {
+            Integer index = fieldIndexByPath.get(path);
+            if (index == null) {
+                throw new IllegalStateException("Campo no declarado en el conjunto de reglas: " + path);
+            }
+            return values[index];
+        }
+    }
+
+    private record RequiredBlock(String path, String rule, String message) {
+    }
+
+    private record FieldRule(String path, List<FieldConstraint> constraints) {
+    }
+
+    // Nodo del árbol de rutas: un hijo por nombre de campo con reglas debajo
+    private static final class PathNode {
+        private final Map<String, PathNode> children = new HashMap<>();
+        private int blockIndex = -1;
+        private int fieldIndex = -1;
+
+        private PathNode descend(String path) {
+            PathNode node = this;
+            for (String name : path.split("\\.")) {
+                node = node.children.computeIfAbsent(name, n -> new PathNode());
+            }
+            return node;
+        }
+    }
+
+    public static final class Builder {
+
+        private final List<RequiredBlock> requiredBlocks = new ArrayList<>();
+        private final List<FieldRule> fieldRules = new ArrayList<>();
+
+        private Builder() {
+        }
+
+        /**
+         * Declara un bloque obligatorio (ej: "referenceData").
+         */
+        public Builder requireBlock(String path, String rule, String message) {
+            requiredBlocks.add(new RequiredBlock(path, rule, message));
+            return this;
+        }
+
+        /**
+         * Declara las restricciones de un campo, identificado por su ruta con puntos (ej: "referenceData.countryCode").
+         * Sin restricciones, el campo solo se extrae para usarlo aguas abajo.
+         */
+        public Builder field(String path, FieldConstraint... constraints) {
+            fieldRules.add(new FieldRule(path, List.of(constraints)));
+            return this;
+        }
+
+        public IsoRuleSet build() {
+            return new IsoRuleSet(requiredBlocks, fieldRules);
+        }
+    }
+}
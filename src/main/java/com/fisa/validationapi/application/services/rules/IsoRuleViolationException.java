@@ -0,0 +1,19 @@
+package com.fisa.validationapi.application.services.rules;
+
+import lombok.Getter;
+
+/**
+ * Violación de una regla ISO 20022 sobre el payload.
+ * Extiende IllegalArgumentException para que el flujo existente la trate como error de validación (400).
+ */
+@Getter
+public class IsoRuleViolationException extends IllegalArgumentException {
+
+    // Identificador estable de la regla incumplida (ej: "countryCode.format")
+    private final String rule;
+
+    public IsoRuleViolationException(String rule, String message) {
+        super(message);
+        this.rule = rule;
+    }
+}
@@ -0,0 +1,33 @@
+package com.fisa.validationapi.application.services.rules;
+
+import static com.fisa.validationapi.application.services.rules.FieldConstraint.countryCode;
+import static com.fisa.validationapi.application.services.rules.FieldConstraint.maxLength;
+
+/**
+ * Reglas ISO 20022 (pacs.008.001.08) que debe cumplir el bloque 'referenceData' del onboarding.
+ * Equivalen a las restricciones que imponía el ensamblaje del mensaje MX sobre el deudor (Dbtr).
+ */
+public final class Pacs008ReferenceDataRules {
+
+    public static final String FULL_LEGAL_NAME = "referenceData.fullLegalName";
+    public static final String IDENTITY_NUMBER = "referenceData.identityNumber";
+    public static final String COUNTRY_CODE = "referenceData.countryCode";
+    public static final String TOWN_NAME = "referenceData.townName";
+
+    public static final IsoRuleSet RULES = IsoRuleSet.builder()
+            .requireBlock("referenceData", "referenceData.required",
+                    "El bloque 'referenceData' es obligatorio.")
+            // Dbtr/Nm: Max140Text
+            .field(FULL_LEGAL_NAME,
+                    maxLength("fullLegalName.maxLength", 140, "ISO Rule Violation: Name exceeds 140 chars"))
+            // Dbtr/PstlAdr/Ctry: código de país ISO 3166-1 de 2 letras (se acepta también alpha-3)
+            .field(COUNTRY_CODE,
+                    countryCode("countryCode.format", "ISO Rule Violation: Invalid Country Code format"))
+            // Campos sin restricciones que se extraen para el resto del flujo
+            .field(IDENTITY_NUMBER)
+            .field(TOWN_NAME)
+            .build();
+
+    private Pacs008ReferenceDataRules() {
+    }
+}
@@ -0,0 +1,102 @@
+package com.fisa.validationapi.application.usecases;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fisa.validationapi.domain.models.PartyReferenceData;
+import com.fisa.validationapi.infrastructure.adapters.output.feign.dtos.NotificationRequest;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+
+/**
+ * Correos del flujo de onboarding, compartidos por el flujo bloqueante y el reactivo.
+ * Solo construyen el mensaje; el envío lo hace el despachador asíncrono.
+ * Las alertas de error pasan por el AlertAggregator (un resumen por origen + tipo de error y ventana).
+ */
+@Slf4j
+final class OnboardingEmails {
+
+    // Asunto fijo: las alertas de un mismo origen y tipo se agrupan en un resumen
+    static final String ERROR_SUBJECT = "Fallo en Transacción";
+
+    // Tipos de error de las alertas del flujo (junto con el origen forman la huella de la alerta)
+    static final String ISO_VALIDATION_ERROR = "IsoValidationError";
+    static final String DEPENDENCY_TIMEOUT = "DependencyTimeout";
+    static final String SYSTEM_ERROR = "SystemError";
+
+    private OnboardingEmails() {
+    }
+
+    static NotificationRequest success(ObjectMapper objectMapper, String trxId, PartyReferenceData referenceData, String jsonResponse) {
+        String emailBody;
+        String subject = "Onboarding Exitoso - Nuevo Cliente";
+
+        try {
+            // Los datos del cliente ya se extrajeron al validar la petición;
+            // de la respuesta solo se necesita la referencia BIAN (lectura en streaming, sin árbol de nodos)
+            String partyRefId = extractPartyRefId(objectMapper, jsonResponse);
+            String fullName = defaultIfBlank(referenceData.getFullLegalName(), "Cliente Desconocido");
+            String idNumber = defaultIfBlank(referenceData.getIdentityNumber(), "N/A");
+
+            // Construir el mensaje personalizado
+            emailBody = String.format("""
+            Hola,
+            
+            Se ha completado exitosamente el registro de un nuevo cliente.
+            
+            ------------------------------------------------
+            Detalles del Cliente:
+            ------------------------------------------------
+            Nombre:           %s
+            Identificación:   %s
+            Referencia BIAN:  %s
+            ------------------------------------------------
+            
+            ID de Transacción: %s
+            """, fullName, idNumber, partyRefId, trxId);
+
+        } catch (Exception e) {
+            // Fallback: Si el JSON no tiene el formato esperado, se envía el mensaje genérico
+            log.warn("No se pudo parsear la respuesta para el correo: {}", e.getMessage());
+            emailBody = "El cliente ha sido creado correctamente.\nID Transacción: " + trxId;
+        }
+
+        return NotificationRequest.builder()
+                .recipient("cliente@banco.com")
+                .subject(subject)
+                .body(emailBody)
+                .originService("ValidationAPI")
+                .build();
+    }
+
+    // Detalle de la alerta: el ID de la transacción va en el cuerpo (el resumen conserva el último)
+    static String errorDetail(String detail, String trxId) {
+        return detail + "\nID de Transacción: " + trxId;
+    }
+
+    /**
+     * Busca el campo de primer nivel "partyRefId" recorriendo los tokens del JSON
+     * y saltando el contenido de los demás campos.
+     */
+    private static String extractPartyRefId(ObjectMapper objectMapper, String jsonResponse) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(jsonResponse)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("La respuesta del Party Service no es un objeto JSON");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("partyRefId".equals(field) && value.isScalarValue()) {
+                    return parser.getValueAsString("N/A");
+                }
+                parser.skipChildren();
+            }
+            return "N/A";
+        }
+    }
+
+    private static String defaultIfBlank(String value, String defaultValue) {
+        return value == null || value.isBlank() ? defaultValue : value;
+    }
+}
@@ -0,0 +1,253 @@
+package com.fisa.validationapi.application.usecases;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fisa.validationapi.application.services.Iso20022ValidatorService;
+import com.fisa.validationapi.application.services.PayloadFingerprint;
+import com.fisa.validationapi.application.services.ReactiveIdempotencyService;
+import com.fisa.validationapi.application.services.ValidationMetrics;
+import com.fisa.validationapi.application.services.ValidationMetrics.Stage;
+import com.fisa.validationapi.application.services.rules.IsoRuleViolationException;
+import com.fisa.validationapi.domain.models.IdempotencyRecord;
+import com.fisa.validationapi.domain.models.PartyReferenceData;
+import com.fisa.validationapi.domain.models.enums.IdempotencyStatus;
+import com.fisa.validationapi.domain.ports.in.ReactiveValidateTransactionUseCase;
+import com.fisa.validationapi.domain.ports.out.PartyCallJournalPort;
+import com.fisa.validationapi.infrastructure.adapters.input.rest.dtos.ErrorCustomResponse;
+import com.fisa.validationapi.infrastructure.adapters.output.feign.DependencyUnavailableException;
+import com.fisa.validationapi.infrastructure.adapters.output.notification.AlertAggregator;
+import com.fisa.validationapi.infrastructure.adapters.output.notification.AsyncNotificationDispatcher;
+import com.fisa.validationapi.infrastructure.adapters.output.webclient.ReactivePartyServiceClient;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Mismo flujo que {@link ValidateTransactionUseCaseImpl} sin bloquear hilos: Redis y Party Service se esperan
+ * de forma asíncrona y la validación ISO (CPU, microsegundos) corre en el hilo del event loop, salvo en modo deep
+ * o cuando esperaría la validación en curso de un payload idéntico: entonces corre en el scheduler boundedElastic.
+ * Los correos se encolan en el mismo despachador asíncrono (la cola nunca bloquea) y las escrituras del diario
+ * de llamadas (la espera del fsync y la rotación de segmentos, que crea y borra archivos) corren en boundedElastic.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class ReactiveValidateTransactionUseCaseImpl implements ReactiveValidateTransactionUseCase {
+
+    private final ReactiveIdempotencyService idempotencyService;
+    private final Iso20022ValidatorService isoValidatorService;
+    private final ReactivePartyServiceClient partyServiceClient;
+    private final AsyncNotificationDispatcher notificationDispatcher;
+    private final AlertAggregator alertAggregator; // Alertas de error agrupadas por origen + tipo (una caída no inunda al administrador)
+    private final ObjectMapper objectMapper; // Permite leer el JSON de error del Mapper
+    private final ValidationMetrics metrics;
+    private final PayloadFingerprint payloadFingerprint; // Huella del payload guardada junto a la llave
+    private final PartyCallJournalPort journal; // Intención y resultado de la llamada a Party Service (recuperación tras caída)
+
+    @Override
+    public Mono<IdempotencyRecord> validateAndProcess(String idempotencyKey, byte[] jsonPayload) {
+        return Mono.defer(() -> {
+            long start = metrics.start();
+            long payloadHash = payloadFingerprint.of(jsonPayload);
+            metrics.record(Stage.PAYLOAD_HASH, start);
+
+            // IDEMPOTENCIA: vacío si la llave quedó bloqueada para esta petición
+            return timed(Stage.IDEMPOTENCY_CHECK, idempotencyService.checkAndLock(idempotencyKey, payloadHash))
+                    // Misma llave con otro payload: el resultado guardado es de otra operación y no se repite
+                    .map(existing -> existing.matchesPayload(payloadHash) ? existing : keyReuse(idempotencyKey))
+                    .doOnNext(existing -> metrics.outcome(existing, true))
+                    .switchIfEmpty(Mono.defer(() -> process(idempotencyKey, jsonPayload, payloadHash)
+                            .doOnNext(result -> metrics.outcome(result, false))));
+        });
+    }
+
+    // Flujo de una petición cuya llave ya quedó bloqueada (PROCESSING) por este nodo
+    private Mono<IdempotencyRecord> process(String idempotencyKey, byte[] jsonPayload, long payloadHash) {
+        Mono<Mono<IdempotencyRecord>> validated = Mono.fromCallable(() -> validated(idempotencyKey, jsonPayload, payloadHash));
+        // En modo deep o esperando la validación de un payload idéntico en curso, la espera sale del event loop.
+        // Si otra validación empieza justo después de la consulta, solo se espera una pasada de reglas (microsegundos)
+        if (isoValidatorService.mayBlock(jsonPayload, payloadHash)) {
+            validated = validated.subscribeOn(Schedulers.boundedElastic());
+        }
+        return validated.flatMap(next -> next);
+    }
+
+    // Valida el payload y devuelve el resto del flujo: el guardado del rechazo (400) o la llamada a Party Service
+    private Mono<IdempotencyRecord> validated(String idempotencyKey, byte[] jsonPayload, long payloadHash) {
+        // VALIDACIÓN ISO (extrae además los datos del cliente para el resto del flujo)
+        // Un payload idéntico validado hace poco reutiliza su veredicto (si la caché está activa)
+        PartyReferenceData referenceData;
+        long start = metrics.start();
+        try {
+            referenceData = isoValidatorService.validateJsonStructure(jsonPayload, payloadHash);
+        } catch (IllegalArgumentException e) {
+            return validationFailure(idempotencyKey, payloadHash, e);
+        } finally {
+            metrics.record(Stage.ISO_VALIDATION, start);
+        }
+        log.info("Validación ISO 20022 exitosa para idempotencyKey {}", idempotencyKey);
+
+        // LLAMADA A PARTY SERVICE y, si responde, guardado del éxito en Redis
+        // Con el diario activo el bloqueo pasa al lease de la llamada; si ya no es propio, no se llama (409)
+        return idempotencyService.holdForPartyCall(idempotencyKey)
+                .flatMap(held -> held
+                        ? callPartyService(idempotencyKey, jsonPayload, payloadHash, referenceData)
+                        : Mono.just(ValidateTransactionUseCaseImpl.lockLost(idempotencyKey)))
+                // Un solo manejador (como los catch del flujo bloqueante): si falla el propio guardado del error, se propaga
+                .onErrorResume(e -> e instanceof DependencyUnavailableException unavailable
+                        ? dependencyUnavailable(idempotencyKey, payloadHash, unavailable)
+                        : systemFailure(idempotencyKey, payloadHash, e));
+    }
+
+    private Mono<IdempotencyRecord> callPartyService(String idempotencyKey, byte[] jsonPayload, long payloadHash,
+                                                     PartyReferenceData referenceData) {
+        return journalStep(() -> journal.intent(idempotencyKey, payloadHash))
+                .then(timed(Stage.PARTY_CALL, partyServiceClient.createParty(jsonPayload)))
+                .flatMap(response -> {
+                    String responseBody = response.getBody() != null ? response.getBody() : "Success";
+                    int statusCode = response.getStatusCode().value();
+
+                    // El resultado queda en disco antes de guardarlo en Redis: si el nodo cae entre ambos, se recupera al arrancar
+                    // Con el resultado en el diario, un fallo al guardar el éxito deja la llave abierta para la reconciliación
+                    // en vez de responder 500 por un alta que sí se creó (sin diario, el error sigue su curso)
+                    return journalOutcome(idempotencyKey, payloadHash, statusCode, responseBody)
+                            .flatMap(journaled -> timed(Stage.IDEMPOTENCY_SAVE,
+                                    idempotencyService.saveSuccess(idempotencyKey, payloadHash, statusCode, responseBody))
+                                    .then(journalStep(() -> journal.done(idempotencyKey)))
+                                    .onErrorResume(e -> {
+                                        if (!journaled) {
+                                            return Mono.error(e);
+                                        }
+                                        log.error("Idempotency: No se pudo guardar el éxito de la llave {} ({}); queda en el diario para reconciliarse",
+                                                idempotencyKey, e.getMessage());
+                                        return Mono.empty();
+                                    }))
+                            .then(Mono.fromSupplier(() -> {
+                                // ENVIAR CORREO DE ÉXITO
+                                long notificationStart = metrics.start();
+                                notificationDispatcher.dispatch(OnboardingEmails.success(objectMapper, idempotencyKey, referenceData, responseBody));
+                                metrics.record(Stage.NOTIFICATION, notificationStart);
+
+                                return IdempotencyRecord.builder()
+                                        .key(idempotencyKey)
+                                        .status(IdempotencyStatus.COMPLETED)
+                                        .httpStatusCode(statusCode)
+                                        .responseBody(responseBody)
+                                        .build();
+                            }));
+                });
+    }
+
+    // Error de Validación ISO (400)
+    private Mono<IdempotencyRecord> validationFailure(String idempotencyKey, long payloadHash, IllegalArgumentException e) {
+        log.warn("Validation Error: {}", e.getMessage());
+        metrics.violation(e instanceof IsoRuleViolationException violation ? violation.getRule() : ValidationMetrics.MALFORMED_RULE);
+
+        IdempotencyRecord failure = failure(400, e.getMessage());
+        return saveFailure(idempotencyKey, payloadHash, failure)
+                .then(Mono.fromSupplier(() -> {
+                    sendErrorEmail("ValidationAPI (ISO Check)", OnboardingEmails.ISO_VALIDATION_ERROR, "Error de formato: " + e.getMessage(), idempotencyKey);
+                    return failure;
+                }));
+    }
+
+    // Party Service protegido: circuito abierto / bulkhead lleno (503) o sin respuesta a tiempo (504)
+    private Mono<IdempotencyRecord> dependencyUnavailable(String idempotencyKey, long payloadHash, DependencyUnavailableException e) {
+        log.warn("Dependency unavailable: {}", e.getMessage());
+
+        IdempotencyRecord failure = failure(e.getHttpStatus(), e.getMessage());
+        return saveFailure(idempotencyKey, payloadHash, failure)
+                .then(Mono.fromSupplier(() -> {
+                    // Los rechazos inmediatos no envían correo por petición: el cambio de estado del circuito ya se registra
+                    if (!e.isRejected()) {
+                        sendErrorEmail(e.getDependency(), OnboardingEmails.DEPENDENCY_TIMEOUT, e.getMessage(), idempotencyKey);
+                    }
+                    return failure;
+                }));
+    }
+
+    // Error Técnico / Caída de Servicios (500)
+    private Mono<IdempotencyRecord> systemFailure(String idempotencyKey, long payloadHash, Throwable e) {
+        log.error("System Error processing transaction: {}", e.getMessage());
+
+        // Se determina quién falló realmente (Party Service Operation o Mapper)
+        String origin = "ValidationAPI";
+        String detail = e.getMessage();
+        if (e instanceof WebClientResponseException wce && !wce.getResponseBodyAsString().isEmpty()) {
+            try {
+                ErrorCustomResponse downstreamError = objectMapper.readValue(wce.getResponseBodyAsString(), ErrorCustomResponse.class);
+                origin = downstreamError.getOrigin();
+                detail = downstreamError.getMessage();
+            } catch (Exception ignored) {
+                // Si falla el parsing, se queda el mensaje original
+            }
+        }
+
+        String errorOrigin = origin;
+        String errorDetail = detail;
+        IdempotencyRecord failure = failure(500, "Fallo crítico en " + origin + ": " + detail);
+        return saveFailure(idempotencyKey, payloadHash, failure)
+                .then(Mono.fromSupplier(() -> {
+                    sendErrorEmail(errorOrigin, OnboardingEmails.SYSTEM_ERROR, errorDetail, idempotencyKey);
+                    return failure;
+                }));
+    }
+
+    // Llave ya usada con un payload distinto (422): no se guarda nada, la llave conserva su resultado original
+    private IdempotencyRecord keyReuse(String idempotencyKey) {
+        log.warn("Idempotency: Llave {} reutilizada con un payload distinto", idempotencyKey);
+        metrics.keyReuse();
+        return IdempotencyRecord.builder()
+                .key(idempotencyKey)
+                .status(IdempotencyStatus.FAILED)
+                .httpStatusCode(422)
+                .responseBody(ValidateTransactionUseCaseImpl.KEY_REUSE_ERROR)
+                .build();
+    }
+
+    // Se guarda el mismo cuerpo que recibe el cliente: los reintentos reciben una copia exacta
+    private Mono<Void> saveFailure(String idempotencyKey, long payloadHash, IdempotencyRecord failure) {
+        return timed(Stage.IDEMPOTENCY_SAVE, idempotencyService.saveFailure(idempotencyKey, payloadHash,
+                failure.getHttpStatusCode(), failure.getResponseBody()))
+                .then(journalStep(() -> journal.done(idempotencyKey)));
+    }
+
+    // Intención y cierre no esperan al disco, pero la escritura que llena un segmento abre el siguiente archivo
+    private static Mono<Void> journalStep(Runnable step) {
+        return Mono.<Void>fromRunnable(step).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    // El fsync bloquea: se espera fuera del event loop. Un fallo del diario no convierte en error un alta ya aceptada
+    // Emite true si el resultado quedó durable en el diario
+    private Mono<Boolean> journalOutcome(String idempotencyKey, long payloadHash, int statusCode, String responseBody) {
+        return timed(Stage.JOURNAL, Mono.fromCallable(() -> journal.outcome(idempotencyKey, payloadHash, statusCode, responseBody))
+                .subscribeOn(Schedulers.boundedElastic()))
+                .onErrorResume(e -> {
+                    log.error("Journal: No se pudo registrar el resultado de la llave {}: {}", idempotencyKey, e.getMessage());
+                    return Mono.just(false);
+                });
+    }
+
+    // La primera alerta de cada origen + tipo sale de inmediato; las repetidas de la ventana van en un resumen
+    private void sendErrorEmail(String origin, String errorType, String detail, String trxId) {
+        long start = metrics.start();
+        alertAggregator.record(origin, errorType, OnboardingEmails.ERROR_SUBJECT, OnboardingEmails.errorDetail(detail, trxId));
+        metrics.record(Stage.NOTIFICATION, start);
+    }
+
+    private static IdempotencyRecord failure(int httpStatus, String message) {
+        return IdempotencyRecord.builder()
+                .status(IdempotencyStatus.FAILED)
+                .httpStatusCode(httpStatus)
+                .responseBody(ValidateTransactionUseCaseImpl.errorBody(message))
+                .build();
+    }
+
+    // Duración de una etapa asíncrona: desde la suscripción hasta que termina (con éxito, error o cancelación)
+    private <T> Mono<T> timed(Stage stage, Mono<T> step) {
+        return Mono.defer(() -> {
+            long start = metrics.start();
+            return step.doFinally(signal -> metrics.record(stage, start));
+        });
+    }
+}
@@ -3,55 +3,208 @@ package com.fisa.validationapi.application.usecases;
 import com.fasterxml.jackson.databind.ObjectMapper; // Necesario para leer errores del Mapper
 import com.fisa.validationapi.application.services.IdempotencyService;
 import com.fisa.validationapi.application.services.Iso20022ValidatorService;
+import com.fisa.validationapi.application.services.PayloadFingerprint;
+import com.fisa.validationapi.application.services.ValidationMetrics;
+import com.fisa.validationapi.application.services.ValidationMetrics.Stage;
+import com.fisa.validationapi.application.services.rules.IsoRuleViolationException;
+import com.fisa.validationapi.domain.models.BatchValidationItem;
 import com.fisa.validationapi.domain.models.IdempotencyRecord;
+import com.fisa.validationapi.domain.models.PartyReferenceData;
 import com.fisa.validationapi.domain.models.enums.IdempotencyStatus;
 import com.fisa.validationapi.domain.ports.in.ValidateTransactionUseCase;
+import com.fisa.validationapi.domain.ports.out.PartyCallJournalPort;
 import com.fisa.validationapi.infrastructure.adapters.input.rest.dtos.ErrorCustomResponse;
-import com.fisa.validationapi.infrastructure.adapters.output.feign.NotificationClient;
+import com.fisa.validationapi.infrastructure.adapters.output.feign.DependencyUnavailableException;
 import com.fisa.validationapi.infrastructure.adapters.output.feign.PartyServiceClient;
-import com.fisa.validationapi.infrastructure.adapters.output.feign.dtos.NotificationRequest;
+import com.fisa.validationapi.infrastructure.adapters.output.notification.AlertAggregator;
+import com.fisa.validationapi.infrastructure.adapters.output.notification.AsyncNotificationDispatcher;
 import feign.FeignException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
 import org.springframework.http.ResponseEntity;
-import com.fasterxml.jackson.databind.JsonNode;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.BiConsumer;
 
 @Slf4j
 @RequiredArgsConstructor
 public class ValidateTransactionUseCaseImpl implements ValidateTransactionUseCase {
 
+    static final String KEY_REUSE_ERROR = "{\"error\": \"Idempotency key already used with a different payload\"}";
+
     private final IdempotencyService idempotencyService;
     private final Iso20022ValidatorService isoValidatorService;
     private final PartyServiceClient partyServiceClient;
-    private final NotificationClient notificationClient;
+    private final AsyncNotificationDispatcher notificationDispatcher; // Envío de correos fuera del hilo de la petición
+    private final AlertAggregator alertAggregator; // Alertas de error agrupadas por origen + tipo (una caída no inunda al administrador)
     private final ObjectMapper objectMapper; // Permite leer el JSON de error del Mapper
+    private final Executor batchExecutor; // Procesa en paralelo los registros de una carga masiva (concurrencia acotada)
+    private final ValidationMetrics metrics; // Duración por etapa y resultados (Micrometer)
+    private final PayloadFingerprint payloadFingerprint; // Huella del payload guardada junto a la llave
+    private final PartyCallJournalPort journal; // Intención y resultado de la llamada a Party Service (recuperación tras caída)
 
     @Override
-    public IdempotencyRecord validateAndProcess(String idempotencyKey, String jsonPayload) {
+    public IdempotencyRecord validateAndProcess(String idempotencyKey, byte[] jsonPayload) {
+
+        long payloadHash = fingerprint(jsonPayload);
 
         // IDEMPOTENCIA
-        Optional<IdempotencyRecord> existing = idempotencyService.checkAndLock(idempotencyKey);
+        long start = metrics.start();
+        Optional<IdempotencyRecord> existing;
+        try {
+            existing = idempotencyService.checkAndLock(idempotencyKey, payloadHash);
+        } finally {
+            metrics.record(Stage.IDEMPOTENCY_CHECK, start);
+        }
         if (existing.isPresent()) {
-            return existing.get();
+            IdempotencyRecord replayed = existing.get();
+            // Misma llave con otro payload: el resultado guardado es de otra operación y no se repite
+            if (!replayed.matchesPayload(payloadHash)) {
+                IdempotencyRecord rejected = keyReuse(idempotencyKey);
+                metrics.outcome(rejected, true);
+                return rejected;
+            }
+            // Reintento concurrente: en modo "wait-for-result" espera el resultado de la petición original en vez del 409
+            if (replayed.getStatus() == IdempotencyStatus.PROCESSING) {
+                start = metrics.start();
+                replayed = idempotencyService.awaitIfProcessing(replayed);
+                metrics.record(Stage.RESULT_WAIT, start);
+            }
+            metrics.outcome(replayed, true);
+            return replayed;
         }
 
+        IdempotencyRecord result = process(idempotencyKey, jsonPayload, payloadHash);
+        metrics.outcome(result, false);
+        return result;
+    }
+
+    @Override
+    public void validateBatch(List<BatchValidationItem> items, BiConsumer<BatchValidationItem, IdempotencyRecord> onResult) {
+
+        long[] payloadHashes = new long[items.size()];
+        for (int i = 0; i < items.size(); i++) {
+            payloadHashes[i] = fingerprint(items.get(i).getJsonPayload());
+        }
+
+        // IDEMPOTENCIA: todas las llaves de la ventana en una sola ida y vuelta
+        List<Optional<IdempotencyRecord>> existingRecords;
+        long start = metrics.start();
         try {
-            // VALIDACIÓN ISO
-            isoValidatorService.validateJsonStructure(jsonPayload);
+            existingRecords = idempotencyService.checkAndLockAll(items.stream().map(BatchValidationItem::getIdempotencyKey).toList(), payloadHashes);
+        } catch (Exception e) {
+            // Fail-Safe: sin bloqueo no se procesa ningún registro de la ventana
+            log.error("System Error locking batch window: {}", e.getMessage());
+            items.forEach(item -> {
+                IdempotencyRecord failure = systemFailure(item.getIdempotencyKey(), e);
+                metrics.outcome(failure, false);
+                onResult.accept(item, failure);
+            });
+            return;
+        } finally {
+            metrics.record(Stage.IDEMPOTENCY_CHECK_BATCH, start);
+        }
+
+        Map<String, String> requestMdc = MDC.getCopyOfContextMap();
+        List<CompletableFuture<Void>> pending = new ArrayList<>();
+
+        for (int i = 0; i < items.size(); i++) {
+            BatchValidationItem item = items.get(i);
+            long payloadHash = payloadHashes[i];
+            Optional<IdempotencyRecord> existing = existingRecords.get(i);
+            if (existing.isPresent()) {
+                IdempotencyRecord replayed = existing.get().matchesPayload(payloadHash) ? existing.get() : keyReuse(item.getIdempotencyKey());
+                metrics.outcome(replayed, true);
+                onResult.accept(item, replayed);
+                continue;
+            }
+
+            // El ejecutor bloquea este hilo si ya hay demasiados registros en curso
+            pending.add(CompletableFuture.runAsync(() -> {
+                if (requestMdc != null) {
+                    MDC.setContextMap(requestMdc);
+                }
+                MDC.put("idempotencyKey", item.getIdempotencyKey());
+                try {
+                    IdempotencyRecord result;
+                    try {
+                        result = process(item.getIdempotencyKey(), item.getJsonPayload(), payloadHash);
+                    } catch (RuntimeException e) {
+                        // Ej: Redis caído al guardar el fallo; en el endpoint individual lo atiende el GlobalExceptionHandler
+                        log.error("System Error processing batch item {}: {}", item.getIndex(), e.getMessage());
+                        result = systemFailure(item.getIdempotencyKey(), e);
+                    }
+                    metrics.outcome(result, false);
+                    onResult.accept(item, result);
+                } finally {
+                    MDC.clear();
+                }
+            }, batchExecutor));
+        }
+
+        CompletableFuture.allOf(pending.toArray(CompletableFuture[]::new)).join();
+    }
+
+    // Flujo de una petición cuya llave ya quedó bloqueada (PROCESSING) por este nodo
+    private IdempotencyRecord process(String idempotencyKey, byte[] jsonPayload, long payloadHash) {
+        try {
+            // VALIDACIÓN ISO (extrae además los datos del cliente para el resto del flujo)
+            // Un payload idéntico validado hace poco reutiliza su veredicto (si la caché está activa)
+            PartyReferenceData referenceData;
+            long start = metrics.start();
+            try {
+                referenceData = isoValidatorService.validateJsonStructure(jsonPayload, payloadHash);
+            } finally {
+                metrics.record(Stage.ISO_VALIDATION, start);
+            }
             log.info("Validación ISO 20022 exitosa para idempotencyKey {}", idempotencyKey);
 
             // LLAMADA A PARTY SERVICE
-            ResponseEntity<String> response = partyServiceClient.createParty(jsonPayload);
+            // Con el diario activo el bloqueo pasa al lease de la llamada; si ya no es propio, no se llama
+            if (!idempotencyService.holdForPartyCall(idempotencyKey)) {
+                return lockLost(idempotencyKey);
+            }
+            ResponseEntity<String> response;
+            journal.intent(idempotencyKey, payloadHash);
+            start = metrics.start();
+            try {
+                response = partyServiceClient.createParty(jsonPayload);
+            } finally {
+                metrics.record(Stage.PARTY_CALL, start);
+            }
             String responseBody = response.getBody() != null ? response.getBody() : "Success";
             int statusCode = response.getStatusCode().value();
 
+            // El resultado queda en disco antes de guardarlo en Redis: si el nodo cae entre ambos, se recupera al arrancar
+            boolean journaled = journalOutcome(idempotencyKey, payloadHash, statusCode, responseBody);
+
             // ÉXITO: Actualizar Redis
-            idempotencyService.saveSuccess(idempotencyKey, statusCode, responseBody);
+            start = metrics.start();
+            try {
+                idempotencyService.saveSuccess(idempotencyKey, payloadHash, statusCode, responseBody);
+                journal.done(idempotencyKey);
+            } catch (RuntimeException e) {
+                // Sin diario, el alta se reporta como fallo (500). Con el resultado en el diario, la llave queda abierta
+                // y la reconciliación guarda este éxito: los reintentos no repiten un 500 de un alta que sí se creó
+                if (!journaled) {
+                    throw e;
+                }
+                log.error("Idempotency: No se pudo guardar el éxito de la llave {} ({}); queda en el diario para reconciliarse",
+                        idempotencyKey, e.getMessage());
+            } finally {
+                metrics.record(Stage.IDEMPOTENCY_SAVE, start);
+            }
 
             // ENVIAR CORREO DE ÉXITO ---
-            sendSuccessEmail(idempotencyKey, responseBody);
+            start = metrics.start();
+            sendSuccessEmail(idempotencyKey, referenceData, responseBody);
+            metrics.record(Stage.NOTIFICATION, start);
 
             return IdempotencyRecord.builder()
                     .key(idempotencyKey)
@@ -63,16 +216,40 @@ public class ValidateTransactionUseCaseImpl implements ValidateTransactionUseCas
         } catch (IllegalArgumentException e) {
             // Error de Validación ISO (400)
             log.warn("Validation Error: {}", e.getMessage());
-            // Guardar fallo en Redis
-            idempotencyService.saveFailure(idempotencyKey, e.getMessage());
+            metrics.violation(e instanceof IsoRuleViolationException violation ? violation.getRule() : ValidationMetrics.MALFORMED_RULE);
+
+            // Guardar fallo en Redis (el mismo cuerpo que recibe el cliente: los reintentos reciben una copia exacta)
+            String responseBody = errorBody(e.getMessage());
+            saveFailure(idempotencyKey, payloadHash, 400, responseBody);
 
             // Enviar correo de alerta (Validación Fallida)
-            sendErrorEmail("ValidationAPI (ISO Check)", "Error de formato: " + e.getMessage(), idempotencyKey);
+            long start = metrics.start();
+            sendErrorEmail("ValidationAPI (ISO Check)", OnboardingEmails.ISO_VALIDATION_ERROR, "Error de formato: " + e.getMessage(), idempotencyKey);
+            metrics.record(Stage.NOTIFICATION, start);
 
             return IdempotencyRecord.builder()
                     .status(IdempotencyStatus.FAILED)
                     .httpStatusCode(400)
-                    .responseBody("{\"error\": \"" + e.getMessage() + "\"}")
+                    .responseBody(responseBody)
+                    .build();
+
+        } catch (DependencyUnavailableException e) {
+            // Party Service protegido: circuito abierto / bulkhead lleno (503) o sin respuesta a tiempo (504)
+            log.warn("Dependency unavailable: {}", e.getMessage());
+            String responseBody = errorBody(e.getMessage());
+            saveFailure(idempotencyKey, payloadHash, e.getHttpStatus(), responseBody);
+
+            // Los rechazos inmediatos no envían correo por petición: el cambio de estado del circuito ya se registra
+            if (!e.isRejected()) {
+                long start = metrics.start();
+                sendErrorEmail(e.getDependency(), OnboardingEmails.DEPENDENCY_TIMEOUT, e.getMessage(), idempotencyKey);
+                metrics.record(Stage.NOTIFICATION, start);
+            }
+
+            return IdempotencyRecord.builder()
+                    .status(IdempotencyStatus.FAILED)
+                    .httpStatusCode(e.getHttpStatus())
+                    .responseBody(responseBody)
                     .build();
 
         } catch (Exception e) {
@@ -97,87 +274,99 @@ public class ValidateTransactionUseCaseImpl implements ValidateTransactionUseCas
                 }
             }
             // Guardar en Redis
-            String errorMsg = "Fallo crítico en " + origin + ": " + detail;
-            idempotencyService.saveFailure(idempotencyKey, errorMsg);
+            String responseBody = errorBody("Fallo crítico en " + origin + ": " + detail);
+            saveFailure(idempotencyKey, payloadHash, 500, responseBody);
             // Enviar Correo de Error
-            sendErrorEmail(origin, detail, idempotencyKey);
+            long start = metrics.start();
+            sendErrorEmail(origin, OnboardingEmails.SYSTEM_ERROR, detail, idempotencyKey);
+            metrics.record(Stage.NOTIFICATION, start);
 
             return IdempotencyRecord.builder()
                     .status(IdempotencyStatus.FAILED)
                     .httpStatusCode(500)
-                    .responseBody("{\"error\": \"" + errorMsg + "\"}")
+                    .responseBody(responseBody)
                     .build();
         }
     }
 
     // --- MÉTODOS PRIVADOS AUXILIARES ---
 
-    private void sendSuccessEmail(String trxId, String jsonResponse) {
-        String emailBody;
-        String subject = "Onboarding Exitoso - Nuevo Cliente";
-
+    private long fingerprint(byte[] jsonPayload) {
+        long start = metrics.start();
         try {
-            // Convertir el String JSON a un Árbol de Nodos para navegarlo
-            JsonNode rootNode = objectMapper.readTree(jsonResponse);
-
-            // Extraer los datos navegando por el JSON
-            // Se usa .path() porque es seguro (si el campo no existe, no lanza error)
-            String partyRefId = rootNode.path("partyRefId").asText("N/A");
-
-            // root -> referenceData -> fullLegalName
-            JsonNode refDataNode = rootNode.path("referenceData");
-            String fullName = refDataNode.path("fullLegalName").asText("Cliente Desconocido");
-            String idNumber = refDataNode.path("identityNumber").asText("N/A");
-
-            // Construir el mensaje personalizado
-            emailBody = String.format("""
-            Hola,
-            
-            Se ha completado exitosamente el registro de un nuevo cliente.
-            
-            ------------------------------------------------
-            Detalles del Cliente:
-            ------------------------------------------------
-            Nombre:           %s
-            Identificación:   %s
-            Referencia BIAN:  %s
-            ------------------------------------------------
-            
-            ID de Transacción: %s
-            """, fullName, idNumber, partyRefId, trxId);
-
-        } catch (Exception e) {
-            // Fallback: Si el JSON no tiene el formato esperado, se envía el mensaje genérico
-            log.warn("No se pudo parsear la respuesta para el correo: {}", e.getMessage());
-            emailBody = "El cliente ha sido creado correctamente.\nID Transacción: " + trxId;
+            return payloadFingerprint.of(jsonPayload);
+        } finally {
+            metrics.record(Stage.PAYLOAD_HASH, start);
         }
+    }
+
+    // Llave ya usada con un payload distinto (422): no se guarda nada, la llave conserva su resultado original
+    private IdempotencyRecord keyReuse(String idempotencyKey) {
+        log.warn("Idempotency: Llave {} reutilizada con un payload distinto", idempotencyKey);
+        metrics.keyReuse();
+        return IdempotencyRecord.builder()
+                .key(idempotencyKey)
+                .status(IdempotencyStatus.FAILED)
+                .httpStatusCode(422)
+                .responseBody(KEY_REUSE_ERROR)
+                .build();
+    }
+
+    // El bloqueo venció y otra petición puede estar procesando la llave (409): no se guarda nada
+    static IdempotencyRecord lockLost(String idempotencyKey) {
+        return IdempotencyRecord.builder()
+                .key(idempotencyKey)
+                .status(IdempotencyStatus.PROCESSING)
+                .build();
+    }
 
-        // Enviar el correo
+    private void saveFailure(String idempotencyKey, long payloadHash, int httpStatus, String responseBody) {
+        long start = metrics.start();
         try {
-            NotificationRequest email = NotificationRequest.builder()
-                    .recipient("cliente@banco.com")
-                    .subject(subject)
-                    .body(emailBody)
-                    .originService("ValidationAPI")
-                    .build();
-            notificationClient.sendEmail(email);
-            log.info("Correo de éxito detallado enviado.");
-        } catch (Exception e) {
-            log.warn("No se pudo enviar el correo de éxito: {}", e.getMessage());
+            idempotencyService.saveFailure(idempotencyKey, payloadHash, httpStatus, responseBody);
+        } finally {
+            metrics.record(Stage.IDEMPOTENCY_SAVE, start);
         }
+        journal.done(idempotencyKey);
     }
 
-    private void sendErrorEmail(String origin, String detail, String trxId) {
+    // Un fallo del diario no convierte en error un alta que Party Service ya aceptó
+    // @return true si el resultado quedó durable en el diario
+    private boolean journalOutcome(String idempotencyKey, long payloadHash, int statusCode, String responseBody) {
+        long start = metrics.start();
         try {
-            NotificationRequest email = NotificationRequest.builder()
-                    .recipient("admin@banco.com")
-                    .subject("[ALERTA] Fallo en Transacción " + trxId)
-                    .body("El flujo falló.\n\nCulpable: " + origin + "\nDetalle: " + detail)
-                    .originService(origin)
-                    .build();
-            notificationClient.sendEmail(email);
-        } catch (Exception e) {
-            log.warn("No se pudo enviar el correo de alerta: {}", e.getMessage());
+            return journal.outcome(idempotencyKey, payloadHash, statusCode, responseBody);
+        } catch (RuntimeException e) {
+            log.error("Journal: No se pudo registrar el resultado de la llave {}: {}", idempotencyKey, e.getMessage());
+            return false;
+        } finally {
+            metrics.record(Stage.JOURNAL, start);
+        }
+    }
+
+    private static IdempotencyRecord systemFailure(String idempotencyKey, Exception e) {
+        return IdempotencyRecord.builder()
+                .key(idempotencyKey)
+                .status(IdempotencyStatus.FAILED)
+                .httpStatusCode(500)
+                .responseBody(errorBody("Fallo crítico en ValidationAPI: " + e.getMessage()))
+                .build();
+    }
+
+    // Cuerpo de las respuestas de error; es también lo que se guarda en el registro FAILED (compartido con el flujo reactivo)
+    static String errorBody(String message) {
+        return "{\"error\": \"" + message + "\"}";
+    }
+
+    private void sendSuccessEmail(String trxId, PartyReferenceData referenceData, String jsonResponse) {
+        // Encolar el correo (el envío real lo hace el despachador en segundo plano)
+        if (notificationDispatcher.dispatch(OnboardingEmails.success(objectMapper, trxId, referenceData, jsonResponse))) {
+            log.info("Correo de éxito detallado encolado.");
         }
     }
+
+    // La primera alerta de cada origen + tipo sale de inmediato; las repetidas de la ventana van en un resumen
+    private void sendErrorEmail(String origin, String errorType, String detail, String trxId) {
+        alertAggregator.record(origin, errorType, OnboardingEmails.ERROR_SUBJECT, OnboardingEmails.errorDetail(detail, trxId));
+    }
 }
\ No newline at end of file
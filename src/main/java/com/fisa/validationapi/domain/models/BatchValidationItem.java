@@ -0,0 +1,21 @@
+package com.fisa.validationapi.domain.models;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Una petición de onboarding dentro de un archivo de carga masiva.
+ */
+@Value
+@Builder
+public class BatchValidationItem {
+
+    // Posición del registro en el archivo (permite al cliente correlacionar resultados que llegan desordenados)
+    int index;
+
+    // Llave de idempotencia propia de este registro
+    String idempotencyKey;
+
+    // Cuerpo del registro en JSON (UTF-8), igual al que recibiría el endpoint individual
+    byte[] jsonPayload;
+}
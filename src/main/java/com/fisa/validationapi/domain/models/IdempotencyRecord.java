@@ -30,4 +30,14 @@ public class IdempotencyRecord implements Serializable {
 
     // Fecha de creación para auditoría
     private LocalDateTime createdAt;
+
+    // Huella del payload que originó la llave (null en registros anteriores a la huella)
+    private Long payloadHash;
+
+    /**
+     * @return false si la llave ya se usó con un payload distinto. Los registros sin huella aceptan cualquier payload.
+     */
+    public boolean matchesPayload(long hash) {
+        return payloadHash == null || payloadHash == hash;
+    }
 }
\ No newline at end of file
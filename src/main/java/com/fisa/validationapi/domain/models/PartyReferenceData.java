@@ -0,0 +1,25 @@
+package com.fisa.validationapi.domain.models;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Datos del bloque 'referenceData' extraídos durante la validación ISO 20022.
+ * Permiten usar los datos del cliente aguas abajo (correo, ensamblaje MX) sin volver a parsear el payload.
+ */
+@Value
+@Builder
+public class PartyReferenceData {
+
+    // Nombre legal completo del cliente (Dbtr/Nm)
+    String fullLegalName;
+
+    // Número de identificación del cliente
+    String identityNumber;
+
+    // Código de país tal como lo envió el TPP (2 o 3 letras)
+    String countryCode;
+
+    // Ciudad (Dbtr/PstlAdr/TwnNm)
+    String townName;
+}
@@ -0,0 +1,36 @@
+package com.fisa.validationapi.domain.models;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+/**
+ * Llamada a Party Service que quedó sin cerrar en el diario local (el nodo cayó antes de guardar el estado final).
+ */
+@Value
+@Builder
+public class PendingPartyCall {
+
+    // Llave de idempotencia de la petición interrumpida
+    String idempotencyKey;
+
+    // Huella del payload de la petición original
+    long payloadHash;
+
+    // Momento en que se registró la intención (reloj del nodo, misma zona que IdempotencyRecord.createdAt)
+    LocalDateTime startedAt;
+
+    // Código HTTP de Party Service, o null si no se alcanzó a registrar su respuesta
+    Integer httpStatusCode;
+
+    // Cuerpo de la respuesta de Party Service (solo si httpStatusCode no es null)
+    String responseBody;
+
+    /**
+     * @return true si Party Service respondió con éxito y solo faltó guardar el resultado.
+     */
+    public boolean hasOutcome() {
+        return httpStatusCode != null;
+    }
+}
@@ -0,0 +1,17 @@
+package com.fisa.validationapi.domain.ports.in;
+
+import com.fisa.validationapi.domain.models.IdempotencyRecord;
+import reactor.core.publisher.Mono;
+
+/**
+ * Variante no bloqueante de {@link ValidateTransactionUseCase} (modo reactivo).
+ * Ningún paso del flujo retiene un hilo mientras espera a Redis o a Party Service.
+ */
+public interface ReactiveValidateTransactionUseCase {
+
+    /**
+     * Ejecuta el mismo flujo de validación que {@link ValidateTransactionUseCase#validateAndProcess}.
+     * @return El registro final (o el existente si la llave ya se había usado).
+     */
+    Mono<IdempotencyRecord> validateAndProcess(String idempotencyKey, byte[] jsonPayload);
+}
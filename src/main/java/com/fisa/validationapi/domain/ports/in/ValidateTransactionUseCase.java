@@ -1,7 +1,11 @@
 package com.fisa.validationapi.domain.ports.in;
 
+import com.fisa.validationapi.domain.models.BatchValidationItem;
 import com.fisa.validationapi.domain.models.IdempotencyRecord;
 
+import java.util.List;
+import java.util.function.BiConsumer;
+
 public interface ValidateTransactionUseCase {
 
     /**
@@ -9,6 +13,16 @@ public interface ValidateTransactionUseCase {
      * 1. Chequeo de Idempotencia.
      * 2. Validación ISO 20022.
      * 3. Guardado de resultados.
+     * @param jsonPayload Cuerpo de la petición en UTF-8, tal como llegó (se reenvía sin recodificar a Party Service).
+     */
+    IdempotencyRecord validateAndProcess(String idempotencyKey, byte[] jsonPayload);
+
+    /**
+     * Ejecuta el mismo flujo para una ventana de registros de una carga masiva.
+     * Los bloqueos de idempotencia se toman para toda la ventana a la vez y los registros nuevos se procesan en paralelo.
+     * El método retorna cuando todos los registros de la ventana tienen resultado.
+     * @param items Registros de la ventana.
+     * @param onResult Recibe cada resultado en cuanto está listo (en cualquier orden y desde varios hilos).
      */
-    IdempotencyRecord validateAndProcess(String idempotencyKey, String jsonPayload);
-}
\ No newline at end of file
+    void validateBatch(List<BatchValidationItem> items, BiConsumer<BatchValidationItem, IdempotencyRecord> onResult);
+}
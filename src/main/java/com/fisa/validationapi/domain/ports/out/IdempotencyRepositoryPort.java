@@ -1,6 +1,9 @@
 package com.fisa.validationapi.domain.ports.out;
 
 import com.fisa.validationapi.domain.models.IdempotencyRecord;
+
+import java.time.Duration;
+import java.util.List;
 import java.util.Optional;
 
 public interface IdempotencyRepositoryPort {
@@ -12,10 +15,49 @@ public interface IdempotencyRepositoryPort {
      */
     void save(IdempotencyRecord record);
 
+    /**
+     * Guarda o actualiza varios registros con la misma semántica que {@link #save}.
+     * Por defecto se guardan uno a uno; los adaptadores pueden agrupar todo en una sola ida y vuelta.
+     * @param records Los registros a guardar (como máximo uno por llave).
+     */
+    default void saveAll(List<IdempotencyRecord> records) {
+        records.forEach(this::save);
+    }
+
     /**
      * Busca una llave de idempotencia.
      * @param key La llave única (x-idempotency-key).
      * @return Un Optional que contiene el registro si existe, o vacío si no.
      */
     Optional<IdempotencyRecord> findByKey(String key);
-}
\ No newline at end of file
+
+    /**
+     * Intenta tomar el bloqueo de una llave de forma atómica (una sola ida y vuelta al almacenamiento).
+     * Si la llave no existe, se guarda el registro recibido (normalmente en estado PROCESSING).
+     * Si ya existe, no se modifica nada y se devuelve el registro almacenado.
+     * @param lockRecord El registro a guardar si la llave está libre.
+     * @return Optional vacío si se obtuvo el bloqueo, o el registro existente si la llave ya estaba tomada.
+     */
+    Optional<IdempotencyRecord> acquireLock(IdempotencyRecord lockRecord);
+
+    /**
+     * Intenta tomar el bloqueo de varias llaves con la misma semántica que {@link #acquireLock},
+     * pensado para cargas masivas. Cada llave se bloquea de forma atómica por separado.
+     * Por defecto se bloquea una a una; los adaptadores pueden agrupar todo en una sola ida y vuelta.
+     * @param lockRecords Los registros a guardar si sus llaves están libres.
+     * @return Un resultado por registro, en el mismo orden recibido.
+     */
+    default List<Optional<IdempotencyRecord>> acquireLocks(List<IdempotencyRecord> lockRecords) {
+        return lockRecords.stream().map(this::acquireLock).toList();
+    }
+
+    /**
+     * Extiende una sola vez el bloqueo PROCESSING que este nodo tomó sobre la llave y deja de renovarlo.
+     * Por defecto no hace nada (almacenamientos sin lease renovable).
+     * @param ttl Nueva vida del bloqueo.
+     * @return false si el bloqueo ya no pertenece a este nodo (venció u otra petición tomó la llave).
+     */
+    default boolean holdLock(String key, Duration ttl) {
+        return true;
+    }
+}
@@ -0,0 +1,24 @@
+package com.fisa.validationapi.domain.ports.out;
+
+import com.fisa.validationapi.domain.models.IdempotencyRecord;
+
+import java.time.Duration;
+import java.util.Optional;
+
+public interface IdempotencyResultPort {
+
+    /**
+     * Espera a que una llave en estado PROCESSING llegue a un estado final (COMPLETED/FAILED),
+     * sin consultar el almacenamiento en bucle. Las peticiones que esperan la misma llave comparten una única espera.
+     * @param key La llave única (x-idempotency-key).
+     * @param timeout Tiempo máximo de espera.
+     * @return El registro final, o vacío si no terminó a tiempo (o la llave ya no existe).
+     */
+    Optional<IdempotencyRecord> awaitResult(String key, Duration timeout);
+
+    /**
+     * Avisa que este nodo acaba de guardar el estado final de una llave, para despertar a quienes la esperan localmente.
+     * @param record El registro final ya guardado.
+     */
+    void resultSaved(IdempotencyRecord record);
+}
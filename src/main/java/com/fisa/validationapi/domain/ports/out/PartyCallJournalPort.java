@@ -0,0 +1,39 @@
+package com.fisa.validationapi.domain.ports.out;
+
+import com.fisa.validationapi.domain.models.PendingPartyCall;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Diario de las llamadas a Party Service: registra la intención y el resultado de cada llave para poder
+ * reconciliar las llaves que quedaron en PROCESSING: tras una caída del nodo o cuando la petición no alcanzó
+ * a guardar su estado final (ver PartyCallRecoveryService).
+ */
+public interface PartyCallJournalPort {
+
+    /**
+     * Registra que la llave está a punto de llamar a Party Service. No espera a que llegue al disco.
+     */
+    void intent(String idempotencyKey, long payloadHash);
+
+    /**
+     * Registra la respuesta exitosa de Party Service. Al retornar true, el registro ya es durable
+     * (si el nodo cae antes de guardar el estado final, el resultado se recupera al arrancar).
+     * @return false si el diario está desactivado (nada recuperará este resultado).
+     * @throws IllegalStateException si el registro no llegó al disco a tiempo (se trata como no registrado).
+     */
+    boolean outcome(String idempotencyKey, long payloadHash, int httpStatusCode, String responseBody);
+
+    /**
+     * Cierra la llave una vez guardado su estado final. No hace nada si la llave no tenía intención registrada.
+     * Una llave con resultado registrado solo se cierra tras guardar ese resultado (nunca con un FAILED posterior).
+     */
+    void done(String idempotencyKey);
+
+    /**
+     * @param minAge Antigüedad mínima de las llamadas de esta ejecución (las más recientes pueden seguir en curso).
+     * @return Las llamadas sin cerrar: todas las de la ejecución anterior y las de esta abiertas hace más de minAge.
+     */
+    List<PendingPartyCall> pending(Duration minAge);
+}
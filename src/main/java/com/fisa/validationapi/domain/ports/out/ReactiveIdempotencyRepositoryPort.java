@@ -0,0 +1,38 @@
+package com.fisa.validationapi.domain.ports.out;
+
+import com.fisa.validationapi.domain.models.IdempotencyRecord;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * Variante no bloqueante de {@link IdempotencyRepositoryPort}, con la misma semántica y el mismo almacenamiento.
+ */
+public interface ReactiveIdempotencyRepositoryPort {
+
+    /**
+     * Guarda o actualiza un registro de idempotencia.
+     * @return Mono que completa cuando el almacenamiento confirmó la escritura.
+     */
+    Mono<Void> save(IdempotencyRecord record);
+
+    /**
+     * Busca una llave de idempotencia.
+     * @return El registro, o vacío si no existe.
+     */
+    Mono<IdempotencyRecord> findByKey(String key);
+
+    /**
+     * Intenta tomar el bloqueo de una llave de forma atómica (ver {@link IdempotencyRepositoryPort#acquireLock}).
+     * @return Vacío si se obtuvo el bloqueo, o el registro existente si la llave ya estaba tomada.
+     */
+    Mono<IdempotencyRecord> acquireLock(IdempotencyRecord lockRecord);
+
+    /**
+     * Extiende una sola vez el bloqueo propio de la llave (ver {@link IdempotencyRepositoryPort#holdLock}).
+     * @return false si el bloqueo ya no pertenece a este nodo.
+     */
+    default Mono<Boolean> holdLock(String key, Duration ttl) {
+        return Mono.just(true);
+    }
+}
@@ -0,0 +1,164 @@
+package com.fisa.validationapi.infrastructure.adapters.input.rest;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import com.fisa.validationapi.domain.models.BatchValidationItem;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Lee un archivo de carga masiva por ventanas, sin cargarlo completo en memoria.
+ * Acepta NDJSON (un objeto por línea) o un arreglo JSON, con registros de la forma
+ * {"idempotencyKey": "...", "payload": {...}}. Cada payload se copia con el mismo límite de tamaño
+ * que el endpoint individual; uno mayor se rechaza sin terminar de copiarlo.
+ */
+final class BatchRequestReader implements Closeable {
+
+    private final JsonFactory jsonFactory;
+    private final JsonParser parser;
+    private final int maxIdempotencyKeyLength;
+    private final int maxPayloadBytes;
+
+    private boolean started;
+    private boolean array;
+    private boolean finished;
+    private int nextIndex;
+    private String malformedMessage;
+
+    BatchRequestReader(JsonFactory jsonFactory, JsonParser parser, int maxIdempotencyKeyLength, int maxPayloadBytes) {
+        this.jsonFactory = jsonFactory;
+        this.parser = parser;
+        this.maxIdempotencyKeyLength = maxIdempotencyKeyLength;
+        this.maxPayloadBytes = maxPayloadBytes;
+    }
+
+    /**
+     * Lee los siguientes registros del archivo.
+     * Si el JSON está mal formado, devuelve los registros leídos hasta ese punto y deja de leer (ver {@link #getMalformedMessage()}).
+     * @param windowSize Máximo de registros válidos a devolver.
+     * @param onRejected Recibe el mensaje y la posición de cada registro sin el formato esperado (se omite y se sigue leyendo).
+     * @return Los registros de la ventana; vacío cuando el archivo terminó.
+     */
+    List<BatchValidationItem> nextWindow(int windowSize, ObjIntConsumer<String> onRejected) throws IOException {
+        List<BatchValidationItem> window = new ArrayList<>(windowSize);
+        try {
+            while (window.size() < windowSize && !finished) {
+                JsonToken token = nextItemToken();
+                if (token == null) {
+                    break;
+                }
+
+                int index = nextIndex++;
+                if (token != JsonToken.START_OBJECT) {
+                    parser.skipChildren();
+                    onRejected.accept("El registro debe ser un objeto JSON", index);
+                    continue;
+                }
+                readItem(index, window, onRejected);
+            }
+        } catch (JsonProcessingException e) {
+            // No se puede seguir leyendo, pero los registros ya leídos de la ventana se procesan
+            finished = true;
+            malformedMessage = e.getOriginalMessage();
+        }
+        return window;
+    }
+
+    /**
+     * @return El error de sintaxis que interrumpió la lectura, o null si el archivo se leyó completo.
+     */
+    String getMalformedMessage() {
+        return malformedMessage;
+    }
+
+    @Override
+    public void close() throws IOException {
+        parser.close();
+    }
+
+    // Avanza al siguiente registro: elemento del arreglo o siguiente valor raíz (NDJSON)
+    private JsonToken nextItemToken() throws IOException {
+        JsonToken token = parser.nextToken();
+        if (!started) {
+            started = true;
+            if (token == JsonToken.START_ARRAY) {
+                array = true;
+                token = parser.nextToken();
+            }
+        }
+        if (token == null || (array && token == JsonToken.END_ARRAY)) {
+            finished = true;
+            return null;
+        }
+        return token;
+    }
+
+    private void readItem(int index, List<BatchValidationItem> window, ObjIntConsumer<String> onRejected) throws IOException {
+        String idempotencyKey = null;
+        byte[] payload = null;
+        boolean payloadTooLarge = false;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+
+            if ("idempotencyKey".equals(field) && value == JsonToken.VALUE_STRING) {
+                idempotencyKey = parser.getText();
+            } else if ("payload".equals(field) && value == JsonToken.START_OBJECT) {
+                payload = copyPayload();
+                payloadTooLarge = payload == null;
+            } else {
+                parser.skipChildren();
+            }
+        }
+
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            onRejected.accept("El campo 'idempotencyKey' es obligatorio", index);
+        } else if (idempotencyKey.length() > maxIdempotencyKeyLength) {
+            onRejected.accept("El campo 'idempotencyKey' no puede superar " + maxIdempotencyKeyLength + " caracteres", index);
+        } else if (payloadTooLarge) {
+            onRejected.accept("El campo 'payload' no puede superar " + maxPayloadBytes + " bytes", index);
+        } else if (payload == null) {
+            onRejected.accept("El campo 'payload' debe ser un objeto JSON", index);
+        } else {
+            window.add(BatchValidationItem.builder()
+                    .index(index)
+                    .idempotencyKey(idempotencyKey)
+                    .jsonPayload(payload)
+                    .build());
+        }
+    }
+
+    // Copia el objeto actual token a token a los bytes UTF-8 que recibe el resto del flujo (sin construir un árbol)
+    // Devuelve null si supera maxPayloadBytes: deja de copiar y solo avanza hasta el final del objeto
+    private byte[] copyPayload() throws IOException {
+        try (ByteArrayBuilder output = new ByteArrayBuilder()) {
+            boolean tooLarge = false;
+            try (JsonGenerator generator = jsonFactory.createGenerator(output)) {
+                int depth = 0;
+                JsonToken token = parser.currentToken();
+                while (true) {
+                    if (!tooLarge) {
+                        generator.copyCurrentEvent(parser);
+                        tooLarge = output.size() + Math.max(generator.getOutputBuffered(), 0) > maxPayloadBytes;
+                    }
+                    if (token.isStructStart()) {
+                        depth++;
+                    } else if (token.isStructEnd() && --depth == 0) {
+                        break;
+                    }
+                    token = parser.nextToken(); // Un archivo que termina dentro del objeto lanza JsonEOFException
+                }
+            }
+            return tooLarge ? null : output.toByteArray();
+        }
+    }
+}
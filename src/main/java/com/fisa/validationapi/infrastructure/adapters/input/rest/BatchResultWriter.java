@@ -0,0 +1,94 @@
+package com.fisa.validationapi.infrastructure.adapters.input.rest;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fisa.validationapi.domain.models.BatchValidationItem;
+import com.fisa.validationapi.domain.models.IdempotencyRecord;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Escribe los resultados de una carga masiva como NDJSON (un objeto por línea), en el orden en que terminan.
+ * Varios hilos escriben a la vez: cada línea se escribe y se envía al cliente bajo un candado
+ * (ReentrantLock y no synchronized, para no anclar hilos virtuales mientras se escribe en el socket).
+ */
+final class BatchResultWriter implements Closeable {
+
+    private static final String PROCESSING_BODY = "{\"error\": \"Request is currently being processed\"}";
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final JsonGenerator generator;
+
+    BatchResultWriter(JsonFactory jsonFactory, OutputStream output) throws IOException {
+        this.generator = jsonFactory.createGenerator(output);
+        this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        this.generator.setRootValueSeparator(null); // El separador es el salto de línea que se escribe tras cada resultado
+    }
+
+    /**
+     * Escribe el resultado de un registro, con el mismo código HTTP y cuerpo que daría el endpoint individual.
+     */
+    void write(BatchValidationItem item, IdempotencyRecord result) {
+        // Mapeo de Respuesta (Domain -> HTTP)
+        int httpStatus;
+        String body;
+        switch (result.getStatus()) {
+            case COMPLETED, FAILED -> {
+                httpStatus = result.getHttpStatusCode() != null ? result.getHttpStatusCode() : 500;
+                body = result.getResponseBody();
+            }
+            default -> {
+                httpStatus = 409;
+                body = PROCESSING_BODY;
+            }
+        }
+        writeLine(item.getIndex(), item.getIdempotencyKey(), result.getStatus().name(), httpStatus, body);
+    }
+
+    /**
+     * Escribe el rechazo de un registro que no se pudo leer (no se procesa ni se bloquea su llave).
+     */
+    void writeRejected(String message, int index) {
+        writeLine(index, null, "REJECTED", 400, "{\"error\": \"" + message + "\"}");
+    }
+
+    /**
+     * Escribe el error que interrumpe la lectura del archivo (ej: JSON mal formado); los registros anteriores ya tienen resultado.
+     */
+    void writeAborted(String message) {
+        writeLine(-1, null, "ABORTED", 400, "{\"error\": \"" + message + "\"}");
+    }
+
+    @Override
+    public void close() throws IOException {
+        generator.close();
+    }
+
+    private void writeLine(int index, String idempotencyKey, String status, int httpStatus, String body) {
+        lock.lock();
+        try {
+            generator.writeStartObject();
+            if (index >= 0) {
+                generator.writeNumberField("index", index);
+            }
+            if (idempotencyKey != null) {
+                generator.writeStringField("idempotencyKey", idempotencyKey);
+            }
+            generator.writeStringField("status", status);
+            generator.writeNumberField("httpStatus", httpStatus);
+            generator.writeStringField("body", body);
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+            generator.flush(); // Cada resultado llega al cliente en cuanto está listo
+        } catch (IOException e) {
+            // Normalmente el cliente cerró la conexión
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+}
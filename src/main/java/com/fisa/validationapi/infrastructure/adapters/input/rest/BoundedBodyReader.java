@@ -0,0 +1,55 @@
+package com.fisa.validationapi.infrastructure.adapters.input.rest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Lee el cuerpo de una petición a un arreglo de bytes con un tamaño máximo.
+ * Si el Content-Length declarado ya excede el máximo, se rechaza sin leer nada; sin Content-Length
+ * (chunked) se lee como mucho un byte más del máximo para detectar el exceso.
+ * Un cuerpo vacío se rechaza como lo hacía @RequestBody: antes de tocar la llave de idempotencia.
+ */
+final class BoundedBodyReader {
+
+    private BoundedBodyReader() {
+    }
+
+    /**
+     * @param declaredLength Content-Length de la petición, o -1 si no se conoce.
+     * @throws BodyTooLargeException Si el cuerpo excede maxBytes.
+     * @throws IllegalArgumentException Si el cuerpo está vacío.
+     */
+    static byte[] read(InputStream body, long declaredLength, int maxBytes) throws IOException {
+        if (declaredLength > maxBytes) {
+            throw new BodyTooLargeException(maxBytes);
+        }
+
+        byte[] buffer;
+        if (declaredLength >= 0) {
+            // Tamaño conocido: una sola lectura al arreglo definitivo
+            buffer = new byte[(int) declaredLength];
+            int read = body.readNBytes(buffer, 0, buffer.length);
+            if (read < buffer.length) {
+                buffer = Arrays.copyOf(buffer, read);
+            }
+        } else {
+            buffer = body.readNBytes(maxBytes + 1);
+            if (buffer.length > maxBytes) {
+                throw new BodyTooLargeException(maxBytes);
+            }
+        }
+
+        if (buffer.length == 0) {
+            throw new IllegalArgumentException("Request body is required");
+        }
+        return buffer;
+    }
+
+    static final class BodyTooLargeException extends RuntimeException {
+
+        BodyTooLargeException(int maxBytes) {
+            super("Request body exceeds " + maxBytes + " bytes");
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.fisa.validationapi.infrastructure.adapters.input.rest;
+
+import com.fisa.validationapi.domain.ports.in.ReactiveValidateTransactionUseCase;
+import com.fisa.validationapi.infrastructure.config.ValidationRequestProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+/**
+ * Mismo contrato que ValidationController para el modo reactivo (spring.main.web-application-type=reactive).
+ * El cuerpo llega como bytes UTF-8 con el límite de spring.codec.max-in-memory-size (413 al excederlo).
+ * La carga masiva (/validate/batch) solo existe en el modo servlet.
+ */
+@Slf4j
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequestMapping("/api/v1/compliance")
+@RequiredArgsConstructor
+public class ReactiveValidationController {
+
+    // Inyectar el Caso de Uso (Input Port)
+    private final ReactiveValidateTransactionUseCase validateTransactionUseCase;
+    private final ValidationRequestProperties requestProperties;
+
+    @PostMapping(value = "/validate", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<String>> validateTransaction(
+            @RequestHeader(value = "x-idempotency-key") String idempotencyKey,
+            @RequestHeader(value = "x-fapi-interaction-id") String interactionId,
+            @RequestHeader(value = "Consent-ID") String consentId,
+            @RequestBody byte[] jsonPayload
+    ) {
+        // Validaciones HTTP (Headers)
+        try {
+            ValidationController.validateHeaders(interactionId, consentId);
+            ValidationController.validateIdempotencyKey(idempotencyKey, requestProperties.getMaxIdempotencyKeyLength());
+            // Cuerpo vacío: 400 antes de bloquear la llave
+            if (jsonPayload.length == 0) {
+                throw new IllegalArgumentException("Request body is required");
+            }
+        } catch (IllegalArgumentException e) {
+            return Mono.just(ResponseEntity.badRequest().body("{\"error\": \"" + e.getMessage() + "\"}"));
+        }
+
+        // Llamada al Negocio (Caso de Uso) y Mapeo de Respuesta (Domain -> HTTP)
+        return validateTransactionUseCase.validateAndProcess(idempotencyKey, jsonPayload)
+                .map(result -> switch (result.getStatus()) {
+                    case COMPLETED, FAILED -> ResponseEntity.status(result.getHttpStatusCode()).body(result.getResponseBody());
+                    case PROCESSING -> ResponseEntity.status(HttpStatus.CONFLICT).body("{\"error\": \"Request is currently being processed\"}");
+                });
+    }
+}
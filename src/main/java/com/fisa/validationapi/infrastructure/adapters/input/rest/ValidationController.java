@@ -1,40 +1,61 @@
 package com.fisa.validationapi.infrastructure.adapters.input.rest;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fisa.validationapi.domain.models.BatchValidationItem;
 import com.fisa.validationapi.domain.models.IdempotencyRecord;
 import com.fisa.validationapi.domain.models.enums.IdempotencyStatus;
 import com.fisa.validationapi.domain.ports.in.ValidateTransactionUseCase;
+import com.fisa.validationapi.infrastructure.config.BatchValidationProperties;
+import com.fisa.validationapi.infrastructure.config.ValidationRequestProperties;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.slf4j.MDC;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
 import java.util.UUID;
 
 @Slf4j
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping("/api/v1/compliance")
 @RequiredArgsConstructor
 public class ValidationController {
 
     // Inyectar el Caso de Uso (Input Port)
     private final ValidateTransactionUseCase validateTransactionUseCase;
+    private final ObjectMapper objectMapper; // Lectura/escritura en streaming de las cargas masivas
+    private final BatchValidationProperties batchProperties;
+    private final ValidationRequestProperties requestProperties;
 
+    // El cuerpo se lee como bytes UTF-8 (sin decodificar a String): se valida y se reenvía a Party Service tal cual
     @PostMapping(value = "/validate", produces = MediaType.APPLICATION_JSON_VALUE)
     public ResponseEntity<?> validateTransaction(
             @RequestHeader(value = "x-idempotency-key") String idempotencyKey,
             @RequestHeader(value = "x-fapi-interaction-id") String interactionId,
             @RequestHeader(value = "Consent-ID") String consentId,
-            @RequestBody String jsonPayload
-    ) {
+            HttpServletRequest request
+    ) throws IOException {
         MDC.put("interactionId", interactionId);
         MDC.put("idempotencyKey", idempotencyKey);
 
         try {
             // Validaciones HTTP (Headers)
             validateHeaders(interactionId, consentId);
+            validateIdempotencyKey(idempotencyKey, requestProperties.getMaxIdempotencyKeyLength());
+
+            // Lectura acotada del cuerpo (413 si excede el máximo, 400 si está vacío), antes de bloquear la llave
+            byte[] jsonPayload = BoundedBodyReader.read(request.getInputStream(), request.getContentLengthLong(),
+                    (int) requestProperties.getMaxBodySize().toBytes());
 
             // Llamada al Negocio (Caso de Uso)
             IdempotencyRecord result = validateTransactionUseCase.validateAndProcess(idempotencyKey, jsonPayload);
@@ -47,12 +68,58 @@ public class ValidationController {
 
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().body("{\"error\": \"" + e.getMessage() + "\"}");
+        } catch (BoundedBodyReader.BodyTooLargeException e) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body("{\"error\": \"" + e.getMessage() + "\"}");
         } finally {
             MDC.clear();
         }
     }
 
-    private void validateHeaders(String interactionId, String consentId) {
+    /**
+     * Carga masiva: NDJSON o arreglo JSON con registros {"idempotencyKey": "...", "payload": {...}}.
+     * Cada payload tiene el mismo límite que el cuerpo del endpoint individual (validation.request.max-body-size).
+     * El archivo se procesa por ventanas (solo una ventana en memoria) y la respuesta es NDJSON
+     * con un resultado por registro, enviado en cuanto ese registro termina.
+     */
+    @PostMapping(value = "/validate/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<?> validateBatch(
+            @RequestHeader(value = "x-fapi-interaction-id") String interactionId,
+            @RequestHeader(value = "Consent-ID") String consentId,
+            HttpServletRequest request
+    ) throws IOException {
+        try {
+            validateHeaders(interactionId, consentId);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().contentType(MediaType.APPLICATION_JSON).body("{\"error\": \"" + e.getMessage() + "\"}");
+        }
+
+        InputStream body = request.getInputStream();
+        StreamingResponseBody results = output -> {
+            MDC.put("interactionId", interactionId);
+            JsonFactory jsonFactory = objectMapper.getFactory();
+
+            try (BatchRequestReader reader = new BatchRequestReader(jsonFactory, jsonFactory.createParser(body),
+                    requestProperties.getMaxIdempotencyKeyLength(), (int) requestProperties.getMaxBodySize().toBytes());
+                 BatchResultWriter writer = new BatchResultWriter(jsonFactory, output)) {
+                List<BatchValidationItem> window;
+                while (!(window = reader.nextWindow(batchProperties.getWindowSize(), writer::writeRejected)).isEmpty()) {
+                    validateTransactionUseCase.validateBatch(window, writer::write);
+                }
+
+                if (reader.getMalformedMessage() != null) {
+                    log.warn("Carga masiva interrumpida por JSON mal formado: {}", reader.getMalformedMessage());
+                    writer.writeAborted("JSON mal formado: " + reader.getMalformedMessage());
+                }
+            } finally {
+                MDC.clear();
+            }
+        };
+
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(results);
+    }
+
+    // Compartida con ReactiveValidationController
+    static void validateHeaders(String interactionId, String consentId) {
         try {
             UUID.fromString(interactionId);
         } catch (IllegalArgumentException e) {
@@ -62,4 +129,11 @@ public class ValidationController {
             throw new IllegalArgumentException("Header 'Consent-ID' is mandatory");
         }
     }
+
+    // Compartida con ReactiveValidationController (la llave se guarda en Redis y en el diario de llamadas)
+    static void validateIdempotencyKey(String idempotencyKey, int maxLength) {
+        if (idempotencyKey.length() > maxLength) {
+            throw new IllegalArgumentException("Header 'x-idempotency-key' must not exceed " + maxLength + " characters");
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,120 @@
+package com.fisa.validationapi.infrastructure.adapters.output.cache;
+
+import com.fisa.validationapi.domain.models.IdempotencyRecord;
+import com.fisa.validationapi.domain.models.enums.IdempotencyStatus;
+import com.fisa.validationapi.domain.ports.out.IdempotencyRepositoryPort;
+import com.fisa.validationapi.infrastructure.adapters.output.redis.IdempotencyEventChannel;
+import com.fisa.validationapi.infrastructure.adapters.output.redis.IdempotencyRetentionPolicy;
+import com.github.benmanes.caffeine.cache.Cache;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Caché local (near-cache) delante del repositorio de idempotencia.
+ * Solo guarda registros en estado final (COMPLETED/FAILED): los reintentos de una llave ya resuelta
+ * se responden desde memoria sin ir a Redis ni deserializar el registro.
+ * Las entradas se invalidan cuando otro nodo anuncia un cambio por el canal Pub/Sub de Redis.
+ * Lo que se guarda en memoria pasa por la misma retención que lo escrito en Redis (cuerpos recortados):
+ * una repetición responde igual en este nodo que en los demás.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class NearCacheIdempotencyAdapter implements IdempotencyRepositoryPort, MessageListener {
+
+    private final IdempotencyRepositoryPort delegate;
+    private final Cache<String, IdempotencyRecord> cache;
+    private final IdempotencyRetentionPolicy retentionPolicy;
+
+    @Override
+    public void save(IdempotencyRecord record) {
+        delegate.save(record);
+        remember(record.getKey(), retentionPolicy.apply(record));
+    }
+
+    @Override
+    public Optional<IdempotencyRecord> findByKey(String key) {
+        IdempotencyRecord cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        Optional<IdempotencyRecord> found = delegate.findByKey(key);
+        found.ifPresent(record -> remember(key, record));
+        return found;
+    }
+
+    @Override
+    public Optional<IdempotencyRecord> acquireLock(IdempotencyRecord lockRecord) {
+        // Una llave en estado final nunca vuelve a bloquearse: se responde directamente desde memoria
+        IdempotencyRecord cached = cache.getIfPresent(lockRecord.getKey());
+        if (cached != null) {
+            log.debug("Near-cache: Llave {} resuelta localmente con estado {}", lockRecord.getKey(), cached.getStatus());
+            return Optional.of(cached);
+        }
+        Optional<IdempotencyRecord> existing = delegate.acquireLock(lockRecord);
+        existing.ifPresent(record -> remember(lockRecord.getKey(), record));
+        return existing;
+    }
+
+    @Override
+    public List<Optional<IdempotencyRecord>> acquireLocks(List<IdempotencyRecord> lockRecords) {
+        // Las llaves resueltas se responden desde memoria; el resto viaja a Redis en un solo lote
+        List<Optional<IdempotencyRecord>> results = new ArrayList<>(lockRecords.size());
+        List<IdempotencyRecord> misses = new ArrayList<>();
+        for (IdempotencyRecord lockRecord : lockRecords) {
+            IdempotencyRecord cached = cache.getIfPresent(lockRecord.getKey());
+            results.add(Optional.ofNullable(cached));
+            if (cached == null) {
+                misses.add(lockRecord);
+            }
+        }
+        if (misses.isEmpty()) {
+            return results;
+        }
+
+        List<Optional<IdempotencyRecord>> delegated = delegate.acquireLocks(misses);
+        int next = 0;
+        for (int i = 0; i < results.size(); i++) {
+            if (results.get(i).isEmpty()) {
+                String key = lockRecords.get(i).getKey();
+                Optional<IdempotencyRecord> existing = delegated.get(next++);
+                existing.ifPresent(record -> remember(key, record));
+                results.set(i, existing);
+            }
+        }
+        return results;
+    }
+
+    @Override
+    public boolean holdLock(String key, Duration ttl) {
+        return delegate.holdLock(key, ttl);
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        if (IdempotencyEventChannel.isFromThisNode(body)) {
+            return; // Este nodo ya tiene la versión más reciente
+        }
+        cache.invalidate(IdempotencyEventChannel.keyOf(body));
+    }
+
+    private void remember(String key, IdempotencyRecord record) {
+        if (isTerminal(record.getStatus())) {
+            cache.put(key, record);
+        } else {
+            cache.invalidate(key);
+        }
+    }
+
+    private static boolean isTerminal(IdempotencyStatus status) {
+        return status == IdempotencyStatus.COMPLETED || status == IdempotencyStatus.FAILED;
+    }
+}
@@ -0,0 +1,229 @@
+package com.fisa.validationapi.infrastructure.adapters.output.cache;
+
+import com.fisa.validationapi.domain.models.IdempotencyRecord;
+import com.fisa.validationapi.domain.models.enums.IdempotencyStatus;
+import com.fisa.validationapi.domain.ports.out.IdempotencyRepositoryPort;
+import com.fisa.validationapi.infrastructure.config.IdempotencyProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Escritura diferida (write-behind) de los estados finales delante del repositorio de idempotencia.
+ * COMPLETED/FAILED se dejan en memoria y un hilo los envía a Redis por lotes en un solo pipeline,
+ * así la respuesta no espera la confirmación de esa última escritura. Si la misma llave cambia antes
+ * de enviarse, solo viaja el último registro. El bloqueo (PROCESSING) sigue siendo síncrono.
+ * Las lecturas y bloqueos de este nodo consultan primero las escrituras pendientes; los demás nodos
+ * ven la llave en PROCESSING hasta que se envía (normalmente unos milisegundos).
+ */
+@Slf4j
+public class WriteBehindIdempotencyAdapter implements IdempotencyRepositoryPort, SmartLifecycle {
+
+    // Se detiene después que el servidor web (todas las respuestas ya tienen su escritura encolada)
+    // y antes que la conexión a Redis, para poder vaciar lo pendiente
+    static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 4096;
+
+    private static final long POLL_TIMEOUT_MS = 500;
+    private static final long INITIAL_BACKOFF_MS = 100;
+    private static final long MAX_BACKOFF_MS = 5_000;
+
+    private final IdempotencyRepositoryPort delegate;
+    private final IdempotencyProperties.WriteBehind properties;
+
+    // Último registro pendiente por llave; la cola solo contiene llaves que aún no se han enviado
+    private final Map<String, IdempotencyRecord> pending = new ConcurrentHashMap<>();
+    private final BlockingQueue<String> dirtyKeys = new LinkedBlockingQueue<>();
+
+    private final Counter flushedCounter;
+    private final Counter failedCounter;
+    private final Counter synchronousCounter;
+
+    private volatile boolean running;
+    private Thread worker;
+
+    public WriteBehindIdempotencyAdapter(IdempotencyRepositoryPort delegate, IdempotencyProperties.WriteBehind properties,
+                                         MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.properties = properties;
+
+        Gauge.builder("idempotency.write_behind.pending", pending, Map::size)
+                .description("Registros finales pendientes de escribir en Redis")
+                .register(meterRegistry);
+        this.flushedCounter = outcomeCounter(meterRegistry, "flushed");
+        this.failedCounter = outcomeCounter(meterRegistry, "failed");
+        this.synchronousCounter = outcomeCounter(meterRegistry, "synchronous");
+    }
+
+    @Override
+    public void save(IdempotencyRecord record) {
+        // El bloqueo debe quedar en Redis antes de seguir
+        if (record.getStatus() == IdempotencyStatus.PROCESSING) {
+            delegate.save(record);
+            return;
+        }
+
+        // Una llave ya pendiente se reemplaza aunque se haya alcanzado la capacidad (no ocupa más memoria)
+        if (running && (pending.size() < properties.getCapacity() || pending.containsKey(record.getKey()))) {
+            if (pending.put(record.getKey(), record) == null) {
+                dirtyKeys.offer(record.getKey());
+            }
+            return;
+        }
+
+        // Sin hilo de envío (apagado) o con demasiadas llaves pendientes, la escritura vuelve a ser síncrona
+        synchronousCounter.increment();
+        delegate.save(record);
+    }
+
+    @Override
+    public Optional<IdempotencyRecord> findByKey(String key) {
+        IdempotencyRecord unsent = pending.get(key);
+        return unsent != null ? Optional.of(unsent) : delegate.findByKey(key);
+    }
+
+    @Override
+    public Optional<IdempotencyRecord> acquireLock(IdempotencyRecord lockRecord) {
+        // La llave ya está resuelta en este nodo aunque Redis todavía la tenga en PROCESSING
+        IdempotencyRecord unsent = pending.get(lockRecord.getKey());
+        return unsent != null ? Optional.of(unsent) : delegate.acquireLock(lockRecord);
+    }
+
+    @Override
+    public List<Optional<IdempotencyRecord>> acquireLocks(List<IdempotencyRecord> lockRecords) {
+        List<Optional<IdempotencyRecord>> results = new ArrayList<>(lockRecords.size());
+        List<IdempotencyRecord> misses = new ArrayList<>();
+        for (IdempotencyRecord lockRecord : lockRecords) {
+            IdempotencyRecord unsent = pending.get(lockRecord.getKey());
+            results.add(Optional.ofNullable(unsent));
+            if (unsent == null) {
+                misses.add(lockRecord);
+            }
+        }
+        if (misses.isEmpty()) {
+            return results;
+        }
+
+        List<Optional<IdempotencyRecord>> delegated = delegate.acquireLocks(misses);
+        int next = 0;
+        for (int i = 0; i < results.size(); i++) {
+            if (results.get(i).isEmpty()) {
+                results.set(i, delegated.get(next++));
+            }
+        }
+        return results;
+    }
+
+    @Override
+    public boolean holdLock(String key, Duration ttl) {
+        return delegate.holdLock(key, ttl);
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        worker = new Thread(this::flushLoop, "idempotency-write-behind");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        try {
+            // El hilo termina de vaciar lo pendiente antes de salir
+            worker.join(properties.getShutdownTimeout().toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (worker.isAlive()) {
+            worker.interrupt();
+            log.error("Idempotency: Apagado con {} llaves sin escribir en Redis (quedarán en PROCESSING hasta expirar): {}",
+                    pending.size(), pending.keySet());
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    private void flushLoop() {
+        List<String> keys = new ArrayList<>(properties.getBatchSize());
+        int consecutiveFailures = 0;
+
+        while (running || !dirtyKeys.isEmpty()) {
+            try {
+                String first = dirtyKeys.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                keys.add(first);
+                dirtyKeys.drainTo(keys, properties.getBatchSize() - 1);
+
+                boolean flushed = flush(keys);
+                keys.clear();
+
+                consecutiveFailures = flushed ? 0 : consecutiveFailures + 1;
+                if (consecutiveFailures > 0) {
+                    Thread.sleep(Math.min(MAX_BACKOFF_MS, INITIAL_BACKOFF_MS << Math.min(consecutiveFailures - 1, 20)));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private boolean flush(List<String> keys) {
+        List<IdempotencyRecord> batch = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            IdempotencyRecord record = pending.get(key);
+            if (record != null) {
+                batch.add(record);
+            }
+        }
+
+        try {
+            delegate.saveAll(batch);
+        } catch (Exception e) {
+            // Los registros siguen pendientes (y visibles para este nodo); se reintentan tras el backoff
+            failedCounter.increment(batch.size());
+            log.warn("Idempotency: No se pudieron escribir {} llaves en Redis, se reintentará: {}", batch.size(), e.getMessage());
+            dirtyKeys.addAll(keys);
+            return false;
+        }
+
+        flushedCounter.increment(batch.size());
+        for (IdempotencyRecord record : batch) {
+            // Si llegó un registro más reciente mientras se enviaba, sigue pendiente para el próximo lote
+            if (!pending.remove(record.getKey(), record)) {
+                dirtyKeys.offer(record.getKey());
+            }
+        }
+        return true;
+    }
+
+    private static Counter outcomeCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("idempotency.write_behind")
+                .description("Registros finales procesados por la escritura diferida, por resultado")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,25 @@
+package com.fisa.validationapi.infrastructure.adapters.output.feign;
+
+import com.fisa.validationapi.application.services.SingleFlight;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Comparte una única llamada a Party Service entre las peticiones simultáneas con un cuerpo idéntico byte a byte
+ * (ej: un TPP que reenvía la misma alta con otra llave de idempotencia mientras la primera sigue en curso).
+ * Todas reciben la misma respuesta o el mismo error; solo la primera ocupa el bulkhead y el circuito.
+ */
+@RequiredArgsConstructor
+public class CoalescingPartyServiceClient implements PartyServiceClient {
+
+    private final PartyServiceClient delegate;
+    private final SingleFlight<ByteBuffer, ResponseEntity<String>> flights;
+
+    @Override
+    public ResponseEntity<String> createParty(byte[] partyJson) {
+        // ByteBuffer compara por contenido: la llave es el cuerpo exacto, sin riesgo de colisión de huellas
+        return flights.execute(ByteBuffer.wrap(partyJson), () -> delegate.createParty(partyJson));
+    }
+}
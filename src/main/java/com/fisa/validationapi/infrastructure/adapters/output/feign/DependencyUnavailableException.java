@@ -0,0 +1,24 @@
+package com.fisa.validationapi.infrastructure.adapters.output.feign;
+
+import lombok.Getter;
+
+/**
+ * Llamada a un servicio vecino que no se llegó a completar por protección de resiliencia:
+ * circuito abierto o bulkhead lleno (503, sin llamar al servicio) o tiempo máximo agotado (504).
+ */
+@Getter
+public class DependencyUnavailableException extends RuntimeException {
+
+    // Nombre del cliente (ej: "party-service"), igual al de la instancia de resilience4j
+    private final String dependency;
+    private final int httpStatus;
+    // true si la llamada se rechazó sin salir del servicio (circuito abierto o bulkhead lleno)
+    private final boolean rejected;
+
+    public DependencyUnavailableException(String dependency, int httpStatus, boolean rejected, String message, Throwable cause) {
+        super(message, cause);
+        this.dependency = dependency;
+        this.httpStatus = httpStatus;
+        this.rejected = rejected;
+    }
+}
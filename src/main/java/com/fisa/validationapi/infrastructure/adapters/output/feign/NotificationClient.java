@@ -6,8 +6,9 @@ import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 
-// Define la URL en application.yml o ponla directa por ahora: url = "http://localhost:8098"
-@FeignClient(name = "notification-api", url = "http://localhost:8098")
+// URL en notification.api.url (application.yml, vía spring.cloud.openfeign.client.config.notification-api.url);
+// el perfil "loadtest" la apunta a un stub local
+@FeignClient(name = "notification-api")
 public interface NotificationClient {
 
     @PostMapping(value = "/api/v1/notifications/email", consumes = MediaType.APPLICATION_JSON_VALUE)
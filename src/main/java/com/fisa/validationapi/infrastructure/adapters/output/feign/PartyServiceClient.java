@@ -11,17 +11,18 @@ import org.springframework.web.bind.annotation.RequestBody;
  * Actúa como un proxy HTTP declarativo.
  */
 // "name" es el identificador del servicio (útil si usaras Eureka, pero requerido siempre)
-// "url" se inyecta desde application.yml (ej: http://localhost:8090)
-@FeignClient(name = "party-service", url = "${party.service.url}")
+// La URL (party.service.url, ej: http://localhost:8090) va en spring.cloud.openfeign.client.config.party-service.url:
+// se resuelve al arrancar incluso con las clases generadas por Spring AOT (perfil Maven "cds")
+@FeignClient(name = "party-service")
 public interface PartyServiceClient {
 
     /**
      * Envía la solicitud de creación de cliente al Party Service.
      * * La ruta debe coincidir EXACTAMENTE con el PartyController:
      * @RequestMapping("/bian-party/v1") + @PostMapping("/parties")
-     * * @param partyJson El cuerpo del mensaje validado (JSON String).
+     * * @param partyJson El cuerpo del mensaje validado (JSON en UTF-8, se envía tal cual sin recodificar).
      * @return La respuesta del servicio (uso de Object para ser genérico y no acoplarnse al modelo Party).
      */
     @PostMapping(value = "/bian-party/v1/parties", consumes = MediaType.APPLICATION_JSON_VALUE)
-    ResponseEntity<String> createParty(@RequestBody String partyJson);
+    ResponseEntity<String> createParty(@RequestBody byte[] partyJson);
 }
\ No newline at end of file
@@ -0,0 +1,139 @@
+package com.fisa.validationapi.infrastructure.adapters.output.feign;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.timelimiter.TimeLimiter;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Protección de las llamadas a un cliente Feign: circuit breaker, bulkhead (semáforo) y tiempo máximo.
+ * La llamada corre en un hilo del ejecutor para que el hilo de la petición deje de esperar al agotarse el tiempo;
+ * el permiso del bulkhead se libera cuando la llamada realmente termina (aunque ya se haya cancelado por tiempo y siga
+ * esperando la respuesta), o al cancelarse si no llegó a empezar: así el límite cuenta llamadas reales en curso.
+ * Con el circuito abierto o el bulkhead lleno no se crea ningún hilo ni se llama al servicio.
+ * Al cerrarse (apagado del contexto) espera las llamadas en curso antes de detener los hilos del ejecutor.
+ */
+@Slf4j
+public class ResilienceGuard implements AutoCloseable {
+
+    private final CircuitBreaker circuitBreaker;
+    private final Bulkhead bulkhead;
+    private final TimeLimiter timeLimiter;
+    private final Executor executor;
+
+    public ResilienceGuard(CircuitBreaker circuitBreaker, Bulkhead bulkhead, TimeLimiter timeLimiter, Executor executor) {
+        this.circuitBreaker = circuitBreaker;
+        this.bulkhead = bulkhead;
+        this.timeLimiter = timeLimiter;
+        this.executor = executor;
+
+        circuitBreaker.getEventPublisher().onStateTransition(event ->
+                log.warn("Resiliencia: Circuito de {} pasa de {} a {}", circuitBreaker.getName(),
+                        event.getStateTransition().getFromState(), event.getStateTransition().getToState()));
+    }
+
+    /**
+     * Ejecuta la llamada protegida.
+     * @throws DependencyUnavailableException si el circuito está abierto, el bulkhead lleno o se agotó el tiempo.
+     *         Los errores del propio cliente (ej: FeignException) se propagan sin cambios.
+     */
+    public <T> T call(Supplier<T> call) {
+        try {
+            return circuitBreaker.executeCallable(() -> callWithinLimits(call));
+        } catch (CallNotPermittedException e) {
+            throw new DependencyUnavailableException(name(), 503, true,
+                    "Servicio " + name() + " no disponible (circuito abierto)", e);
+        } catch (BulkheadFullException e) {
+            throw new DependencyUnavailableException(name(), 503, true,
+                    "Servicio " + name() + " saturado (límite de llamadas concurrentes)", e);
+        } catch (TimeoutException e) {
+            throw new DependencyUnavailableException(name(), 504, false,
+                    "Servicio " + name() + " sin respuesta tras " + timeLimiter.getTimeLimiterConfig().getTimeoutDuration().toMillis() + " ms", e);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private <T> T callWithinLimits(Supplier<T> call) throws Exception {
+        bulkhead.acquirePermission(); // Sin espera: si no hay permiso se rechaza de inmediato
+
+        // Quien lo marca primero libera el permiso: la llamada al terminar o done() si se canceló antes de empezar
+        AtomicBoolean claimed = new AtomicBoolean();
+        Map<String, String> requestMdc = MDC.getCopyOfContextMap();
+        Callable<T> task = () -> {
+            if (!claimed.compareAndSet(false, true)) {
+                return null; // Cancelada antes de empezar; su resultado ya no se lee
+            }
+            if (requestMdc != null) {
+                MDC.setContextMap(requestMdc);
+            }
+            try {
+                return call.get();
+            } finally {
+                MDC.clear();
+                // cancel(true) no detiene una llamada HTTP en curso: el permiso sigue tomado hasta que responda
+                bulkhead.onComplete();
+            }
+        };
+        FutureTask<T> future = new FutureTask<>(task) {
+            @Override
+            protected void done() {
+                if (claimed.compareAndSet(false, true)) {
+                    bulkhead.onComplete();
+                }
+            }
+        };
+
+        try {
+            executor.execute(future);
+        } catch (RejectedExecutionException e) {
+            future.cancel(false); // Nunca empezó: done() libera el permiso
+            throw e;
+        }
+        // Al agotarse el tiempo se cancela la llamada (interrumpe el hilo) y se lanza TimeoutException
+        return timeLimiter.executeFutureSupplier(() -> future);
+    }
+
+    /**
+     * Deja de aceptar llamadas y espera las que siguen en curso, como mucho el tiempo máximo de una llamada
+     * (el read-timeout del cliente es menor, así que ninguna dura más). Las que no terminan a tiempo se interrumpen.
+     * Solo aplica si el ejecutor es un ExecutorService; cualquier otro ejecutor lo administra quien lo creó.
+     */
+    @Override
+    public void close() {
+        if (!(executor instanceof ExecutorService callExecutor)) {
+            return;
+        }
+        callExecutor.shutdown();
+        long timeoutMillis = timeLimiter.getTimeLimiterConfig().getTimeoutDuration().toMillis();
+        try {
+            if (!callExecutor.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                log.warn("Resiliencia: Llamadas a {} siguen en curso tras {} ms al apagar; se interrumpen", name(), timeoutMillis);
+                callExecutor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            callExecutor.shutdownNow();
+        }
+    }
+
+    private String name() {
+        return circuitBreaker.getName();
+    }
+}
@@ -0,0 +1,24 @@
+package com.fisa.validationapi.infrastructure.adapters.output.feign;
+
+import com.fisa.validationapi.infrastructure.adapters.output.feign.dtos.NotificationRequest;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Cliente del notification-api protegido por circuit breaker, bulkhead y tiempo máximo (instancia "notification-api").
+ * Con el circuito abierto cada correo falla de inmediato y el despachador pausa sin gastar sus intentos,
+ * en lugar de quedar bloqueado en cada correo de la cola.
+ */
+@RequiredArgsConstructor
+public class ResilientNotificationClient implements NotificationClient {
+
+    private final NotificationClient delegate;
+    private final ResilienceGuard guard;
+
+    @Override
+    public void sendEmail(NotificationRequest request) {
+        guard.call(() -> {
+            delegate.sendEmail(request);
+            return null;
+        });
+    }
+}
@@ -0,0 +1,21 @@
+package com.fisa.validationapi.infrastructure.adapters.output.feign;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Cliente de Party Service protegido por circuit breaker, bulkhead y tiempo máximo (instancia "party-service").
+ * Un Party Service lento deja de retener los hilos de las peticiones: pasado el tiempo máximo se responde 504
+ * y, con el circuito abierto, las peticiones fallan de inmediato con 503 sin llamar al servicio.
+ */
+@RequiredArgsConstructor
+public class ResilientPartyServiceClient implements PartyServiceClient {
+
+    private final PartyServiceClient delegate;
+    private final ResilienceGuard guard;
+
+    @Override
+    public ResponseEntity<String> createParty(byte[] partyJson) {
+        return guard.call(() -> delegate.createParty(partyJson));
+    }
+}
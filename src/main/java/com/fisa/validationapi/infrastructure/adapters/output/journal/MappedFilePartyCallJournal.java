@@ -0,0 +1,575 @@
+package com.fisa.validationapi.infrastructure.adapters.output.journal;
+
+import com.fisa.validationapi.domain.models.PendingPartyCall;
+import com.fisa.validationapi.domain.ports.out.PartyCallJournalPort;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Diario local append-only de las llamadas a Party Service, en segmentos de archivo mapeados en memoria.
+ * Escribir una entrada es una copia en memoria; solo el resultado (outcome) espera a que llegue al disco.
+ * Un único hilo hace el force() (fsync) con "group commit": todas las peticiones que esperan mientras
+ * se sincroniza un lote quedan cubiertas por el siguiente force(), así su coste se reparte entre ellas.
+ * Ese mismo hilo sincroniza los segmentos que se van llenando: rotar nunca espera al disco dentro de una escritura.
+ * <p>
+ * Formato de cada entrada: [longitud int][CRC32C int][tipo byte][timestamp long][huella long][código HTTP int]
+ * [longitud llave short sin signo][llave UTF-8][longitud cuerpo int][cuerpo UTF-8]. Una longitud 0 marca el final del segmento
+ * y una entrada con CRC inválido o que no se puede decodificar (escritura a medias al caer el nodo) se descarta junto con
+ * el resto del segmento.
+ * Un segmento se borra cuando todas las llaves que abrió (y las de los segmentos anteriores) quedaron cerradas.
+ * <p>
+ * Si el disco falla, la espera de un resultado se corta tras forceTimeout con una excepción (el flujo lo trata como
+ * no registrado) y el hilo de sincronización reintenta con backoff. Las llaves que una petición dejó abiertas
+ * (ej: Redis caído al guardar su estado final) se entregan a la reconciliación periódica vía {@link #pending(Duration)}.
+ */
+@Slf4j
+public class MappedFilePartyCallJournal implements PartyCallJournalPort, AutoCloseable {
+
+    static final byte INTENT = 1;
+    static final byte OUTCOME = 2;
+    static final byte DONE = 3;
+
+    private static final String SEGMENT_PREFIX = "party-calls-";
+    private static final String SEGMENT_SUFFIX = ".journal";
+
+    // Longitud + CRC de cada entrada
+    private static final int HEADER_BYTES = 8;
+    // tipo + timestamp + huella + código HTTP + longitud llave + longitud cuerpo
+    private static final int FIXED_BODY_BYTES = 1 + 8 + 8 + 4 + 2 + 4;
+    // La longitud de la llave se guarda en 2 bytes sin signo
+    static final int MAX_KEY_BYTES = 0xFFFF;
+
+    // Reintentos del force() tras un error de disco
+    private static final long INITIAL_BACKOFF_MS = 10;
+    private static final long MAX_BACKOFF_MS = 1_000;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final long forceTimeoutNanos;
+
+    // Escritura: segmento actual, llaves abiertas y segmentos pendientes de borrar
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private Segment current;
+    private final Map<String, Long> openKeys = new HashMap<>(); // llave -> segmento donde se abrió
+    private final Map<Long, Integer> openKeysPerSegment = new HashMap<>();
+    private final TreeMap<Long, Segment> retiredSegments = new TreeMap<>();
+    private final List<Segment> unforcedSegments = new ArrayList<>(); // retirados que el hilo de sincronización aún no completa
+
+    // Group commit: posición lógica (base del segmento + offset) pedida y ya sincronizada
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final Condition flushRequested = flushLock.newCondition();
+    private final Condition flushCompleted = flushLock.newCondition();
+    private long requestedPosition;
+    private long durablePosition;
+    private int waiters;
+    private volatile boolean running = true;
+    private final Thread flusher;
+
+    // Llamadas sin cerrar (de la ejecución anterior y de esta), con su intención y su resultado si lo hubo
+    private final Map<String, PendingPartyCall> openCalls = new ConcurrentHashMap<>();
+    private final Set<String> previousRun = ConcurrentHashMap.newKeySet();
+
+    private final Timer forceTimer;
+    private final DistributionSummary groupCommitSize;
+
+    private record Segment(long id, long base, int capacity, Path path, FileChannel channel, MappedByteBuffer buffer) {
+    }
+
+    public MappedFilePartyCallJournal(Path directory, int segmentSize, Duration forceTimeout, MeterRegistry meterRegistry)
+            throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.forceTimeoutNanos = forceTimeout.toNanos();
+        Gauge.builder("validation.journal.open", openCalls, Map::size)
+                .description("Llamadas a Party Service abiertas en el diario (en curso o pendientes de reconciliar)")
+                .register(meterRegistry);
+        this.forceTimer = Timer.builder("validation.journal.force")
+                .description("Duración de cada force() (fsync) del diario de llamadas a Party Service")
+                .register(meterRegistry);
+        this.groupCommitSize = DistributionSummary.builder("validation.journal.group_commit.size")
+                .description("Resultados que quedaron durables con un mismo force()")
+                .register(meterRegistry);
+
+        Files.createDirectories(directory);
+        long nextId = scanExistingSegments();
+        appendLock.lock();
+        try {
+            current = openSegment(nextId, 0, segmentSize);
+            deleteClosedSegments();
+        } finally {
+            appendLock.unlock();
+        }
+        if (!previousRun.isEmpty()) {
+            log.warn("Diario: {} llamadas a Party Service sin cerrar en la ejecución anterior", previousRun.size());
+        }
+
+        flusher = new Thread(this::flushLoop, "party-call-journal-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    @Override
+    public void intent(String idempotencyKey, long payloadHash) {
+        appendLock.lock();
+        try {
+            long timestamp = append(INTENT, idempotencyKey, payloadHash, 0, null);
+            openCalls.put(idempotencyKey, PendingPartyCall.builder()
+                    .idempotencyKey(idempotencyKey)
+                    .payloadHash(payloadHash)
+                    .startedAt(toLocalDateTime(timestamp))
+                    .build());
+            previousRun.remove(idempotencyKey);
+            Long previous = openKeys.put(idempotencyKey, current.id());
+            if (previous != null) {
+                closeKeyIn(previous);
+            }
+            openKeysPerSegment.merge(current.id(), 1, Integer::sum);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean outcome(String idempotencyKey, long payloadHash, int httpStatusCode, String responseBody) {
+        long position;
+        appendLock.lock();
+        try {
+            long timestamp = append(OUTCOME, idempotencyKey, payloadHash, httpStatusCode, responseBody);
+            position = current.base() + current.buffer().position();
+            PendingPartyCall intent = openCalls.get(idempotencyKey);
+            openCalls.put(idempotencyKey, PendingPartyCall.builder()
+                    .idempotencyKey(idempotencyKey)
+                    .payloadHash(payloadHash)
+                    .startedAt(intent != null ? intent.getStartedAt() : toLocalDateTime(timestamp))
+                    .httpStatusCode(httpStatusCode)
+                    .responseBody(responseBody)
+                    .build());
+        } finally {
+            appendLock.unlock();
+        }
+        awaitDurable(position);
+        return true;
+    }
+
+    @Override
+    public void done(String idempotencyKey) {
+        appendLock.lock();
+        try {
+            openCalls.remove(idempotencyKey);
+            previousRun.remove(idempotencyKey);
+            Long segmentId = openKeys.remove(idempotencyKey);
+            if (segmentId == null) {
+                return; // Sin intención registrada (ej: error de validación ISO)
+            }
+            append(DONE, idempotencyKey, 0, 0, null);
+            closeKeyIn(segmentId);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    @Override
+    public List<PendingPartyCall> pending(Duration minAge) {
+        LocalDateTime openedBefore = LocalDateTime.now().minus(minAge);
+        return openCalls.values().stream()
+                .filter(call -> previousRun.contains(call.getIdempotencyKey()) || call.getStartedAt().isBefore(openedBefore))
+                .toList();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        flushLock.lock();
+        try {
+            flushRequested.signalAll();
+        } finally {
+            flushLock.unlock();
+        }
+        try {
+            flusher.join(5_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        appendLock.lock();
+        try {
+            unforcedSegments.forEach(segment -> segment.buffer().force());
+            unforcedSegments.clear();
+            current.buffer().force();
+            closeQuietly(current);
+            retiredSegments.values().forEach(MappedFilePartyCallJournal::closeQuietly);
+        } finally {
+            appendLock.unlock();
+        }
+        // Las esperas que quedaran pendientes se liberan (el segmento ya se sincronizó)
+        flushLock.lock();
+        try {
+            durablePosition = Long.MAX_VALUE;
+            flushCompleted.signalAll();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    // --- ESCRITURA (con appendLock tomado) ---
+
+    // Devuelve el timestamp (epoch millis) con el que quedó la entrada
+    private long append(byte type, String key, long payloadHash, int httpStatusCode, String responseBody) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        if (keyBytes.length > MAX_KEY_BYTES) {
+            throw new IllegalArgumentException("La llave de idempotencia supera " + MAX_KEY_BYTES + " bytes");
+        }
+        byte[] bodyBytes = responseBody != null ? responseBody.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        int bodyLength = FIXED_BODY_BYTES + keyBytes.length + bodyBytes.length;
+        int entryLength = HEADER_BYTES + bodyLength;
+
+        // La entrada debe caber entera en un segmento; las más grandes que el tamaño configurado van en uno propio
+        if (current.buffer().position() + entryLength + 4 > current.capacity()) {
+            rotate(entryLength + 4);
+        }
+
+        long timestamp = System.currentTimeMillis();
+        MappedByteBuffer buffer = current.buffer();
+        int start = buffer.position();
+        buffer.position(start + HEADER_BYTES);
+        buffer.put(type)
+                .putLong(timestamp)
+                .putLong(payloadHash)
+                .putInt(httpStatusCode)
+                .putShort((short) keyBytes.length)
+                .put(keyBytes)
+                .putInt(bodyBytes.length)
+                .put(bodyBytes);
+
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(start + HEADER_BYTES, bodyLength));
+        // La longitud se escribe al final: un lector nunca ve una entrada con longitud y sin contenido
+        buffer.putInt(start + 4, (int) crc.getValue());
+        buffer.putInt(start, bodyLength);
+        return timestamp;
+    }
+
+    private void rotate(int minCapacity) {
+        Segment previous = current;
+        long base = previous.base() + previous.capacity();
+        current = openSegment(previous.id() + 1, base, Math.max(segmentSize, minCapacity));
+        retiredSegments.put(previous.id(), previous);
+        // El hilo de sincronización completa el segmento anterior en disco; la escritura en curso no lo espera
+        unforcedSegments.add(previous);
+        requestFlush(base);
+        deleteClosedSegments();
+    }
+
+    private void closeKeyIn(long segmentId) {
+        openKeysPerSegment.computeIfPresent(segmentId, (id, open) -> open > 1 ? open - 1 : null);
+        deleteClosedSegments();
+    }
+
+    // Borra, del más antiguo al más reciente, los segmentos retirados sin llaves abiertas
+    private void deleteClosedSegments() {
+        while (!retiredSegments.isEmpty()) {
+            Map.Entry<Long, Segment> oldest = retiredSegments.firstEntry();
+            if (openKeysPerSegment.containsKey(oldest.getKey())) {
+                return;
+            }
+            retiredSegments.pollFirstEntry();
+            // Sin llaves abiertas nada de este segmento se va a recuperar: ya no hace falta sincronizarlo
+            unforcedSegments.remove(oldest.getValue());
+            closeQuietly(oldest.getValue());
+            try {
+                Files.deleteIfExists(oldest.getValue().path());
+                log.debug("Diario: Segmento {} borrado", oldest.getValue().path());
+            } catch (IOException e) {
+                log.warn("Diario: No se pudo borrar el segmento {}: {}", oldest.getValue().path(), e.getMessage());
+            }
+        }
+    }
+
+    private Segment openSegment(long id, long base, int capacity) {
+        Path path = directory.resolve(SEGMENT_PREFIX + String.format("%019d", id) + SEGMENT_SUFFIX);
+        try {
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            return new Segment(id, base, capacity, path, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity));
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo crear el segmento del diario " + path, e);
+        }
+    }
+
+    // --- GROUP COMMIT ---
+
+    private void awaitDurable(long position) {
+        flushLock.lock();
+        try {
+            if (durablePosition >= position) {
+                return;
+            }
+            if (!running) {
+                throw new IllegalStateException("El diario de llamadas a Party Service está cerrado");
+            }
+            requestedPosition = Math.max(requestedPosition, position);
+            waiters++;
+            flushRequested.signal();
+            long remaining = forceTimeoutNanos;
+            while (durablePosition < position) {
+                if (remaining <= 0) {
+                    throw new IllegalStateException("El resultado no llegó al disco en " + TimeUnit.NANOSECONDS.toMillis(forceTimeoutNanos) + " ms");
+                }
+                try {
+                    remaining = flushCompleted.awaitNanos(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Espera del disco interrumpida", e);
+                }
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    // Pide sincronizar hasta la posición sin esperar (no cuenta como espera de un resultado)
+    private void requestFlush(long position) {
+        flushLock.lock();
+        try {
+            if (position > requestedPosition) {
+                requestedPosition = position;
+                flushRequested.signal();
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void flushLoop() {
+        int consecutiveFailures = 0;
+        while (true) {
+            int batch;
+            flushLock.lock();
+            try {
+                while (running && requestedPosition <= durablePosition) {
+                    flushRequested.awaitUninterruptibly();
+                }
+                if (!running) {
+                    return;
+                }
+                batch = waiters;
+                waiters = 0;
+            } finally {
+                flushLock.unlock();
+            }
+
+            // Todo lo escrito hasta ahora (incluye entradas de peticiones que aún no piden esperar),
+            // empezando por los segmentos retirados desde el último force()
+            Segment segment;
+            int end;
+            List<Segment> retired;
+            appendLock.lock();
+            try {
+                segment = current;
+                end = segment.buffer().position();
+                retired = List.copyOf(unforcedSegments);
+            } finally {
+                appendLock.unlock();
+            }
+
+            try {
+                forceTimer.record(() -> {
+                    retired.forEach(previous -> previous.buffer().force());
+                    segment.buffer().force(0, end);
+                });
+                consecutiveFailures = 0;
+            } catch (UncheckedIOException e) {
+                // Las peticiones en espera se cortan por su timeout; el reintento espera cada vez más (sin ocupar un núcleo)
+                consecutiveFailures++;
+                log.error("Diario: Error al sincronizar con el disco ({} seguidos), se reintentará: {}", consecutiveFailures, e.getMessage());
+                try {
+                    Thread.sleep(Math.min(MAX_BACKOFF_MS, INITIAL_BACKOFF_MS << Math.min(consecutiveFailures - 1, 20)));
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+                continue;
+            }
+            appendLock.lock();
+            try {
+                unforcedSegments.removeAll(retired);
+            } finally {
+                appendLock.unlock();
+            }
+            // Una rotación pide sincronizar sin que nadie espere: no es un lote de resultados
+            if (batch > 0) {
+                groupCommitSize.record(batch);
+            }
+            markDurable(segment.base() + end);
+        }
+    }
+
+    private void markDurable(long position) {
+        flushLock.lock();
+        try {
+            if (position > durablePosition) {
+                durablePosition = position;
+                flushCompleted.signalAll();
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    // --- RECUPERACIÓN ---
+
+    // Lee los segmentos de la ejecución anterior; devuelve el identificador del próximo segmento
+    private long scanExistingSegments() throws IOException {
+        List<Path> paths;
+        try (Stream<Path> files = Files.list(directory)) {
+            paths = files.filter(path -> path.getFileName().toString().startsWith(SEGMENT_PREFIX)
+                            && path.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted()
+                    .toList();
+        }
+
+        Map<String, PendingPartyCall> open = new LinkedHashMap<>();
+        Map<String, Long> openedIn = new HashMap<>();
+        long nextId = 0;
+        long base = 0;
+        for (Path path : paths) {
+            long id = Long.parseLong(path.getFileName().toString()
+                    .substring(SEGMENT_PREFIX.length(), path.getFileName().toString().length() - SEGMENT_SUFFIX.length()));
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            int capacity = (int) channel.size();
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+            readEntries(path, buffer, id, open, openedIn);
+            buffer.position(capacity); // Un segmento anterior nunca recibe más entradas
+            retiredSegments.put(id, new Segment(id, base, capacity, path, channel, buffer));
+            base += capacity;
+            nextId = id + 1;
+        }
+
+        openCalls.putAll(open);
+        previousRun.addAll(open.keySet());
+        openKeys.putAll(openedIn);
+        openedIn.values().forEach(id -> openKeysPerSegment.merge(id, 1, Integer::sum));
+        return nextId;
+    }
+
+    private static void readEntries(Path path, ByteBuffer buffer, long segmentId,
+                                    Map<String, PendingPartyCall> open, Map<String, Long> openedIn) {
+        while (buffer.remaining() >= HEADER_BYTES) {
+            int start = buffer.position();
+            int bodyLength = buffer.getInt();
+            int expectedCrc = buffer.getInt();
+            if (bodyLength == 0) {
+                return; // Final del segmento
+            }
+            if (bodyLength < FIXED_BODY_BYTES || bodyLength > buffer.remaining()) {
+                log.warn("Diario: Entrada incompleta en {} (offset {}); se descarta el resto del segmento", path, start);
+                return;
+            }
+            CRC32C crc = new CRC32C();
+            crc.update(buffer.slice(buffer.position(), bodyLength));
+            if ((int) crc.getValue() != expectedCrc) {
+                log.warn("Diario: CRC inválido en {} (offset {}); se descarta el resto del segmento", path, start);
+                return;
+            }
+
+            // Se decodifica dentro de la entrada: una longitud interna inconsistente no lee las entradas siguientes
+            ByteBuffer entry = buffer.slice(buffer.position(), bodyLength);
+            try {
+                byte type = entry.get();
+                LocalDateTime timestamp = toLocalDateTime(entry.getLong());
+                long payloadHash = entry.getLong();
+                int httpStatusCode = entry.getInt();
+                byte[] key = new byte[entry.getShort() & 0xFFFF];
+                entry.get(key);
+                byte[] body = new byte[entry.getInt()];
+                entry.get(body);
+
+                String idempotencyKey = new String(key, StandardCharsets.UTF_8);
+                switch (type) {
+                    case INTENT -> {
+                        open.put(idempotencyKey, PendingPartyCall.builder()
+                                .idempotencyKey(idempotencyKey)
+                                .payloadHash(payloadHash)
+                                .startedAt(timestamp)
+                                .build());
+                        openedIn.put(idempotencyKey, segmentId);
+                    }
+                    case OUTCOME -> {
+                        PendingPartyCall intent = open.get(idempotencyKey);
+                        open.put(idempotencyKey, PendingPartyCall.builder()
+                                .idempotencyKey(idempotencyKey)
+                                .payloadHash(payloadHash)
+                                .startedAt(intent != null ? intent.getStartedAt() : timestamp)
+                                .httpStatusCode(httpStatusCode)
+                                .responseBody(new String(body, StandardCharsets.UTF_8))
+                                .build());
+                        openedIn.putIfAbsent(idempotencyKey, segmentId);
+                    }
+                    case DONE -> {
+                        open.remove(idempotencyKey);
+                        openedIn.remove(idempotencyKey);
+                    }
+                    default -> log.warn("Diario: Tipo de entrada desconocido {} en {}", type, path);
+                }
+            } catch (RuntimeException e) {
+                // Ej: BufferUnderflowException o NegativeArraySizeException; la entrada se trata como escrita a medias
+                log.warn("Diario: Entrada malformada en {} (offset {}); se descarta el resto del segmento", path, start);
+                return;
+            }
+            buffer.position(start + HEADER_BYTES + bodyLength);
+        }
+    }
+
+    // Misma zona que IdempotencyRecord.createdAt (LocalDateTime.now())
+    private static LocalDateTime toLocalDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+
+    private static void closeQuietly(Segment segment) {
+        try {
+            segment.channel().close();
+        } catch (IOException e) {
+            log.warn("Diario: Error al cerrar el segmento {}: {}", segment.path(), e.getMessage());
+        }
+    }
+
+    // Visible para diagnóstico: segmentos en disco (actual + retirados)
+    List<Path> segmentPaths() {
+        appendLock.lock();
+        try {
+            List<Path> paths = new ArrayList<>(retiredSegments.values().stream().map(Segment::path).toList());
+            paths.add(current.path());
+            return paths;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.fisa.validationapi.infrastructure.adapters.output.journal;
+
+import com.fisa.validationapi.domain.models.PendingPartyCall;
+import com.fisa.validationapi.domain.ports.out.PartyCallJournalPort;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Diario desactivado (validation.journal.enabled=false): no registra nada y nunca tiene llamadas pendientes.
+ * Las llaves de un nodo caído se liberan solo por el vencimiento del lease de PROCESSING.
+ */
+public final class NoOpPartyCallJournal implements PartyCallJournalPort {
+
+    public static final NoOpPartyCallJournal INSTANCE = new NoOpPartyCallJournal();
+
+    private NoOpPartyCallJournal() {
+    }
+
+    @Override
+    public void intent(String idempotencyKey, long payloadHash) {
+    }
+
+    @Override
+    public boolean outcome(String idempotencyKey, long payloadHash, int httpStatusCode, String responseBody) {
+        return false;
+    }
+
+    @Override
+    public void done(String idempotencyKey) {
+    }
+
+    @Override
+    public List<PendingPartyCall> pending(Duration minAge) {
+        return List.of();
+    }
+}
@@ -0,0 +1,67 @@
+package com.fisa.validationapi.infrastructure.adapters.output.memory;
+
+import com.fisa.validationapi.domain.models.IdempotencyRecord;
+import com.fisa.validationapi.domain.ports.out.IdempotencyRepositoryPort;
+import com.fisa.validationapi.infrastructure.adapters.output.redis.IdempotencyRetentionPolicy;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Optional;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Repositorio de idempotencia en memoria de un solo nodo, para el perfil "loadtest" (sin Redis).
+ * Conserva la semántica del adaptador de Redis: bloqueo atómico por llave, TTL por estado y recorte de cuerpos
+ * según {@link IdempotencyRetentionPolicy}. No comparte registros entre nodos ni renueva el lease de PROCESSING.
+ */
+@Slf4j
+public class InMemoryIdempotencyAdapter implements IdempotencyRepositoryPort {
+
+    private final IdempotencyRetentionPolicy retentionPolicy;
+    private final ConcurrentMap<String, IdempotencyRecord> records;
+
+    public InMemoryIdempotencyAdapter(IdempotencyRetentionPolicy retentionPolicy) {
+        this.retentionPolicy = retentionPolicy;
+        Cache<String, IdempotencyRecord> cache = Caffeine.newBuilder()
+                .expireAfter(new StatusExpiry(retentionPolicy))
+                .build();
+        this.records = cache.asMap();
+    }
+
+    @Override
+    public void save(IdempotencyRecord record) {
+        records.put(record.getKey(), retentionPolicy.apply(record));
+        log.debug("Memoria: Guardada llave {} con estado {}", record.getKey(), record.getStatus());
+    }
+
+    @Override
+    public Optional<IdempotencyRecord> findByKey(String key) {
+        return Optional.ofNullable(records.get(key));
+    }
+
+    @Override
+    public Optional<IdempotencyRecord> acquireLock(IdempotencyRecord lockRecord) {
+        return Optional.ofNullable(records.putIfAbsent(lockRecord.getKey(), lockRecord));
+    }
+
+    // Cada escritura reinicia el TTL con el del nuevo estado; las lecturas no lo extienden
+    private record StatusExpiry(IdempotencyRetentionPolicy retentionPolicy) implements Expiry<String, IdempotencyRecord> {
+
+        @Override
+        public long expireAfterCreate(String key, IdempotencyRecord record, long currentTime) {
+            return retentionPolicy.ttl(record.getStatus()).toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, IdempotencyRecord record, long currentTime, long currentDuration) {
+            return retentionPolicy.ttl(record.getStatus()).toNanos();
+        }
+
+        @Override
+        public long expireAfterRead(String key, IdempotencyRecord record, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
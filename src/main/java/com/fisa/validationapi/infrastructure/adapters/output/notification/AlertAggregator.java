@@ -0,0 +1,171 @@
+package com.fisa.validationapi.infrastructure.adapters.output.notification;
+
+import com.fisa.validationapi.infrastructure.adapters.output.feign.dtos.NotificationRequest;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Agrupa las alertas de error repetidas para no inundar el notification-api durante una caída.
+ * Las alertas se identifican por (origen + tipo de error): la primera de cada ventana se envía de inmediato
+ * y las siguientes solo se cuentan; al cerrar la ventana se envía un único resumen con el total.
+ * El registro de un error usa solo contadores sin bloqueo, para que el camino de error siga siendo barato.
+ * Cada ventana tiene su propio contador: al cerrarla se retira del mapa y se sella de forma atómica, así ningún
+ * error se pierde entre la lectura del total y el inicio de la siguiente ventana, y las huellas sin errores en la
+ * ventana no quedan en memoria (el origen puede venir del cuerpo de error de un servicio vecino).
+ */
+@Slf4j
+public class AlertAggregator implements SmartLifecycle {
+
+    private static final String ADMIN_RECIPIENT = "admin@banco.com";
+
+    private final AsyncNotificationDispatcher notificationDispatcher;
+    private final Duration window;
+    private final ConcurrentMap<String, AlertBucket> buckets = new ConcurrentHashMap<>();
+    private final Counter suppressedCounter;
+
+    private ScheduledExecutorService flushScheduler;
+    private volatile boolean running;
+
+    public AlertAggregator(AsyncNotificationDispatcher notificationDispatcher, Duration window, MeterRegistry meterRegistry) {
+        this.notificationDispatcher = notificationDispatcher;
+        this.window = window;
+        this.suppressedCounter = Counter.builder("notification.alerts.suppressed")
+                .description("Alertas repetidas agrupadas en un resumen en lugar de enviarse una a una")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Registra un error para alertar al administrador.
+     * @param origin Microservicio culpable.
+     * @param errorType Tipo de error (junto con el origen forma la huella de la alerta).
+     * @param subject Asunto del correo.
+     * @param detail Detalle técnico (en el resumen se incluye el último recibido).
+     */
+    public void record(String origin, String errorType, String subject, String detail) {
+        String fingerprint = origin + "|" + errorType;
+        long occurrence;
+        AlertBucket bucket;
+        do {
+            bucket = buckets.get(fingerprint);
+            if (bucket == null) {
+                bucket = buckets.computeIfAbsent(fingerprint, key -> new AlertBucket(origin, errorType, subject));
+            }
+            occurrence = bucket.increment(); // Ventana ya cerrada: se cuenta en la siguiente
+        } while (occurrence == AlertBucket.CLOSED);
+        bucket.lastDetail = detail;
+
+        if (occurrence == 1) {
+            // Primera ocurrencia de la ventana: alerta inmediata
+            notificationDispatcher.dispatch(alert(origin, subject, detail));
+        } else {
+            suppressedCounter.increment();
+        }
+    }
+
+    @Override
+    public void start() {
+        flushScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "alert-aggregator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flushScheduler.scheduleAtFixedRate(this::flush, window.toMillis(), window.toMillis(), TimeUnit.MILLISECONDS);
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        flushScheduler.shutdownNow();
+        flush(); // Último resumen antes de apagar
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Se apaga después del servidor web pero antes que el despachador, para que el último resumen alcance a encolarse
+    @Override
+    public int getPhase() {
+        return AsyncNotificationDispatcher.PHASE + 1;
+    }
+
+    private void flush() {
+        buckets.forEach((fingerprint, bucket) -> {
+            // La siguiente ocurrencia abre una ventana nueva; una huella sin errores no vuelve al mapa
+            buckets.remove(fingerprint, bucket);
+            long occurrences = bucket.close();
+
+            // La primera ya se notificó de inmediato; solo se resume si hubo repeticiones
+            if (occurrences > 1) {
+                log.warn("Alertas: {} ocurrencias de {} en los últimos {}s", occurrences, fingerprint, window.toSeconds());
+                notificationDispatcher.dispatch(digest(bucket, occurrences));
+            }
+        });
+    }
+
+    private NotificationRequest alert(String origin, String subject, String detail) {
+        return NotificationRequest.builder()
+                .recipient(ADMIN_RECIPIENT)
+                .subject("[ALERTA] " + subject)
+                .body("El servicio detectó un error.\n\nOrigen: " + origin + "\nDetalle: " + detail)
+                .originService(origin)
+                .build();
+    }
+
+    private NotificationRequest digest(AlertBucket bucket, long occurrences) {
+        return NotificationRequest.builder()
+                .recipient(ADMIN_RECIPIENT)
+                .subject("[ALERTA] " + bucket.subject + " (x" + occurrences + " en " + window.toSeconds() + "s)")
+                .body("El servicio detectó errores repetidos.\n\nOrigen: " + bucket.origin
+                        + "\nTipo: " + bucket.errorType
+                        + "\nOcurrencias: " + occurrences + " en los últimos " + window.toSeconds() + " segundos"
+                        + "\nÚltimo detalle: " + bucket.lastDetail)
+                .originService(bucket.origin)
+                .build();
+    }
+
+    private static final class AlertBucket {
+        private static final long CLOSED = -1;
+
+        private final String origin;
+        private final String errorType;
+        private final String subject;
+        private final AtomicLong count = new AtomicLong();
+        private volatile String lastDetail;
+
+        private AlertBucket(String origin, String errorType, String subject) {
+            this.origin = origin;
+            this.errorType = errorType;
+            this.subject = subject;
+        }
+
+        // Número de la ocurrencia dentro de la ventana, o CLOSED si la ventana ya se cerró
+        private long increment() {
+            long current;
+            do {
+                current = count.get();
+                if (current == CLOSED) {
+                    return CLOSED;
+                }
+            } while (!count.compareAndSet(current, current + 1));
+            return current + 1;
+        }
+
+        // Sella la ventana y devuelve su total exacto: ningún incremento posterior cuenta en ella
+        private long close() {
+            return count.getAndSet(CLOSED);
+        }
+    }
+}
@@ -0,0 +1,292 @@
+package com.fisa.validationapi.infrastructure.adapters.output.notification;
+
+import com.fisa.validationapi.infrastructure.adapters.output.feign.DependencyUnavailableException;
+import com.fisa.validationapi.infrastructure.adapters.output.feign.NotificationClient;
+import com.fisa.validationapi.infrastructure.adapters.output.feign.dtos.NotificationRequest;
+import com.fisa.validationapi.infrastructure.config.NotificationProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
+import org.springframework.context.SmartLifecycle;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Envío de correos fuera del hilo de la petición.
+ * Los correos se encolan en una cola acotada en memoria y un hilo despachador los envía por lotes
+ * al notification-api, reintentando con backoff exponencial. Si la cola está llena, el correo se
+ * descarta (y se cuenta en métricas) para que la latencia del onboarding no dependa del servicio de correo.
+ * Un correo rechazado sin llamar al servicio (circuito abierto o bulkhead lleno) no gasta intentos: el lote
+ * se conserva y el despachador pausa hasta que el circuito vuelve a dejar pasar llamadas.
+ */
+@Slf4j
+public class AsyncNotificationDispatcher implements SmartLifecycle {
+
+    // Arranca antes y se detiene después que el servidor web, para no perder correos de peticiones en curso
+    static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 4096;
+
+    private static final long POLL_TIMEOUT_MS = 500;
+
+    private final NotificationClient notificationClient;
+    private final NotificationProperties properties;
+    private final long rejectedPauseMs;
+    private final BlockingQueue<PendingNotification> queue;
+
+    private final Counter enqueuedCounter;
+    private final Counter sentCounter;
+    private final Counter retriedCounter;
+    private final Counter failedCounter;
+    private final Counter droppedCounter;
+    private final Counter deferredCounter;
+    private final Timer sendTimer;
+
+    // Los reintentos se programan aquí para no bloquear al despachador durante el backoff.
+    // Se crea en cada start(): tras un stop() el contexto puede volver a arrancar el despachador
+    private ScheduledExecutorService retryScheduler;
+    private volatile boolean running;
+    private Thread worker;
+
+    public AsyncNotificationDispatcher(NotificationClient notificationClient, NotificationProperties properties,
+                                       MeterRegistry meterRegistry) {
+        this(notificationClient, properties, properties.getMaxBackoff(), meterRegistry);
+    }
+
+    /**
+     * @param rejectedPause Pausa del despachador cuando el cliente rechaza correos sin llamar al servicio
+     *                      (ej: la espera del circuito abierto, wait-duration-in-open-state).
+     */
+    public AsyncNotificationDispatcher(NotificationClient notificationClient, NotificationProperties properties,
+                                       Duration rejectedPause, MeterRegistry meterRegistry) {
+        this.notificationClient = notificationClient;
+        this.properties = properties;
+        this.rejectedPauseMs = rejectedPause.toMillis();
+        this.queue = new ArrayBlockingQueue<>(properties.getCapacity());
+
+        Gauge.builder("notification.queue.size", queue, BlockingQueue::size)
+                .description("Correos pendientes de envío")
+                .register(meterRegistry);
+        this.enqueuedCounter = outcomeCounter(meterRegistry, "enqueued");
+        this.sentCounter = outcomeCounter(meterRegistry, "sent");
+        this.retriedCounter = outcomeCounter(meterRegistry, "retried");
+        this.failedCounter = outcomeCounter(meterRegistry, "failed");
+        this.droppedCounter = outcomeCounter(meterRegistry, "dropped");
+        this.deferredCounter = outcomeCounter(meterRegistry, "deferred");
+        this.sendTimer = Timer.builder("notification.send.duration")
+                .description("Duración de cada llamada al notification-api (fuera del hilo de la petición)")
+                .serviceLevelObjectives(Duration.ofMillis(50), Duration.ofMillis(100), Duration.ofMillis(250),
+                        Duration.ofMillis(500), Duration.ofSeconds(1), Duration.ofSeconds(2), Duration.ofSeconds(5))
+                .register(meterRegistry);
+    }
+
+    /**
+     * Encola un correo sin esperar a que se envíe.
+     * @return false si la cola está llena y el correo se descartó.
+     */
+    public boolean dispatch(NotificationRequest request) {
+        PendingNotification pending = new PendingNotification(request, 1, MDC.getCopyOfContextMap());
+        if (!queue.offer(pending)) {
+            droppedCounter.increment();
+            log.warn("Notificaciones: Cola llena ({}). Se descarta el correo '{}'", properties.getCapacity(), request.getSubject());
+            return false;
+        }
+        enqueuedCounter.increment();
+        return true;
+    }
+
+    @Override
+    public void start() {
+        retryScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "notification-retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        running = true;
+        worker = new Thread(this::drainLoop, "notification-dispatcher");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        // Los reintentos aún en espera de su backoff no se envían: se cuentan como descartados
+        List<Runnable> pendingRetries = retryScheduler.shutdownNow();
+        if (!pendingRetries.isEmpty()) {
+            droppedCounter.increment(pendingRetries.size());
+            log.warn("Notificaciones: Apagado con {} reintentos programados sin enviar; se descartan", pendingRetries.size());
+        }
+        try {
+            // El despachador termina de vaciar la cola antes de salir
+            worker.join(properties.getShutdownTimeout().toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (worker.isAlive()) {
+            worker.interrupt();
+            log.warn("Notificaciones: Apagado con {} correos sin enviar", queue.size());
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    private void drainLoop() {
+        List<PendingNotification> batch = new ArrayList<>(properties.getBatchSize());
+        int consecutiveFailedBatches = 0;
+
+        while (running || !queue.isEmpty() || !batch.isEmpty()) {
+            try {
+                if (batch.isEmpty()) {
+                    PendingNotification first = queue.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                    queue.drainTo(batch, properties.getBatchSize() - 1);
+                }
+
+                int delivered = sendBatch(batch);
+
+                // Quedaron correos rechazados sin llamar al servicio: se reenvían tras la pausa con sus mismos intentos
+                if (!batch.isEmpty()) {
+                    deferredCounter.increment(batch.size());
+                    if (!running) {
+                        failedCounter.increment(batch.size());
+                        log.warn("Notificaciones: Apagado con el notification-api rechazando llamadas. Se descartan {} correos", batch.size());
+                        batch.clear();
+                        continue;
+                    }
+                    log.debug("Notificaciones: {} correos rechazados (circuito abierto o bulkhead lleno); nueva prueba en {} ms",
+                            batch.size(), rejectedPauseMs);
+                    pauseWhileRunning(rejectedPauseMs);
+                    continue;
+                }
+
+                // Si no salió ningún correo, el notification-api probablemente está caído: pausar antes de seguir
+                consecutiveFailedBatches = delivered == 0 ? consecutiveFailedBatches + 1 : 0;
+                if (consecutiveFailedBatches > 0 && running) {
+                    Thread.sleep(backoff(consecutiveFailedBatches));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    // Envía el lote; en él quedan solo los correos rechazados sin llamar al servicio
+    private int sendBatch(List<PendingNotification> batch) {
+        int delivered = 0;
+        for (Iterator<PendingNotification> iterator = batch.iterator(); iterator.hasNext(); ) {
+            switch (send(iterator.next())) {
+                case SENT -> {
+                    delivered++;
+                    iterator.remove();
+                }
+                case FAILED -> iterator.remove();
+                case REJECTED -> {
+                    // Se conserva sin gastar un intento
+                }
+            }
+        }
+        return delivered;
+    }
+
+    private SendResult send(PendingNotification pending) {
+        // Se restaura el contexto de logging de la petición original (interactionId, idempotencyKey)
+        if (pending.mdc() != null) {
+            MDC.setContextMap(pending.mdc());
+        }
+        try {
+            sendTimer.record(() -> notificationClient.sendEmail(pending.request()));
+            sentCounter.increment();
+            return SendResult.SENT;
+        } catch (DependencyUnavailableException e) {
+            if (e.isRejected()) {
+                return SendResult.REJECTED;
+            }
+            scheduleRetry(pending, e);
+            return SendResult.FAILED;
+        } catch (Exception e) {
+            scheduleRetry(pending, e);
+            return SendResult.FAILED;
+        } finally {
+            MDC.clear();
+        }
+    }
+
+    // Espera en tramos cortos para que stop() no tenga que interrumpir una pausa larga
+    private void pauseWhileRunning(long millis) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+        long remaining;
+        while (running && (remaining = deadline - System.nanoTime()) > 0) {
+            TimeUnit.NANOSECONDS.sleep(Math.min(remaining, TimeUnit.MILLISECONDS.toNanos(POLL_TIMEOUT_MS)));
+        }
+    }
+
+    private void scheduleRetry(PendingNotification pending, Exception error) {
+        if (pending.attempt() >= properties.getMaxAttempts() || !running) {
+            failedCounter.increment();
+            log.warn("Notificaciones: No se pudo enviar el correo '{}' tras {} intentos: {}",
+                    pending.request().getSubject(), pending.attempt(), error.getMessage());
+            return;
+        }
+
+        retriedCounter.increment();
+        PendingNotification retry = new PendingNotification(pending.request(), pending.attempt() + 1, pending.mdc());
+        long delay = backoff(pending.attempt());
+        log.debug("Notificaciones: Reintento {} de '{}' en {} ms", retry.attempt(), pending.request().getSubject(), delay);
+
+        try {
+            retryScheduler.schedule(() -> {
+                if (!queue.offer(retry)) {
+                    droppedCounter.increment();
+                    log.warn("Notificaciones: Cola llena. Se descarta el reintento de '{}'", retry.request().getSubject());
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // stop() apagó el programador después de la verificación de running
+            failedCounter.increment();
+            log.warn("Notificaciones: Apagado en curso. Se descarta el reintento de '{}'", pending.request().getSubject());
+        }
+    }
+
+    // Backoff exponencial: initialBackoff * 2^(intento-1), limitado a maxBackoff
+    private long backoff(int attempt) {
+        long initial = properties.getInitialBackoff().toMillis();
+        long max = properties.getMaxBackoff().toMillis();
+        return Math.min(max, initial << Math.min(attempt - 1, 20));
+    }
+
+    private static Counter outcomeCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("notification.dispatch")
+                .description("Correos procesados por el despachador asíncrono, por resultado")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private enum SendResult { SENT, FAILED, REJECTED }
+
+    private record PendingNotification(NotificationRequest request, int attempt, Map<String, String> mdc) {
+    }
+}
@@ -0,0 +1,30 @@
+package com.fisa.validationapi.infrastructure.adapters.output.redis;
+
+import java.util.UUID;
+
+/**
+ * Canal Pub/Sub de Redis por el que se anuncian las llaves que pasan a un estado final (COMPLETED/FAILED).
+ * El mensaje tiene el formato "nodeId:llave" para que cada nodo pueda ignorar sus propios anuncios.
+ */
+public final class IdempotencyEventChannel {
+
+    public static final String CHANNEL = "idempotency:events";
+
+    // Identificador de esta instancia (un UUID nunca contiene ':')
+    public static final String NODE_ID = UUID.randomUUID().toString();
+
+    private IdempotencyEventChannel() {
+    }
+
+    public static String message(String key) {
+        return NODE_ID + ":" + key;
+    }
+
+    public static boolean isFromThisNode(String message) {
+        return message.startsWith(NODE_ID + ":");
+    }
+
+    public static String keyOf(String message) {
+        return message.substring(message.indexOf(':') + 1);
+    }
+}
@@ -0,0 +1,276 @@
+package com.fisa.validationapi.infrastructure.adapters.output.redis;
+
+import com.fisa.validationapi.domain.models.IdempotencyRecord;
+import com.fisa.validationapi.domain.models.enums.IdempotencyStatus;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Serializador binario compacto para IdempotencyRecord en Redis.
+ *
+ * Formato (versión 2, big-endian):
+ * <pre>
+ * byte    versión del formato (0x02; 0x01 si el registro no tiene huella del payload)
+ * byte    flags (ver constantes FLAG_*)
+ * byte    estado (0 = PROCESSING, 1 = COMPLETED, 2 = FAILED)
+ * short   código HTTP (solo si FLAG_STATUS_CODE)
+ * long    createdAt en epoch millis, hora local tomada como UTC (solo si FLAG_CREATED_AT)
+ * long    huella del payload (solo si FLAG_PAYLOAD_HASH, versión 2)
+ * short   longitud + bytes UTF-8 de la llave
+ * int     longitud + bytes UTF-8 del cuerpo (solo si FLAG_BODY)
+ *         si FLAG_BODY_DEFLATED: int longitud original + bytes comprimidos con Deflate
+ * </pre>
+ *
+ * La versión 1 es la misma sin la huella: los registros sin huella se siguen escribiendo en versión 1
+ * para que los nodos que aún no conocen la versión 2 puedan leerlos durante el despliegue.
+ * Los valores antiguos en JSON (empiezan por '{') se siguen leyendo con el serializador anterior
+ * mientras conviven ambos formatos en Redis.
+ * <p>
+ * Con writeLegacyJson (idempotency.serialization.write-legacy-json) se sigue escribiendo el JSON anterior,
+ * sin la huella del payload que esos nodos no conocen: se usa mientras queden nodos que solo leen JSON
+ * y se desactiva cuando todos leen el formato binario.
+ */
+public class IdempotencyRecordRedisSerializer implements RedisSerializer<IdempotencyRecord> {
+
+    static final byte FORMAT_V1 = 0x01;
+    static final byte FORMAT_V2 = 0x02;
+
+    private static final int FLAG_STATUS = 1;
+    private static final int FLAG_STATUS_CODE = 1 << 1;
+    private static final int FLAG_CREATED_AT = 1 << 2;
+    private static final int FLAG_BODY = 1 << 3;
+    private static final int FLAG_BODY_DEFLATED = 1 << 4;
+    private static final int FLAG_PAYLOAD_HASH = 1 << 5;
+
+    private static final byte JSON_OBJECT_START = '{';
+
+    private final RedisSerializer<Object> legacyJsonSerializer;
+
+    // Tamaño (en bytes UTF-8) a partir del cual se intenta comprimir el cuerpo
+    private final int compressionThreshold;
+
+    // Escribe el JSON anterior en vez del formato binario (despliegue con nodos que aún no lo leen)
+    private final boolean writeLegacyJson;
+
+    public IdempotencyRecordRedisSerializer(RedisSerializer<Object> legacyJsonSerializer, int compressionThreshold) {
+        this(legacyJsonSerializer, compressionThreshold, false);
+    }
+
+    public IdempotencyRecordRedisSerializer(RedisSerializer<Object> legacyJsonSerializer, int compressionThreshold, boolean writeLegacyJson) {
+        this.legacyJsonSerializer = legacyJsonSerializer;
+        this.compressionThreshold = compressionThreshold;
+        this.writeLegacyJson = writeLegacyJson;
+    }
+
+    @Override
+    public byte[] serialize(IdempotencyRecord record) throws SerializationException {
+        if (record == null) {
+            return null;
+        }
+        if (writeLegacyJson) {
+            return writeLegacyJson(record);
+        }
+
+        byte[] key = record.getKey() != null ? record.getKey().getBytes(StandardCharsets.UTF_8) : new byte[0];
+        if (key.length > 0xFFFF) {
+            throw new SerializationException("La llave de idempotencia excede 65535 bytes");
+        }
+
+        int flags = 0;
+        int size = 3 + 2 + key.length;
+
+        if (record.getStatus() != null) {
+            flags |= FLAG_STATUS;
+        }
+        if (record.getHttpStatusCode() != null) {
+            flags |= FLAG_STATUS_CODE;
+            size += 2;
+        }
+        if (record.getCreatedAt() != null) {
+            flags |= FLAG_CREATED_AT;
+            size += 8;
+        }
+        if (record.getPayloadHash() != null) {
+            flags |= FLAG_PAYLOAD_HASH;
+            size += 8;
+        }
+
+        byte[] body = null;
+        int originalBodyLength = 0;
+        if (record.getResponseBody() != null) {
+            flags |= FLAG_BODY;
+            body = record.getResponseBody().getBytes(StandardCharsets.UTF_8);
+            originalBodyLength = body.length;
+            if (body.length >= compressionThreshold) {
+                byte[] compressed = deflate(body);
+                // Solo compensa si realmente ocupa menos (cuerpos ya aleatorios no se comprimen)
+                if (compressed.length + 4 < body.length) {
+                    flags |= FLAG_BODY_DEFLATED;
+                    body = compressed;
+                    size += 4;
+                }
+            }
+            size += 4 + body.length;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.put((flags & FLAG_PAYLOAD_HASH) != 0 ? FORMAT_V2 : FORMAT_V1);
+        buffer.put((byte) flags);
+        buffer.put(record.getStatus() != null ? statusCode(record.getStatus()) : 0);
+        if ((flags & FLAG_STATUS_CODE) != 0) {
+            buffer.putShort(record.getHttpStatusCode().shortValue());
+        }
+        if ((flags & FLAG_CREATED_AT) != 0) {
+            buffer.putLong(record.getCreatedAt().toInstant(ZoneOffset.UTC).toEpochMilli());
+        }
+        if ((flags & FLAG_PAYLOAD_HASH) != 0) {
+            buffer.putLong(record.getPayloadHash());
+        }
+        buffer.putShort((short) key.length);
+        buffer.put(key);
+        if (body != null) {
+            buffer.putInt(body.length);
+            if ((flags & FLAG_BODY_DEFLATED) != 0) {
+                buffer.putInt(originalBodyLength);
+            }
+            buffer.put(body);
+        }
+        return buffer.array();
+    }
+
+    @Override
+    public IdempotencyRecord deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes[0] == JSON_OBJECT_START) {
+            return readLegacyJson(bytes);
+        }
+        if (bytes[0] != FORMAT_V1 && bytes[0] != FORMAT_V2) {
+            throw new SerializationException("Versión de formato desconocida: " + bytes[0]);
+        }
+
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            buffer.get(); // versión
+            int flags = buffer.get();
+            byte status = buffer.get();
+
+            IdempotencyRecord.IdempotencyRecordBuilder builder = IdempotencyRecord.builder();
+            if ((flags & FLAG_STATUS) != 0) {
+                builder.status(statusOf(status));
+            }
+            if ((flags & FLAG_STATUS_CODE) != 0) {
+                builder.httpStatusCode((int) buffer.getShort());
+            }
+            if ((flags & FLAG_CREATED_AT) != 0) {
+                builder.createdAt(LocalDateTime.ofInstant(Instant.ofEpochMilli(buffer.getLong()), ZoneOffset.UTC));
+            }
+            if ((flags & FLAG_PAYLOAD_HASH) != 0) {
+                builder.payloadHash(buffer.getLong());
+            }
+
+            int keyLength = Short.toUnsignedInt(buffer.getShort());
+            builder.key(new String(bytes, buffer.position(), keyLength, StandardCharsets.UTF_8));
+            buffer.position(buffer.position() + keyLength);
+
+            if ((flags & FLAG_BODY) != 0) {
+                int bodyLength = buffer.getInt();
+                if ((flags & FLAG_BODY_DEFLATED) != 0) {
+                    int originalLength = buffer.getInt();
+                    byte[] body = inflate(bytes, buffer.position(), bodyLength, originalLength);
+                    builder.responseBody(new String(body, StandardCharsets.UTF_8));
+                } else {
+                    builder.responseBody(new String(bytes, buffer.position(), bodyLength, StandardCharsets.UTF_8));
+                }
+            }
+            return builder.build();
+
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | DataFormatException e) {
+            throw new SerializationException("Registro de idempotencia corrupto", e);
+        }
+    }
+
+    // Sin la huella: el JSON anterior no tiene ese campo y sus lectores rechazan propiedades desconocidas
+    private byte[] writeLegacyJson(IdempotencyRecord record) {
+        return legacyJsonSerializer.serialize(IdempotencyRecord.builder()
+                .key(record.getKey())
+                .status(record.getStatus())
+                .httpStatusCode(record.getHttpStatusCode())
+                .responseBody(record.getResponseBody())
+                .createdAt(record.getCreatedAt())
+                .build());
+    }
+
+    private IdempotencyRecord readLegacyJson(byte[] bytes) {
+        Object value = legacyJsonSerializer.deserialize(bytes);
+        if (value instanceof IdempotencyRecord record) {
+            return record;
+        }
+        throw new SerializationException("Valor JSON inesperado en Redis: " + (value != null ? value.getClass() : null));
+    }
+
+    private static byte statusCode(IdempotencyStatus status) {
+        return switch (status) {
+            case PROCESSING -> 0;
+            case COMPLETED -> 1;
+            case FAILED -> 2;
+        };
+    }
+
+    private static IdempotencyStatus statusOf(byte code) {
+        return switch (code) {
+            case 0 -> IdempotencyStatus.PROCESSING;
+            case 1 -> IdempotencyStatus.COMPLETED;
+            case 2 -> IdempotencyStatus.FAILED;
+            default -> throw new SerializationException("Estado de idempotencia desconocido: " + code);
+        };
+    }
+
+    private static byte[] deflate(byte[] input) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(input);
+            deflater.finish();
+            ByteArrayOutputStream output = new ByteArrayOutputStream(input.length / 2);
+            byte[] chunk = new byte[Math.min(input.length, 8192)];
+            while (!deflater.finished()) {
+                int written = deflater.deflate(chunk);
+                output.write(chunk, 0, written);
+            }
+            return output.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] input, int offset, int length, int originalLength) throws DataFormatException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(input, offset, length);
+            byte[] output = new byte[originalLength];
+            int read = 0;
+            while (read < originalLength && !inflater.finished()) {
+                int n = inflater.inflate(output, read, originalLength - read);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new DataFormatException("Cuerpo comprimido incompleto");
+                }
+                read += n;
+            }
+            return output;
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.fisa.validationapi.infrastructure.adapters.output.redis;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import com.fisa.validationapi.domain.models.IdempotencyRecord;
+import com.fisa.validationapi.domain.models.enums.IdempotencyStatus;
+import com.fisa.validationapi.infrastructure.config.IdempotencyProperties;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Retención de los registros de idempotencia en Redis según su estado, compartida por los adaptadores
+ * bloqueante y reactivo: TTL por estado (PROCESSING usa el lease corto que renueva {@link RedisLockHeartbeat}),
+ * recorte de los cuerpos demasiado grandes y tamaño de los valores escritos por estado.
+ * Un cuerpo recortado sigue siendo JSON válido (se repite y se sirve como application/json): en un cuerpo de error
+ * {"error": ...} se acorta el mensaje y se vuelve a envolver; cualquier otro cuerpo se reemplaza por un error fijo.
+ */
+@Slf4j
+public class IdempotencyRetentionPolicy {
+
+    // Marca al final de un mensaje de error recortado
+    static final String TRUNCATED_SUFFIX = "...";
+
+    // Reemplazo de un cuerpo demasiado grande que no es un error {"error": ...}
+    static final String TRUNCATED_BODY = "{\"error\": \"Response body too large\"}";
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final Map<IdempotencyStatus, Duration> ttls = new EnumMap<>(IdempotencyStatus.class);
+    private final Map<IdempotencyStatus, Long> maxBodyBytes = new EnumMap<>(IdempotencyStatus.class);
+    private final Map<IdempotencyStatus, DistributionSummary> valueSizes = new EnumMap<>(IdempotencyStatus.class);
+
+    public IdempotencyRetentionPolicy(IdempotencyProperties.Retention retention, MeterRegistry meterRegistry) {
+        ttls.put(IdempotencyStatus.PROCESSING, retention.getProcessing().getLease());
+        ttls.put(IdempotencyStatus.COMPLETED, retention.getCompleted().getTtl());
+        ttls.put(IdempotencyStatus.FAILED, retention.getFailed().getTtl());
+        putLimit(IdempotencyStatus.COMPLETED, retention.getCompleted().getMaxBodySize());
+        putLimit(IdempotencyStatus.FAILED, retention.getFailed().getMaxBodySize());
+
+        for (IdempotencyStatus status : IdempotencyStatus.values()) {
+            valueSizes.put(status, DistributionSummary.builder("idempotency.redis.value.size")
+                    .description("Tamaño de los valores de idempotencia escritos en Redis, por estado")
+                    .baseUnit("bytes")
+                    .tag("status", status.name())
+                    .register(meterRegistry));
+        }
+    }
+
+    public Duration ttl(IdempotencyStatus status) {
+        return ttls.get(status);
+    }
+
+    // TTL como argumento de los scripts Lua (milisegundos en texto plano)
+    byte[] ttlMillisArg(IdempotencyStatus status) {
+        return String.valueOf(ttl(status).toMillis()).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return El mismo registro, o una copia con el cuerpo recortado si supera el límite de su estado.
+     */
+    public IdempotencyRecord apply(IdempotencyRecord record) {
+        Long limit = maxBodyBytes.get(record.getStatus());
+        String body = record.getResponseBody();
+        // Cada carácter ocupa como máximo 3 bytes en UTF-8: los cuerpos cortos no necesitan codificarse
+        if (limit == null || body == null || (long) body.length() * 3 <= limit) {
+            return record;
+        }
+        byte[] utf8 = body.getBytes(StandardCharsets.UTF_8);
+        if (utf8.length <= limit) {
+            return record;
+        }
+
+        log.debug("Redis: Cuerpo de la llave {} recortado de {} a {} bytes", record.getKey(), utf8.length, limit);
+        return IdempotencyRecord.builder()
+                .key(record.getKey())
+                .status(record.getStatus())
+                .httpStatusCode(record.getHttpStatusCode())
+                .responseBody(shorten(body, limit))
+                .createdAt(record.getCreatedAt())
+                .payloadHash(record.getPayloadHash())
+                .build();
+    }
+
+    // Registra el tamaño del valor serializado (lo que ocupa en Redis sin contar la llave)
+    void recordValueSize(IdempotencyStatus status, byte[] value) {
+        valueSizes.get(status).record(value.length);
+    }
+
+    private void putLimit(IdempotencyStatus status, DataSize maxBodySize) {
+        if (maxBodySize != null) {
+            // El cuerpo recortado más corto es el error fijo
+            maxBodyBytes.put(status, Math.max(maxBodySize.toBytes(), TRUNCATED_BODY.length()));
+        }
+    }
+
+    private static String shorten(String body, long limit) {
+        String message = errorMessage(body);
+        if (message == null) {
+            return TRUNCATED_BODY;
+        }
+
+        // El escape JSON puede alargar el mensaje: se recorta de nuevo con el exceso descontado hasta que quepa
+        byte[] utf8 = message.getBytes(StandardCharsets.UTF_8);
+        long budget = limit - errorBody("").length() - TRUNCATED_SUFFIX.length();
+        while (true) {
+            String shortened = errorBody(truncate(utf8, (int) Math.max(budget, 0)));
+            long excess = shortened.getBytes(StandardCharsets.UTF_8).length - limit;
+            if (excess <= 0 || budget <= 0) {
+                return excess <= 0 ? shortened : TRUNCATED_BODY;
+            }
+            budget -= excess;
+        }
+    }
+
+    // Mensaje de un cuerpo {"error": "..."} (el que guardan los registros FAILED), o null si el cuerpo es otro
+    private static String errorMessage(String body) {
+        try (JsonParser parser = JSON_FACTORY.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT
+                    || parser.nextToken() != JsonToken.FIELD_NAME || !"error".equals(parser.currentName())
+                    || parser.nextToken() != JsonToken.VALUE_STRING) {
+                return null;
+            }
+            String message = parser.getText();
+            return parser.nextToken() == JsonToken.END_OBJECT && parser.nextToken() == null ? message : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    // Mismo formato que el cuerpo de error de los casos de uso, con el mensaje escapado
+    private static String errorBody(String message) {
+        return "{\"error\": \"" + new String(JsonStringEncoder.getInstance().quoteAsString(message)) + "\"}";
+    }
+
+    private static String truncate(byte[] utf8, int maxBytes) {
+        if (utf8.length <= maxBytes) {
+            return new String(utf8, StandardCharsets.UTF_8);
+        }
+        String prefix = new String(utf8, 0, Math.max(maxBytes, 0), StandardCharsets.UTF_8);
+        // Un carácter multibyte cortado a la mitad se decodifica como U+FFFD: se descarta
+        int end = prefix.length();
+        while (end > 0 && prefix.charAt(end - 1) == '\uFFFD') {
+            end--;
+        }
+        return prefix.substring(0, end) + TRUNCATED_SUFFIX;
+    }
+}
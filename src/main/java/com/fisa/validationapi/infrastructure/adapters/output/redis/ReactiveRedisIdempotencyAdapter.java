@@ -0,0 +1,121 @@
+package com.fisa.validationapi.infrastructure.adapters.output.redis;
+
+import com.fisa.validationapi.domain.models.IdempotencyRecord;
+import com.fisa.validationapi.domain.models.enums.IdempotencyStatus;
+import com.fisa.validationapi.domain.ports.out.ReactiveIdempotencyRepositoryPort;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.serializer.GenericToStringSerializer;
+import org.springframework.data.redis.serializer.RedisElementReader;
+import org.springframework.data.redis.serializer.RedisElementWriter;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+import static com.fisa.validationapi.infrastructure.adapters.output.redis.RedisIdempotencyAdapter.ACQUIRE_LOCK_SCRIPT;
+import static com.fisa.validationapi.infrastructure.adapters.output.redis.RedisIdempotencyAdapter.KEY_PREFIX;
+import static com.fisa.validationapi.infrastructure.adapters.output.redis.RedisIdempotencyAdapter.SAVE_AND_PUBLISH_SCRIPT;
+
+/**
+ * Adaptador reactivo de idempotencia sobre Redis (Lettuce no bloqueante).
+ * Usa las mismas llaves, retención, latido de bloqueos, scripts Lua y formato de valores que {@link RedisIdempotencyAdapter},
+ * de modo que nodos bloqueantes y reactivos comparten los mismos registros y el canal de eventos.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class ReactiveRedisIdempotencyAdapter implements ReactiveIdempotencyRepositoryPort {
+
+    private static final RedisElementWriter<byte[]> RAW_ARGS = RedisElementWriter.from(RedisSerializer.byteArray());
+    private static final RedisElementReader<Long> LONG_RESULT = RedisElementReader.from(new GenericToStringSerializer<>(Long.class));
+
+    private final ReactiveRedisTemplate<String, IdempotencyRecord> redisTemplate;
+    private final RedisSerializer<IdempotencyRecord> valueSerializer;
+    private final IdempotencyRetentionPolicy retentionPolicy;
+    private final RedisLockHeartbeat lockHeartbeat;
+
+    @Override
+    public Mono<Void> save(IdempotencyRecord record) {
+        String fullKey = KEY_PREFIX + record.getKey();
+        IdempotencyRecord stored = retentionPolicy.apply(record);
+        IdempotencyStatus status = stored.getStatus();
+        byte[] value = valueSerializer.serialize(stored);
+        retentionPolicy.recordValueSize(status, value);
+
+        Mono<?> write;
+        if (status == IdempotencyStatus.PROCESSING) {
+            write = redisTemplate.opsForValue().set(fullKey, stored, retentionPolicy.ttl(status));
+        } else {
+            // SET PX + PUBLISH (invalidación de cachés locales y aviso a las esperas de otros nodos)
+            byte[] message = IdempotencyEventChannel.message(record.getKey()).getBytes(StandardCharsets.UTF_8);
+            write = redisTemplate.execute(SAVE_AND_PUBLISH_SCRIPT, List.of(fullKey),
+                    List.of(value, retentionPolicy.ttlMillisArg(status), IdempotencyEventChannel.CHANNEL.getBytes(StandardCharsets.UTF_8), message),
+                    RAW_ARGS, LONG_RESULT).next();
+        }
+
+        return write
+                .doOnSuccess(ignored -> {
+                    // Un PROCESSING reescrito se renueva con su nuevo valor; un estado final deja de renovarse
+                    if (status == IdempotencyStatus.PROCESSING) {
+                        lockHeartbeat.track(fullKey, value);
+                    } else {
+                        lockHeartbeat.release(fullKey);
+                    }
+                    log.debug("Redis: Guardada llave {} con estado {}", fullKey, status);
+                })
+                .doOnError(e -> log.error("Redis: Error al guardar llave {}: {}", fullKey, e.getMessage()))
+                .then();
+    }
+
+    @Override
+    public Mono<IdempotencyRecord> findByKey(String key) {
+        String fullKey = KEY_PREFIX + key;
+        return redisTemplate.opsForValue().get(fullKey)
+                .onErrorResume(e -> {
+                    log.error("Redis: Error al buscar llave {}: {}", fullKey, e.getMessage());
+                    return Mono.empty(); // Fallback seguro
+                });
+    }
+
+    @Override
+    public Mono<IdempotencyRecord> acquireLock(IdempotencyRecord lockRecord) {
+        String fullKey = KEY_PREFIX + lockRecord.getKey();
+        byte[] value = valueSerializer.serialize(lockRecord);
+
+        // El script devuelve nil (sin elementos) si tomó el bloqueo, o el valor existente
+        return redisTemplate.execute(ACQUIRE_LOCK_SCRIPT, List.of(fullKey),
+                        List.of(value, retentionPolicy.ttlMillisArg(IdempotencyStatus.PROCESSING)),
+                        RAW_ARGS, RedisElementReader.from(valueSerializer))
+                .next()
+                .doOnNext(existing -> log.debug("Redis: Llave {} ya existente con estado {}", fullKey, existing.getStatus()))
+                .switchIfEmpty(Mono.fromRunnable(() -> {
+                    // Bloqueo tomado: su lease se renueva hasta guardar el estado final
+                    retentionPolicy.recordValueSize(IdempotencyStatus.PROCESSING, value);
+                    lockHeartbeat.track(fullKey, value);
+                }))
+                // Fail-Safe: si no se puede bloquear, no se procesa
+                .doOnError(e -> log.error("Redis: Error al bloquear llave {}: {}", fullKey, e.getMessage()));
+    }
+
+    @Override
+    public Mono<Boolean> holdLock(String key, Duration ttl) {
+        return Mono.defer(() -> {
+            String fullKey = KEY_PREFIX + key;
+            // El latido deja de renovarlo: su lease corto reemplazaría al nuevo TTL
+            byte[] value = lockHeartbeat.release(fullKey);
+            if (value == null) {
+                log.warn("Redis: Bloqueo de la llave {} ya no pertenece a este nodo", fullKey);
+                return Mono.just(false);
+            }
+            return redisTemplate.execute(RedisLockHeartbeat.RENEW_LOCK_SCRIPT, List.of(fullKey),
+                            List.of(value, String.valueOf(ttl.toMillis()).getBytes(StandardCharsets.UTF_8)), RAW_ARGS, LONG_RESULT)
+                    .next()
+                    .map(extended -> extended == 1L)
+                    .defaultIfEmpty(false)
+                    .doOnError(e -> log.error("Redis: Error al extender el bloqueo de la llave {}: {}", fullKey, e.getMessage()));
+        });
+    }
+}
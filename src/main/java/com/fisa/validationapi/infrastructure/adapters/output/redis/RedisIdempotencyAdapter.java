@@ -1,34 +1,101 @@
 package com.fisa.validationapi.infrastructure.adapters.output.redis;
 
 import com.fisa.validationapi.domain.models.IdempotencyRecord;
+import com.fisa.validationapi.domain.models.enums.IdempotencyStatus;
 import com.fisa.validationapi.domain.ports.out.IdempotencyRepositoryPort;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.RedisStringCommands.SetOption;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.stereotype.Repository;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.GenericToStringSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 
+/**
+ * Adaptador de idempotencia sobre Redis. El TTL depende del estado ({@link IdempotencyRetentionPolicy}):
+ * el bloqueo PROCESSING vive un lease corto que {@link RedisLockHeartbeat} renueva mientras la petición sigue en curso.
+ */
 @Slf4j
-@RequiredArgsConstructor
 public class RedisIdempotencyAdapter implements IdempotencyRepositoryPort {
 
-    private final RedisTemplate<String, Object> redisTemplate;
+    private final RedisTemplate<String, IdempotencyRecord> redisTemplate;
+    private final IdempotencyRetentionPolicy retentionPolicy;
+    private final RedisLockHeartbeat lockHeartbeat;
+
+    // Duración de cada operación contra Redis (sin near-cache), etiquetada por operación
+    private final Timer acquireLockTimer;
+    private final Timer acquireLocksTimer;
+    private final Timer saveTimer;
+    private final Timer saveAllTimer;
+    private final Timer findTimer;
 
     // Prefijo para organizar las llaves en Redis (ej: "idempotency:ABC-123")
-    private static final String KEY_PREFIX = "idempotency:";
+    static final String KEY_PREFIX = "idempotency:";
+
+    // GET + SET NX PX en un único script: devuelve el valor existente o toma el bloqueo.
+    // Redis ejecuta los scripts de forma atómica, por lo que dos reintentos concurrentes
+    // nunca pueden obtener ambos el bloqueo. Spring envía EVALSHA y recurre a EVAL solo la primera vez.
+    static final RedisScript<IdempotencyRecord> ACQUIRE_LOCK_SCRIPT = new DefaultRedisScript<>(
+            """
+            local existing = redis.call('GET', KEYS[1])
+            if existing then
+                return existing
+            end
+            redis.call('SET', KEYS[1], ARGV[1], 'PX', ARGV[2])
+            return false
+            """, IdempotencyRecord.class);
 
-    // Tiempo de vida de la llave: 24 horas.
-    private static final Duration TTL = Duration.ofHours(24);
+    // SET PX + PUBLISH en un único script: los estados finales se anuncian a los demás nodos
+    // (invalidación de cachés locales) sin añadir otra ida y vuelta a Redis.
+    static final RedisScript<Long> SAVE_AND_PUBLISH_SCRIPT = new DefaultRedisScript<>(
+            """
+            redis.call('SET', KEYS[1], ARGV[1], 'PX', ARGV[2])
+            return redis.call('PUBLISH', ARGV[3], ARGV[4])
+            """, Long.class);
+
+    public RedisIdempotencyAdapter(RedisTemplate<String, IdempotencyRecord> redisTemplate, IdempotencyRetentionPolicy retentionPolicy,
+                                   RedisLockHeartbeat lockHeartbeat, MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.retentionPolicy = retentionPolicy;
+        this.lockHeartbeat = lockHeartbeat;
+        this.acquireLockTimer = operationTimer(meterRegistry, "acquire_lock");
+        this.acquireLocksTimer = operationTimer(meterRegistry, "acquire_locks");
+        this.saveTimer = operationTimer(meterRegistry, "save");
+        this.saveAllTimer = operationTimer(meterRegistry, "save_all");
+        this.findTimer = operationTimer(meterRegistry, "find");
+    }
 
     @Override
     public void save(IdempotencyRecord record) {
         String fullKey = KEY_PREFIX + record.getKey();
 
         try {
-            // Guardamos el objeto y definimos su expiración en una sola operación atómica
-            redisTemplate.opsForValue().set(fullKey, record, TTL);
+            IdempotencyRecord stored = retentionPolicy.apply(record);
+            byte[] value = valueSerializer().serialize(stored);
+            retentionPolicy.recordValueSize(stored.getStatus(), value);
+
+            saveTimer.record(() -> {
+                if (stored.getStatus() == IdempotencyStatus.PROCESSING) {
+                    // Guardamos el objeto y definimos su expiración (lease) en una sola operación atómica
+                    redisTemplate.execute((RedisCallback<Boolean>) connection -> connection.stringCommands().set(
+                            fullKey.getBytes(StandardCharsets.UTF_8), value,
+                            Expiration.from(retentionPolicy.ttl(IdempotencyStatus.PROCESSING)), SetOption.upsert()));
+                } else {
+                    saveAndPublish(fullKey, stored, value);
+                }
+            });
+            track(fullKey, stored.getStatus(), value);
             log.debug("Redis: Guardada llave {} con estado {}", fullKey, record.getStatus());
         } catch (Exception e) {
             log.error("Redis: Error al guardar llave {}: {}", fullKey, e.getMessage());
@@ -37,20 +104,191 @@ public class RedisIdempotencyAdapter implements IdempotencyRepositoryPort {
     }
 
     @Override
-    public Optional<IdempotencyRecord> findByKey(String key) {
-        String fullKey = KEY_PREFIX + key;
+    public void saveAll(List<IdempotencyRecord> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+        RedisSerializer<IdempotencyRecord> valueSerializer = valueSerializer();
+        byte[] script = SAVE_AND_PUBLISH_SCRIPT.getScriptAsString().getBytes(StandardCharsets.UTF_8);
+        String sha = SAVE_AND_PUBLISH_SCRIPT.getSha1();
+        byte[] channel = IdempotencyEventChannel.CHANNEL.getBytes(StandardCharsets.UTF_8);
+
+        List<IdempotencyRecord> stored = new ArrayList<>(records.size());
+        List<byte[]> values = new ArrayList<>(records.size());
+        for (IdempotencyRecord record : records) {
+            IdempotencyRecord capped = retentionPolicy.apply(record);
+            byte[] value = valueSerializer.serialize(capped);
+            retentionPolicy.recordValueSize(capped.getStatus(), value);
+            stored.add(capped);
+            values.add(value);
+        }
+
+        try {
+            // Un solo pipeline: SCRIPT LOAD (idempotente, evita NOSCRIPT) y un SET (+ PUBLISH en estados finales) por llave
+            saveAllTimer.record(() -> redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                connection.scriptingCommands().scriptLoad(script);
+                for (int i = 0; i < stored.size(); i++) {
+                    IdempotencyRecord record = stored.get(i);
+                    IdempotencyStatus status = record.getStatus();
+                    byte[] fullKey = (KEY_PREFIX + record.getKey()).getBytes(StandardCharsets.UTF_8);
+                    if (status == IdempotencyStatus.PROCESSING) {
+                        connection.stringCommands().set(fullKey, values.get(i), Expiration.from(retentionPolicy.ttl(status)), SetOption.upsert());
+                    } else {
+                        byte[] message = IdempotencyEventChannel.message(record.getKey()).getBytes(StandardCharsets.UTF_8);
+                        connection.scriptingCommands().evalSha(sha, ReturnType.INTEGER, 1,
+                                fullKey, values.get(i), retentionPolicy.ttlMillisArg(status), channel, message);
+                    }
+                }
+                return null;
+            }));
+            for (int i = 0; i < stored.size(); i++) {
+                track(KEY_PREFIX + stored.get(i).getKey(), stored.get(i).getStatus(), values.get(i));
+            }
+            log.debug("Redis: Guardado en lote de {} llaves", records.size());
+        } catch (Exception e) {
+            log.error("Redis: Error al guardar {} llaves en lote: {}", records.size(), e.getMessage());
+            throw e;
+        }
+    }
+
+    @Override
+    public Optional<IdempotencyRecord> acquireLock(IdempotencyRecord lockRecord) {
+        String fullKey = KEY_PREFIX + lockRecord.getKey();
+        RedisSerializer<IdempotencyRecord> valueSerializer = valueSerializer();
 
         try {
-            Object value = redisTemplate.opsForValue().get(fullKey);
+            // Los argumentos se serializan antes para que el TTL viaje como texto plano y no como JSON
+            byte[] value = valueSerializer.serialize(lockRecord);
+            byte[] ttlMillis = retentionPolicy.ttlMillisArg(IdempotencyStatus.PROCESSING);
+
+            IdempotencyRecord existing = acquireLockTimer.record(() -> redisTemplate.execute(ACQUIRE_LOCK_SCRIPT,
+                    RedisSerializer.byteArray(), valueSerializer, List.of(fullKey), value, ttlMillis));
 
-            if (value instanceof IdempotencyRecord record) {
-                return Optional.of(record);
+            if (existing != null) {
+                log.debug("Redis: Llave {} ya existente con estado {}", fullKey, existing.getStatus());
+                return Optional.of(existing);
             }
+            retentionPolicy.recordValueSize(IdempotencyStatus.PROCESSING, value);
+            lockHeartbeat.track(fullKey, value);
+            log.debug("Redis: Bloqueo adquirido para llave {}", fullKey);
             return Optional.empty();
 
+        } catch (Exception e) {
+            // Fail-Safe: si no se puede bloquear, no se procesa
+            log.error("Redis: Error al bloquear llave {}: {}", fullKey, e.getMessage());
+            throw e;
+        }
+    }
+
+    @Override
+    public List<Optional<IdempotencyRecord>> acquireLocks(List<IdempotencyRecord> lockRecords) {
+        if (lockRecords.isEmpty()) {
+            return List.of();
+        }
+        RedisSerializer<IdempotencyRecord> valueSerializer = valueSerializer();
+        byte[] script = ACQUIRE_LOCK_SCRIPT.getScriptAsString().getBytes(StandardCharsets.UTF_8);
+        String sha = ACQUIRE_LOCK_SCRIPT.getSha1();
+        byte[] ttlMillis = retentionPolicy.ttlMillisArg(IdempotencyStatus.PROCESSING);
+        List<byte[]> values = new ArrayList<>(lockRecords.size());
+        for (IdempotencyRecord lockRecord : lockRecords) {
+            values.add(valueSerializer.serialize(lockRecord));
+        }
+
+        try {
+            // Un solo pipeline: SCRIPT LOAD (idempotente, evita NOSCRIPT) y un EVALSHA por llave.
+            // Cada llave sigue bloqueándose de forma atómica; solo se ahorran las idas y vueltas.
+            List<Object> results = acquireLocksTimer.record(() -> redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                connection.scriptingCommands().scriptLoad(script);
+                for (int i = 0; i < lockRecords.size(); i++) {
+                    byte[] fullKey = (KEY_PREFIX + lockRecords.get(i).getKey()).getBytes(StandardCharsets.UTF_8);
+                    connection.scriptingCommands().evalSha(sha, ReturnType.VALUE, 1, fullKey, values.get(i), ttlMillis);
+                }
+                return null;
+            }, valueSerializer));
+
+            // El primer resultado es el SHA devuelto por SCRIPT LOAD
+            List<Optional<IdempotencyRecord>> existingRecords = new ArrayList<>(lockRecords.size());
+            for (int i = 0; i < lockRecords.size(); i++) {
+                IdempotencyRecord existing = (IdempotencyRecord) results.get(i + 1);
+                if (existing == null) {
+                    retentionPolicy.recordValueSize(IdempotencyStatus.PROCESSING, values.get(i));
+                    lockHeartbeat.track(KEY_PREFIX + lockRecords.get(i).getKey(), values.get(i));
+                }
+                existingRecords.add(Optional.ofNullable(existing));
+            }
+            log.debug("Redis: Bloqueo en lote de {} llaves", lockRecords.size());
+            return existingRecords;
+
+        } catch (Exception e) {
+            // Fail-Safe: si no se puede bloquear, no se procesa
+            log.error("Redis: Error al bloquear {} llaves en lote: {}", lockRecords.size(), e.getMessage());
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean holdLock(String key, Duration ttl) {
+        String fullKey = KEY_PREFIX + key;
+        // El latido deja de renovarlo: su lease corto reemplazaría al nuevo TTL
+        byte[] value = lockHeartbeat.release(fullKey);
+        if (value == null) {
+            log.warn("Redis: Bloqueo de la llave {} ya no pertenece a este nodo", fullKey);
+            return false;
+        }
+
+        try {
+            Long extended = redisTemplate.execute(RedisLockHeartbeat.RENEW_LOCK_SCRIPT, RedisSerializer.byteArray(),
+                    new GenericToStringSerializer<>(Long.class), List.of(fullKey), value,
+                    String.valueOf(ttl.toMillis()).getBytes(StandardCharsets.UTF_8));
+            return extended != null && extended == 1L;
+        } catch (Exception e) {
+            log.error("Redis: Error al extender el bloqueo de la llave {}: {}", fullKey, e.getMessage());
+            throw e;
+        }
+    }
+
+    @Override
+    public Optional<IdempotencyRecord> findByKey(String key) {
+        String fullKey = KEY_PREFIX + key;
+
+        try {
+            return Optional.ofNullable(findTimer.record(() -> redisTemplate.opsForValue().get(fullKey)));
+
         } catch (Exception e) {
             log.error("Redis: Error al buscar llave {}: {}", fullKey, e.getMessage());
             return Optional.empty(); // Fallback seguro
         }
     }
+
+    private void saveAndPublish(String fullKey, IdempotencyRecord record, byte[] value) {
+        byte[] ttlMillis = retentionPolicy.ttlMillisArg(record.getStatus());
+        byte[] channel = IdempotencyEventChannel.CHANNEL.getBytes(StandardCharsets.UTF_8);
+        byte[] message = IdempotencyEventChannel.message(record.getKey()).getBytes(StandardCharsets.UTF_8);
+
+        redisTemplate.execute(SAVE_AND_PUBLISH_SCRIPT, RedisSerializer.byteArray(), new GenericToStringSerializer<>(Long.class),
+                List.of(fullKey), value, ttlMillis, channel, message);
+    }
+
+    // Un PROCESSING reescrito se renueva con su nuevo valor; un estado final deja de renovarse
+    private void track(String fullKey, IdempotencyStatus status, byte[] value) {
+        if (status == IdempotencyStatus.PROCESSING) {
+            lockHeartbeat.track(fullKey, value);
+        } else {
+            lockHeartbeat.release(fullKey);
+        }
+    }
+
+    private static Timer operationTimer(MeterRegistry meterRegistry, String operation) {
+        return Timer.builder("idempotency.redis.duration")
+                .description("Duración de las operaciones de idempotencia contra Redis")
+                .tag("operation", operation)
+                .serviceLevelObjectives(Duration.ofMillis(1), Duration.ofMillis(2), Duration.ofMillis(5),
+                        Duration.ofMillis(10), Duration.ofMillis(25), Duration.ofMillis(50), Duration.ofMillis(100))
+                .register(meterRegistry);
+    }
+
+    @SuppressWarnings("unchecked")
+    private RedisSerializer<IdempotencyRecord> valueSerializer() {
+        return (RedisSerializer<IdempotencyRecord>) redisTemplate.getValueSerializer();
+    }
 }
\ No newline at end of file
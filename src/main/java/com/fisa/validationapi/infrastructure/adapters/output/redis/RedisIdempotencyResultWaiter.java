@@ -0,0 +1,128 @@
+package com.fisa.validationapi.infrastructure.adapters.output.redis;
+
+import com.fisa.validationapi.domain.models.IdempotencyRecord;
+import com.fisa.validationapi.domain.models.enums.IdempotencyStatus;
+import com.fisa.validationapi.domain.ports.out.IdempotencyRepositoryPort;
+import com.fisa.validationapi.domain.ports.out.IdempotencyResultPort;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Espera de resultados para reintentos que llegan mientras la llave está en PROCESSING.
+ * Las esperas de una misma llave en este nodo comparten un único future; se completa con el registro
+ * guardado localmente o, si la petición original corre en otro nodo, con el anuncio del canal Pub/Sub
+ * de Redis (una sola lectura por llave, en lugar de un GET por cada reintento del TPP).
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class RedisIdempotencyResultWaiter implements IdempotencyResultPort, MessageListener {
+
+    private final IdempotencyRepositoryPort repository;
+    private final ConcurrentMap<String, Waiters> waiters = new ConcurrentHashMap<>();
+
+    @Override
+    public Optional<IdempotencyRecord> awaitResult(String key, Duration timeout) {
+        boolean[] opened = new boolean[1];
+        Waiters registered = waiters.compute(key, (k, current) -> {
+            Waiters entry = current;
+            if (entry == null) {
+                entry = new Waiters();
+                opened[0] = true;
+            }
+            entry.count++;
+            return entry;
+        });
+
+        try {
+            // Quien abre la espera vuelve a leer la llave: el resultado pudo anunciarse antes de registrarse
+            if (opened[0]) {
+                Optional<IdempotencyRecord> current = repository.findByKey(key);
+                if (current.isEmpty()) {
+                    return Optional.empty(); // La llave expiró o se eliminó: no hay nada que esperar
+                }
+                if (isTerminal(current.get())) {
+                    complete(key, current.get());
+                }
+            }
+
+            return Optional.of(registered.future.get(timeout.toMillis(), TimeUnit.MILLISECONDS));
+
+        } catch (TimeoutException e) {
+            log.info("Idempotency: Sin resultado para llave {} tras {} ms de espera", key, timeout.toMillis());
+            return Optional.empty();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Optional.empty();
+        } catch (ExecutionException e) {
+            return Optional.empty();
+        } finally {
+            unregister(key, registered);
+        }
+    }
+
+    @Override
+    public void resultSaved(IdempotencyRecord record) {
+        complete(record.getKey(), record);
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        if (IdempotencyEventChannel.isFromThisNode(body)) {
+            return; // Las esperas locales ya se completaron al guardar
+        }
+
+        String key = IdempotencyEventChannel.keyOf(body);
+        if (!waiters.containsKey(key)) {
+            return; // Nadie espera esta llave en este nodo: no se lee Redis
+        }
+        try {
+            repository.findByKey(key)
+                    .filter(RedisIdempotencyResultWaiter::isTerminal)
+                    .ifPresent(record -> complete(key, record));
+        } catch (Exception e) {
+            // Las esperas terminan por timeout y el cliente recibe el 409 de siempre
+            log.warn("Idempotency: No se pudo leer el resultado anunciado de la llave {}: {}", key, e.getMessage());
+        }
+    }
+
+    // La entrada se elimina cuando se retira la última espera (por resultado o por timeout)
+    private void unregister(String key, Waiters registered) {
+        waiters.computeIfPresent(key, (k, current) -> current != registered || --current.count > 0 ? current : null);
+    }
+
+    private void complete(String key, IdempotencyRecord record) {
+        Waiters entry = waiters.get(key);
+        if (entry != null) {
+            entry.future.complete(record);
+        }
+    }
+
+    // Visible para diagnóstico: esperas registradas para la llave (0 si no hay entrada)
+    int waiting(String key) {
+        Waiters entry = waiters.get(key);
+        return entry != null ? entry.count : 0;
+    }
+
+    private static boolean isTerminal(IdempotencyRecord record) {
+        return record.getStatus() == IdempotencyStatus.COMPLETED || record.getStatus() == IdempotencyStatus.FAILED;
+    }
+
+    // Esperas de una llave: el contador solo se modifica dentro de compute/computeIfPresent (atómico por llave)
+    private static final class Waiters {
+        private final CompletableFuture<IdempotencyRecord> future = new CompletableFuture<>();
+        private int count;
+    }
+}
@@ -0,0 +1,188 @@
+package com.fisa.validationapi.infrastructure.adapters.output.redis;
+
+import com.fisa.validationapi.domain.models.IdempotencyRecord;
+import com.fisa.validationapi.infrastructure.config.IdempotencyProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Renueva el lease de los bloqueos (PROCESSING) que este nodo tiene en curso.
+ * El bloqueo se guarda con un TTL corto: si el nodo cae a mitad de la petición, la llave se libera
+ * al cumplirse el lease y un reintento puede procesarla. Mientras la petición sigue viva, este latido
+ * extiende el TTL de todas las llaves tomadas en un solo pipeline, solo si el valor en Redis sigue siendo
+ * el bloqueo de este nodo (si ya se guardó el estado final u otro nodo tomó la llave, se deja de renovar).
+ */
+@Slf4j
+public class RedisLockHeartbeat implements SmartLifecycle {
+
+    // Igual que la escritura diferida: se detiene después que el servidor web (las peticiones en curso
+    // siguen renovando su bloqueo durante el apagado ordenado) y antes que la conexión a Redis
+    static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 4096;
+
+    // GET + comparación + PEXPIRE en un único script: nunca se extiende un valor que ya no es el bloqueo propio
+    static final RedisScript<Long> RENEW_LOCK_SCRIPT = new DefaultRedisScript<>(
+            """
+            if redis.call('GET', KEYS[1]) == ARGV[1] then
+                return redis.call('PEXPIRE', KEYS[1], ARGV[2])
+            end
+            return 0
+            """, Long.class);
+
+    private final RedisTemplate<String, IdempotencyRecord> redisTemplate;
+    private final IdempotencyProperties.Processing properties;
+
+    // Bloqueos en curso por llave completa de Redis, con el valor exacto escrito al tomarlos
+    private final Map<String, HeldLock> heldLocks = new ConcurrentHashMap<>();
+
+    private final Counter renewedCounter;
+    private final Counter lostCounter;
+    private final Counter expiredCounter;
+
+    private volatile boolean running;
+    private ScheduledExecutorService scheduler;
+
+    private record HeldLock(byte[] value, long acquiredAtNanos) {
+    }
+
+    public RedisLockHeartbeat(RedisTemplate<String, IdempotencyRecord> redisTemplate, IdempotencyProperties.Processing properties,
+                              MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.properties = properties;
+
+        Gauge.builder("idempotency.lock.held", heldLocks, Map::size)
+                .description("Bloqueos PROCESSING de este nodo cuyo lease se renueva")
+                .register(meterRegistry);
+        this.renewedCounter = outcomeCounter(meterRegistry, "renewed");
+        this.lostCounter = outcomeCounter(meterRegistry, "lost");
+        this.expiredCounter = outcomeCounter(meterRegistry, "max_duration");
+    }
+
+    /**
+     * Empieza a renovar el bloqueo recién tomado.
+     * @param value El valor serializado con el que se tomó (se compara antes de cada renovación).
+     */
+    void track(String fullKey, byte[] value) {
+        heldLocks.put(fullKey, new HeldLock(value, System.nanoTime()));
+    }
+
+    /**
+     * La llave pasó a un estado final, se reemplazó o se extendió aparte: deja de renovarse.
+     * @return El valor con el que se tomó el bloqueo, o null si ya no se renovaba (venció, se perdió o se liberó).
+     */
+    byte[] release(String fullKey) {
+        HeldLock lock = heldLocks.remove(fullKey);
+        return lock != null ? lock.value() : null;
+    }
+
+    @Override
+    public void start() {
+        long intervalMillis = properties.getHeartbeatInterval().toMillis();
+        scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "idempotency-lock-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::renewAll, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        scheduler.shutdownNow();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    void renewAll() {
+        if (heldLocks.isEmpty()) {
+            return;
+        }
+
+        // Los bloqueos que superan la duración máxima se dejan expirar con su lease actual
+        long maxDurationNanos = properties.getMaxDuration().toNanos();
+        long now = System.nanoTime();
+        List<String> keys = new ArrayList<>(heldLocks.size());
+        List<HeldLock> locks = new ArrayList<>(heldLocks.size());
+        heldLocks.forEach((key, lock) -> {
+            if (now - lock.acquiredAtNanos() > maxDurationNanos) {
+                if (heldLocks.remove(key, lock)) {
+                    expiredCounter.increment();
+                    log.warn("Idempotency: Bloqueo {} en curso hace más de {}; se deja de renovar", key, properties.getMaxDuration());
+                }
+            } else {
+                keys.add(key);
+                locks.add(lock);
+            }
+        });
+        if (keys.isEmpty()) {
+            return;
+        }
+
+        byte[] script = RENEW_LOCK_SCRIPT.getScriptAsString().getBytes(StandardCharsets.UTF_8);
+        String sha = RENEW_LOCK_SCRIPT.getSha1();
+        byte[] leaseMillis = String.valueOf(properties.getLease().toMillis()).getBytes(StandardCharsets.UTF_8);
+
+        List<Object> results;
+        try {
+            // Un solo pipeline: SCRIPT LOAD (idempotente, evita NOSCRIPT) y un EVALSHA por llave
+            results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                connection.scriptingCommands().scriptLoad(script);
+                for (int i = 0; i < keys.size(); i++) {
+                    connection.scriptingCommands().evalSha(sha, ReturnType.INTEGER, 1,
+                            keys.get(i).getBytes(StandardCharsets.UTF_8), locks.get(i).value(), leaseMillis);
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            // Se reintenta en el próximo latido; el lease actual sigue vigente hasta entonces
+            log.warn("Idempotency: No se pudo renovar el lease de {} bloqueos: {}", keys.size(), e.getMessage());
+            return;
+        }
+
+        // El primer resultado es el SHA devuelto por SCRIPT LOAD
+        int renewed = 0;
+        for (int i = 0; i < keys.size(); i++) {
+            if (results.get(i + 1) instanceof Long extended && extended == 1L) {
+                renewed++;
+            } else if (heldLocks.remove(keys.get(i), locks.get(i))) {
+                // El valor ya no es el bloqueo propio (estado final guardado, expiró u otro nodo tomó la llave)
+                lostCounter.increment();
+                log.debug("Idempotency: Bloqueo {} ya no pertenece a este nodo; se deja de renovar", keys.get(i));
+            }
+        }
+        renewedCounter.increment(renewed);
+    }
+
+    private static Counter outcomeCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("idempotency.lock.heartbeat")
+                .description("Renovaciones del lease de los bloqueos PROCESSING, por resultado")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,17 @@
+package com.fisa.validationapi.infrastructure.adapters.output.webclient;
+
+import org.springframework.http.ResponseEntity;
+import reactor.core.publisher.Mono;
+
+/**
+ * Cliente no bloqueante del Party Service (modo reactivo), equivalente a PartyServiceClient.
+ */
+public interface ReactivePartyServiceClient {
+
+    /**
+     * Envía la solicitud de creación de cliente al Party Service (POST /bian-party/v1/parties).
+     * @param partyJson El cuerpo del mensaje validado (JSON en UTF-8, se envía tal cual sin recodificar).
+     * @return La respuesta del servicio; las respuestas 4xx/5xx llegan como WebClientResponseException.
+     */
+    Mono<ResponseEntity<String>> createParty(byte[] partyJson);
+}
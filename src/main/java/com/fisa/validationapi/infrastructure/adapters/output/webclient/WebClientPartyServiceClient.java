@@ -0,0 +1,60 @@
+package com.fisa.validationapi.infrastructure.adapters.output.webclient;
+
+import com.fisa.validationapi.infrastructure.adapters.output.feign.DependencyUnavailableException;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.reactor.bulkhead.operator.BulkheadOperator;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import io.github.resilience4j.reactor.timelimiter.TimeLimiterOperator;
+import io.github.resilience4j.timelimiter.TimeLimiter;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Cliente WebClient (Reactor Netty) del Party Service, protegido por las mismas instancias de resilience4j
+ * que el cliente Feign ("party-service"): circuit breaker, bulkhead y tiempo máximo.
+ * El tiempo máximo cancela la suscripción (y con ella la petición HTTP) sin ningún hilo esperando.
+ */
+public class WebClientPartyServiceClient implements ReactivePartyServiceClient {
+
+    private static final String PARTIES_PATH = "/bian-party/v1/parties";
+
+    private final WebClient webClient;
+    private final CircuitBreaker circuitBreaker;
+    private final Bulkhead bulkhead;
+    private final TimeLimiter timeLimiter;
+
+    public WebClientPartyServiceClient(WebClient webClient, CircuitBreaker circuitBreaker, Bulkhead bulkhead, TimeLimiter timeLimiter) {
+        this.webClient = webClient;
+        this.circuitBreaker = circuitBreaker;
+        this.bulkhead = bulkhead;
+        this.timeLimiter = timeLimiter;
+    }
+
+    @Override
+    public Mono<ResponseEntity<String>> createParty(byte[] partyJson) {
+        String name = circuitBreaker.getName();
+        return webClient.post()
+                .uri(PARTIES_PATH)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(partyJson)
+                .retrieve()
+                .toEntity(String.class)
+                // Mismo orden que ResilienceGuard: circuito > bulkhead > tiempo máximo > llamada
+                .transformDeferred(TimeLimiterOperator.of(timeLimiter))
+                .transformDeferred(BulkheadOperator.of(bulkhead))
+                .transformDeferred(CircuitBreakerOperator.of(circuitBreaker))
+                .onErrorMap(CallNotPermittedException.class, e -> new DependencyUnavailableException(name, 503, true,
+                        "Servicio " + name + " no disponible (circuito abierto)", e))
+                .onErrorMap(BulkheadFullException.class, e -> new DependencyUnavailableException(name, 503, true,
+                        "Servicio " + name + " saturado (límite de llamadas concurrentes)", e))
+                .onErrorMap(TimeoutException.class, e -> new DependencyUnavailableException(name, 504, false,
+                        "Servicio " + name + " sin respuesta tras " + timeLimiter.getTimeLimiterConfig().getTimeoutDuration().toMillis() + " ms", e));
+    }
+}
@@ -0,0 +1,17 @@
+package com.fisa.validationapi.infrastructure.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Parámetros de las alertas de error al administrador (prefijo "notification.alerts").
+ */
+@Data
+@ConfigurationProperties(prefix = "notification.alerts")
+public class AlertProperties {
+
+    // Ventana de agrupación: la primera alerta de cada origen + tipo sale de inmediato, las repetidas van en un resumen
+    private Duration window = Duration.ofSeconds(60);
+}
@@ -3,27 +3,144 @@ package com.fisa.validationapi.infrastructure.config;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fisa.validationapi.application.services.IdempotencyService;
 import com.fisa.validationapi.application.services.Iso20022ValidatorService;
+import com.fisa.validationapi.application.services.PartyCallRecoveryService;
+import com.fisa.validationapi.application.services.PayloadFingerprint;
+import com.fisa.validationapi.application.services.SingleFlight;
+import com.fisa.validationapi.application.services.ValidationMetrics;
+import com.fisa.validationapi.application.services.rules.Pacs008ReferenceDataRules;
 import com.fisa.validationapi.application.usecases.ValidateTransactionUseCaseImpl;
+import com.fisa.validationapi.domain.models.IdempotencyRecord;
 import com.fisa.validationapi.domain.ports.in.ValidateTransactionUseCase;
 import com.fisa.validationapi.domain.ports.out.IdempotencyRepositoryPort;
+import com.fisa.validationapi.domain.ports.out.IdempotencyResultPort;
+import com.fisa.validationapi.domain.ports.out.PartyCallJournalPort;
+import com.fisa.validationapi.infrastructure.adapters.output.cache.NearCacheIdempotencyAdapter;
+import com.fisa.validationapi.infrastructure.adapters.output.cache.WriteBehindIdempotencyAdapter;
+import com.fisa.validationapi.infrastructure.adapters.output.feign.CoalescingPartyServiceClient;
 import com.fisa.validationapi.infrastructure.adapters.output.feign.NotificationClient;
 import com.fisa.validationapi.infrastructure.adapters.output.feign.PartyServiceClient;
+import com.fisa.validationapi.infrastructure.adapters.output.feign.ResilienceGuard;
+import com.fisa.validationapi.infrastructure.adapters.output.feign.ResilientNotificationClient;
+import com.fisa.validationapi.infrastructure.adapters.output.feign.ResilientPartyServiceClient;
+import com.fisa.validationapi.infrastructure.adapters.output.journal.MappedFilePartyCallJournal;
+import com.fisa.validationapi.infrastructure.adapters.output.journal.NoOpPartyCallJournal;
+import com.fisa.validationapi.infrastructure.adapters.output.notification.AlertAggregator;
+import com.fisa.validationapi.infrastructure.adapters.output.notification.AsyncNotificationDispatcher;
+import com.fisa.validationapi.infrastructure.adapters.output.redis.IdempotencyEventChannel;
+import com.fisa.validationapi.infrastructure.adapters.output.redis.IdempotencyRetentionPolicy;
 import com.fisa.validationapi.infrastructure.adapters.output.redis.RedisIdempotencyAdapter;
+import com.fisa.validationapi.infrastructure.adapters.output.redis.RedisIdempotencyResultWaiter;
+import com.fisa.validationapi.infrastructure.adapters.output.redis.RedisLockHeartbeat;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.netflix.appinfo.ApplicationInfoManager;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.openfeign.FeignClientFactory;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 @Configuration
+@EnableConfigurationProperties({IdempotencyProperties.class, NotificationProperties.class, AlertProperties.class,
+        BatchValidationProperties.class, ValidationRequestProperties.class, PartyCallJournalProperties.class,
+        Iso20022ValidationProperties.class, WarmUpProperties.class, CoalescingProperties.class})
 public class ApplicationConfig {
 
+    // Nombres de las instancias de resilience4j (application.yml), iguales a los de los clientes Feign
+    private static final String PARTY_SERVICE = "party-service";
+    private static final String NOTIFICATION_API = "notification-api";
+
     // ---------------------------------------------------------
     // 1. INFRASTRUCTURE & HELPERS
     // ---------------------------------------------------------
 
-    // Servicio de Dominio (ISO) - Necesita ObjectMapper de Jackson
+    // Servicio de Dominio (ISO) - Necesita ObjectMapper de Jackson y las reglas pacs.008 precompiladas
+    // El modo "deep" (ensamblaje MX + XML en cada petición) es opcional y está desactivado por defecto
+    // La caché de veredictos (por huella del payload) evita revalidar payloads idénticos recientes
+    // y las validaciones simultáneas del mismo payload se agrupan en una sola (métrica validation.coalesced)
     @Bean
-    public Iso20022ValidatorService iso20022ValidatorService(ObjectMapper objectMapper) {
-        return new Iso20022ValidatorService(objectMapper);
+    public Iso20022ValidatorService iso20022ValidatorService(
+            ObjectMapper objectMapper,
+            Iso20022ValidationProperties properties,
+            MeterRegistry meterRegistry
+    ) {
+        SingleFlight<ByteBuffer, Iso20022ValidatorService.Verdict> validations = coalescing(new SingleFlight<>(), "iso_validation", meterRegistry);
+        Iso20022ValidationProperties.VerdictCache verdictCache = properties.getVerdictCache();
+        if (!verdictCache.isEnabled()) {
+            return new Iso20022ValidatorService(objectMapper, Pacs008ReferenceDataRules.RULES, properties.isDeepMode(), null, validations);
+        }
+
+        Cache<Long, Iso20022ValidatorService.Verdict> verdicts = Caffeine.newBuilder()
+                .maximumSize(verdictCache.getMaxSize())
+                .expireAfterWrite(verdictCache.getTtl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, verdicts, "iso-verdict-cache");
+        return new Iso20022ValidatorService(objectMapper, Pacs008ReferenceDataRules.RULES, properties.isDeepMode(), verdicts, validations);
+    }
+
+    // Calentamiento al arrancar, antes de aceptar tráfico: validador ISO (y contexto JAXB del modo deep), huella,
+    // serializador de Redis y codificadores Feign, con payloads sintéticos (sin llamar a servicios externos)
+    @Bean
+    @ConditionalOnProperty(prefix = "validation.warm-up", name = "enabled", havingValue = "true", matchIfMissing = true)
+    @SuppressWarnings("unchecked")
+    public StartupWarmUp startupWarmUp(
+            Iso20022ValidatorService isoValidatorService,
+            PayloadFingerprint payloadFingerprint,
+            ObjectProvider<RedisTemplate<String, IdempotencyRecord>> redisTemplate,
+            FeignClientFactory feignClientFactory,
+            WarmUpProperties properties
+    ) {
+        RedisTemplate<String, IdempotencyRecord> template = redisTemplate.getIfAvailable();
+        return new StartupWarmUp(isoValidatorService, payloadFingerprint,
+                template != null ? (RedisSerializer<IdempotencyRecord>) template.getValueSerializer() : null,
+                feignClientFactory, properties.getIterations());
+    }
+
+    // Eureka: la instancia sigue en STARTING (eureka.instance.initial-status) hasta que termina el calentamiento
+    @Bean
+    @ConditionalOnProperty(prefix = "eureka.client", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public EurekaReadyStatus eurekaReadyStatus(ObjectProvider<ApplicationInfoManager> applicationInfoManager) {
+        return new EurekaReadyStatus(applicationInfoManager);
+    }
+
+    // Huella de los payloads (detección de llaves reutilizadas con otro payload y caché de veredictos ISO)
+    @Bean
+    public PayloadFingerprint payloadFingerprint(ObjectMapper objectMapper) {
+        return new PayloadFingerprint(objectMapper.getFactory());
+    }
+
+    // Métricas del flujo de validación (Timers por etapa, resultados y violaciones ISO)
+    @Bean
+    public ValidationMetrics validationMetrics(MeterRegistry meterRegistry) {
+        return new ValidationMetrics(meterRegistry);
     }
 
     // ---------------------------------------------------------
@@ -32,9 +149,158 @@ public class ApplicationConfig {
 
     // Adaptador de Salida (Redis)
     // Inyectar RedisTemplate que ya se configuró en RedisConfig
+    // Si la escritura diferida está activa, se usa como base; si el near-cache está activo, se antepone
+    // y se suscribe al canal de invalidación. Es el puerto que reciben los servicios (@Primary)
+    // En el perfil "loadtest" lo reemplaza el repositorio en memoria de LoadTestConfig
     @Bean
-    public IdempotencyRepositoryPort idempotencyRepositoryPort(RedisTemplate<String, Object> redisTemplate) {
-        return new RedisIdempotencyAdapter(redisTemplate);
+    @Primary
+    @Profile("!loadtest")
+    public IdempotencyRepositoryPort idempotencyRepositoryPort(
+            RedisTemplate<String, IdempotencyRecord> redisTemplate,
+            RedisMessageListenerContainer listenerContainer,
+            ObjectProvider<WriteBehindIdempotencyAdapter> writeBehind,
+            IdempotencyRetentionPolicy retentionPolicy,
+            RedisLockHeartbeat lockHeartbeat,
+            IdempotencyProperties properties,
+            MeterRegistry meterRegistry
+    ) {
+        IdempotencyRepositoryPort redisAdapter = writeBehind.getIfAvailable();
+        if (redisAdapter == null) {
+            redisAdapter = new RedisIdempotencyAdapter(redisTemplate, retentionPolicy, lockHeartbeat, meterRegistry);
+        }
+
+        IdempotencyProperties.NearCache nearCacheProperties = properties.getNearCache();
+        if (!nearCacheProperties.isEnabled()) {
+            return redisAdapter;
+        }
+
+        Cache<String, IdempotencyRecord> cache = Caffeine.newBuilder()
+                .maximumSize(nearCacheProperties.getMaxSize())
+                .expireAfterWrite(nearCacheProperties.getTtl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "idempotency-near-cache");
+
+        NearCacheIdempotencyAdapter nearCache = new NearCacheIdempotencyAdapter(redisAdapter, cache, retentionPolicy);
+        listenerContainer.addMessageListener(nearCache, new ChannelTopic(IdempotencyEventChannel.CHANNEL));
+        return nearCache;
+    }
+
+    // Adaptador de Salida (Escritura diferida, opcional)
+    // Los estados finales se envían a Redis en segundo plano por pipeline; es un bean para vaciarse al apagar
+    // Incompatible con el diario de llamadas a Party Service: el diario cerraría la llave antes de que el estado
+    // final llegue a Redis y una caída en ese intervalo perdería el resultado que el diario debe recuperar
+    @Bean
+    @ConditionalOnProperty(prefix = "idempotency.write-behind", name = "enabled", havingValue = "true")
+    public WriteBehindIdempotencyAdapter idempotencyWriteBehind(
+            RedisTemplate<String, IdempotencyRecord> redisTemplate,
+            IdempotencyRetentionPolicy retentionPolicy,
+            RedisLockHeartbeat lockHeartbeat,
+            IdempotencyProperties properties,
+            PartyCallJournalProperties journalProperties,
+            MeterRegistry meterRegistry
+    ) {
+        if (journalProperties.isEnabled()) {
+            throw new IllegalStateException("idempotency.write-behind.enabled y validation.journal.enabled no pueden activarse juntos");
+        }
+        return new WriteBehindIdempotencyAdapter(new RedisIdempotencyAdapter(redisTemplate, retentionPolicy, lockHeartbeat, meterRegistry),
+                properties.getWriteBehind(), meterRegistry);
+    }
+
+    // Retención por estado (TTL, recorte de cuerpos y tamaño de los valores), compartida con el adaptador reactivo
+    @Bean
+    public IdempotencyRetentionPolicy idempotencyRetentionPolicy(IdempotencyProperties properties, MeterRegistry meterRegistry) {
+        return new IdempotencyRetentionPolicy(properties.getRetention(), meterRegistry);
+    }
+
+    // Latido de los bloqueos PROCESSING de este nodo; es un bean para arrancar y detenerse con el contexto
+    @Bean
+    public RedisLockHeartbeat redisLockHeartbeat(
+            RedisTemplate<String, IdempotencyRecord> redisTemplate,
+            IdempotencyProperties properties,
+            MeterRegistry meterRegistry
+    ) {
+        IdempotencyProperties.Processing processing = properties.getRetention().getProcessing();
+        if (processing.getHeartbeatInterval().compareTo(processing.getLease()) >= 0) {
+            throw new IllegalStateException("idempotency.retention.processing.heartbeat-interval debe ser menor que lease");
+        }
+        return new RedisLockHeartbeat(redisTemplate, processing, meterRegistry);
+    }
+
+    // Adaptador de Salida (Espera de resultados, opcional)
+    // Los reintentos concurrentes esperan el resultado original; los otros nodos lo anuncian por Pub/Sub
+    @Bean
+    @ConditionalOnProperty(prefix = "idempotency.wait", name = "enabled", havingValue = "true")
+    public RedisIdempotencyResultWaiter idempotencyResultWaiter(
+            IdempotencyRepositoryPort repositoryPort,
+            RedisMessageListenerContainer listenerContainer
+    ) {
+        RedisIdempotencyResultWaiter resultWaiter = new RedisIdempotencyResultWaiter(repositoryPort);
+        listenerContainer.addMessageListener(resultWaiter, new ChannelTopic(IdempotencyEventChannel.CHANNEL));
+        return resultWaiter;
+    }
+
+    // Adaptador de Salida (Diario de llamadas a Party Service, opcional)
+    // Segmentos locales mapeados en memoria; sin él, las llaves de un nodo caído solo se liberan al vencer el lease
+    @Bean
+    public PartyCallJournalPort partyCallJournal(PartyCallJournalProperties properties, MeterRegistry meterRegistry) throws IOException {
+        if (!properties.isEnabled()) {
+            return NoOpPartyCallJournal.INSTANCE;
+        }
+        return new MappedFilePartyCallJournal(Path.of(properties.getDirectory()),
+                (int) properties.getSegmentSize().toBytes(), properties.getForceTimeout(), meterRegistry);
+    }
+
+    // Adaptador de Salida (Notificaciones)
+    // Cola acotada + despachador en segundo plano delante del cliente Feign del notification-api
+    // El cliente se envuelve con circuit breaker, bulkhead y tiempo máximo (bean notificationApiGuard);
+    // el envoltorio no es un bean para no competir con el proxy Feign al inyectar NotificationClient
+    @Bean
+    public AsyncNotificationDispatcher notificationDispatcher(
+            NotificationClient notificationClient,
+            NotificationProperties properties,
+            MeterRegistry meterRegistry,
+            CircuitBreakerRegistry circuitBreakerRegistry,
+            @Qualifier("notificationApiGuard") ResilienceGuard guard
+    ) {
+        // Con el circuito abierto los correos no gastan intentos: el despachador pausa lo que dura el estado abierto
+        Duration openStateWait = Duration.ofMillis(circuitBreakerRegistry.circuitBreaker(NOTIFICATION_API)
+                .getCircuitBreakerConfig().getWaitIntervalFunctionInOpenState().apply(1));
+        return new AsyncNotificationDispatcher(new ResilientNotificationClient(notificationClient, guard), properties,
+                openStateWait, meterRegistry);
+    }
+
+    // Protección de los clientes Feign (instancias de resilience4j del mismo nombre). Son beans para cerrarse al apagar
+    // (close inferido) después de los beans que los usan: el despachador vacía su cola y las peticiones en curso
+    // terminan antes de que se detengan los hilos de llamada
+    @Bean
+    public ResilienceGuard partyServiceGuard(
+            CircuitBreakerRegistry circuitBreakerRegistry,
+            BulkheadRegistry bulkheadRegistry,
+            TimeLimiterRegistry timeLimiterRegistry,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads
+    ) {
+        return resilienceGuard(PARTY_SERVICE, circuitBreakerRegistry, bulkheadRegistry, timeLimiterRegistry, virtualThreads);
+    }
+
+    @Bean
+    public ResilienceGuard notificationApiGuard(
+            CircuitBreakerRegistry circuitBreakerRegistry,
+            BulkheadRegistry bulkheadRegistry,
+            TimeLimiterRegistry timeLimiterRegistry,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads
+    ) {
+        return resilienceGuard(NOTIFICATION_API, circuitBreakerRegistry, bulkheadRegistry, timeLimiterRegistry, virtualThreads);
+    }
+
+    // Agrupador de alertas de error (GlobalExceptionHandler y casos de uso): un resumen por origen + tipo de error y ventana
+    @Bean
+    public AlertAggregator alertAggregator(
+            AsyncNotificationDispatcher notificationDispatcher,
+            AlertProperties properties,
+            MeterRegistry meterRegistry
+    ) {
+        return new AlertAggregator(notificationDispatcher, properties.getWindow(), meterRegistry);
     }
 
     // ---------------------------------------------------------
@@ -43,9 +309,46 @@ public class ApplicationConfig {
 
     // Servicio de Dominio (Idempotencia)
     // Recibe el Puerto (Interfaz), no la implementación directa
+    // El puerto de espera de resultados solo existe si idempotency.wait.enabled=true
+    // Con el diario activo, el bloqueo pasa al lease de la llamada a Party Service antes de llamarlo
+    @Bean
+    public IdempotencyService idempotencyService(
+            IdempotencyRepositoryPort repositoryPort,
+            ObjectProvider<IdempotencyResultPort> resultPort,
+            IdempotencyProperties properties,
+            PartyCallJournalProperties journalProperties
+    ) {
+        return new IdempotencyService(repositoryPort, resultPort.getIfAvailable(), properties.getWait().getTimeout(),
+                partyCallLease(properties, journalProperties));
+    }
+
+    // Sin diario nadie reconcilia las llaves de un nodo caído: el bloqueo conserva su lease corto
+    static Duration partyCallLease(IdempotencyProperties properties, PartyCallJournalProperties journalProperties) {
+        return journalProperties.isEnabled() ? properties.getRetention().getProcessing().getPartyCallLease() : null;
+    }
+
+    // Reconciliación de las llamadas que quedaron sin cerrar en el diario: al arrancar (las de la ejecución anterior)
+    // y periódicamente (las de esta ejecución que no alcanzaron a guardar su estado final)
+    @Bean
+    @ConditionalOnProperty(prefix = "validation.journal", name = "enabled", havingValue = "true")
+    public PartyCallRecoveryService partyCallRecoveryService(
+            PartyCallJournalPort journal,
+            IdempotencyService idempotencyService,
+            IdempotencyRepositoryPort repositoryPort
+    ) {
+        return new PartyCallRecoveryService(journal, idempotencyService, repositoryPort);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "validation.journal", name = "enabled", havingValue = "true")
+    public ApplicationRunner partyCallRecoveryRunner(PartyCallRecoveryService recoveryService, PartyCallJournalProperties properties) {
+        return args -> recoveryService.recover(properties.getReconcileAfter());
+    }
+
     @Bean
-    public IdempotencyService idempotencyService(IdempotencyRepositoryPort repositoryPort) {
-        return new IdempotencyService(repositoryPort);
+    @ConditionalOnProperty(prefix = "validation.journal", name = "enabled", havingValue = "true")
+    public PartyCallReconciler partyCallReconciler(PartyCallRecoveryService recoveryService, PartyCallJournalProperties properties) {
+        return new PartyCallReconciler(recoveryService, properties.getReconcileInterval(), properties.getReconcileAfter());
     }
 
     // ---------------------------------------------------------
@@ -56,21 +359,98 @@ public class ApplicationConfig {
     // Se inyecta:
     // 1. Servicio de Idempotencia
     // 2. Servicio ISO
-    // 3. (Futuro) Cliente Feign para llamar a Party Service
+    // 3. Cliente Feign de Party Service, con circuit breaker, bulkhead y tiempo máximo (bean partyServiceGuard)
+    // 4. Despachador asíncrono de correos y agrupador de alertas de error
+    // 5. Ejecutor de cargas masivas: un hilo por registro (virtual si el perfil lo activa),
+    //    con un máximo de registros en curso; al alcanzarlo, la lectura del archivo espera
+    // 6. Métricas por etapa
+    // 7. Huella del payload
+    // 8. Diario de llamadas a Party Service (sin efecto si validation.journal.enabled=false)
+    // Con validation.coalescing.share-party-call=true, las altas simultáneas con un cuerpo idéntico
+    // (distinta llave) comparten una sola llamada a Party Service, por fuera del circuito y el bulkhead
     @Bean
     public ValidateTransactionUseCase validateTransactionUseCase(
             IdempotencyService idempotencyService,
             Iso20022ValidatorService isoValidatorService,
             PartyServiceClient partyServiceClient,
-            NotificationClient notificationClient,
-            ObjectMapper objectMapper
+            AsyncNotificationDispatcher notificationDispatcher,
+            AlertAggregator alertAggregator,
+            ObjectMapper objectMapper,
+            BatchValidationProperties batchProperties,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+            ValidationMetrics validationMetrics,
+            PayloadFingerprint payloadFingerprint,
+            PartyCallJournalPort partyCallJournal,
+            CoalescingProperties coalescingProperties,
+            MeterRegistry meterRegistry,
+            @Qualifier("partyServiceGuard") ResilienceGuard partyServiceGuard
     ) {
+        SimpleAsyncTaskExecutor batchExecutor = new SimpleAsyncTaskExecutor("batch-validation-");
+        batchExecutor.setConcurrencyLimit(batchProperties.getParallelism());
+        batchExecutor.setVirtualThreads(virtualThreads);
+
+        PartyServiceClient partyClient = new ResilientPartyServiceClient(partyServiceClient, partyServiceGuard);
+        if (coalescingProperties.isSharePartyCall()) {
+            SingleFlight<ByteBuffer, ResponseEntity<String>> partyCalls = coalescing(new SingleFlight<>(), "party_call", meterRegistry);
+            partyClient = new CoalescingPartyServiceClient(partyClient, partyCalls);
+        }
+
         return new ValidateTransactionUseCaseImpl(
                 idempotencyService,
                 isoValidatorService,
-                partyServiceClient,
-                notificationClient,
-                objectMapper
+                partyClient,
+                notificationDispatcher,
+                alertAggregator,
+                objectMapper,
+                batchExecutor,
+                validationMetrics,
+                payloadFingerprint,
+                partyCallJournal
+        );
+    }
+
+    // Ejecuciones que reutilizaron el resultado de otra idéntica en curso, por etapa
+    private static <K, V> SingleFlight<K, V> coalescing(SingleFlight<K, V> flights, String stage, MeterRegistry meterRegistry) {
+        FunctionCounter.builder("validation.coalesced", flights, SingleFlight::sharedCount)
+                .description("Ejecuciones que esperaron el resultado de otra idéntica en curso en vez de repetirla")
+                .tag("stage", stage)
+                .register(meterRegistry);
+        return flights;
+    }
+
+    // Protección de un cliente Feign con las instancias de resilience4j del mismo nombre
+    // (las métricas de estado del circuito y del bulkhead las registra la autoconfiguración de resilience4j).
+    // Con hilos virtuales cada llamada corre en su propio hilo; sin ellos, en un pool fijo del tamaño del bulkhead
+    // (los hilos se reutilizan y nunca hay más que llamadas permitidas). El bulkhead acota cuántas hay en curso.
+    // El ejecutor es un ExecutorService para que el guard espere las llamadas en curso al cerrarse
+    private static ResilienceGuard resilienceGuard(
+            String name,
+            CircuitBreakerRegistry circuitBreakerRegistry,
+            BulkheadRegistry bulkheadRegistry,
+            TimeLimiterRegistry timeLimiterRegistry,
+            boolean virtualThreads
+    ) {
+        Bulkhead bulkhead = bulkheadRegistry.bulkhead(name);
+        ExecutorService callExecutor;
+        if (virtualThreads) {
+            callExecutor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(name + "-call-", 0).factory());
+        } else {
+            // Cola sin límite propio: como mucho contiene las llamadas con permiso cuyo hilo aún no se libera
+            int poolSize = bulkhead.getBulkheadConfig().getMaxConcurrentCalls();
+            ThreadPoolTaskExecutor pooledExecutor = new ThreadPoolTaskExecutor();
+            pooledExecutor.setThreadNamePrefix(name + "-call-");
+            pooledExecutor.setCorePoolSize(poolSize);
+            pooledExecutor.setMaxPoolSize(poolSize);
+            pooledExecutor.setDaemon(true);
+            pooledExecutor.initialize();
+            callExecutor = pooledExecutor.getThreadPoolExecutor();
+        }
+
+        return new ResilienceGuard(
+                circuitBreakerRegistry.circuitBreaker(name),
+                bulkhead,
+                timeLimiterRegistry.timeLimiter(name),
+                callExecutor
         );
     }
 }
\ No newline at end of file
@@ -0,0 +1,18 @@
+package com.fisa.validationapi.infrastructure.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Parámetros del endpoint de validación masiva (prefijo "validation.batch").
+ */
+@Data
+@ConfigurationProperties(prefix = "validation.batch")
+public class BatchValidationProperties {
+
+    // Registros leídos del archivo por ventana; solo una ventana vive en memoria a la vez
+    private int windowSize = 500;
+
+    // Registros de una ventana procesados en paralelo (Party Service, Redis, correos)
+    private int parallelism = 16;
+}
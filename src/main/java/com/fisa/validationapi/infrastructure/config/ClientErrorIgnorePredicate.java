@@ -0,0 +1,22 @@
+package com.fisa.validationapi.infrastructure.config;
+
+import feign.FeignException;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.util.function.Predicate;
+
+/**
+ * Errores que no cuentan para el circuit breaker de un servicio vecino (resilience4j ignore-exception-predicate):
+ * las respuestas 4xx son decisiones de negocio del servicio (Feign o WebClient) y el bulkhead lleno
+ * es una protección local; ninguno indica que el servicio esté caído.
+ */
+public class ClientErrorIgnorePredicate implements Predicate<Throwable> {
+
+    @Override
+    public boolean test(Throwable error) {
+        return error instanceof FeignException.FeignClientException
+                || error instanceof WebClientResponseException response && response.getStatusCode().is4xxClientError()
+                || error instanceof BulkheadFullException;
+    }
+}
@@ -0,0 +1,15 @@
+package com.fisa.validationapi.infrastructure.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Parámetros de la agrupación de trabajo idéntico en curso (prefijo "validation.coalescing").
+ */
+@Data
+@ConfigurationProperties(prefix = "validation.coalescing")
+public class CoalescingProperties {
+
+    // Altas simultáneas con el mismo cuerpo (distinta llave) comparten una sola llamada a Party Service
+    private boolean sharePartyCall = false;
+}
@@ -0,0 +1,31 @@
+package com.fisa.validationapi.infrastructure.config;
+
+import com.netflix.appinfo.ApplicationInfoManager;
+import com.netflix.appinfo.InstanceInfo.InstanceStatus;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+
+/**
+ * Marca la instancia como UP en Eureka cuando la aplicación queda lista para recibir tráfico.
+ * El registro ocurre al arrancar el servidor web, antes de los ApplicationRunner: con eureka.instance.initial-status
+ * en STARTING los clientes que descubren el servicio por Eureka no la eligen mientras corre el calentamiento
+ * ({@link StartupWarmUp}). ApplicationReadyEvent se publica después de todos los runners, cuando el readiness
+ * de Kubernetes pasa a ACCEPTING_TRAFFIC. Sin cliente Eureka en el contexto no hace nada.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class EurekaReadyStatus implements ApplicationListener<ApplicationReadyEvent> {
+
+    private final ObjectProvider<ApplicationInfoManager> applicationInfoManager;
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        applicationInfoManager.ifAvailable(manager -> {
+            manager.setInstanceStatus(InstanceStatus.UP);
+            log.info("Eureka: Instancia {} marcada UP tras el arranque", manager.getInfo().getInstanceId());
+        });
+    }
+}
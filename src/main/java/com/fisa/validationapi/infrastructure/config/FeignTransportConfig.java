@@ -0,0 +1,45 @@
+package com.fisa.validationapi.infrastructure.config;
+
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.io.HttpClientConnectionManager;
+import org.apache.hc.core5.util.TimeValue;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.openfeign.clientconfig.HttpClient5FeignConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Transporte HTTP de los clientes Feign (Party Service y notification-api).
+ * Por defecto Spring Cloud OpenFeign usa Apache HttpClient 5 con pool de conexiones
+ * (tamaño, TTL y timeouts en spring.cloud.openfeign.httpclient.*); aquí se completa con
+ * el cierre de conexiones inactivas y las métricas del pool.
+ * El perfil "http2" cambia al HttpClient del JDK negociando HTTP/2.
+ */
+@Configuration
+public class FeignTransportConfig {
+
+    // Cierra las conexiones sin uso antes de que el servidor o un balanceador las corte por su lado
+    // (evita reutilizar un socket medio cerrado tras una pausa de tráfico)
+    @Bean
+    public HttpClient5FeignConfiguration.HttpClientBuilderCustomizer feignIdleConnectionEviction(
+            @Value("${http.client.max-idle-time:30s}") Duration maxIdleTime
+    ) {
+        return builder -> builder.evictIdleConnections(TimeValue.ofMilliseconds(maxIdleTime.toMillis()));
+    }
+
+    // Conexiones del pool (disponibles, prestadas, peticiones esperando conexión) en Prometheus.
+    // Sin pool de Apache (perfil "http2") no se registra nada
+    @Bean
+    public MeterBinder feignConnectionPoolMetrics(ObjectProvider<HttpClientConnectionManager> connectionManager) {
+        return registry -> {
+            if (connectionManager.getIfAvailable() instanceof PoolingHttpClientConnectionManager pool) {
+                new PoolingHttpClientConnectionManagerMetricsBinder(pool, "feign").bindTo(registry);
+            }
+        };
+    }
+}
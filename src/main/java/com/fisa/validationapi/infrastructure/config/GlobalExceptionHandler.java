@@ -2,12 +2,12 @@ package com.fisa.validationapi.infrastructure.config;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fisa.validationapi.infrastructure.adapters.input.rest.dtos.ErrorCustomResponse;
-import com.fisa.validationapi.infrastructure.adapters.output.feign.NotificationClient;
-import com.fisa.validationapi.infrastructure.adapters.output.feign.dtos.NotificationRequest;
+import com.fisa.validationapi.infrastructure.adapters.output.notification.AlertAggregator;
 import feign.FeignException;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -17,10 +17,11 @@ import java.nio.charset.StandardCharsets;
 
 @Slf4j
 @RestControllerAdvice
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequiredArgsConstructor
 public class GlobalExceptionHandler {
 
-    private final NotificationClient notificationClient;
+    private final AlertAggregator alertAggregator; // Agrupa alertas repetidas en un resumen por ventana de tiempo
     private final ObjectMapper objectMapper; // Para convertir String JSON a Objeto Java
 
     // 1. Manejo de Errores de Microservicios Vecinos (Party / Mapper)
@@ -46,8 +47,8 @@ public class GlobalExceptionHandler {
             log.warn("No se pudo parsear el error del microservicio: {}", parseException.getMessage());
         }
 
-        // ENVIAR CORREO DE ALERTA
-        sendErrorEmail(origin, "Fallo en flujo de Onboarding", detail);
+        // ENVIAR CORREO DE ALERTA (agrupado si el mismo error se repite)
+        alertAggregator.record(origin, "DependencyError", "Fallo en flujo de Onboarding", detail);
 
         // Responder al TPP (Frontend)
         return buildResponse(HttpStatus.valueOf(e.status() > 0 ? e.status() : 500), "DependencyError", "Fallo en " + origin + ": " + detail, request);
@@ -58,29 +59,14 @@ public class GlobalExceptionHandler {
     public ResponseEntity<ErrorCustomResponse> handleGeneralException(Exception e, HttpServletRequest request) {
         log.error("Error interno en ValidationAPI: {}", e.getMessage());
 
-        // Enviar correo culpándonos a nosotros mismos
-        sendErrorEmail("ValidationAPI", "Error Interno Crítico", e.getMessage());
+        // Enviar correo culpándonos a nosotros mismos (agrupado si el mismo error se repite)
+        alertAggregator.record("ValidationAPI", "InternalServerError", "Error Interno Crítico", e.getMessage());
 
         return buildResponse(HttpStatus.INTERNAL_SERVER_ERROR, "InternalServerError", e.getMessage(), request);
     }
 
     // --- Métodos Helper ---
 
-    private void sendErrorEmail(String origin, String subject, String body) {
-        try {
-            NotificationRequest email = NotificationRequest.builder()
-                    .recipient("admin@banco.com")
-                    .subject("[ALERTA] " + subject)
-                    .body("El servicio detectó un error.\n\nOrigen: " + origin + "\nDetalle: " + body)
-                    .originService(origin)
-                    .build();
-
-            notificationClient.sendEmail(email);
-        } catch (Exception ex) {
-            log.error("¡Fallo al enviar el correo de alerta! El sistema de notificaciones no responde.", ex);
-        }
-    }
-
     private ResponseEntity<ErrorCustomResponse> buildResponse(HttpStatus status, String type, String message, HttpServletRequest request) {
         ErrorCustomResponse error = ErrorCustomResponse.builder()
                 .origin("ValidationAPI")
@@ -0,0 +1,97 @@
+package com.fisa.validationapi.infrastructure.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Parámetros del manejo de idempotencia (prefijo "idempotency" en application.yml / Config Server).
+ */
+@Data
+@ConfigurationProperties(prefix = "idempotency")
+public class IdempotencyProperties {
+
+    private NearCache nearCache = new NearCache();
+
+    private Wait wait = new Wait();
+
+    private WriteBehind writeBehind = new WriteBehind();
+
+    private Retention retention = new Retention();
+
+    private Serialization serialization = new Serialization();
+
+    @Data
+    public static class Serialization {
+        // true: los valores se siguen escribiendo en el JSON anterior (sin huella del payload) mientras queden nodos
+        // que no leen el formato binario; se desactiva una vez que todos los nodos tienen esta versión
+        private boolean writeLegacyJson = false;
+    }
+
+    @Data
+    public static class NearCache {
+        // Caché local de registros finales (COMPLETED/FAILED) delante de Redis
+        private boolean enabled = true;
+        // Número máximo de llaves en memoria (se expulsan las menos útiles al superarlo)
+        private long maxSize = 10_000;
+        // Tiempo máximo que un registro permanece en memoria desde que se cargó
+        private Duration ttl = Duration.ofMinutes(5);
+    }
+
+    @Data
+    public static class Wait {
+        // Reintentos que llegan con la llave en PROCESSING esperan el resultado original en vez de recibir 409
+        private boolean enabled = false;
+        // Espera máxima; al agotarse se responde 409 como sin este modo
+        private Duration timeout = Duration.ofSeconds(10);
+    }
+
+    @Data
+    public static class WriteBehind {
+        // Los estados finales (COMPLETED/FAILED) se escriben en Redis en segundo plano; PROCESSING sigue siendo síncrono
+        private boolean enabled = false;
+        // Llaves pendientes de escribir; al superarlo la escritura vuelve a ser síncrona
+        private int capacity = 10_000;
+        // Llaves por pipeline
+        private int batchSize = 100;
+        // Tiempo máximo para vaciar las escrituras pendientes al apagar
+        private Duration shutdownTimeout = Duration.ofSeconds(10);
+    }
+
+    @Data
+    public static class Retention {
+        private Processing processing = new Processing();
+        // Respuestas exitosas: se repiten tal cual a los reintentos, por eso sin límite de tamaño por defecto
+        private Terminal completed = new Terminal(Duration.ofHours(24), null);
+        // Errores: el cliente puede reintentar con la misma llave y el detalle solo sirve de auditoría
+        private Terminal failed = new Terminal(Duration.ofHours(1), DataSize.ofKilobytes(4));
+    }
+
+    @Data
+    public static class Processing {
+        // Vida del bloqueo en Redis: si el nodo cae, la llave se libera al cumplirse (en lugar de quedar bloqueada un día)
+        private Duration lease = Duration.ofSeconds(30);
+        // Cada cuánto se renueva el bloqueo mientras la petición sigue en curso (menor que lease)
+        private Duration heartbeatInterval = Duration.ofSeconds(10);
+        // Tiempo máximo que se renueva un mismo bloqueo; después se deja expirar aunque no haya terminado
+        private Duration maxDuration = Duration.ofMinutes(10);
+        // Con el diario de llamadas activo: vida del bloqueo desde que se llama a Party Service (sin renovar).
+        // Si el nodo cae, la llave sigue bloqueada hasta que el nodo la reconcilie o se cumpla este tiempo
+        // (minutos: un valor de horas deja la llave del cliente fijada si el nodo no vuelve)
+        private Duration partyCallLease = Duration.ofMinutes(5);
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Terminal {
+        private Duration ttl;
+        // Cuerpos mayores se recortan antes de guardarse, como JSON válido (null: sin límite).
+        // Un error {"error": ...} conserva el inicio del mensaje; otro cuerpo (ej: COMPLETED) se reemplaza por un error fijo
+        private DataSize maxBodySize;
+    }
+}
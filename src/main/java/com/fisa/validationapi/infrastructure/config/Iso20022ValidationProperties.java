@@ -0,0 +1,27 @@
+package com.fisa.validationapi.infrastructure.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Parámetros del validador ISO 20022 (prefijo "iso20022.validation").
+ */
+@Data
+@ConfigurationProperties(prefix = "iso20022.validation")
+public class Iso20022ValidationProperties {
+
+    // true: además de las reglas, ensambla el mensaje pacs.008 y genera el XML en cada petición
+    private boolean deepMode = false;
+
+    private VerdictCache verdictCache = new VerdictCache();
+
+    @Data
+    public static class VerdictCache {
+        // Veredictos recientes por huella del payload: un payload idéntico no se vuelve a validar
+        private boolean enabled = true;
+        private long maxSize = 10_000;
+        private Duration ttl = Duration.ofMinutes(5);
+    }
+}
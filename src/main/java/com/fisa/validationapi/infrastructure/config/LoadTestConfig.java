@@ -0,0 +1,26 @@
+package com.fisa.validationapi.infrastructure.config;
+
+import com.fisa.validationapi.domain.ports.out.IdempotencyRepositoryPort;
+import com.fisa.validationapi.infrastructure.adapters.output.memory.InMemoryIdempotencyAdapter;
+import com.fisa.validationapi.infrastructure.adapters.output.redis.IdempotencyRetentionPolicy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Perfil "loadtest": el servicio completo sin Redis, para medir ValidationController de extremo a extremo
+ * contra stubs locales de Party Service y notification-api (ver application-loadtest.yml).
+ * Solo cambia el puerto de idempotencia; validador, métricas, resilience4j y Feign son los de producción.
+ */
+@Configuration
+@Profile("loadtest")
+public class LoadTestConfig {
+
+    // Reemplaza al puerto de Redis (y su near-cache) de ApplicationConfig
+    @Bean
+    @Primary
+    public IdempotencyRepositoryPort idempotencyRepositoryPort(IdempotencyRetentionPolicy retentionPolicy) {
+        return new InMemoryIdempotencyAdapter(retentionPolicy);
+    }
+}
@@ -0,0 +1,30 @@
+package com.fisa.validationapi.infrastructure.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Parámetros del envío asíncrono de correos (prefijo "notification.dispatcher").
+ */
+@Data
+@ConfigurationProperties(prefix = "notification.dispatcher")
+public class NotificationProperties {
+
+    // Capacidad de la cola en memoria; al llenarse se descartan correos (con métrica)
+    private int capacity = 1_000;
+
+    // Máximo de correos que el despachador toma de la cola en cada vuelta
+    private int batchSize = 50;
+
+    // Intentos totales por correo antes de darlo por perdido
+    private int maxAttempts = 3;
+
+    // Espera antes del primer reintento; se duplica en cada intento hasta maxBackoff
+    private Duration initialBackoff = Duration.ofMillis(500);
+    private Duration maxBackoff = Duration.ofSeconds(30);
+
+    // Tiempo máximo para vaciar la cola al apagar el servicio
+    private Duration shutdownTimeout = Duration.ofSeconds(5);
+}
@@ -0,0 +1,33 @@
+package com.fisa.validationapi.infrastructure.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Parámetros del diario local de llamadas a Party Service (prefijo "validation.journal").
+ */
+@Data
+@ConfigurationProperties(prefix = "validation.journal")
+public class PartyCallJournalProperties {
+
+    // Requiere un directorio local persistente entre reinicios del nodo
+    private boolean enabled = false;
+
+    // Directorio de los segmentos del diario
+    private String directory = "./journal";
+
+    // Tamaño de cada segmento mapeado en memoria; se abre uno nuevo al llenarse
+    private DataSize segmentSize = DataSize.ofMegabytes(16);
+
+    // Espera máxima de un resultado hasta quedar en disco; al vencer se trata como no registrado
+    private Duration forceTimeout = Duration.ofSeconds(2);
+
+    // Cada cuánto se reconcilian las llaves que esta ejecución dejó abiertas
+    private Duration reconcileInterval = Duration.ofMinutes(1);
+
+    // Antigüedad a partir de la cual se reconcilia una llave abierta; debe superar el timeout de la llamada a Party Service
+    private Duration reconcileAfter = Duration.ofMinutes(2);
+}
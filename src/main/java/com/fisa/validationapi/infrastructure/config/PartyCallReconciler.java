@@ -0,0 +1,66 @@
+package com.fisa.validationapi.infrastructure.config;
+
+import com.fisa.validationapi.application.services.PartyCallRecoveryService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reconciliación periódica del diario de llamadas a Party Service durante la ejecución.
+ * Una llave cuya petición no alcanzó a guardar el estado final (ej: Redis caído) queda abierta en el diario;
+ * sin esta pasada esperaría hasta el próximo arranque y retendría en disco su segmento y todos los posteriores.
+ */
+@Slf4j
+public class PartyCallReconciler implements SmartLifecycle {
+
+    private final PartyCallRecoveryService recoveryService;
+    private final Duration interval;
+    private final Duration reconcileAfter;
+
+    private ScheduledExecutorService scheduler;
+    private volatile boolean running;
+
+    public PartyCallReconciler(PartyCallRecoveryService recoveryService, Duration interval, Duration reconcileAfter) {
+        this.recoveryService = recoveryService;
+        this.interval = interval;
+        this.reconcileAfter = reconcileAfter;
+    }
+
+    @Override
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "party-call-reconciler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::reconcile, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        scheduler.shutdownNow();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void reconcile() {
+        try {
+            int reconciled = recoveryService.recover(reconcileAfter);
+            if (reconciled > 0) {
+                log.warn("Recovery: {} llamadas a Party Service abiertas por más de {}s reconciliadas", reconciled, reconcileAfter.toSeconds());
+            }
+        } catch (Exception e) {
+            // Un error no debe cancelar las pasadas siguientes
+            log.error("Recovery: Error en la reconciliación periódica del diario: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.fisa.validationapi.infrastructure.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fisa.validationapi.application.services.Iso20022ValidatorService;
+import com.fisa.validationapi.application.services.PayloadFingerprint;
+import com.fisa.validationapi.application.services.ReactiveIdempotencyService;
+import com.fisa.validationapi.application.services.ValidationMetrics;
+import com.fisa.validationapi.application.usecases.ReactiveValidateTransactionUseCaseImpl;
+import com.fisa.validationapi.domain.models.IdempotencyRecord;
+import com.fisa.validationapi.domain.ports.in.ReactiveValidateTransactionUseCase;
+import com.fisa.validationapi.domain.ports.out.PartyCallJournalPort;
+import com.fisa.validationapi.domain.ports.out.ReactiveIdempotencyRepositoryPort;
+import com.fisa.validationapi.infrastructure.adapters.output.notification.AlertAggregator;
+import com.fisa.validationapi.infrastructure.adapters.output.notification.AsyncNotificationDispatcher;
+import com.fisa.validationapi.infrastructure.adapters.output.redis.IdempotencyRecordRedisSerializer;
+import com.fisa.validationapi.infrastructure.adapters.output.redis.IdempotencyRetentionPolicy;
+import com.fisa.validationapi.infrastructure.adapters.output.redis.ReactiveRedisIdempotencyAdapter;
+import com.fisa.validationapi.infrastructure.adapters.output.redis.RedisLockHeartbeat;
+import com.fisa.validationapi.infrastructure.adapters.output.webclient.ReactivePartyServiceClient;
+import com.fisa.validationapi.infrastructure.adapters.output.webclient.WebClientPartyServiceClient;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+
+/**
+ * Beans del modo reactivo (spring.main.web-application-type=reactive, perfil "reactive").
+ * Comparten con el modo servlet el validador ISO, las métricas, las notificaciones y las instancias de resilience4j;
+ * cambian el puerto de idempotencia (ReactiveRedisTemplate) y el cliente de Party Service (WebClient).
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveApplicationConfig {
+
+    // Instancias de resilience4j y pool de conexiones compartidos con el cliente Feign del mismo nombre
+    private static final String PARTY_SERVICE = "party-service";
+
+    // ---------------------------------------------------------
+    // 1. PORTS (ADAPTERS WIRING)
+    // ---------------------------------------------------------
+
+    // Adaptador de Salida (Redis reactivo)
+    // Mismas llaves y formato binario que el RedisTemplate de RedisConfig, y la misma retención y latido de bloqueos
+    @Bean
+    public ReactiveIdempotencyRepositoryPort reactiveIdempotencyRepositoryPort(
+            ReactiveRedisConnectionFactory connectionFactory,
+            IdempotencyRetentionPolicy retentionPolicy,
+            RedisLockHeartbeat lockHeartbeat,
+            IdempotencyProperties properties
+    ) {
+        IdempotencyRecordRedisSerializer serializer = RedisConfig.idempotencyRecordSerializer(properties.getSerialization().isWriteLegacyJson());
+        RedisSerializationContext<String, IdempotencyRecord> serializationContext = RedisSerializationContext
+                .<String, IdempotencyRecord>newSerializationContext(new StringRedisSerializer())
+                .value(serializer)
+                .build();
+        return new ReactiveRedisIdempotencyAdapter(new ReactiveRedisTemplate<>(connectionFactory, serializationContext), serializer,
+                retentionPolicy, lockHeartbeat);
+    }
+
+    // Adaptador de Salida (Party Service con WebClient)
+    // Pool de Reactor Netty con los mismos límites que el pool de Feign (conexiones por destino, vida e inactividad)
+    // y los timeouts de spring.cloud.openfeign.client.config.party-service
+    @Bean
+    public ReactivePartyServiceClient reactivePartyServiceClient(
+            WebClient.Builder webClientBuilder,
+            @Value("${party.service.url}") String baseUrl,
+            @Value("${spring.cloud.openfeign.client.config.party-service.connect-timeout:1000}") int connectTimeoutMillis,
+            @Value("${spring.cloud.openfeign.client.config.party-service.read-timeout:4000}") long readTimeoutMillis,
+            @Value("${spring.cloud.openfeign.httpclient.max-connections-per-route:64}") int maxConnections,
+            @Value("${http.client.max-idle-time:30s}") Duration maxIdleTime,
+            CircuitBreakerRegistry circuitBreakerRegistry,
+            BulkheadRegistry bulkheadRegistry,
+            TimeLimiterRegistry timeLimiterRegistry
+    ) {
+        ConnectionProvider connectionProvider = ConnectionProvider.builder(PARTY_SERVICE)
+                .maxConnections(maxConnections)
+                .pendingAcquireTimeout(Duration.ofSeconds(1))
+                .maxIdleTime(maxIdleTime)
+                .maxLifeTime(Duration.ofMinutes(5))
+                .evictInBackground(maxIdleTime)
+                .metrics(true)
+                .build();
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMillis)
+                .responseTimeout(Duration.ofMillis(readTimeoutMillis));
+
+        WebClient webClient = webClientBuilder
+                .baseUrl(baseUrl)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
+        return new WebClientPartyServiceClient(webClient,
+                circuitBreakerRegistry.circuitBreaker(PARTY_SERVICE),
+                bulkheadRegistry.bulkhead(PARTY_SERVICE),
+                timeLimiterRegistry.timeLimiter(PARTY_SERVICE));
+    }
+
+    // ---------------------------------------------------------
+    // 2. DOMAIN SERVICES
+    // ---------------------------------------------------------
+
+    // Con el diario activo, el bloqueo pasa al lease de la llamada a Party Service antes de llamarlo
+    @Bean
+    public ReactiveIdempotencyService reactiveIdempotencyService(
+            ReactiveIdempotencyRepositoryPort repositoryPort,
+            IdempotencyProperties properties,
+            PartyCallJournalProperties journalProperties
+    ) {
+        return new ReactiveIdempotencyService(repositoryPort, ApplicationConfig.partyCallLease(properties, journalProperties));
+    }
+
+    // ---------------------------------------------------------
+    // 3. USE CASES (MAIN LOGIC)
+    // ---------------------------------------------------------
+
+    // Caso de Uso Principal (modo reactivo): mismo validador, métricas, huella, diario, despachador de correos y agrupador de alertas que el modo servlet
+    @Bean
+    public ReactiveValidateTransactionUseCase reactiveValidateTransactionUseCase(
+            ReactiveIdempotencyService idempotencyService,
+            Iso20022ValidatorService isoValidatorService,
+            ReactivePartyServiceClient partyServiceClient,
+            AsyncNotificationDispatcher notificationDispatcher,
+            AlertAggregator alertAggregator,
+            ObjectMapper objectMapper,
+            ValidationMetrics validationMetrics,
+            PayloadFingerprint payloadFingerprint,
+            PartyCallJournalPort partyCallJournal
+    ) {
+        return new ReactiveValidateTransactionUseCaseImpl(
+                idempotencyService,
+                isoValidatorService,
+                partyServiceClient,
+                notificationDispatcher,
+                alertAggregator,
+                objectMapper,
+                validationMetrics,
+                payloadFingerprint,
+                partyCallJournal
+        );
+    }
+}
@@ -0,0 +1,56 @@
+package com.fisa.validationapi.infrastructure.config;
+
+import com.fisa.validationapi.infrastructure.adapters.input.rest.dtos.ErrorCustomResponse;
+import com.fisa.validationapi.infrastructure.adapters.output.notification.AlertAggregator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Equivalente de GlobalExceptionHandler en el modo reactivo. Los errores de Party Service ya los resuelve
+ * el caso de uso; aquí solo llegan los internos (ej: Redis caído al bloquear la llave).
+ */
+@Slf4j
+@RestControllerAdvice
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequiredArgsConstructor
+public class ReactiveGlobalExceptionHandler {
+
+    private final AlertAggregator alertAggregator; // Agrupa alertas repetidas en un resumen por ventana de tiempo
+
+    // Errores de la petición detectados por WebFlux (ej: cuerpo mayor a spring.codec.max-in-memory-size -> 413)
+    // Conservan su código HTTP y no generan alerta
+    @ExceptionHandler(ResponseStatusException.class)
+    public ResponseEntity<ErrorCustomResponse> handleResponseStatusException(ResponseStatusException e, ServerHttpRequest request) {
+        log.warn("Petición rechazada ({}): {}", e.getStatusCode().value(), e.getReason());
+        return buildResponse(e.getStatusCode(), "BadRequest", e.getReason(), request);
+    }
+
+    // Errores Internos (Redis, NullPointer)
+    @ExceptionHandler(Exception.class)
+    public ResponseEntity<ErrorCustomResponse> handleGeneralException(Exception e, ServerHttpRequest request) {
+        log.error("Error interno en ValidationAPI: {}", e.getMessage());
+
+        // Enviar correo culpándonos a nosotros mismos (agrupado si el mismo error se repite)
+        alertAggregator.record("ValidationAPI", "InternalServerError", "Error Interno Crítico", e.getMessage());
+
+        return buildResponse(HttpStatus.INTERNAL_SERVER_ERROR, "InternalServerError", e.getMessage(), request);
+    }
+
+    private ResponseEntity<ErrorCustomResponse> buildResponse(HttpStatusCode status, String type, String message, ServerHttpRequest request) {
+        ErrorCustomResponse error = ErrorCustomResponse.builder()
+                .origin("ValidationAPI")
+                .errorType(type)
+                .message(message)
+                .path(request.getPath().value())
+                .build();
+        return new ResponseEntity<>(error, status);
+    }
+}
@@ -1,25 +1,105 @@
 package com.fisa.validationapi.infrastructure.config;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.databind.jsontype.impl.LaissezFaireSubTypeValidator;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fisa.validationapi.domain.models.IdempotencyRecord;
+import com.fisa.validationapi.infrastructure.adapters.output.redis.IdempotencyRecordRedisSerializer;
+import io.lettuce.core.ClientOptions;
+import io.lettuce.core.SocketOptions;
+import io.lettuce.core.TimeoutOptions;
+import org.springframework.boot.autoconfigure.data.redis.LettuceClientConfigurationBuilderCustomizer;
+import org.springframework.boot.autoconfigure.data.redis.RedisProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.lettuce.LettuceConnection;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
+import java.time.Duration;
+
 @Configuration
 public class RedisConfig {
 
+    // Cuerpos de respuesta a partir de 4 KB se comprimen con Deflate antes de guardarse
+    // (por debajo, el coste de inicializar Deflater supera el ahorro de memoria en Redis)
+    private static final int BODY_COMPRESSION_THRESHOLD = 4096;
+
+    // Opciones del cliente Lettuce: con Redis caído los comandos fallan de inmediato en lugar de acumularse
+    // en memoria hasta la reconexión (el flujo ya responde con error si no puede bloquear la llave),
+    // y keep-alive TCP para detectar conexiones muertas. Se mantienen el connect-timeout y los timeouts de Boot
+    @Bean
+    public LettuceClientConfigurationBuilderCustomizer lettuceClientOptionsCustomizer(RedisProperties redisProperties) {
+        SocketOptions.Builder socketOptions = SocketOptions.builder().keepAlive(true);
+        if (redisProperties.getConnectTimeout() != null) {
+            socketOptions.connectTimeout(redisProperties.getConnectTimeout());
+        }
+        return builder -> builder.clientOptions(ClientOptions.builder()
+                .autoReconnect(true)
+                .disconnectedBehavior(ClientOptions.DisconnectedBehavior.REJECT_COMMANDS)
+                .socketOptions(socketOptions.build())
+                .timeoutOptions(TimeoutOptions.enabled())
+                .build());
+    }
+
     @Bean
-    public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory connectionFactory) {
-        RedisTemplate<String, Object> template = new RedisTemplate<>();
+    public RedisTemplate<String, IdempotencyRecord> redisTemplate(RedisConnectionFactory connectionFactory, IdempotencyProperties properties) {
+        // Los pipelines (bloqueo y guardado en lote) se envían en una sola escritura al cerrarse,
+        // en lugar de un flush por comando
+        if (connectionFactory instanceof LettuceConnectionFactory lettuceConnectionFactory) {
+            lettuceConnectionFactory.setPipeliningFlushPolicy(LettuceConnection.PipeliningFlushPolicy.flushOnClose());
+        }
+
+        RedisTemplate<String, IdempotencyRecord> template = new RedisTemplate<>();
         template.setConnectionFactory(connectionFactory);
 
+        IdempotencyRecordRedisSerializer serializer = idempotencyRecordSerializer(properties.getSerialization().isWriteLegacyJson());
+
+        // Asignar serializadores
+        // Keys: Strings simples
+        template.setKeySerializer(new StringRedisSerializer());
+        // Values: formato binario de IdempotencyRecord
+        template.setValueSerializer(serializer);
+
+        // Aplicar lo mismo para Hashes
+        template.setHashKeySerializer(new StringRedisSerializer());
+        template.setHashValueSerializer(serializer);
+
+        template.afterPropertiesSet();
+        return template;
+    }
+
+    // Contenedor de suscripciones Pub/Sub (invalidación del near-cache entre nodos)
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory) {
+        RedisMessageListenerContainer container = new RetryingRedisMessageListenerContainer(Duration.ofSeconds(5));
+        container.setConnectionFactory(connectionFactory);
+        return container;
+    }
+
+    /**
+     * Serializador binario compacto de los valores (sin nombres de clase ni tipado polimórfico),
+     * compartido por el RedisTemplate y el ReactiveRedisTemplate para que ambos modos lean los mismos registros.
+     * Los valores JSON escritos por versiones anteriores se siguen leyendo con el serializador anterior.
+     * @param writeLegacyJson true para seguir escribiendo JSON mientras haya nodos que no leen el formato binario.
+     */
+    public static IdempotencyRecordRedisSerializer idempotencyRecordSerializer(boolean writeLegacyJson) {
+        return new IdempotencyRecordRedisSerializer(legacyJsonSerializer(), BODY_COMPRESSION_THRESHOLD, writeLegacyJson);
+    }
+
+    /**
+     * Serializador JSON usado hasta ahora para los valores de Redis.
+     * Se mantiene para leer los registros antiguos durante el despliegue del formato binario
+     * (y escribirlos, con idempotency.serialization.write-legacy-json).
+     */
+    public static GenericJackson2JsonRedisSerializer legacyJsonSerializer() {
         // Crear un ObjectMapper personalizado
         ObjectMapper objectMapper = new ObjectMapper();
 
@@ -30,6 +110,9 @@ public class RedisConfig {
         // en lugar de un array de números [2026, 1, 18, 10, 0]
         objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
 
+        // Sin campos nulos: un registro sin huella no escribe "payloadHash", que los nodos anteriores no conocen
+        objectMapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
+
         // Habilitar el tipado dinámico para que Redis sepa qué clase Java recuperar
         objectMapper.activateDefaultTyping(
                 LaissezFaireSubTypeValidator.instance,
@@ -38,19 +121,6 @@ public class RedisConfig {
         );
 
         // Configurar el Serializador de Redis usando el ObjectMapper
-        GenericJackson2JsonRedisSerializer serializer = new GenericJackson2JsonRedisSerializer(objectMapper);
-
-        // Asignar serializadores
-        // Keys: Strings simples
-        template.setKeySerializer(new StringRedisSerializer());
-        // Values: JSON complejo
-        template.setValueSerializer(serializer);
-
-        // Aplicar lo mismo para Hashes
-        template.setHashKeySerializer(new StringRedisSerializer());
-        template.setHashValueSerializer(serializer);
-
-        template.afterPropertiesSet();
-        return template;
+        return new GenericJackson2JsonRedisSerializer(objectMapper);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,63 @@
+package com.fisa.validationapi.infrastructure.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.listener.adapter.RedisListenerExecutionFailedException;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Contenedor Pub/Sub que no aborta el arranque del microservicio si Redis no está disponible.
+ * El contenedor estándar se conecta de forma síncrona en start(); aquí el fallo se registra
+ * y la suscripción se reintenta en segundo plano hasta que Redis responda.
+ */
+@Slf4j
+class RetryingRedisMessageListenerContainer extends RedisMessageListenerContainer {
+
+    private final Duration retryInterval;
+    private final ScheduledExecutorService retryScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "redis-subscription-retry");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile boolean stopped;
+
+    RetryingRedisMessageListenerContainer(Duration retryInterval) {
+        this.retryInterval = retryInterval;
+    }
+
+    @Override
+    public void start() {
+        stopped = false;
+        tryStart();
+    }
+
+    @Override
+    public void stop() {
+        stopped = true;
+        super.stop();
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        retryScheduler.shutdownNow();
+        super.destroy();
+    }
+
+    private void tryStart() {
+        if (stopped) {
+            return;
+        }
+        try {
+            super.start();
+        } catch (RedisListenerExecutionFailedException e) {
+            log.warn("Redis Pub/Sub: No se pudo suscribir ({}). Reintentando en {}", e.getMessage(), retryInterval);
+            super.stop(); // Dejar el contenedor listo para un nuevo start()
+            retryScheduler.schedule(this::tryStart, retryInterval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.fisa.validationapi.infrastructure.config;
+
+import com.fisa.validationapi.application.services.Iso20022ValidatorService;
+import com.fisa.validationapi.application.services.PayloadFingerprint;
+import com.fisa.validationapi.domain.models.IdempotencyRecord;
+import com.fisa.validationapi.domain.models.enums.IdempotencyStatus;
+import com.fisa.validationapi.infrastructure.adapters.output.feign.PartyServiceClient;
+import com.fisa.validationapi.infrastructure.adapters.output.feign.dtos.NotificationRequest;
+import feign.Request;
+import feign.RequestTemplate;
+import feign.Response;
+import feign.codec.Decoder;
+import feign.codec.Encoder;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.cloud.openfeign.FeignClientFactory;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Calentamiento al arrancar: inicializa lo que de otro modo pagaría la primera petición de un TPP tras un despliegue
+ * (contexto JAXB, clases cargadas por primera vez y compilación JIT de los caminos calientes).
+ * Ejercita con payloads sintéticos, sin llamar a servicios externos: el validador ISO (válido y rechazado),
+ * la huella del payload, el serializador de Redis y los codificadores/decodificadores Feign de cada cliente.
+ * Corre como ApplicationRunner, antes de que el readiness pase a ACCEPTING_TRAFFIC y de que Eureka marque la instancia UP
+ * ({@link EurekaReadyStatus}).
+ * Un fallo solo se registra: el servicio arranca igual y la inicialización ocurre en la primera petición.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class StartupWarmUp implements ApplicationRunner {
+
+    private static final byte[] VALID_PAYLOAD = """
+            {"referenceData":{"fullLegalName":"Warm Up S.A.","identityNumber":"1790012345001","countryCode":"EC","townName":"Quito"},\
+            "addresses":[{"line":"Av. Amazonas N1-45","city":"Quito"}]}""".getBytes(StandardCharsets.UTF_8);
+
+    // País inexistente: recorre el camino de rechazo (IsoRuleViolationException)
+    private static final byte[] INVALID_PAYLOAD = """
+            {"referenceData":{"fullLegalName":"Warm Up S.A.","identityNumber":"1790012345001","countryCode":"ZZZ","townName":"Quito"}}"""
+            .getBytes(StandardCharsets.UTF_8);
+
+    private static final String PARTY_RESPONSE = "{\"partyRefId\":\"PTY-WARMUP\",\"status\":\"CREATED\"}";
+
+    private final Iso20022ValidatorService isoValidatorService;
+    private final PayloadFingerprint payloadFingerprint;
+    private final RedisSerializer<IdempotencyRecord> redisSerializer; // null en el perfil reactivo
+    private final FeignClientFactory feignClientFactory;
+    private final int iterations; // Repeticiones de los caminos de CPU (JIT)
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long start = System.nanoTime();
+        StringJoiner timings = new StringJoiner(", ");
+
+        // Contexto JAXB de Prowide (solo en modo deep) y reglas ISO sobre un payload válido y uno rechazado
+        step("validador ISO", timings, () -> {
+            isoValidatorService.warmUp();
+            isoValidatorService.warmUpRules(VALID_PAYLOAD, iterations);
+            isoValidatorService.warmUpRules(INVALID_PAYLOAD, iterations);
+        });
+
+        step("huella", timings, () -> {
+            for (int i = 0; i < iterations; i++) {
+                payloadFingerprint.of(VALID_PAYLOAD);
+            }
+        });
+
+        if (redisSerializer != null) {
+            step("serializador Redis", timings, () -> {
+                IdempotencyRecord record = IdempotencyRecord.builder()
+                        .key("warm-up")
+                        .status(IdempotencyStatus.COMPLETED)
+                        .httpStatusCode(201)
+                        .responseBody(PARTY_RESPONSE)
+                        .createdAt(LocalDateTime.now())
+                        .payloadHash(0L)
+                        .build();
+                for (int i = 0; i < iterations; i++) {
+                    redisSerializer.deserialize(redisSerializer.serialize(record));
+                }
+            });
+        }
+
+        // Cada cliente Feign tiene su propio contexto con sus codificadores (party-service, notification-api)
+        step("codificadores Feign", timings, () -> {
+            Type partyResponseType = PartyServiceClient.class.getMethod("createParty", byte[].class).getGenericReturnType();
+            Encoder partyEncoder = feignClientFactory.getInstance("party-service", Encoder.class);
+            Decoder partyDecoder = feignClientFactory.getInstance("party-service", Decoder.class);
+            Encoder notificationEncoder = feignClientFactory.getInstance("notification-api", Encoder.class);
+            NotificationRequest notification = NotificationRequest.builder()
+                    .recipient("warm-up@localhost")
+                    .subject("Warm-up")
+                    .body("<p>Warm-up</p>")
+                    .originService("ValidationAPI")
+                    .build();
+
+            for (int i = 0; i < iterations; i++) {
+                partyEncoder.encode(VALID_PAYLOAD, byte[].class, jsonRequest());
+                partyDecoder.decode(partyResponse(), partyResponseType);
+                notificationEncoder.encode(notification, NotificationRequest.class, jsonRequest());
+            }
+        });
+
+        log.info("Warm-up: Listo en {} ms ({}; {} repeticiones)",
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), timings, iterations);
+    }
+
+    private static void step(String name, StringJoiner timings, WarmUpStep warmUpStep) {
+        long start = System.nanoTime();
+        try {
+            warmUpStep.run();
+            timings.add(name + " " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+        } catch (Exception e) {
+            timings.add(name + " con error");
+            log.warn("Warm-up: Falló el calentamiento de {}: {}", name, e.getMessage());
+        }
+    }
+
+    private static RequestTemplate jsonRequest() {
+        RequestTemplate template = new RequestTemplate();
+        template.header("Content-Type", "application/json");
+        return template;
+    }
+
+    private static Response partyResponse() {
+        return Response.builder()
+                .status(201)
+                .request(Request.create(Request.HttpMethod.POST, "/bian-party/v1/parties", Map.of(), null, StandardCharsets.UTF_8, null))
+                .headers(Map.of("Content-Type", List.of("application/json")))
+                .body(PARTY_RESPONSE, StandardCharsets.UTF_8)
+                .build();
+    }
+
+    @FunctionalInterface
+    private interface WarmUpStep {
+        void run() throws Exception;
+    }
+}
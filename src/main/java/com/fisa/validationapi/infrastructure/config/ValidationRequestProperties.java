@@ -0,0 +1,20 @@
+package com.fisa.validationapi.infrastructure.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Parámetros de las peticiones de validación (prefijo "validation.request").
+ */
+@Data
+@ConfigurationProperties(prefix = "validation.request")
+public class ValidationRequestProperties {
+
+    // Tamaño máximo del cuerpo; uno mayor se rechaza con 413 antes de leerlo a memoria.
+    // En la carga masiva es el máximo de cada payload (el registro se rechaza sin copiarlo completo)
+    private DataSize maxBodySize = DataSize.ofKilobytes(256);
+
+    // Largo máximo (caracteres) de la llave de idempotencia, en el header y en cada registro de la carga masiva
+    private int maxIdempotencyKeyLength = 255;
+}
@@ -0,0 +1,18 @@
+package com.fisa.validationapi.infrastructure.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Parámetros del calentamiento al arrancar (prefijo "validation.warm-up").
+ */
+@Data
+@ConfigurationProperties(prefix = "validation.warm-up")
+public class WarmUpProperties {
+
+    // Sin calentamiento, la primera petición paga el contexto JAXB (modo deep) y el código aún interpretado
+    private boolean enabled = true;
+
+    // Repeticiones sobre payloads sintéticos para que el JIT compile los caminos de CPU
+    private int iterations = 2000;
+}
@@ -0,0 +1,221 @@
+package com.fisa.validationapi;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fisa.validationapi.application.services.IdempotencyService;
+import com.fisa.validationapi.application.services.Iso20022ValidatorService;
+import com.fisa.validationapi.application.services.PayloadFingerprint;
+import com.fisa.validationapi.application.services.ValidationMetrics;
+import com.fisa.validationapi.application.services.rules.Pacs008ReferenceDataRules;
+import com.fisa.validationapi.application.usecases.ValidateTransactionUseCaseImpl;
+import com.fisa.validationapi.infrastructure.adapters.input.rest.ValidationController;
+import com.fisa.validationapi.infrastructure.adapters.output.feign.NotificationClient;
+import com.fisa.validationapi.infrastructure.adapters.output.feign.PartyServiceClient;
+import com.fisa.validationapi.infrastructure.adapters.output.feign.ResilienceGuard;
+import com.fisa.validationapi.infrastructure.adapters.output.feign.ResilientPartyServiceClient;
+import com.fisa.validationapi.infrastructure.adapters.output.journal.NoOpPartyCallJournal;
+import com.fisa.validationapi.infrastructure.adapters.output.memory.InMemoryIdempotencyAdapter;
+import com.fisa.validationapi.infrastructure.adapters.output.notification.AlertAggregator;
+import com.fisa.validationapi.infrastructure.adapters.output.notification.AsyncNotificationDispatcher;
+import com.fisa.validationapi.infrastructure.adapters.output.redis.IdempotencyRetentionPolicy;
+import com.fisa.validationapi.infrastructure.config.BatchValidationProperties;
+import com.fisa.validationapi.infrastructure.config.IdempotencyProperties;
+import com.fisa.validationapi.infrastructure.config.NotificationProperties;
+import com.fisa.validationapi.infrastructure.config.ValidationRequestProperties;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.timelimiter.TimeLimiter;
+import io.github.resilience4j.timelimiter.TimeLimiterConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jdk.jfr.consumer.RecordingStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Verifica el flujo de validación ejecutado en hilos virtuales (perfil "virtual-threads"):
+ * el MDC (interactionId, idempotencyKey) llega a los logs de la petición, a la llamada a Party Service (que corre en
+ * un hilo virtual del ResilienceGuard, como en ese perfil) y a los correos encolados, y ninguna parte del flujo deja
+ * el hilo virtual anclado a su portador (evento JFR jdk.VirtualThreadPinned).
+ * Redis, Party Service y notification-api se sustituyen por dobles en memoria con latencia simulada.
+ */
+class VirtualThreadExecutionTests {
+
+    private static final String PAYLOAD = """
+            {"referenceData":{"fullLegalName":"Comercializadora Andina S.A.","identityNumber":"1790012345001",
+            "countryCode":"EC","townName":"Quito"}}""";
+
+    private static final Duration DOWNSTREAM_LATENCY = Duration.ofMillis(50);
+
+    private final BlockingQueue<Map<String, String>> notificationMdc = new LinkedBlockingQueue<>();
+    private final List<Map<String, String>> partyCallMdc = new CopyOnWriteArrayList<>();
+    private final List<Thread> partyCallThreads = new CopyOnWriteArrayList<>();
+
+    private AsyncNotificationDispatcher notificationDispatcher;
+    private ResilienceGuard partyServiceGuard;
+    private ValidationController controller;
+
+    @BeforeEach
+    void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper();
+
+        NotificationClient notificationClient = request -> notificationMdc.add(mdcSnapshot());
+        notificationDispatcher = new AsyncNotificationDispatcher(notificationClient, new NotificationProperties(), new SimpleMeterRegistry());
+        notificationDispatcher.start();
+
+        // Party Service lento: la espera debe liberar el hilo portador
+        PartyServiceClient slowPartyService = partyJson -> {
+            partyCallMdc.add(mdcSnapshot());
+            partyCallThreads.add(Thread.currentThread());
+            sleep(DOWNSTREAM_LATENCY);
+            return ResponseEntity.status(201).body("{\"partyRefId\":\"PTY-1\"}");
+        };
+        // Mismo ejecutor que ApplicationConfig usa en el perfil "virtual-threads"; bulkhead holgado para las 100 peticiones
+        partyServiceGuard = new ResilienceGuard(
+                CircuitBreaker.ofDefaults("party-service"),
+                Bulkhead.of("party-service", BulkheadConfig.custom().maxConcurrentCalls(200).maxWaitDuration(Duration.ZERO).build()),
+                TimeLimiter.of("party-service", TimeLimiterConfig.custom().timeoutDuration(Duration.ofSeconds(5)).build()),
+                Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("party-service-call-", 0).factory()));
+        PartyServiceClient partyServiceClient = new ResilientPartyServiceClient(slowPartyService, partyServiceGuard);
+
+        controller = new ValidationController(new ValidateTransactionUseCaseImpl(
+                new IdempotencyService(new InMemoryIdempotencyAdapter(
+                        new IdempotencyRetentionPolicy(new IdempotencyProperties.Retention(), new SimpleMeterRegistry()))),
+                new Iso20022ValidatorService(objectMapper, Pacs008ReferenceDataRules.RULES, false),
+                partyServiceClient,
+                notificationDispatcher,
+                new AlertAggregator(notificationDispatcher, Duration.ofMinutes(1), new SimpleMeterRegistry()),
+                objectMapper,
+                task -> Thread.ofVirtual().start(task),
+                new ValidationMetrics(new SimpleMeterRegistry()),
+                new PayloadFingerprint(objectMapper.getFactory()),
+                NoOpPartyCallJournal.INSTANCE),
+                objectMapper,
+                new BatchValidationProperties(),
+                new ValidationRequestProperties());
+    }
+
+    @AfterEach
+    void tearDown() {
+        partyServiceGuard.close();
+        notificationDispatcher.stop();
+    }
+
+    @Test
+    void mdcIsPropagatedToDownstreamCallsAndQueuedNotifications() throws Exception {
+        String idempotencyKey = UUID.randomUUID().toString();
+        String interactionId = UUID.randomUUID().toString();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<Map<String, String>> mdcAfterRequest = executor.submit(() -> {
+                ResponseEntity<?> response = controller.validateTransaction(idempotencyKey, interactionId, "consent-1", request());
+                assertThat(response.getStatusCode().value()).isEqualTo(201);
+                return mdcSnapshot();
+            });
+
+            // El hilo virtual no debe quedar con el MDC de la petición al terminar
+            assertThat(mdcAfterRequest.get(10, TimeUnit.SECONDS)).isEmpty();
+        }
+
+        Map<String, String> expected = Map.of("interactionId", interactionId, "idempotencyKey", idempotencyKey);
+        // La llamada corrió en el hilo virtual del guard, no en el de la petición: el MDC llegó por la copia del guard
+        assertThat(partyCallThreads).singleElement().satisfies(thread -> {
+            assertThat(thread.isVirtual()).isTrue();
+            assertThat(thread.getName()).startsWith("party-service-call-");
+        });
+        assertThat(partyCallMdc).containsExactly(expected);
+        assertThat(notificationMdc.poll(10, TimeUnit.SECONDS)).isEqualTo(expected);
+    }
+
+    @Test
+    void validationFlowDoesNotPinVirtualThreads() throws Exception {
+        // Control: un bloqueo dentro de synchronized sí debe detectarse, si no la verificación no prueba nada
+        assertThat(pinnedEventsDuring(() -> {
+            Object monitor = new Object();
+            synchronized (monitor) {
+                sleep(DOWNSTREAM_LATENCY);
+            }
+        })).isPositive();
+
+        assertThat(pinnedEventsDuring(() -> {
+            String interactionId = UUID.randomUUID().toString();
+            ResponseEntity<?> response = validate(UUID.randomUUID().toString(), interactionId);
+            assertThat(response.getStatusCode().value()).isEqualTo(201);
+        })).isZero();
+        // Las 100 llamadas a Party Service pasaron por los hilos virtuales del guard, también cubiertos por la grabación
+        assertThat(partyCallThreads).hasSize(100).allSatisfy(thread -> assertThat(thread.isVirtual()).isTrue());
+    }
+
+    // Ejecuta la tarea en 100 hilos virtuales concurrentes y cuenta los eventos de anclaje registrados por JFR
+    private static int pinnedEventsDuring(Runnable task) throws Exception {
+        AtomicInteger pinnedEvents = new AtomicInteger();
+        try (RecordingStream recording = new RecordingStream()) {
+            recording.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO).withStackTrace();
+            recording.onEvent("jdk.VirtualThreadPinned", event -> pinnedEvents.incrementAndGet());
+            recording.startAsync();
+
+            List<Future<?>> futures = new ArrayList<>();
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int i = 0; i < 100; i++) {
+                    futures.add(executor.submit(task));
+                }
+            }
+            for (Future<?> future : futures) {
+                future.get(); // Propaga los fallos de las aserciones dentro de la tarea
+            }
+
+            recording.stop(); // Espera a que se entreguen todos los eventos pendientes
+        }
+        return pinnedEvents.get();
+    }
+
+    private ResponseEntity<?> validate(String idempotencyKey, String interactionId) {
+        try {
+            return controller.validateTransaction(idempotencyKey, interactionId, "consent-1", request());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static MockHttpServletRequest request() {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v1/compliance/validate");
+        request.setContent(PAYLOAD.getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+
+    private static Map<String, String> mdcSnapshot() {
+        Map<String, String> mdc = MDC.getCopyOfContextMap();
+        return mdc != null ? mdc : Map.of();
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.fisa.validationapi.application.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fisa.validationapi.application.services.rules.IsoRuleViolationException;
+import com.fisa.validationapi.application.services.rules.Pacs008ReferenceDataRules;
+import com.fisa.validationapi.domain.models.PartyReferenceData;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+
+/**
+ * Caché de veredictos: un payload repetido reutiliza el resultado, uno con la misma huella y otros bytes se valida
+ * por su cuenta, y cada rechazo desde la caché lanza su propia excepción con la regla y el mensaje originales.
+ */
+class Iso20022ValidatorServiceTests {
+
+    private final Cache<Long, Iso20022ValidatorService.Verdict> verdicts = Caffeine.newBuilder().build();
+    private final Iso20022ValidatorService validator =
+            new Iso20022ValidatorService(new ObjectMapper(), Pacs008ReferenceDataRules.RULES, false, verdicts);
+
+    @Test
+    void validVerdictIsReusedForTheSamePayload() {
+        PartyReferenceData first = validator.validateJsonStructure(payload("EC"), 1L);
+        // Misma huella y mismos bytes: no se vuelve a recorrer el JSON
+        PartyReferenceData second = validator.validateJsonStructure(payload("EC"), 1L);
+
+        assertThat(second).isSameAs(first);
+        assertThat(first.getCountryCode()).isEqualTo("EC");
+    }
+
+    @Test
+    void payloadWithACollidingHashIsValidatedOnItsOwn() {
+        PartyReferenceData valid = validator.validateJsonStructure(payload("EC"), 1L);
+
+        // Misma huella y otros bytes (colisión fabricada): no hereda el veredicto ni los datos del otro payload
+        IsoRuleViolationException rejected = catchThrowableOfType(IsoRuleViolationException.class,
+                () -> validator.validateJsonStructure(payload("ZZZ"), 1L));
+
+        assertThat(valid.getCountryCode()).isEqualTo("EC");
+        assertThat(rejected).isNotNull();
+        // La entrada quedó con el veredicto del último payload; el primero vuelve a validarse y conserva sus datos
+        assertThat(validator.validateJsonStructure(payload("EC"), 1L).getCountryCode()).isEqualTo("EC");
+    }
+
+    @Test
+    void cachedRejectionThrowsAFreshExceptionOnEachHit() {
+        byte[] payload = payload("ZZZ");
+
+        IsoRuleViolationException first = catchThrowableOfType(IsoRuleViolationException.class,
+                () -> validator.validateJsonStructure(payload, 2L));
+        IsoRuleViolationException second = catchThrowableOfType(IsoRuleViolationException.class,
+                () -> validator.validateJsonStructure(payload, 2L));
+
+        assertThat(verdicts.estimatedSize()).isEqualTo(1);
+        assertThat(second).isNotSameAs(first);
+        assertThat(second.getRule()).isEqualTo(first.getRule()).isNotEqualTo(ValidationMetrics.MALFORMED_RULE);
+        assertThat(second.getMessage()).isEqualTo(first.getMessage());
+    }
+
+    @Test
+    void malformedPayloadIsRejectedWithTheMalformedRule() {
+        byte[] payload = "{\"referenceData\":".getBytes(StandardCharsets.UTF_8);
+
+        IsoRuleViolationException first = catchThrowableOfType(IsoRuleViolationException.class,
+                () -> validator.validateJsonStructure(payload, 3L));
+        IsoRuleViolationException second = catchThrowableOfType(IsoRuleViolationException.class,
+                () -> validator.validateJsonStructure(payload, 3L));
+
+        assertThat(first.getRule()).isEqualTo(ValidationMetrics.MALFORMED_RULE);
+        assertThat(first.getMessage()).startsWith("Datos inválidos ISO 20022");
+        assertThat(second).isNotSameAs(first);
+        assertThat(second.getMessage()).isEqualTo(first.getMessage());
+    }
+
+    private static byte[] payload(String countryCode) {
+        return ("{\"referenceData\":{\"fullLegalName\":\"Comercializadora Andina S.A.\",\"identityNumber\":\"1790012345001\","
+                + "\"countryCode\":\"" + countryCode + "\",\"townName\":\"Quito\"}}").getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,141 @@
+package com.fisa.validationapi.application.services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Ejecuciones agrupadas por llave: resultado compartido, excepción propagada a quienes esperaban
+ * y nada retenido al terminar.
+ */
+class SingleFlightTests {
+
+    private final SingleFlight<String, String> flights = new SingleFlight<>();
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final AtomicInteger executions = new AtomicInteger();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void concurrentCallsShareTheResultOfOneExecution() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        List<Future<String>> results = submit(5, "k1", () -> {
+            await(release);
+            return "resultado-" + executions.incrementAndGet();
+        });
+        // Las otras cuatro llegaron con la primera en curso
+        awaitUntil(() -> flights.sharedCount() == 4);
+
+        release.countDown();
+
+        for (Future<String> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("resultado-1");
+        }
+        assertThat(executions.get()).isEqualTo(1);
+    }
+
+    @Test
+    void exceptionReachesEveryWaiter() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        IllegalStateException failure = new IllegalStateException("Party Service no disponible");
+        List<Future<String>> results = submit(3, "k1", () -> {
+            await(release);
+            throw failure;
+        });
+        awaitUntil(() -> flights.sharedCount() == 2);
+
+        release.countDown();
+
+        // La misma excepción, sin envolver en CompletionException
+        for (Future<String> result : results) {
+            assertThatThrownBy(() -> result.get(5, TimeUnit.SECONDS))
+                    .isInstanceOf(ExecutionException.class)
+                    .cause().isSameAs(failure);
+        }
+    }
+
+    @Test
+    void differentKeysDoNotShare() {
+        assertThat(flights.execute("k1", () -> "uno")).isEqualTo("uno");
+        assertThat(flights.execute("k2", () -> "dos")).isEqualTo("dos");
+        assertThat(flights.sharedCount()).isZero();
+    }
+
+    @Test
+    void nothingIsKeptAfterCompletion() {
+        assertThat(flights.execute("k1", () -> "resultado-" + executions.incrementAndGet())).isEqualTo("resultado-1");
+        assertThat(flights.execute("k1", () -> "resultado-" + executions.incrementAndGet())).isEqualTo("resultado-2");
+
+        // Tampoco tras un fallo: la siguiente llamada vuelve a ejecutar
+        assertThatThrownBy(() -> flights.execute("k1", () -> {
+            throw new IllegalStateException("fallo");
+        })).isInstanceOf(IllegalStateException.class);
+        assertThat(flights.execute("k1", () -> "resultado-" + executions.incrementAndGet())).isEqualTo("resultado-3");
+        assertThat(flights.sharedCount()).isZero();
+    }
+
+    @Test
+    void isRunningOnlyWhileTheExecutionIsInProgress() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        List<Future<String>> results = submit(1, "k1", () -> {
+            await(release);
+            return "resultado";
+        });
+
+        assertThat(flights.isRunning("k1")).isTrue();
+        assertThat(flights.isRunning("k2")).isFalse();
+
+        release.countDown();
+        assertThat(results.get(0).get(5, TimeUnit.SECONDS)).isEqualTo("resultado");
+        assertThat(flights.isRunning("k1")).isFalse();
+    }
+
+    // El primero en llegar ejecuta; los demás se envían cuando ya está en curso
+    private List<Future<String>> submit(int callers, String key, Supplier<String> task) {
+        CountDownLatch started = new CountDownLatch(1);
+        List<Future<String>> results = new ArrayList<>();
+        results.add(executor.submit(() -> flights.execute(key, () -> {
+            started.countDown();
+            return task.get();
+        })));
+        await(started);
+        for (int i = 1; i < callers; i++) {
+            results.add(executor.submit(() -> flights.execute(key, task)));
+        }
+        return results;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("Condición no cumplida a tiempo").isLessThan(deadline);
+            Thread.onSpinWait();
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package com.fisa.validationapi.application.usecases;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fisa.validationapi.application.services.Iso20022ValidatorService;
+import com.fisa.validationapi.application.services.PayloadFingerprint;
+import com.fisa.validationapi.application.services.ReactiveIdempotencyService;
+import com.fisa.validationapi.application.services.ValidationMetrics;
+import com.fisa.validationapi.application.services.rules.Pacs008ReferenceDataRules;
+import com.fisa.validationapi.domain.models.IdempotencyRecord;
+import com.fisa.validationapi.domain.models.PendingPartyCall;
+import com.fisa.validationapi.domain.models.enums.IdempotencyStatus;
+import com.fisa.validationapi.domain.ports.out.PartyCallJournalPort;
+import com.fisa.validationapi.domain.ports.out.ReactiveIdempotencyRepositoryPort;
+import com.fisa.validationapi.infrastructure.adapters.output.notification.AlertAggregator;
+import com.fisa.validationapi.infrastructure.adapters.output.notification.AsyncNotificationDispatcher;
+import com.fisa.validationapi.infrastructure.config.NotificationProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Mismos casos que {@link ValidateTransactionUseCaseImplTests} en el flujo reactivo: cierre de la llave en el diario
+ * cuando falla el guardado del éxito, llave reutilizada con otro payload, repetición exacta de los errores;
+ * además, qué pasos salen del hilo que suscribe (validación que puede bloquear y escrituras del diario).
+ */
+class ReactiveValidateTransactionUseCaseImplTests {
+
+    private static final byte[] PAYLOAD = """
+            {"referenceData":{"fullLegalName":"Comercializadora Andina S.A.","identityNumber":"1790012345001",
+            "countryCode":"EC","townName":"Quito"}}""".getBytes(StandardCharsets.UTF_8);
+
+    private static final byte[] INVALID_PAYLOAD = new String(PAYLOAD, StandardCharsets.UTF_8)
+            .replace("\"EC\"", "\"ZZZ\"").getBytes(StandardCharsets.UTF_8);
+
+    private static final String PARTY_RESPONSE = "{\"partyRefId\":\"PTY-1\"}";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final FailingSuccessRepository repository = new FailingSuccessRepository();
+
+    @Test
+    void journaledOutcomeStaysOpenWhenTheSuccessCannotBeSaved() {
+        RecordingJournal journal = new RecordingJournal(true);
+
+        StepVerifier.create(useCase(journal, validator()).validateAndProcess("key-1", PAYLOAD))
+                .assertNext(result -> {
+                    // El alta se creó: el cliente recibe la respuesta de Party Service y nada guarda un FAILED 500
+                    assertThat(result.getStatus()).isEqualTo(IdempotencyStatus.COMPLETED);
+                    assertThat(result.getHttpStatusCode()).isEqualTo(201);
+                    assertThat(result.getResponseBody()).isEqualTo(PARTY_RESPONSE);
+                })
+                .verifyComplete();
+
+        assertThat(repository.records.get("key-1").getStatus()).isEqualTo(IdempotencyStatus.PROCESSING);
+        assertThat(journal.open).containsKey("key-1");
+    }
+
+    @Test
+    void withoutJournalTheFailedSaveIsReportedAsSystemError() {
+        RecordingJournal journal = new RecordingJournal(false);
+
+        StepVerifier.create(useCase(journal, validator()).validateAndProcess("key-2", PAYLOAD))
+                .assertNext(result -> {
+                    assertThat(result.getStatus()).isEqualTo(IdempotencyStatus.FAILED);
+                    assertThat(result.getHttpStatusCode()).isEqualTo(500);
+                })
+                .verifyComplete();
+
+        assertThat(repository.records.get("key-2").getStatus()).isEqualTo(IdempotencyStatus.FAILED);
+        assertThat(journal.open).isEmpty();
+    }
+
+    @Test
+    void keyReusedWithAnotherPayloadIsRejectedWithoutTouchingTheStoredResult() {
+        ReactiveValidateTransactionUseCaseImpl useCase = useCase(new RecordingJournal(false), validator());
+
+        IdempotencyRecord original = useCase.validateAndProcess("reused", INVALID_PAYLOAD).block();
+
+        StepVerifier.create(useCase.validateAndProcess("reused", PAYLOAD))
+                .assertNext(result -> {
+                    assertThat(result.getStatus()).isEqualTo(IdempotencyStatus.FAILED);
+                    assertThat(result.getHttpStatusCode()).isEqualTo(422);
+                    assertThat(result.getResponseBody()).isEqualTo(ValidateTransactionUseCaseImpl.KEY_REUSE_ERROR);
+                })
+                .verifyComplete();
+
+        assertThat(repository.records.get("reused").getResponseBody()).isEqualTo(original.getResponseBody());
+    }
+
+    @Test
+    void failedReplayReturnsTheOriginalResponseBody() {
+        ReactiveValidateTransactionUseCaseImpl useCase = useCase(new RecordingJournal(false), validator());
+
+        IdempotencyRecord original = useCase.validateAndProcess("invalid-replay", INVALID_PAYLOAD).block();
+
+        assertThat(original.getResponseBody()).startsWith("{\"error\": ");
+        StepVerifier.create(useCase.validateAndProcess("invalid-replay", INVALID_PAYLOAD))
+                .assertNext(replayed -> {
+                    assertThat(replayed.getHttpStatusCode()).isEqualTo(400);
+                    assertThat(replayed.getResponseBody()).isEqualTo(original.getResponseBody());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void validationThatMayBlockLeavesTheSubscribingThread() {
+        Map<String, String> threads = new ConcurrentHashMap<>();
+        Iso20022ValidatorService validator = recordingValidator(true, threads);
+        RecordingJournal journal = new RecordingJournal(true);
+        repository.failSuccess = false;
+
+        StepVerifier.create(useCase(journal, validator).validateAndProcess("deep", PAYLOAD))
+                .assertNext(result -> assertThat(result.getStatus()).isEqualTo(IdempotencyStatus.COMPLETED))
+                .verifyComplete();
+
+        assertThat(threads.get("validation")).startsWith("boundedElastic");
+        // La rotación de segmentos del diario crea y borra archivos: tampoco corre en el hilo que suscribe
+        assertThat(journal.threads.get("intent")).startsWith("boundedElastic");
+        assertThat(journal.threads.get("done")).startsWith("boundedElastic");
+    }
+
+    @Test
+    void validationThatCannotBlockRunsOnTheSubscribingThread() {
+        Map<String, String> threads = new ConcurrentHashMap<>();
+        Iso20022ValidatorService validator = recordingValidator(false, threads);
+        repository.failSuccess = false;
+
+        StepVerifier.create(useCase(new RecordingJournal(true), validator).validateAndProcess("rules", PAYLOAD))
+                .assertNext(result -> assertThat(result.getStatus()).isEqualTo(IdempotencyStatus.COMPLETED))
+                .verifyComplete();
+
+        assertThat(threads.get("validation")).isEqualTo(Thread.currentThread().getName());
+    }
+
+    private Iso20022ValidatorService validator() {
+        return new Iso20022ValidatorService(objectMapper, Pacs008ReferenceDataRules.RULES, false);
+    }
+
+    // Reglas reales; mayBlock fijo (modo deep o validación en curso) y registro del hilo que valida
+    private Iso20022ValidatorService recordingValidator(boolean mayBlock, Map<String, String> threads) {
+        Iso20022ValidatorService rules = validator();
+        Iso20022ValidatorService validator = mock(Iso20022ValidatorService.class);
+        when(validator.mayBlock(any(byte[].class), anyLong())).thenReturn(mayBlock);
+        when(validator.validateJsonStructure(any(byte[].class), anyLong())).thenAnswer(invocation -> {
+            threads.put("validation", Thread.currentThread().getName());
+            return rules.validateJsonStructure((byte[]) invocation.getArgument(0));
+        });
+        return validator;
+    }
+
+    private ReactiveValidateTransactionUseCaseImpl useCase(PartyCallJournalPort journal, Iso20022ValidatorService validator) {
+        AsyncNotificationDispatcher notificationDispatcher = new AsyncNotificationDispatcher(request -> { }, new NotificationProperties(), meterRegistry);
+        return new ReactiveValidateTransactionUseCaseImpl(
+                new ReactiveIdempotencyService(repository, Duration.ofMinutes(5)),
+                validator,
+                partyJson -> Mono.just(ResponseEntity.status(201).body(PARTY_RESPONSE)),
+                notificationDispatcher,
+                new AlertAggregator(notificationDispatcher, Duration.ofMinutes(1), meterRegistry),
+                objectMapper,
+                new ValidationMetrics(meterRegistry),
+                new PayloadFingerprint(objectMapper.getFactory()),
+                journal);
+    }
+
+    // Redis caído justo al guardar el éxito (si failSuccess): el bloqueo y los fallos se guardan con normalidad
+    private static final class FailingSuccessRepository implements ReactiveIdempotencyRepositoryPort {
+
+        private final Map<String, IdempotencyRecord> records = new ConcurrentHashMap<>();
+        private volatile boolean failSuccess = true;
+
+        @Override
+        public Mono<Void> save(IdempotencyRecord record) {
+            return Mono.fromRunnable(() -> {
+                if (failSuccess && record.getStatus() == IdempotencyStatus.COMPLETED) {
+                    throw new IllegalStateException("Redis no disponible");
+                }
+                records.put(record.getKey(), record);
+            });
+        }
+
+        @Override
+        public Mono<IdempotencyRecord> findByKey(String key) {
+            return Mono.justOrEmpty(records.get(key));
+        }
+
+        @Override
+        public Mono<IdempotencyRecord> acquireLock(IdempotencyRecord lockRecord) {
+            return Mono.justOrEmpty(records.putIfAbsent(lockRecord.getKey(), lockRecord));
+        }
+    }
+
+    private static final class RecordingJournal implements PartyCallJournalPort {
+
+        private final boolean durable;
+        private final Map<String, Long> open = new ConcurrentHashMap<>();
+        private final Map<String, String> threads = new ConcurrentHashMap<>();
+
+        RecordingJournal(boolean durable) {
+            this.durable = durable;
+        }
+
+        @Override
+        public void intent(String idempotencyKey, long payloadHash) {
+            threads.put("intent", Thread.currentThread().getName());
+            open.put(idempotencyKey, payloadHash);
+        }
+
+        @Override
+        public boolean outcome(String idempotencyKey, long payloadHash, int httpStatusCode, String responseBody) {
+            return durable;
+        }
+
+        @Override
+        public void done(String idempotencyKey) {
+            threads.put("done", Thread.currentThread().getName());
+            open.remove(idempotencyKey);
+        }
+
+        @Override
+        public List<PendingPartyCall> pending(Duration minAge) {
+            return List.of();
+        }
+    }
+}
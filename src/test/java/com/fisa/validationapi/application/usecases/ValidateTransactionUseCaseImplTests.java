@@ -0,0 +1,161 @@
+package com.fisa.validationapi.application.usecases;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fisa.validationapi.application.services.IdempotencyService;
+import com.fisa.validationapi.application.services.Iso20022ValidatorService;
+import com.fisa.validationapi.application.services.PayloadFingerprint;
+import com.fisa.validationapi.application.services.ValidationMetrics;
+import com.fisa.validationapi.application.services.rules.Pacs008ReferenceDataRules;
+import com.fisa.validationapi.domain.models.IdempotencyRecord;
+import com.fisa.validationapi.domain.models.PendingPartyCall;
+import com.fisa.validationapi.domain.models.enums.IdempotencyStatus;
+import com.fisa.validationapi.domain.ports.out.PartyCallJournalPort;
+import com.fisa.validationapi.infrastructure.adapters.output.memory.InMemoryIdempotencyAdapter;
+import com.fisa.validationapi.infrastructure.adapters.output.notification.AlertAggregator;
+import com.fisa.validationapi.infrastructure.adapters.output.notification.AsyncNotificationDispatcher;
+import com.fisa.validationapi.infrastructure.adapters.output.redis.IdempotencyRetentionPolicy;
+import com.fisa.validationapi.infrastructure.config.IdempotencyProperties;
+import com.fisa.validationapi.infrastructure.config.NotificationProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Cierre de la llave en el diario de llamadas a Party Service cuando falla el guardado del éxito en Redis,
+ * repetición exacta de las respuestas de error y agrupación de las alertas de error del flujo.
+ */
+class ValidateTransactionUseCaseImplTests {
+
+    private static final byte[] PAYLOAD = """
+            {"referenceData":{"fullLegalName":"Comercializadora Andina S.A.","identityNumber":"1790012345001",
+            "countryCode":"EC","townName":"Quito"}}""".getBytes(StandardCharsets.UTF_8);
+
+    private static final String PARTY_RESPONSE = "{\"partyRefId\":\"PTY-1\"}";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final FailingSuccessRepository repository = new FailingSuccessRepository(
+            new IdempotencyRetentionPolicy(new IdempotencyProperties.Retention(), meterRegistry));
+
+    @Test
+    void journaledOutcomeStaysOpenWhenTheSuccessCannotBeSaved() {
+        RecordingJournal journal = new RecordingJournal(true);
+
+        IdempotencyRecord result = useCase(journal).validateAndProcess("key-1", PAYLOAD);
+
+        // El alta se creó: el cliente recibe la respuesta de Party Service y nada guarda un FAILED 500
+        assertThat(result.getStatus()).isEqualTo(IdempotencyStatus.COMPLETED);
+        assertThat(result.getHttpStatusCode()).isEqualTo(201);
+        assertThat(result.getResponseBody()).isEqualTo(PARTY_RESPONSE);
+        assertThat(repository.findByKey("key-1")).get().extracting(IdempotencyRecord::getStatus).isEqualTo(IdempotencyStatus.PROCESSING);
+        assertThat(journal.open).containsKey("key-1");
+    }
+
+    @Test
+    void withoutJournalTheFailedSaveIsReportedAsSystemError() {
+        RecordingJournal journal = new RecordingJournal(false);
+
+        IdempotencyRecord result = useCase(journal).validateAndProcess("key-2", PAYLOAD);
+
+        assertThat(result.getStatus()).isEqualTo(IdempotencyStatus.FAILED);
+        assertThat(result.getHttpStatusCode()).isEqualTo(500);
+        assertThat(repository.findByKey("key-2")).get().extracting(IdempotencyRecord::getStatus).isEqualTo(IdempotencyStatus.FAILED);
+        assertThat(journal.open).isEmpty();
+    }
+
+    @Test
+    void failedReplayReturnsTheOriginalResponseBody() {
+        ValidateTransactionUseCaseImpl useCase = useCase(new RecordingJournal(false));
+        byte[] invalid = new String(PAYLOAD, StandardCharsets.UTF_8).replace("\"EC\"", "\"ZZZ\"").getBytes(StandardCharsets.UTF_8);
+
+        IdempotencyRecord original = useCase.validateAndProcess("invalid-replay", invalid);
+        IdempotencyRecord replayed = useCase.validateAndProcess("invalid-replay", invalid);
+
+        assertThat(original.getResponseBody()).startsWith("{\"error\": ");
+        assertThat(replayed.getStatus()).isEqualTo(IdempotencyStatus.FAILED);
+        assertThat(replayed.getHttpStatusCode()).isEqualTo(400);
+        assertThat(replayed.getResponseBody()).isEqualTo(original.getResponseBody());
+    }
+
+    @Test
+    void repeatedErrorAlertsGoThroughTheAggregator() {
+        ValidateTransactionUseCaseImpl useCase = useCase(new RecordingJournal(false));
+        byte[] invalid = new String(PAYLOAD, StandardCharsets.UTF_8).replace("\"EC\"", "\"ZZZ\"").getBytes(StandardCharsets.UTF_8);
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(useCase.validateAndProcess("invalid-" + i, invalid).getHttpStatusCode()).isEqualTo(400);
+        }
+
+        // Mismo origen y tipo de error: la primera alerta sale de inmediato y las demás esperan el resumen de la ventana
+        assertThat(meterRegistry.get("notification.alerts.suppressed").counter().count()).isEqualTo(2);
+    }
+
+    private ValidateTransactionUseCaseImpl useCase(PartyCallJournalPort journal) {
+        ObjectMapper objectMapper = new ObjectMapper();
+        AsyncNotificationDispatcher notificationDispatcher = new AsyncNotificationDispatcher(request -> { }, new NotificationProperties(), meterRegistry);
+        return new ValidateTransactionUseCaseImpl(
+                new IdempotencyService(repository, null, Duration.ZERO, Duration.ofHours(24)),
+                new Iso20022ValidatorService(objectMapper, Pacs008ReferenceDataRules.RULES, false),
+                partyJson -> ResponseEntity.status(201).body(PARTY_RESPONSE),
+                notificationDispatcher,
+                new AlertAggregator(notificationDispatcher, Duration.ofMinutes(1), meterRegistry),
+                objectMapper,
+                Runnable::run,
+                new ValidationMetrics(meterRegistry),
+                new PayloadFingerprint(objectMapper.getFactory()),
+                journal);
+    }
+
+    // Redis caído justo al guardar el éxito: el bloqueo y los fallos se guardan con normalidad
+    private static final class FailingSuccessRepository extends InMemoryIdempotencyAdapter {
+
+        FailingSuccessRepository(IdempotencyRetentionPolicy retentionPolicy) {
+            super(retentionPolicy);
+        }
+
+        @Override
+        public void save(IdempotencyRecord record) {
+            if (record.getStatus() == IdempotencyStatus.COMPLETED) {
+                throw new IllegalStateException("Redis no disponible");
+            }
+            super.save(record);
+        }
+    }
+
+    private static final class RecordingJournal implements PartyCallJournalPort {
+
+        private final boolean durable;
+        private final Map<String, Long> open = new ConcurrentHashMap<>();
+
+        RecordingJournal(boolean durable) {
+            this.durable = durable;
+        }
+
+        @Override
+        public void intent(String idempotencyKey, long payloadHash) {
+            open.put(idempotencyKey, payloadHash);
+        }
+
+        @Override
+        public boolean outcome(String idempotencyKey, long payloadHash, int httpStatusCode, String responseBody) {
+            return durable;
+        }
+
+        @Override
+        public void done(String idempotencyKey) {
+            open.remove(idempotencyKey);
+        }
+
+        @Override
+        public List<PendingPartyCall> pending(Duration minAge) {
+            return List.of();
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.fisa.validationapi.infrastructure.adapters.input.rest;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fisa.validationapi.domain.models.BatchValidationItem;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Lectura por ventanas de NDJSON y arreglos JSON, rechazo de registros sin el formato esperado
+ * (sin detener la lectura) e interrupción por JSON mal formado.
+ */
+class BatchRequestReaderTests {
+
+    private static final int MAX_KEY_LENGTH = 16;
+    private static final int MAX_PAYLOAD_BYTES = 64;
+
+    private final JsonFactory jsonFactory = new ObjectMapper().getFactory();
+    private final List<String> rejected = new ArrayList<>();
+
+    @Test
+    void ndjsonIsReadInWindows() throws IOException {
+        String content = """
+                {"idempotencyKey": "k0", "payload": {"a": 1, "b": [true, null]}}
+                {"idempotencyKey": "k1", "payload": {"a": 2}}
+                {"idempotencyKey": "k2", "payload": {"a": 3}}
+                """;
+
+        try (BatchRequestReader reader = reader(content)) {
+            List<BatchValidationItem> first = reader.nextWindow(2, this::reject);
+            List<BatchValidationItem> second = reader.nextWindow(2, this::reject);
+
+            assertThat(first).extracting(BatchValidationItem::getIdempotencyKey).containsExactly("k0", "k1");
+            assertThat(second).extracting(BatchValidationItem::getIdempotencyKey).containsExactly("k2");
+            assertThat(second).extracting(BatchValidationItem::getIndex).containsExactly(2);
+            // El payload llega como los bytes UTF-8 del objeto, sin espacios
+            assertThat(new String(first.get(0).getJsonPayload(), StandardCharsets.UTF_8)).isEqualTo("{\"a\":1,\"b\":[true,null]}");
+
+            assertThat(reader.nextWindow(2, this::reject)).isEmpty();
+            assertThat(reader.getMalformedMessage()).isNull();
+            assertThat(rejected).isEmpty();
+        }
+    }
+
+    @Test
+    void jsonArrayIsReadLikeNdjson() throws IOException {
+        String content = """
+                [{"idempotencyKey": "k0", "payload": {"a": 1}}, {"payload": {"a": 2}, "idempotencyKey": "k1", "extra": {"x": [1]}}]
+                """;
+
+        try (BatchRequestReader reader = reader(content)) {
+            assertThat(reader.nextWindow(10, this::reject))
+                    .extracting(BatchValidationItem::getIdempotencyKey).containsExactly("k0", "k1");
+            assertThat(reader.nextWindow(10, this::reject)).isEmpty();
+            assertThat(reader.getMalformedMessage()).isNull();
+        }
+    }
+
+    @Test
+    void invalidRecordsAreRejectedWithoutStoppingTheFile() throws IOException {
+        String content = """
+                42
+                {"payload": {"a": 1}}
+                {"idempotencyKey": "  ", "payload": {"a": 1}}
+                {"idempotencyKey": "k3", "payload": "texto"}
+                {"idempotencyKey": "%s", "payload": {"a": 1}}
+                {"idempotencyKey": "k5", "payload": {"a": "%s", "b": {"c": [1, 2]}}}
+                {"idempotencyKey": "k6", "payload": {"a": 1}}
+                """.formatted("k".repeat(MAX_KEY_LENGTH + 1), "x".repeat(MAX_PAYLOAD_BYTES));
+
+        try (BatchRequestReader reader = reader(content)) {
+            // Los rechazados no ocupan lugar en la ventana
+            List<BatchValidationItem> window = reader.nextWindow(1, this::reject);
+
+            assertThat(window).extracting(BatchValidationItem::getIdempotencyKey).containsExactly("k6");
+            assertThat(window).extracting(BatchValidationItem::getIndex).containsExactly(6);
+            assertThat(rejected).containsExactly(
+                    "0:El registro debe ser un objeto JSON",
+                    "1:El campo 'idempotencyKey' es obligatorio",
+                    "2:El campo 'idempotencyKey' es obligatorio",
+                    "3:El campo 'payload' debe ser un objeto JSON",
+                    "4:El campo 'idempotencyKey' no puede superar " + MAX_KEY_LENGTH + " caracteres",
+                    "5:El campo 'payload' no puede superar " + MAX_PAYLOAD_BYTES + " bytes");
+            assertThat(reader.nextWindow(1, this::reject)).isEmpty();
+            assertThat(reader.getMalformedMessage()).isNull();
+        }
+    }
+
+    @Test
+    void malformedJsonStopsReadingButKeepsTheRecordsAlreadyRead() throws IOException {
+        String content = """
+                {"idempotencyKey": "k0", "payload": {"a": 1}}
+                {"idempotencyKey": "k1", "payload": {"a":
+                """;
+
+        try (BatchRequestReader reader = reader(content)) {
+            assertThat(reader.nextWindow(10, this::reject))
+                    .extracting(BatchValidationItem::getIdempotencyKey).containsExactly("k0");
+            assertThat(reader.getMalformedMessage()).isNotBlank();
+            assertThat(reader.nextWindow(10, this::reject)).isEmpty();
+        }
+    }
+
+    private BatchRequestReader reader(String content) throws IOException {
+        return new BatchRequestReader(jsonFactory, jsonFactory.createParser(content.getBytes(StandardCharsets.UTF_8)),
+                MAX_KEY_LENGTH, MAX_PAYLOAD_BYTES);
+    }
+
+    private void reject(String message, int index) {
+        rejected.add(index + ":" + message);
+    }
+}
@@ -0,0 +1,130 @@
+package com.fisa.validationapi.infrastructure.adapters.input.rest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fisa.validationapi.domain.models.BatchValidationItem;
+import com.fisa.validationapi.domain.models.IdempotencyRecord;
+import com.fisa.validationapi.domain.models.enums.IdempotencyStatus;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Una línea NDJSON por resultado, enviada en cuanto se escribe, con el mismo código y cuerpo que el endpoint individual;
+ * líneas completas aunque escriban varios hilos a la vez.
+ */
+class BatchResultWriterTests {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final TrackingOutputStream output = new TrackingOutputStream();
+
+    @Test
+    void eachResultIsALineSentAsSoonAsItIsWritten() throws IOException {
+        try (BatchResultWriter writer = new BatchResultWriter(objectMapper.getFactory(), output)) {
+            writer.write(item(3, "k3"), record(IdempotencyStatus.COMPLETED, 201, "{\"partyRefId\":\"PTY-3\"}"));
+
+            // Sin cerrar el escritor, la línea ya llegó a la salida
+            List<JsonNode> lines = lines();
+            assertThat(lines).hasSize(1);
+            assertThat(lines.get(0).get("index").asInt()).isEqualTo(3);
+            assertThat(lines.get(0).get("idempotencyKey").asText()).isEqualTo("k3");
+            assertThat(lines.get(0).get("status").asText()).isEqualTo("COMPLETED");
+            assertThat(lines.get(0).get("httpStatus").asInt()).isEqualTo(201);
+            assertThat(lines.get(0).get("body").asText()).isEqualTo("{\"partyRefId\":\"PTY-3\"}");
+        }
+    }
+
+    @Test
+    void failedProcessingRejectedAndAbortedLines() throws IOException {
+        try (BatchResultWriter writer = new BatchResultWriter(objectMapper.getFactory(), output)) {
+            writer.write(item(0, "k0"), record(IdempotencyStatus.FAILED, 400, "{\"error\": \"Pais invalido\"}"));
+            writer.write(item(1, "k1"), record(IdempotencyStatus.PROCESSING, null, null));
+            writer.writeRejected("El campo 'idempotencyKey' es obligatorio", 2);
+            writer.writeAborted("JSON mal formado: fin inesperado");
+        }
+
+        List<JsonNode> lines = lines();
+        assertThat(lines).extracting(line -> line.get("status").asText()).containsExactly("FAILED", "PROCESSING", "REJECTED", "ABORTED");
+        assertThat(lines).extracting(line -> line.get("httpStatus").asInt()).containsExactly(400, 409, 400, 400);
+        // El rechazo no tiene llave y la interrupción no corresponde a ningún registro
+        assertThat(lines.get(2).get("index").asInt()).isEqualTo(2);
+        assertThat(lines.get(2).has("idempotencyKey")).isFalse();
+        assertThat(lines.get(3).has("index")).isFalse();
+        assertThat(lines.get(1).get("body").asText()).isEqualTo("{\"error\": \"Request is currently being processed\"}");
+        // La respuesta la cierra el contenedor, no el escritor
+        assertThat(output.closed).isFalse();
+    }
+
+    @Test
+    void concurrentWritersProduceWholeLines() throws Exception {
+        int threads = 8;
+        int perThread = 100;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try (BatchResultWriter writer = new BatchResultWriter(objectMapper.getFactory(), output)) {
+            List<Future<?>> writes = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int base = t * perThread;
+                writes.add(executor.submit(() -> {
+                    for (int i = base; i < base + perThread; i++) {
+                        writer.write(item(i, "k" + i), record(IdempotencyStatus.COMPLETED, 201, "{}"));
+                    }
+                }));
+            }
+            for (Future<?> write : writes) {
+                write.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(lines()).hasSize(threads * perThread)
+                .extracting(line -> line.get("index").asInt())
+                .doesNotHaveDuplicates();
+    }
+
+    private List<JsonNode> lines() throws IOException {
+        List<JsonNode> lines = new ArrayList<>();
+        String content = output.toString(StandardCharsets.UTF_8);
+        assertThat(content).endsWith("\n");
+        for (String line : content.split("\n")) {
+            lines.add(objectMapper.readTree(line));
+        }
+        return lines;
+    }
+
+    private static BatchValidationItem item(int index, String key) {
+        return BatchValidationItem.builder()
+                .index(index)
+                .idempotencyKey(key)
+                .jsonPayload("{}".getBytes(StandardCharsets.UTF_8))
+                .build();
+    }
+
+    private static IdempotencyRecord record(IdempotencyStatus status, Integer httpStatus, String body) {
+        return IdempotencyRecord.builder()
+                .status(status)
+                .httpStatusCode(httpStatus)
+                .responseBody(body)
+                .build();
+    }
+
+    private static final class TrackingOutputStream extends ByteArrayOutputStream {
+
+        private boolean closed;
+
+        @Override
+        public void close() throws IOException {
+            closed = true;
+            super.close();
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.fisa.validationapi.infrastructure.adapters.input.rest;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Lectura acotada del cuerpo: Content-Length declarado mayor al máximo, cuerpo chunked justo en el límite
+ * y un byte por encima, cuerpo más corto que lo declarado y cuerpo vacío.
+ */
+class BoundedBodyReaderTests {
+
+    private static final int MAX_BYTES = 16;
+
+    @Test
+    void declaredLengthOverTheLimitIsRejectedWithoutReading() {
+        InputStream unread = new InputStream() {
+            @Override
+            public int read() {
+                throw new AssertionError("No se debe leer un cuerpo que declara exceder el máximo");
+            }
+        };
+
+        assertThatThrownBy(() -> BoundedBodyReader.read(unread, MAX_BYTES + 1, MAX_BYTES))
+                .isInstanceOf(BoundedBodyReader.BodyTooLargeException.class);
+    }
+
+    @Test
+    void declaredLengthWithinTheLimitIsReadExactly() throws IOException {
+        byte[] body = bytes(MAX_BYTES);
+
+        assertThat(BoundedBodyReader.read(new ByteArrayInputStream(body), body.length, MAX_BYTES)).isEqualTo(body);
+    }
+
+    @Test
+    void chunkedBodyAtTheLimitIsAccepted() throws IOException {
+        byte[] body = bytes(MAX_BYTES);
+
+        assertThat(BoundedBodyReader.read(new ByteArrayInputStream(body), -1, MAX_BYTES)).isEqualTo(body);
+    }
+
+    @Test
+    void chunkedBodyOneByteOverTheLimitIsRejected() {
+        assertThatThrownBy(() -> BoundedBodyReader.read(new ByteArrayInputStream(bytes(MAX_BYTES + 1)), -1, MAX_BYTES))
+                .isInstanceOf(BoundedBodyReader.BodyTooLargeException.class);
+    }
+
+    @Test
+    void bodyShorterThanDeclaredReturnsWhatArrived() throws IOException {
+        byte[] body = bytes(4);
+
+        assertThat(BoundedBodyReader.read(new ByteArrayInputStream(body), 10, MAX_BYTES)).isEqualTo(body);
+    }
+
+    @Test
+    void emptyBodyIsRejected() {
+        assertThatThrownBy(() -> BoundedBodyReader.read(new ByteArrayInputStream(new byte[0]), 0, MAX_BYTES))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> BoundedBodyReader.read(new ByteArrayInputStream(new byte[0]), -1, MAX_BYTES))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static byte[] bytes(int length) {
+        byte[] body = new byte[length];
+        for (int i = 0; i < length; i++) {
+            body[i] = (byte) ('a' + i % 26);
+        }
+        return body;
+    }
+}
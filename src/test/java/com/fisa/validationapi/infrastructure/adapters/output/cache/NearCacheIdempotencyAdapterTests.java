@@ -0,0 +1,52 @@
+package com.fisa.validationapi.infrastructure.adapters.output.cache;
+
+import com.fisa.validationapi.domain.models.IdempotencyRecord;
+import com.fisa.validationapi.domain.models.enums.IdempotencyStatus;
+import com.fisa.validationapi.infrastructure.adapters.output.memory.InMemoryIdempotencyAdapter;
+import com.fisa.validationapi.infrastructure.adapters.output.redis.IdempotencyRetentionPolicy;
+import com.fisa.validationapi.infrastructure.config.IdempotencyProperties;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * La near-cache guarda el registro tal como quedó en el almacenamiento compartido (con el cuerpo recortado):
+ * una repetición en este nodo responde lo mismo que en cualquier otro.
+ */
+class NearCacheIdempotencyAdapterTests {
+
+    private final IdempotencyRetentionPolicy retentionPolicy = new IdempotencyRetentionPolicy(retention(), new SimpleMeterRegistry());
+    // Hace de Redis: aplica la misma retención al guardar
+    private final InMemoryIdempotencyAdapter shared = new InMemoryIdempotencyAdapter(retentionPolicy);
+    private final NearCacheIdempotencyAdapter nearCache =
+            new NearCacheIdempotencyAdapter(shared, Caffeine.newBuilder().build(), retentionPolicy);
+
+    @Test
+    void cachedRecordMatchesTheStoredOne() {
+        IdempotencyRecord failed = IdempotencyRecord.builder()
+                .key("key-1")
+                .status(IdempotencyStatus.FAILED)
+                .httpStatusCode(500)
+                .responseBody("{\"error\": \"" + "a".repeat(1_000) + "\"}")
+                .createdAt(LocalDateTime.now())
+                .payloadHash(42L)
+                .build();
+
+        nearCache.save(failed);
+
+        IdempotencyRecord local = nearCache.findByKey("key-1").orElseThrow();
+        IdempotencyRecord stored = shared.findByKey("key-1").orElseThrow();
+        assertThat(local.getResponseBody()).isEqualTo(stored.getResponseBody()).isNotEqualTo(failed.getResponseBody());
+    }
+
+    private static IdempotencyProperties.Retention retention() {
+        IdempotencyProperties.Retention retention = new IdempotencyProperties.Retention();
+        retention.getFailed().setMaxBodySize(DataSize.ofBytes(128));
+        return retention;
+    }
+}
@@ -0,0 +1,209 @@
+package com.fisa.validationapi.infrastructure.adapters.output.cache;
+
+import com.fisa.validationapi.domain.models.IdempotencyRecord;
+import com.fisa.validationapi.domain.models.enums.IdempotencyStatus;
+import com.fisa.validationapi.infrastructure.adapters.output.memory.InMemoryIdempotencyAdapter;
+import com.fisa.validationapi.infrastructure.adapters.output.redis.IdempotencyRetentionPolicy;
+import com.fisa.validationapi.infrastructure.config.IdempotencyProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Escritura diferida: reemplazo de la última versión por llave, reintento con backoff, vuelta a la escritura
+ * síncrona al llenarse y vaciado de lo pendiente al apagar.
+ */
+class WriteBehindIdempotencyAdapterTests {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final SlowRedis redis = new SlowRedis(new IdempotencyRetentionPolicy(new IdempotencyProperties.Retention(), meterRegistry));
+    private WriteBehindIdempotencyAdapter adapter;
+
+    @AfterEach
+    void tearDown() {
+        redis.release();
+        if (adapter != null && adapter.isRunning()) {
+            adapter.stop();
+        }
+    }
+
+    @Test
+    void processingLocksAreWrittenSynchronously() {
+        adapter = started(properties(10));
+
+        assertThat(adapter.acquireLock(record("k1", IdempotencyStatus.PROCESSING, null))).isEmpty();
+        adapter.save(record("k1", IdempotencyStatus.PROCESSING, null));
+
+        assertThat(redis.findByKey("k1")).isPresent();
+        assertThat(redis.batches).isEmpty();
+    }
+
+    @Test
+    void onlyTheLatestRecordOfAKeyIsSent() throws Exception {
+        adapter = started(properties(10));
+        redis.block();
+
+        // El hilo de envío queda detenido en el primer lote
+        adapter.save(record("first", IdempotencyStatus.COMPLETED, "{}"));
+        assertThat(redis.blocked.await(5, TimeUnit.SECONDS)).isTrue();
+
+        adapter.save(record("k1", IdempotencyStatus.FAILED, "{\"error\":\"1\"}"));
+        adapter.save(record("k1", IdempotencyStatus.COMPLETED, "{\"partyRefId\":\"PTY-1\"}"));
+
+        // Este nodo ve la última versión aunque aún no esté en Redis
+        assertThat(redis.findByKey("k1")).isEmpty();
+        assertThat(adapter.findByKey("k1")).get().extracting(IdempotencyRecord::getStatus).isEqualTo(IdempotencyStatus.COMPLETED);
+        assertThat(adapter.acquireLock(record("k1", IdempotencyStatus.PROCESSING, null)))
+                .get().extracting(IdempotencyRecord::getStatus).isEqualTo(IdempotencyStatus.COMPLETED);
+
+        redis.release();
+        awaitUntil(() -> redis.findByKey("k1").isPresent() && pending() == 0);
+
+        assertThat(redis.findByKey("k1")).get().extracting(IdempotencyRecord::getResponseBody).isEqualTo("{\"partyRefId\":\"PTY-1\"}");
+        assertThat(redis.sentKeys()).filteredOn("k1"::equals).hasSize(1);
+    }
+
+    @Test
+    void failedBatchesAreRetried() {
+        adapter = started(properties(10));
+        redis.failures.set(2);
+
+        adapter.save(record("k1", IdempotencyStatus.COMPLETED, "{}"));
+
+        awaitUntil(() -> redis.findByKey("k1").isPresent() && pending() == 0);
+        assertThat(counter("failed")).isEqualTo(2);
+        assertThat(counter("flushed")).isEqualTo(1);
+        // Mientras fallaba, la llave siguió visible para este nodo
+        assertThat(adapter.findByKey("k1")).isPresent();
+    }
+
+    @Test
+    void writesBecomeSynchronousAtCapacity() throws Exception {
+        adapter = started(properties(1));
+        redis.block();
+
+        adapter.save(record("k1", IdempotencyStatus.COMPLETED, "{}"));
+        assertThat(redis.blocked.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // k1 sigue pendiente (ocupa la capacidad): k2 se escribe de inmediato
+        adapter.save(record("k2", IdempotencyStatus.COMPLETED, "{}"));
+        assertThat(redis.findByKey("k2")).isPresent();
+        assertThat(counter("synchronous")).isEqualTo(1);
+
+        // Reemplazar una llave ya pendiente no ocupa más memoria: sigue siendo diferida
+        adapter.save(record("k1", IdempotencyStatus.FAILED, "{}"));
+        assertThat(counter("synchronous")).isEqualTo(1);
+    }
+
+    @Test
+    void pendingWritesAreFlushedOnStop() {
+        adapter = started(properties(100));
+        redis.delay = Duration.ofMillis(50);
+
+        for (int i = 0; i < 20; i++) {
+            adapter.save(record("k" + i, IdempotencyStatus.COMPLETED, "{}"));
+        }
+        adapter.stop();
+
+        assertThat(pending()).isZero();
+        for (int i = 0; i < 20; i++) {
+            assertThat(redis.findByKey("k" + i)).as("k" + i).isPresent();
+        }
+
+        // Ya apagado, las escrituras son síncronas
+        adapter.save(record("late", IdempotencyStatus.COMPLETED, "{}"));
+        assertThat(redis.findByKey("late")).isPresent();
+    }
+
+    private WriteBehindIdempotencyAdapter started(IdempotencyProperties.WriteBehind properties) {
+        WriteBehindIdempotencyAdapter writeBehind = new WriteBehindIdempotencyAdapter(redis, properties, meterRegistry);
+        writeBehind.start();
+        return writeBehind;
+    }
+
+    private static IdempotencyProperties.WriteBehind properties(int capacity) {
+        IdempotencyProperties.WriteBehind properties = new IdempotencyProperties.WriteBehind();
+        properties.setCapacity(capacity);
+        properties.setBatchSize(10);
+        properties.setShutdownTimeout(Duration.ofSeconds(10));
+        return properties;
+    }
+
+    private static IdempotencyRecord record(String key, IdempotencyStatus status, String body) {
+        return IdempotencyRecord.builder()
+                .key(key)
+                .status(status)
+                .httpStatusCode(status == IdempotencyStatus.PROCESSING ? null : 201)
+                .responseBody(body)
+                .build();
+    }
+
+    private double pending() {
+        return meterRegistry.get("idempotency.write_behind.pending").gauge().value();
+    }
+
+    private double counter(String outcome) {
+        return meterRegistry.get("idempotency.write_behind").tag("outcome", outcome).counter().count();
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("Condición no cumplida a tiempo").isLessThan(deadline);
+            Thread.onSpinWait();
+        }
+    }
+
+    // Redis en memoria con lotes que pueden detenerse, fallar o tardar
+    private static final class SlowRedis extends InMemoryIdempotencyAdapter {
+
+        private final List<List<IdempotencyRecord>> batches = new CopyOnWriteArrayList<>();
+        private final AtomicInteger failures = new AtomicInteger();
+        private final CountDownLatch blocked = new CountDownLatch(1);
+        private volatile CountDownLatch gate = new CountDownLatch(0);
+        private volatile Duration delay = Duration.ZERO;
+
+        SlowRedis(IdempotencyRetentionPolicy retentionPolicy) {
+            super(retentionPolicy);
+        }
+
+        void block() {
+            gate = new CountDownLatch(1);
+        }
+
+        void release() {
+            gate.countDown();
+        }
+
+        List<String> sentKeys() {
+            return batches.stream().flatMap(List::stream).map(IdempotencyRecord::getKey).toList();
+        }
+
+        @Override
+        public void saveAll(List<IdempotencyRecord> records) {
+            blocked.countDown();
+            try {
+                gate.await();
+                Thread.sleep(delay.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+            if (failures.getAndUpdate(remaining -> Math.max(0, remaining - 1)) > 0) {
+                throw new IllegalStateException("Redis no disponible");
+            }
+            batches.add(List.copyOf(records));
+            super.saveAll(records);
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package com.fisa.validationapi.infrastructure.adapters.output.feign;
+
+import com.fisa.validationapi.infrastructure.config.ClientErrorIgnorePredicate;
+import feign.FeignException;
+import feign.Request;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.timelimiter.TimeLimiter;
+import io.github.resilience4j.timelimiter.TimeLimiterConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Protección de las llamadas a un servicio vecino: circuito abierto y bulkhead lleno (503 sin llamar),
+ * tiempo agotado (504) con el permiso tomado hasta que la llamada real termina, errores 4xx ignorados por el circuito
+ * y cierre que espera las llamadas en curso.
+ */
+class ResilienceGuardTests {
+
+    private static final Duration TIMEOUT = Duration.ofMillis(100);
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void openCircuitRejectsWith503WithoutCalling() {
+        CircuitBreaker circuitBreaker = circuitBreaker();
+        circuitBreaker.transitionToOpenState();
+        ResilienceGuard guard = guard(circuitBreaker, bulkhead(1), executor);
+
+        assertThatThrownBy(() -> guard.call(this::respond))
+                .isInstanceOfSatisfying(DependencyUnavailableException.class, e -> {
+                    assertThat(e.getHttpStatus()).isEqualTo(503);
+                    assertThat(e.isRejected()).isTrue();
+                    assertThat(e.getDependency()).isEqualTo("party-service");
+                });
+        assertThat(calls.get()).isZero();
+    }
+
+    @Test
+    void fullBulkheadRejectsWith503WithoutCalling() {
+        Bulkhead bulkhead = bulkhead(1);
+        bulkhead.acquirePermission();
+        ResilienceGuard guard = guard(circuitBreaker(), bulkhead, executor);
+
+        assertThatThrownBy(() -> guard.call(this::respond))
+                .isInstanceOfSatisfying(DependencyUnavailableException.class, e -> {
+                    assertThat(e.getHttpStatus()).isEqualTo(503);
+                    assertThat(e.isRejected()).isTrue();
+                });
+        assertThat(calls.get()).isZero();
+    }
+
+    @Test
+    void timeoutFailsWith504AndKeepsThePermitUntilTheCallReturns() {
+        Bulkhead bulkhead = bulkhead(1);
+        ResilienceGuard guard = guard(circuitBreaker(), bulkhead, executor);
+        CountDownLatch response = new CountDownLatch(1);
+
+        assertThatThrownBy(() -> guard.call(() -> awaitIgnoringInterrupts(response)))
+                .isInstanceOfSatisfying(DependencyUnavailableException.class, e -> {
+                    assertThat(e.getHttpStatus()).isEqualTo(504);
+                    assertThat(e.isRejected()).isFalse();
+                });
+
+        // La llamada HTTP no se detiene con la interrupción: sigue ocupando su lugar en el bulkhead
+        assertThat(bulkhead.getMetrics().getAvailableConcurrentCalls()).isZero();
+        assertThatThrownBy(() -> guard.call(this::respond)).isInstanceOf(DependencyUnavailableException.class);
+
+        response.countDown();
+        awaitUntil(() -> bulkhead.getMetrics().getAvailableConcurrentCalls() == 1);
+        assertThat(guard.call(this::respond)).isEqualTo("ok");
+    }
+
+    @Test
+    void callCancelledBeforeStartingReleasesThePermit() {
+        Bulkhead bulkhead = bulkhead(1);
+        // Ejecutor saturado: la tarea queda en cola y se agota el tiempo antes de empezar
+        List<Runnable> queued = new CopyOnWriteArrayList<>();
+        ResilienceGuard guard = guard(circuitBreaker(), bulkhead, queued::add);
+
+        assertThatThrownBy(() -> guard.call(this::respond))
+                .isInstanceOfSatisfying(DependencyUnavailableException.class, e -> assertThat(e.getHttpStatus()).isEqualTo(504));
+        assertThat(bulkhead.getMetrics().getAvailableConcurrentCalls()).isEqualTo(1);
+
+        // Si el hilo llega a tomarla después, no llama al servicio ni libera el permiso otra vez
+        queued.forEach(Runnable::run);
+        assertThat(calls.get()).isZero();
+        assertThat(bulkhead.getMetrics().getAvailableConcurrentCalls()).isEqualTo(1);
+    }
+
+    @Test
+    void rejectedExecutionReleasesThePermit() {
+        Bulkhead bulkhead = bulkhead(1);
+        ResilienceGuard guard = guard(circuitBreaker(), bulkhead, task -> {
+            throw new RejectedExecutionException("Sin hilos");
+        });
+
+        assertThatThrownBy(() -> guard.call(this::respond)).isInstanceOf(RejectedExecutionException.class);
+        assertThat(bulkhead.getMetrics().getAvailableConcurrentCalls()).isEqualTo(1);
+    }
+
+    @Test
+    void closeWaitsForCallsInFlight() throws Exception {
+        ExecutorService callExecutor = Executors.newSingleThreadExecutor();
+        ResilienceGuard guard = guard(circuitBreaker(), bulkhead(1), callExecutor);
+        CountDownLatch started = new CountDownLatch(1);
+
+        // La petición espera la respuesta en su propio hilo mientras el contexto se apaga
+        var request = executor.submit(() -> guard.call(() -> {
+            started.countDown();
+            try {
+                Thread.sleep(TIMEOUT.toMillis() / 2);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return respond();
+        }));
+        assertThat(started.await(1, TimeUnit.SECONDS)).isTrue();
+
+        guard.close();
+
+        assertThat(callExecutor.isTerminated()).isTrue();
+        assertThat(request.get(1, TimeUnit.SECONDS)).isEqualTo("ok");
+        assertThat(calls.get()).isEqualTo(1);
+    }
+
+    @Test
+    void clientErrorsDoNotOpenTheCircuit() {
+        CircuitBreaker circuitBreaker = circuitBreaker();
+        ResilienceGuard guard = guard(circuitBreaker, bulkhead(1), executor);
+        FeignException badRequest = new FeignException.BadRequest("Datos inválidos", request(), null, Map.of());
+
+        for (int i = 0; i < 10; i++) {
+            // El 4xx llega sin cambios (respuesta de negocio del servicio)
+            assertThatThrownBy(() -> guard.call(() -> {
+                throw badRequest;
+            })).isSameAs(badRequest);
+        }
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+
+        FeignException serverError = new FeignException.InternalServerError("Caído", request(), null, Map.of());
+        for (int i = 0; i < 4; i++) {
+            assertThatThrownBy(() -> guard.call(() -> {
+                throw serverError;
+            })).isSameAs(serverError);
+        }
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+
+    private String respond() {
+        calls.incrementAndGet();
+        return "ok";
+    }
+
+    private static ResilienceGuard guard(CircuitBreaker circuitBreaker, Bulkhead bulkhead, Executor executor) {
+        TimeLimiter timeLimiter = TimeLimiter.of("party-service", TimeLimiterConfig.custom()
+                .timeoutDuration(TIMEOUT)
+                .cancelRunningFuture(true)
+                .build());
+        return new ResilienceGuard(circuitBreaker, bulkhead, timeLimiter, executor);
+    }
+
+    private static CircuitBreaker circuitBreaker() {
+        return CircuitBreaker.of("party-service", CircuitBreakerConfig.custom()
+                .slidingWindowSize(4)
+                .minimumNumberOfCalls(4)
+                .failureRateThreshold(50)
+                .ignoreException(new ClientErrorIgnorePredicate())
+                .build());
+    }
+
+    private static Bulkhead bulkhead(int maxConcurrentCalls) {
+        return Bulkhead.of("party-service", BulkheadConfig.custom()
+                .maxConcurrentCalls(maxConcurrentCalls)
+                .maxWaitDuration(Duration.ZERO)
+                .build());
+    }
+
+    private static Request request() {
+        return Request.create(Request.HttpMethod.POST, "http://party-service/parties", Map.of(), null, StandardCharsets.UTF_8, null);
+    }
+
+    // Como una llamada HTTP bloqueada en el socket: la interrupción no la detiene
+    private static String awaitIgnoringInterrupts(CountDownLatch latch) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                latch.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        return "tarde";
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("Condición no cumplida a tiempo").isLessThan(deadline);
+            Thread.onSpinWait();
+        }
+    }
+}
@@ -0,0 +1,295 @@
+package com.fisa.validationapi.infrastructure.adapters.output.journal;
+
+import com.fisa.validationapi.domain.models.PendingPartyCall;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Diario mapeado en memoria: recuperación tras reabrir, entradas truncadas o corruptas, rotación y borrado
+ * de segmentos, group commit y espera acotada del disco.
+ */
+class MappedFilePartyCallJournalTests {
+
+    // Tamaño de una entrada INTENT con llave de 2 bytes: longitud + CRC + campos fijos + llave
+    private static final int INTENT_BYTES = 8 + 27 + 2;
+    // Offset de la llave dentro de una entrada
+    private static final int KEY_OFFSET = 8 + 1 + 8 + 8 + 4 + 2;
+
+    private static final Duration ANY_AGE = Duration.ofDays(1);
+
+    @TempDir
+    Path directory;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void reopenedJournalReturnsCallsLeftOpenByThePreviousRun() throws IOException {
+        try (MappedFilePartyCallJournal journal = journal(1024 * 1024, Duration.ofSeconds(2))) {
+            journal.intent("k1", 11L);
+            journal.intent("k2", 22L);
+            assertThat(journal.outcome("k2", 22L, 201, "{\"partyRefId\":\"PTY-2\"}")).isTrue();
+            journal.intent("k3", 33L);
+            journal.outcome("k3", 33L, 201, "{}");
+            journal.done("k3");
+        }
+
+        try (MappedFilePartyCallJournal journal = journal(1024 * 1024, Duration.ofSeconds(2))) {
+            // Las de la ejecución anterior se entregan sin importar la antigüedad pedida
+            List<PendingPartyCall> pending = journal.pending(ANY_AGE);
+
+            assertThat(pending).extracting(PendingPartyCall::getIdempotencyKey).containsExactlyInAnyOrder("k1", "k2");
+            PendingPartyCall withoutOutcome = find(pending, "k1");
+            assertThat(withoutOutcome.hasOutcome()).isFalse();
+            assertThat(withoutOutcome.getPayloadHash()).isEqualTo(11L);
+            assertThat(withoutOutcome.getStartedAt()).isNotNull();
+            PendingPartyCall withOutcome = find(pending, "k2");
+            assertThat(withOutcome.hasOutcome()).isTrue();
+            assertThat(withOutcome.getHttpStatusCode()).isEqualTo(201);
+            assertThat(withOutcome.getResponseBody()).isEqualTo("{\"partyRefId\":\"PTY-2\"}");
+        }
+    }
+
+    @Test
+    void tornTailIsDiscarded() throws IOException {
+        try (MappedFilePartyCallJournal journal = journal(1024 * 1024, Duration.ofSeconds(2))) {
+            journal.intent("k1", 1L);
+            journal.intent("k2", 2L);
+        }
+        // El nodo cayó a mitad de la segunda entrada: el archivo termina antes de su cuerpo
+        try (FileChannel channel = FileChannel.open(firstSegment(), StandardOpenOption.WRITE)) {
+            channel.truncate(INTENT_BYTES + 20);
+        }
+
+        try (MappedFilePartyCallJournal journal = journal(1024 * 1024, Duration.ofSeconds(2))) {
+            assertThat(journal.pending(ANY_AGE)).extracting(PendingPartyCall::getIdempotencyKey).containsExactly("k1");
+        }
+    }
+
+    @Test
+    void invalidCrcDiscardsTheRestOfTheSegment() throws IOException {
+        try (MappedFilePartyCallJournal journal = journal(1024 * 1024, Duration.ofSeconds(2))) {
+            journal.intent("k1", 1L);
+            journal.intent("k2", 2L);
+            journal.intent("k3", 3L);
+        }
+        // Un byte de la llave de la segunda entrada cambia: su CRC ya no coincide
+        try (FileChannel channel = FileChannel.open(firstSegment(), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{'x'}), INTENT_BYTES + KEY_OFFSET);
+        }
+
+        try (MappedFilePartyCallJournal journal = journal(1024 * 1024, Duration.ofSeconds(2))) {
+            // La tercera entrada es válida, pero nada después de una entrada corrupta es confiable
+            assertThat(journal.pending(ANY_AGE)).extracting(PendingPartyCall::getIdempotencyKey).containsExactly("k1");
+        }
+    }
+
+    @Test
+    void keysLongerThanAShortAreReadBack() throws IOException {
+        // Más de 32767 bytes: la longitud se lee sin signo
+        String longKey = "k".repeat(40_000);
+        try (MappedFilePartyCallJournal journal = journal(1024 * 1024, Duration.ofSeconds(2))) {
+            journal.intent(longKey, 1L);
+        }
+
+        try (MappedFilePartyCallJournal journal = journal(1024 * 1024, Duration.ofSeconds(2))) {
+            assertThat(journal.pending(ANY_AGE)).extracting(PendingPartyCall::getIdempotencyKey).containsExactly(longKey);
+        }
+    }
+
+    @Test
+    void keysLongerThanTheFormatAllowsAreRefused() throws IOException {
+        try (MappedFilePartyCallJournal journal = journal(1024 * 1024, Duration.ofSeconds(2))) {
+            assertThatThrownBy(() -> journal.intent("k".repeat(MappedFilePartyCallJournal.MAX_KEY_BYTES + 1), 1L))
+                    .isInstanceOf(IllegalArgumentException.class);
+            assertThat(journal.pending(Duration.ofMillis(-1))).isEmpty();
+        }
+    }
+
+    @Test
+    void entryWithValidCrcThatCannotBeDecodedIsTreatedAsATornTail() throws IOException {
+        try (MappedFilePartyCallJournal journal = journal(1024 * 1024, Duration.ofSeconds(2))) {
+            journal.intent("k1", 1L);
+        }
+        // Segunda entrada con CRC correcto pero una llave declarada más larga que la propia entrada
+        ByteBuffer body = ByteBuffer.allocate(27)
+                .put(MappedFilePartyCallJournal.INTENT)
+                .putLong(System.currentTimeMillis())
+                .putLong(2L)
+                .putInt(0)
+                .putShort((short) 1_000)
+                .putInt(0)
+                .flip();
+        CRC32C crc = new CRC32C();
+        crc.update(body.duplicate());
+        ByteBuffer entry = ByteBuffer.allocate(8 + body.remaining())
+                .putInt(body.remaining())
+                .putInt((int) crc.getValue())
+                .put(body)
+                .flip();
+        try (FileChannel channel = FileChannel.open(firstSegment(), StandardOpenOption.WRITE)) {
+            channel.write(entry, INTENT_BYTES);
+        }
+
+        try (MappedFilePartyCallJournal journal = journal(1024 * 1024, Duration.ofSeconds(2))) {
+            assertThat(journal.pending(ANY_AGE)).extracting(PendingPartyCall::getIdempotencyKey).containsExactly("k1");
+        }
+    }
+
+    @Test
+    void segmentsRotateAndAreDeletedOnceTheirKeysAreClosed() throws IOException {
+        // Caben dos intenciones por segmento
+        try (MappedFilePartyCallJournal journal = journal(2 * INTENT_BYTES + 4, Duration.ofSeconds(2))) {
+            for (int i = 0; i < 6; i++) {
+                journal.intent("k" + i, i);
+            }
+            int segments = journal.segmentPaths().size();
+            assertThat(segments).isGreaterThan(2);
+
+            // Una llave abierta en el primer segmento retiene también a los posteriores
+            for (int i = 1; i < 6; i++) {
+                journal.done("k" + i);
+            }
+            assertThat(journal.segmentPaths()).hasSizeGreaterThanOrEqualTo(segments);
+            assertThat(segmentFiles()).hasSize(journal.segmentPaths().size());
+
+            journal.done("k0");
+            assertThat(journal.segmentPaths()).hasSize(1);
+            assertThat(segmentFiles()).containsExactlyElementsOf(journal.segmentPaths());
+        }
+    }
+
+    @Test
+    void segmentsOfThePreviousRunAreDeletedOnceReconciled() throws IOException {
+        try (MappedFilePartyCallJournal journal = journal(2 * INTENT_BYTES + 4, Duration.ofSeconds(2))) {
+            journal.intent("k1", 1L);
+            journal.intent("k2", 2L);
+            journal.intent("k3", 3L);
+        }
+
+        try (MappedFilePartyCallJournal journal = journal(2 * INTENT_BYTES + 4, Duration.ofSeconds(2))) {
+            assertThat(journal.segmentPaths()).hasSizeGreaterThan(1);
+
+            journal.pending(ANY_AGE).forEach(call -> journal.done(call.getIdempotencyKey()));
+
+            assertThat(journal.pending(ANY_AGE)).isEmpty();
+            assertThat(journal.segmentPaths()).hasSize(1);
+            assertThat(segmentFiles()).hasSize(1);
+        }
+    }
+
+    @Test
+    void concurrentOutcomesShareForces() throws Exception {
+        int callers = 32;
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try (MappedFilePartyCallJournal journal = journal(1024 * 1024, Duration.ofSeconds(5))) {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                String key = "key-" + i;
+                results.add(executor.submit(() -> {
+                    journal.intent(key, 1L);
+                    start.await();
+                    return journal.outcome(key, 1L, 201, "{}");
+                }));
+            }
+            start.countDown();
+            for (Future<Boolean> result : results) {
+                assertThat(result.get()).isTrue();
+            }
+
+            // Cada force() registra cuántas esperas cubrió: nunca más forces que resultados
+            DistributionSummary groupCommit = meterRegistry.get("validation.journal.group_commit.size").summary();
+            assertThat(groupCommit.count()).isBetween(1L, (long) callers);
+            assertThat(groupCommit.totalAmount()).isLessThanOrEqualTo(callers);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        try (MappedFilePartyCallJournal journal = journal(1024 * 1024, Duration.ofSeconds(5))) {
+            assertThat(journal.pending(ANY_AGE)).hasSize(callers).allMatch(PendingPartyCall::hasOutcome);
+        }
+    }
+
+    @Test
+    void outcomesWrittenAcrossRotationsAreDurable() throws IOException {
+        // Cada resultado llena casi un segmento: la rotación deja la sincronización del anterior al hilo de force()
+        try (MappedFilePartyCallJournal journal = journal(2 * INTENT_BYTES + 4, Duration.ofSeconds(2))) {
+            for (int i = 0; i < 5; i++) {
+                journal.intent("k" + i, i);
+                assertThat(journal.outcome("k" + i, i, 201, "{}")).isTrue();
+            }
+            assertThat(journal.segmentPaths()).hasSizeGreaterThan(2);
+        }
+
+        try (MappedFilePartyCallJournal journal = journal(2 * INTENT_BYTES + 4, Duration.ofSeconds(2))) {
+            assertThat(journal.pending(ANY_AGE)).hasSize(5).allMatch(PendingPartyCall::hasOutcome);
+        }
+    }
+
+    @Test
+    void outcomeFailsWhenTheDiskDoesNotConfirmInTime() throws IOException {
+        // Sin margen de espera: el resultado nunca está en disco al momento de pedirlo
+        try (MappedFilePartyCallJournal journal = journal(1024 * 1024, Duration.ZERO)) {
+            journal.intent("k1", 1L);
+
+            assertThatThrownBy(() -> journal.outcome("k1", 1L, 201, "{}"))
+                    .isInstanceOf(IllegalStateException.class);
+            // La llave sigue abierta para la reconciliación
+            assertThat(journal.pending(Duration.ofMillis(-1))).extracting(PendingPartyCall::getIdempotencyKey).containsExactly("k1");
+        }
+    }
+
+    @Test
+    void callsOfTheCurrentRunArePendingOnlyAfterTheMinimumAge() throws Exception {
+        try (MappedFilePartyCallJournal journal = journal(1024 * 1024, Duration.ofSeconds(2))) {
+            journal.intent("k1", 1L);
+            journal.intent("k2", 2L);
+            journal.done("k2");
+
+            // Recién abierta: la petición puede seguir en curso
+            assertThat(journal.pending(Duration.ofMinutes(2))).isEmpty();
+
+            Thread.sleep(20);
+            assertThat(journal.pending(Duration.ofMillis(10))).extracting(PendingPartyCall::getIdempotencyKey).containsExactly("k1");
+        }
+    }
+
+    private MappedFilePartyCallJournal journal(int segmentSize, Duration forceTimeout) throws IOException {
+        return new MappedFilePartyCallJournal(directory, segmentSize, forceTimeout, meterRegistry);
+    }
+
+    private Path firstSegment() throws IOException {
+        return segmentFiles().get(0);
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().toList();
+        }
+    }
+
+    private static PendingPartyCall find(List<PendingPartyCall> calls, String key) {
+        return calls.stream().filter(call -> call.getIdempotencyKey().equals(key)).findFirst().orElseThrow();
+    }
+}
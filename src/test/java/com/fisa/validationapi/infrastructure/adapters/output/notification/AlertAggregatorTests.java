@@ -0,0 +1,82 @@
+package com.fisa.validationapi.infrastructure.adapters.output.notification;
+
+import com.fisa.validationapi.infrastructure.adapters.output.feign.NotificationClient;
+import com.fisa.validationapi.infrastructure.config.NotificationProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Ventanas de alertas: cada error registrado cuenta en exactamente una ventana aunque llegue mientras se cierra,
+ * y tras el cierre la siguiente ocurrencia vuelve a alertar de inmediato.
+ */
+class AlertAggregatorTests {
+
+    private static final Pattern DIGEST_SUBJECT = Pattern.compile("\\(x(\\d+) en ");
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<String> sent = new CopyOnWriteArrayList<>();
+    private final NotificationClient notificationClient = request -> sent.add(request.getSubject());
+
+    @Test
+    void everyOccurrenceIsCountedInExactlyOneWindow() throws Exception {
+        AsyncNotificationDispatcher dispatcher = new AsyncNotificationDispatcher(notificationClient, new NotificationProperties(), meterRegistry);
+        AlertAggregator aggregator = new AlertAggregator(dispatcher, Duration.ofMillis(5), meterRegistry);
+        dispatcher.start();
+        aggregator.start();
+
+        int threads = 8;
+        int perThread = 5_000;
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            for (int t = 0; t < threads; t++) {
+                executor.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        aggregator.record("party-service", "503", "Party Service caído", "detalle " + i);
+                    }
+                });
+            }
+        }
+        aggregator.stop(); // Último resumen
+        dispatcher.stop(); // Vacía la cola
+
+        // Cada ventana envía una alerta inmediata y, si hubo repeticiones, un resumen con su total
+        long alerts = sent.stream().filter(subject -> !DIGEST_SUBJECT.matcher(subject).find()).count();
+        long digests = sent.size() - alerts;
+        long digested = sent.stream()
+                .map(DIGEST_SUBJECT::matcher)
+                .filter(Matcher::find)
+                .mapToLong(matcher -> Long.parseLong(matcher.group(1)))
+                .sum();
+
+        assertThat(digested + alerts - digests).isEqualTo((long) threads * perThread);
+    }
+
+    @Test
+    void nextOccurrenceAfterTheWindowAlertsAgain() {
+        AsyncNotificationDispatcher dispatcher = new AsyncNotificationDispatcher(notificationClient, new NotificationProperties(), meterRegistry);
+        AlertAggregator aggregator = new AlertAggregator(dispatcher, Duration.ofMinutes(1), meterRegistry);
+        dispatcher.start();
+        aggregator.start();
+
+        aggregator.record("party-service", "503", "Party Service caído", "primero");
+        aggregator.record("party-service", "503", "Party Service caído", "segundo");
+        aggregator.stop(); // Cierra la ventana
+        aggregator.record("party-service", "503", "Party Service caído", "tercero");
+        dispatcher.stop();
+
+        assertThat(sent).containsExactly(
+                "[ALERTA] Party Service caído",
+                "[ALERTA] Party Service caído (x2 en 60s)",
+                "[ALERTA] Party Service caído");
+        assertThat(meterRegistry.get("notification.alerts.suppressed").counter().count()).isEqualTo(1);
+    }
+}
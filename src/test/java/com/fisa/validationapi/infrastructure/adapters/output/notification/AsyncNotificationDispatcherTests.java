@@ -0,0 +1,129 @@
+package com.fisa.validationapi.infrastructure.adapters.output.notification;
+
+import com.fisa.validationapi.infrastructure.adapters.output.feign.DependencyUnavailableException;
+import com.fisa.validationapi.infrastructure.adapters.output.feign.NotificationClient;
+import com.fisa.validationapi.infrastructure.adapters.output.feign.dtos.NotificationRequest;
+import com.fisa.validationapi.infrastructure.config.NotificationProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Ciclo de vida del despachador: tras un stop() el contexto puede volver a arrancarlo
+ * y los reintentos siguen programándose. Los rechazos del circuito abierto no gastan intentos.
+ * Los reintentos que siguen esperando su backoff al apagar se cuentan como descartados.
+ */
+class AsyncNotificationDispatcherTests {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<String> sent = new CopyOnWriteArrayList<>();
+    private final AtomicInteger failuresLeft = new AtomicInteger();
+
+    // Falla las primeras llamadas indicadas en failuresLeft
+    private final NotificationClient notificationClient = request -> {
+        if (failuresLeft.getAndDecrement() > 0) {
+            throw new IllegalStateException("notification-api caído");
+        }
+        sent.add(request.getSubject());
+    };
+
+    private AsyncNotificationDispatcher dispatcher;
+
+    @AfterEach
+    void tearDown() {
+        if (dispatcher.isRunning()) {
+            dispatcher.stop();
+        }
+    }
+
+    @Test
+    void retriesAreScheduledAfterARestart() {
+        NotificationProperties properties = new NotificationProperties();
+        properties.setInitialBackoff(Duration.ofMillis(10));
+        dispatcher = new AsyncNotificationDispatcher(notificationClient, properties, meterRegistry);
+
+        dispatcher.start();
+        dispatcher.dispatch(email("antes"));
+        awaitUntil(() -> sent.contains("antes"));
+        dispatcher.stop();
+        assertThat(dispatcher.isRunning()).isFalse();
+
+        dispatcher.start();
+        failuresLeft.set(1);
+        dispatcher.dispatch(email("después"));
+        awaitUntil(() -> sent.contains("después"));
+
+        assertThat(meterRegistry.get("notification.dispatch").tag("outcome", "retried").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("notification.dispatch").tag("outcome", "failed").counter().count()).isZero();
+    }
+
+    @Test
+    void rejectedCallsDoNotConsumeAttempts() {
+        NotificationProperties properties = new NotificationProperties();
+        properties.setInitialBackoff(Duration.ofMillis(10));
+        // Circuito abierto durante más rechazos que intentos permitidos
+        AtomicInteger rejectionsLeft = new AtomicInteger(properties.getMaxAttempts() * 2);
+        NotificationClient openCircuit = request -> {
+            if (rejectionsLeft.getAndDecrement() > 0) {
+                throw new DependencyUnavailableException("notification-api", 503, true, "circuito abierto", null);
+            }
+            sent.add(request.getSubject());
+        };
+        dispatcher = new AsyncNotificationDispatcher(openCircuit, properties, Duration.ofMillis(10), meterRegistry);
+
+        dispatcher.start();
+        dispatcher.dispatch(email("durante la caída"));
+        awaitUntil(() -> sent.contains("durante la caída"));
+
+        assertThat(meterRegistry.get("notification.dispatch").tag("outcome", "deferred").counter().count())
+                .isEqualTo(properties.getMaxAttempts() * 2);
+        assertThat(meterRegistry.get("notification.dispatch").tag("outcome", "retried").counter().count()).isZero();
+        assertThat(meterRegistry.get("notification.dispatch").tag("outcome", "failed").counter().count()).isZero();
+    }
+
+    @Test
+    void retriesStillWaitingAtShutdownAreCountedAsDropped() {
+        NotificationProperties properties = new NotificationProperties();
+        properties.setInitialBackoff(Duration.ofMinutes(1));
+        dispatcher = new AsyncNotificationDispatcher(notificationClient, properties, meterRegistry);
+
+        // Encolados antes de arrancar: salen en el mismo lote, así el fallo no pausa al despachador
+        failuresLeft.set(1);
+        dispatcher.dispatch(email("con reintento"));
+        dispatcher.dispatch(email("siguiente"));
+        dispatcher.start();
+        // El lote se envía en orden: el reintento del primero ya quedó programado
+        awaitUntil(() -> sent.contains("siguiente"));
+        dispatcher.stop();
+
+        assertThat(sent).doesNotContain("con reintento");
+        assertThat(meterRegistry.get("notification.dispatch").tag("outcome", "dropped").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("notification.dispatch").tag("outcome", "failed").counter().count()).isZero();
+    }
+
+    private static NotificationRequest email(String subject) {
+        return NotificationRequest.builder()
+                .recipient("admin@banco.com")
+                .subject(subject)
+                .body("<p>" + subject + "</p>")
+                .originService("ValidationAPI")
+                .build();
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("Condición no cumplida a tiempo").isLessThan(deadline);
+            Thread.onSpinWait();
+        }
+    }
+}
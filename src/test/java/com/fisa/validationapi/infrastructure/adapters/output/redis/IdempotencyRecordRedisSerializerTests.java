@@ -0,0 +1,145 @@
+package com.fisa.validationapi.infrastructure.adapters.output.redis;
+
+import com.fisa.validationapi.domain.models.IdempotencyRecord;
+import com.fisa.validationapi.domain.models.enums.IdempotencyStatus;
+import com.fisa.validationapi.infrastructure.config.RedisConfig;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Formato binario de los registros de idempotencia: versiones 1 y 2, compresión del cuerpo,
+ * lectura de los valores JSON anteriores y escritura en JSON durante el despliegue.
+ */
+class IdempotencyRecordRedisSerializerTests {
+
+    private static final int COMPRESSION_THRESHOLD = 4096;
+
+    private final GenericJackson2JsonRedisSerializer legacyJson = RedisConfig.legacyJsonSerializer();
+    private final IdempotencyRecordRedisSerializer serializer = new IdempotencyRecordRedisSerializer(legacyJson, COMPRESSION_THRESHOLD);
+
+    @Test
+    void recordWithPayloadHashRoundTripsAsVersion2() {
+        IdempotencyRecord record = completed("key-1", "{\"partyRefId\":\"PTY-1\"}", 42L);
+
+        byte[] bytes = serializer.serialize(record);
+
+        assertThat(bytes[0]).isEqualTo(IdempotencyRecordRedisSerializer.FORMAT_V2);
+        assertThat(serializer.deserialize(bytes)).isEqualTo(record);
+    }
+
+    @Test
+    void recordWithoutPayloadHashIsWrittenAsVersion1() {
+        IdempotencyRecord record = completed("key-1", "{}", null);
+
+        byte[] bytes = serializer.serialize(record);
+
+        // Legible por los nodos que aún no conocen la versión 2
+        assertThat(bytes[0]).isEqualTo(IdempotencyRecordRedisSerializer.FORMAT_V1);
+        assertThat(serializer.deserialize(bytes)).isEqualTo(record);
+    }
+
+    @Test
+    void processingLockWithoutOptionalFieldsRoundTrips() {
+        IdempotencyRecord lock = IdempotencyRecord.builder()
+                .key("key-1")
+                .status(IdempotencyStatus.PROCESSING)
+                .build();
+
+        assertThat(serializer.deserialize(serializer.serialize(lock))).isEqualTo(lock);
+    }
+
+    @Test
+    void multibyteKeyAndBodyRoundTrip() {
+        IdempotencyRecord record = completed("llave-ñandú-€", "{\"fullLegalName\":\"Compañía Ñandú 🚀\"}", 7L);
+
+        assertThat(serializer.deserialize(serializer.serialize(record))).isEqualTo(record);
+    }
+
+    @Test
+    void bodyBelowThresholdIsStoredAsIs() {
+        String body = "a".repeat(COMPRESSION_THRESHOLD - 1);
+
+        byte[] bytes = serializer.serialize(completed("key-1", body, 1L));
+
+        assertThat(bytes.length).isGreaterThan(body.length());
+        assertThat(serializer.deserialize(bytes).getResponseBody()).isEqualTo(body);
+    }
+
+    @Test
+    void compressibleBodyFromThresholdIsDeflated() {
+        String body = "{\"partyRefId\":\"PTY-1\"}".repeat(COMPRESSION_THRESHOLD / 10);
+
+        byte[] bytes = serializer.serialize(completed("key-1", body, 1L));
+
+        assertThat(bytes.length).isLessThan(body.length() / 4);
+        assertThat(serializer.deserialize(bytes).getResponseBody()).isEqualTo(body);
+    }
+
+    @Test
+    void bodyExactlyAtThresholdIsDeflated() {
+        String body = "b".repeat(COMPRESSION_THRESHOLD);
+
+        byte[] bytes = serializer.serialize(completed("key-1", body, 1L));
+
+        assertThat(bytes.length).isLessThan(COMPRESSION_THRESHOLD);
+        assertThat(serializer.deserialize(bytes).getResponseBody()).isEqualTo(body);
+    }
+
+    @Test
+    void legacyJsonValuesAreStillRead() {
+        IdempotencyRecord record = completed("key-1", "{\"partyRefId\":\"PTY-1\"}", null);
+
+        byte[] json = legacyJson.serialize(record);
+
+        assertThat(json[0]).isEqualTo((byte) '{');
+        assertThat(serializer.deserialize(json)).isEqualTo(record);
+    }
+
+    @Test
+    void legacyJsonWritesAreReadableByNodesThatOnlyKnowJson() {
+        IdempotencyRecordRedisSerializer jsonWriter = new IdempotencyRecordRedisSerializer(legacyJson, COMPRESSION_THRESHOLD, true);
+        IdempotencyRecord record = completed("key-1", "{\"partyRefId\":\"PTY-1\"}", 42L);
+
+        byte[] bytes = jsonWriter.serialize(record);
+
+        // Sin la huella: el lector anterior rechaza propiedades desconocidas
+        assertThat(new String(bytes, StandardCharsets.UTF_8)).startsWith("{").doesNotContain("payloadHash");
+        IdempotencyRecord readByOldNode = (IdempotencyRecord) legacyJson.deserialize(bytes);
+        IdempotencyRecord readByNewNode = serializer.deserialize(bytes);
+        assertThat(readByOldNode).isEqualTo(readByNewNode);
+        assertThat(readByNewNode.getPayloadHash()).isNull();
+        assertThat(readByNewNode.getResponseBody()).isEqualTo(record.getResponseBody());
+        assertThat(readByNewNode.getCreatedAt()).isEqualTo(record.getCreatedAt());
+    }
+
+    @Test
+    void unknownVersionAndTruncatedValuesAreRejected() {
+        byte[] bytes = serializer.serialize(completed("key-1", "{\"partyRefId\":\"PTY-1\"}", 1L));
+
+        byte[] unknownVersion = bytes.clone();
+        unknownVersion[0] = 0x7F;
+        assertThatThrownBy(() -> serializer.deserialize(unknownVersion)).isInstanceOf(SerializationException.class);
+        assertThatThrownBy(() -> serializer.deserialize(Arrays.copyOf(bytes, bytes.length - 5))).isInstanceOf(SerializationException.class);
+    }
+
+    // createdAt se guarda en milisegundos
+    private static IdempotencyRecord completed(String key, String body, Long payloadHash) {
+        return IdempotencyRecord.builder()
+                .key(key)
+                .status(IdempotencyStatus.COMPLETED)
+                .httpStatusCode(201)
+                .responseBody(body)
+                .createdAt(LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS))
+                .payloadHash(payloadHash)
+                .build();
+    }
+}
@@ -0,0 +1,132 @@
+package com.fisa.validationapi.infrastructure.adapters.output.redis;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fisa.validationapi.domain.models.IdempotencyRecord;
+import com.fisa.validationapi.domain.models.enums.IdempotencyStatus;
+import com.fisa.validationapi.infrastructure.config.IdempotencyProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Retención por estado: TTL de cada estado y recorte de los cuerpos que superan el límite,
+ * que siguen siendo JSON válido y no parten caracteres multibyte ni escapes.
+ */
+class IdempotencyRetentionPolicyTests {
+
+    private static final int FAILED_LIMIT = 64;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final IdempotencyRetentionPolicy policy = new IdempotencyRetentionPolicy(retention(), meterRegistry);
+
+    @Test
+    void ttlDependsOnTheStatus() {
+        assertThat(policy.ttl(IdempotencyStatus.PROCESSING)).isEqualTo(Duration.ofSeconds(30));
+        assertThat(policy.ttl(IdempotencyStatus.COMPLETED)).isEqualTo(Duration.ofHours(24));
+        assertThat(policy.ttl(IdempotencyStatus.FAILED)).isEqualTo(Duration.ofHours(1));
+        assertThat(new String(policy.ttlMillisArg(IdempotencyStatus.FAILED), StandardCharsets.UTF_8)).isEqualTo("3600000");
+    }
+
+    @Test
+    void bodiesWithinTheLimitAreKeptAsIs() {
+        IdempotencyRecord record = record(IdempotencyStatus.FAILED, "a".repeat(FAILED_LIMIT));
+
+        assertThat(policy.apply(record)).isSameAs(record);
+    }
+
+    @Test
+    void completedBodiesHaveNoLimitByDefault() {
+        IdempotencyRecord record = record(IdempotencyStatus.COMPLETED, "a".repeat(100_000));
+
+        assertThat(policy.apply(record)).isSameAs(record);
+    }
+
+    @Test
+    void longErrorMessageIsCutAndTheBodyStaysValidJson() throws Exception {
+        IdempotencyRecord record = record(IdempotencyStatus.FAILED, errorBody("a".repeat(FAILED_LIMIT)));
+
+        IdempotencyRecord truncated = policy.apply(record);
+
+        assertThat(truncated.getResponseBody().getBytes(StandardCharsets.UTF_8)).hasSizeLessThanOrEqualTo(FAILED_LIMIT);
+        assertThat(errorMessage(truncated)).startsWith("aaa").endsWith(IdempotencyRetentionPolicy.TRUNCATED_SUFFIX);
+        // El resto del registro no cambia
+        assertThat(truncated.getKey()).isEqualTo(record.getKey());
+        assertThat(truncated.getHttpStatusCode()).isEqualTo(record.getHttpStatusCode());
+        assertThat(truncated.getCreatedAt()).isEqualTo(record.getCreatedAt());
+        assertThat(truncated.getPayloadHash()).isEqualTo(record.getPayloadHash());
+    }
+
+    @Test
+    void escapedCharactersAreNeverSplit() throws Exception {
+        // Cada comilla ocupa dos bytes escapada: el recorte cuenta el escape y no deja un "\" suelto
+        IdempotencyRecord record = record(IdempotencyStatus.FAILED, errorBody("\"q\" ".repeat(FAILED_LIMIT)));
+
+        IdempotencyRecord truncated = policy.apply(record);
+
+        assertThat(truncated.getResponseBody().getBytes(StandardCharsets.UTF_8)).hasSizeLessThanOrEqualTo(FAILED_LIMIT);
+        assertThat(errorMessage(truncated)).startsWith("\"q\" ").endsWith(IdempotencyRetentionPolicy.TRUNCATED_SUFFIX);
+    }
+
+    @Test
+    void bodyThatIsNotAnErrorIsReplacedByAFixedError() throws Exception {
+        IdempotencyRecord record = record(IdempotencyStatus.FAILED, "a".repeat(FAILED_LIMIT + 1));
+
+        IdempotencyRecord truncated = policy.apply(record);
+
+        assertThat(truncated.getResponseBody()).isEqualTo(IdempotencyRetentionPolicy.TRUNCATED_BODY);
+        assertThat(errorMessage(truncated)).isNotBlank();
+    }
+
+    // 2, 3 y 4 bytes por carácter en UTF-8: el corte nunca deja medio carácter
+    @ParameterizedTest
+    @ValueSource(strings = {"ñ", "€", "🚀"})
+    void multibyteMessageIsCutOnACharacterBoundary(String character) throws Exception {
+        String message = "x" + character.repeat(FAILED_LIMIT);
+
+        IdempotencyRecord truncated = policy.apply(record(IdempotencyStatus.FAILED, errorBody(message)));
+
+        assertThat(truncated.getResponseBody().getBytes(StandardCharsets.UTF_8)).hasSizeLessThanOrEqualTo(FAILED_LIMIT);
+        String truncatedMessage = errorMessage(truncated);
+        assertThat(truncatedMessage).doesNotContain("\uFFFD").endsWith(IdempotencyRetentionPolicy.TRUNCATED_SUFFIX);
+        assertThat(message).startsWith(truncatedMessage.substring(0, truncatedMessage.length() - IdempotencyRetentionPolicy.TRUNCATED_SUFFIX.length()));
+    }
+
+    // Se parsea como lo haría un cliente que recibe la respuesta repetida
+    private String errorMessage(IdempotencyRecord record) throws Exception {
+        JsonNode body = objectMapper.readTree(record.getResponseBody());
+        assertThat(body.size()).isEqualTo(1);
+        return body.get("error").asText();
+    }
+
+    private String errorBody(String message) throws Exception {
+        return objectMapper.writeValueAsString(Map.of("error", message));
+    }
+
+    private static IdempotencyProperties.Retention retention() {
+        IdempotencyProperties.Retention retention = new IdempotencyProperties.Retention();
+        retention.getFailed().setMaxBodySize(DataSize.ofBytes(FAILED_LIMIT));
+        return retention;
+    }
+
+    private static IdempotencyRecord record(IdempotencyStatus status, String body) {
+        return IdempotencyRecord.builder()
+                .key("key-1")
+                .status(status)
+                .httpStatusCode(status == IdempotencyStatus.FAILED ? 500 : 201)
+                .responseBody(body)
+                .createdAt(LocalDateTime.now())
+                .payloadHash(42L)
+                .build();
+    }
+}
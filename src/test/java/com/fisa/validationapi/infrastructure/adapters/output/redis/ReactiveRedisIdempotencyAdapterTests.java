@@ -0,0 +1,138 @@
+package com.fisa.validationapi.infrastructure.adapters.output.redis;
+
+import com.fisa.validationapi.domain.models.IdempotencyRecord;
+import com.fisa.validationapi.domain.models.enums.IdempotencyStatus;
+import com.fisa.validationapi.infrastructure.config.IdempotencyProperties;
+import com.fisa.validationapi.infrastructure.config.RedisConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ReactiveValueOperations;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Adaptador reactivo: bloqueo con el script compartido (latido solo si se tomó), Fail-Safe ante Redis caído,
+ * guardado del estado final con aviso en el canal de eventos y extensión del bloqueo antes de llamar a Party Service.
+ */
+class ReactiveRedisIdempotencyAdapterTests {
+
+    @SuppressWarnings("unchecked")
+    private final ReactiveRedisTemplate<String, IdempotencyRecord> redisTemplate = mock(ReactiveRedisTemplate.class);
+    @SuppressWarnings("unchecked")
+    private final ReactiveValueOperations<String, IdempotencyRecord> valueOperations = mock(ReactiveValueOperations.class);
+    private final RedisLockHeartbeat lockHeartbeat = mock(RedisLockHeartbeat.class);
+    private final RedisSerializer<IdempotencyRecord> valueSerializer = RedisConfig.idempotencyRecordSerializer(false);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final ReactiveRedisIdempotencyAdapter adapter = new ReactiveRedisIdempotencyAdapter(redisTemplate, valueSerializer,
+            new IdempotencyRetentionPolicy(new IdempotencyProperties.Retention(), meterRegistry), lockHeartbeat);
+
+    @Test
+    void lockTakenIsTrackedByTheHeartbeat() {
+        doReturn(Flux.empty()).when(redisTemplate).execute(eq(RedisIdempotencyAdapter.ACQUIRE_LOCK_SCRIPT), anyList(), anyList(), any(), any());
+
+        StepVerifier.create(adapter.acquireLock(lock("k1"))).verifyComplete();
+
+        verify(lockHeartbeat).track(eq("idempotency:k1"), any(byte[].class));
+    }
+
+    @Test
+    void existingRecordIsReturnedWithoutTrackingTheLock() {
+        IdempotencyRecord completed = IdempotencyRecord.builder()
+                .key("k2")
+                .status(IdempotencyStatus.COMPLETED)
+                .httpStatusCode(201)
+                .responseBody("{}")
+                .build();
+        doReturn(Flux.just(completed)).when(redisTemplate).execute(eq(RedisIdempotencyAdapter.ACQUIRE_LOCK_SCRIPT), anyList(), anyList(), any(), any());
+
+        StepVerifier.create(adapter.acquireLock(lock("k2"))).expectNext(completed).verifyComplete();
+
+        verify(lockHeartbeat, never()).track(anyString(), any(byte[].class));
+    }
+
+    @Test
+    void redisFailureWhileLockingIsPropagated() {
+        doReturn(Flux.error(new RedisConnectionFailureException("Redis caído")))
+                .when(redisTemplate).execute(eq(RedisIdempotencyAdapter.ACQUIRE_LOCK_SCRIPT), anyList(), anyList(), any(), any());
+
+        // Fail-Safe: sin bloqueo no se procesa
+        StepVerifier.create(adapter.acquireLock(lock("k3"))).verifyError(RedisConnectionFailureException.class);
+        verify(lockHeartbeat, never()).track(anyString(), any(byte[].class));
+    }
+
+    @Test
+    void finalStatusIsPublishedAndStopsTheHeartbeat() {
+        doReturn(Flux.just(1L)).when(redisTemplate).execute(eq(RedisIdempotencyAdapter.SAVE_AND_PUBLISH_SCRIPT), anyList(), anyList(), any(), any());
+
+        IdempotencyRecord failed = IdempotencyRecord.builder()
+                .key("k4")
+                .status(IdempotencyStatus.FAILED)
+                .httpStatusCode(400)
+                .responseBody("{\"error\": \"Pais invalido\"}")
+                .createdAt(LocalDateTime.now())
+                .payloadHash(7L)
+                .build();
+
+        StepVerifier.create(adapter.save(failed)).verifyComplete();
+
+        verify(lockHeartbeat).release("idempotency:k4");
+        verify(valueOperations, never()).set(anyString(), any(), any(Duration.class));
+    }
+
+    @Test
+    void processingIsWrittenWithItsLeaseAndKeepsTheHeartbeat() {
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.set(eq("idempotency:k5"), any(), eq(new IdempotencyProperties.Processing().getLease())))
+                .thenReturn(Mono.just(true));
+
+        StepVerifier.create(adapter.save(lock("k5"))).verifyComplete();
+
+        verify(lockHeartbeat).track(eq("idempotency:k5"), any(byte[].class));
+        verify(lockHeartbeat, never()).release(anyString());
+    }
+
+    @Test
+    void lockNoLongerOwnedIsNotExtended() {
+        when(lockHeartbeat.release("idempotency:k6")).thenReturn(null);
+
+        StepVerifier.create(adapter.holdLock("k6", Duration.ofMinutes(5))).expectNext(false).verifyComplete();
+
+        verify(redisTemplate, never()).execute(eq(RedisLockHeartbeat.RENEW_LOCK_SCRIPT), anyList(), anyList(), any(), any());
+    }
+
+    @Test
+    void ownedLockIsExtendedToThePartyCallLease() {
+        when(lockHeartbeat.release("idempotency:k7")).thenReturn(valueSerializer.serialize(lock("k7")));
+        doReturn(Flux.just(1L)).when(redisTemplate).execute(eq(RedisLockHeartbeat.RENEW_LOCK_SCRIPT), anyList(), anyList(), any(), any());
+
+        StepVerifier.create(adapter.holdLock("k7", Duration.ofMinutes(5))).expectNext(true).verifyComplete();
+    }
+
+    private static IdempotencyRecord lock(String key) {
+        return IdempotencyRecord.builder()
+                .key(key)
+                .status(IdempotencyStatus.PROCESSING)
+                .createdAt(LocalDateTime.now())
+                .payloadHash(7L)
+                .build();
+    }
+}
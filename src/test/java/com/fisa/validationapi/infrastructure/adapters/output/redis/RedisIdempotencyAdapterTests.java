@@ -0,0 +1,131 @@
+package com.fisa.validationapi.infrastructure.adapters.output.redis;
+
+import com.fisa.validationapi.domain.models.IdempotencyRecord;
+import com.fisa.validationapi.domain.models.enums.IdempotencyStatus;
+import com.fisa.validationapi.infrastructure.config.IdempotencyProperties;
+import com.fisa.validationapi.infrastructure.config.RedisConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisScriptingCommands;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Bloqueo en lote de una ventana de la carga masiva: un pipeline con SCRIPT LOAD y un EVALSHA por llave,
+ * resultados en el orden de las llaves y latido solo para los bloqueos tomados.
+ */
+class RedisIdempotencyAdapterTests {
+
+    @SuppressWarnings("unchecked")
+    private final RedisTemplate<String, IdempotencyRecord> redisTemplate = mock(RedisTemplate.class);
+    private final RedisConnection connection = mock(RedisConnection.class);
+    private final RedisScriptingCommands scripting = mock(RedisScriptingCommands.class);
+    private final RedisLockHeartbeat lockHeartbeat = mock(RedisLockHeartbeat.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    // Valor que ya existe en Redis por llave completa (sin entrada: el script toma el bloqueo)
+    private final Map<String, IdempotencyRecord> existing = new ConcurrentHashMap<>();
+    // Llaves de cada EVALSHA del pipeline, en orden
+    private final List<String> evaluatedKeys = new ArrayList<>();
+
+    private RedisIdempotencyAdapter adapter;
+
+    @BeforeEach
+    void setUp() {
+        doReturn(RedisConfig.idempotencyRecordSerializer(false)).when(redisTemplate).getValueSerializer();
+        when(connection.scriptingCommands()).thenReturn(scripting);
+        when(scripting.evalSha(anyString(), eq(ReturnType.VALUE), anyInt(), any(byte[][].class))).thenAnswer(eval -> {
+            evaluatedKeys.add(new String((byte[]) eval.getArgument(3), StandardCharsets.UTF_8));
+            return null; // En un pipeline el resultado llega al cerrarlo
+        });
+        when(redisTemplate.executePipelined(any(RedisCallback.class), any(RedisSerializer.class))).thenAnswer(invocation -> {
+            RedisCallback<Object> callback = invocation.getArgument(0);
+            callback.doInRedis(connection);
+
+            // Igual que un pipeline real: primero el SHA de SCRIPT LOAD y luego un resultado por EVALSHA
+            List<Object> results = new ArrayList<>();
+            results.add(RedisIdempotencyAdapter.ACQUIRE_LOCK_SCRIPT.getSha1());
+            evaluatedKeys.forEach(key -> results.add(existing.get(key)));
+            return results;
+        });
+
+        adapter = new RedisIdempotencyAdapter(redisTemplate,
+                new IdempotencyRetentionPolicy(new IdempotencyProperties.Retention(), meterRegistry), lockHeartbeat, meterRegistry);
+    }
+
+    @Test
+    void windowKeysAreLockedInOnePipelineInOrder() {
+        IdempotencyRecord completed = IdempotencyRecord.builder()
+                .key("k2")
+                .status(IdempotencyStatus.COMPLETED)
+                .httpStatusCode(201)
+                .responseBody("{}")
+                .build();
+        existing.put("idempotency:k2", completed);
+
+        List<Optional<IdempotencyRecord>> results = adapter.acquireLocks(List.of(lock("k1"), lock("k2"), lock("k3")));
+
+        assertThat(results).hasSize(3);
+        assertThat(results.get(0)).isEmpty();
+        assertThat(results.get(1)).containsSame(completed);
+        assertThat(results.get(2)).isEmpty();
+        assertThat(evaluatedKeys).containsExactly("idempotency:k1", "idempotency:k2", "idempotency:k3");
+        verify(scripting).scriptLoad(any(byte[].class));
+
+        // Solo los bloqueos tomados por esta ventana se renuevan
+        verify(lockHeartbeat).track(eq("idempotency:k1"), any(byte[].class));
+        verify(lockHeartbeat).track(eq("idempotency:k3"), any(byte[].class));
+        verify(lockHeartbeat, never()).track(eq("idempotency:k2"), any(byte[].class));
+    }
+
+    @Test
+    void redisFailureIsPropagatedWithoutTrackingLocks() {
+        when(redisTemplate.executePipelined(any(RedisCallback.class), any(RedisSerializer.class)))
+                .thenThrow(new RedisConnectionFailureException("Redis caído"));
+
+        // Fail-Safe: sin bloqueo no se procesa ningún registro de la ventana
+        assertThatThrownBy(() -> adapter.acquireLocks(List.of(lock("k1"), lock("k2"))))
+                .isInstanceOf(RedisConnectionFailureException.class);
+        verify(lockHeartbeat, never()).track(anyString(), any(byte[].class));
+    }
+
+    @Test
+    void emptyWindowDoesNotReachRedis() {
+        assertThat(adapter.acquireLocks(List.of())).isEmpty();
+        verify(redisTemplate, never()).executePipelined(any(RedisCallback.class), any(RedisSerializer.class));
+    }
+
+    private static IdempotencyRecord lock(String key) {
+        return IdempotencyRecord.builder()
+                .key(key)
+                .status(IdempotencyStatus.PROCESSING)
+                .createdAt(LocalDateTime.now())
+                .payloadHash(7L)
+                .build();
+    }
+}
@@ -0,0 +1,168 @@
+package com.fisa.validationapi.infrastructure.adapters.output.redis;
+
+import com.fisa.validationapi.application.services.IdempotencyService;
+import com.fisa.validationapi.domain.models.IdempotencyRecord;
+import com.fisa.validationapi.domain.models.enums.IdempotencyStatus;
+import com.fisa.validationapi.infrastructure.adapters.output.memory.InMemoryIdempotencyAdapter;
+import com.fisa.validationapi.infrastructure.config.IdempotencyProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.DefaultMessage;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Espera de resultados de llaves en PROCESSING: un future compartido por llave, despertar local y por Pub/Sub,
+ * timeout (el reintento recibe 409) y limpieza de la entrada al retirarse la última espera.
+ */
+class RedisIdempotencyResultWaiterTests {
+
+    private static final Duration LONG_WAIT = Duration.ofSeconds(10);
+
+    private final CountingRepository repository = new CountingRepository();
+    private final RedisIdempotencyResultWaiter waiter = new RedisIdempotencyResultWaiter(repository);
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void waitersOfAKeyShareOneFutureAndOneRead() throws Exception {
+        repository.save(processing("k1"));
+
+        List<Future<Optional<IdempotencyRecord>>> results = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            results.add(executor.submit(() -> waiter.awaitResult("k1", LONG_WAIT)));
+        }
+        awaitUntil(() -> waiter.waiting("k1") == 5);
+
+        IdempotencyRecord completed = completed("k1");
+        repository.save(completed);
+        waiter.resultSaved(completed);
+
+        for (Future<Optional<IdempotencyRecord>> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).containsSame(completed);
+        }
+        // Solo quien abrió la espera volvió a leer la llave
+        assertThat(repository.reads.get()).isEqualTo(1);
+    }
+
+    @Test
+    void resultAnnouncedByAnotherNodeWakesTheWaiters() throws Exception {
+        repository.save(processing("k1"));
+        Future<Optional<IdempotencyRecord>> result = executor.submit(() -> waiter.awaitResult("k1", LONG_WAIT));
+        awaitUntil(() -> waiter.waiting("k1") == 1);
+
+        // Los anuncios propios se ignoran: las esperas locales ya se completaron al guardar
+        repository.save(completed("k1"));
+        waiter.onMessage(message(IdempotencyEventChannel.message("k1")), null);
+        assertThat(result).isNotDone();
+
+        waiter.onMessage(message("otro-nodo:k1"), null);
+
+        assertThat(result.get(5, TimeUnit.SECONDS)).get().extracting(IdempotencyRecord::getStatus).isEqualTo(IdempotencyStatus.COMPLETED);
+        assertThat(repository.reads.get()).isEqualTo(2);
+    }
+
+    @Test
+    void announcementsOfKeysNobodyWaitsForAreNotRead() {
+        waiter.onMessage(message("otro-nodo:k1"), null);
+
+        assertThat(repository.reads.get()).isZero();
+    }
+
+    @Test
+    void alreadyResolvedOrMissingKeysReturnWithoutWaiting() {
+        repository.save(completed("done"));
+
+        assertThat(waiter.awaitResult("done", LONG_WAIT)).get().extracting(IdempotencyRecord::getStatus).isEqualTo(IdempotencyStatus.COMPLETED);
+        assertThat(waiter.awaitResult("missing", LONG_WAIT)).isEmpty();
+        assertThat(waiter.waiting("done")).isZero();
+        assertThat(waiter.waiting("missing")).isZero();
+    }
+
+    @Test
+    void timeoutKeepsTheLockSoTheRetryGets409() {
+        IdempotencyRecord lock = processing("k1");
+        repository.save(lock);
+        IdempotencyService service = new IdempotencyService(repository, waiter, Duration.ofMillis(100));
+
+        IdempotencyRecord result = service.awaitIfProcessing(lock);
+
+        // El controlador responde 409 a un registro en PROCESSING
+        assertThat(result).isSameAs(lock);
+        assertThat(waiter.waiting("k1")).isZero();
+    }
+
+    @Test
+    void entryIsRemovedWhenTheLastWaiterLeaves() throws Exception {
+        repository.save(processing("k1"));
+        Future<Optional<IdempotencyRecord>> shortWait = executor.submit(() -> waiter.awaitResult("k1", Duration.ofMillis(100)));
+        Future<Optional<IdempotencyRecord>> longWait = executor.submit(() -> waiter.awaitResult("k1", LONG_WAIT));
+        awaitUntil(() -> waiter.waiting("k1") == 2);
+
+        // Una espera se retira por timeout; la otra sigue registrada
+        assertThat(shortWait.get(5, TimeUnit.SECONDS)).isEmpty();
+        assertThat(waiter.waiting("k1")).isEqualTo(1);
+
+        IdempotencyRecord completed = completed("k1");
+        waiter.resultSaved(completed);
+        assertThat(longWait.get(5, TimeUnit.SECONDS)).containsSame(completed);
+        assertThat(waiter.waiting("k1")).isZero();
+
+        // Un resultado sin esperas no deja entradas
+        waiter.resultSaved(completed("k2"));
+        assertThat(waiter.waiting("k2")).isZero();
+    }
+
+    private static IdempotencyRecord processing(String key) {
+        return IdempotencyRecord.builder().key(key).status(IdempotencyStatus.PROCESSING).build();
+    }
+
+    private static IdempotencyRecord completed(String key) {
+        return IdempotencyRecord.builder().key(key).status(IdempotencyStatus.COMPLETED).httpStatusCode(201).responseBody("{}").build();
+    }
+
+    private static DefaultMessage message(String body) {
+        return new DefaultMessage(IdempotencyEventChannel.CHANNEL.getBytes(StandardCharsets.UTF_8), body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("Condición no cumplida a tiempo").isLessThan(deadline);
+            Thread.onSpinWait();
+        }
+    }
+
+    // Repositorio en memoria que cuenta las lecturas (cada una sería un GET a Redis)
+    private static final class CountingRepository extends InMemoryIdempotencyAdapter {
+
+        private final AtomicInteger reads = new AtomicInteger();
+
+        CountingRepository() {
+            super(new IdempotencyRetentionPolicy(new IdempotencyProperties.Retention(), new SimpleMeterRegistry()));
+        }
+
+        @Override
+        public Optional<IdempotencyRecord> findByKey(String key) {
+            reads.incrementAndGet();
+            return super.findByKey(key);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.fisa.validationapi.infrastructure.adapters.output.redis;
+
+import com.fisa.validationapi.domain.models.IdempotencyRecord;
+import com.fisa.validationapi.infrastructure.config.IdempotencyProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisScriptingCommands;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Latido de los bloqueos PROCESSING: resultado del script GET + comparación + PEXPIRE por llave
+ * y abandono de los bloqueos que superan la duración máxima.
+ */
+class RedisLockHeartbeatTests {
+
+    private static final Duration LEASE = Duration.ofSeconds(30);
+
+    @SuppressWarnings("unchecked")
+    private final RedisTemplate<String, IdempotencyRecord> redisTemplate = mock(RedisTemplate.class);
+    private final RedisConnection connection = mock(RedisConnection.class);
+    private final RedisScriptingCommands scripting = mock(RedisScriptingCommands.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    // Resultado del script por llave (1 = renovado, 0 = el valor ya no es el bloqueo propio)
+    private final Map<String, Long> scriptResults = new ConcurrentHashMap<>();
+    // Argumentos de cada EVALSHA del último latido: llave, valor comparado y lease
+    private final List<byte[][]> evaluated = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        when(connection.scriptingCommands()).thenReturn(scripting);
+        when(scripting.evalSha(anyString(), eq(ReturnType.INTEGER), anyInt(), any(byte[][].class))).thenAnswer(eval -> {
+            evaluated.add(new byte[][]{eval.getArgument(3), eval.getArgument(4), eval.getArgument(5)});
+            return null; // En un pipeline el resultado llega al cerrarlo
+        });
+        when(redisTemplate.executePipelined(any(RedisCallback.class))).thenAnswer(invocation -> {
+            evaluated.clear();
+            RedisCallback<Object> callback = invocation.getArgument(0);
+            callback.doInRedis(connection);
+
+            // Igual que un pipeline real: primero el SHA de SCRIPT LOAD y luego un resultado por EVALSHA
+            List<Object> results = new ArrayList<>();
+            results.add(RedisLockHeartbeat.RENEW_LOCK_SCRIPT.getSha1());
+            for (byte[][] args : evaluated) {
+                results.add(scriptResults.getOrDefault(new String(args[0], StandardCharsets.UTF_8), 1L));
+            }
+            return results;
+        });
+    }
+
+    @Test
+    void scriptResultsAreMappedToRenewedAndLost() {
+        RedisLockHeartbeat heartbeat = heartbeat(Duration.ofMinutes(10));
+        heartbeat.track("idempotency:renewed", "lock-1".getBytes(StandardCharsets.UTF_8));
+        heartbeat.track("idempotency:lost", "lock-2".getBytes(StandardCharsets.UTF_8));
+        scriptResults.put("idempotency:lost", 0L);
+
+        heartbeat.renewAll();
+
+        assertThat(counter("renewed")).isEqualTo(1);
+        assertThat(counter("lost")).isEqualTo(1);
+        assertThat(meterRegistry.get("idempotency.lock.held").gauge().value()).isEqualTo(1);
+        // Se compara el valor exacto escrito al tomar el bloqueo y se extiende por un lease completo
+        assertThat(evaluated).anySatisfy(args -> {
+            assertThat(new String(args[0], StandardCharsets.UTF_8)).isEqualTo("idempotency:renewed");
+            assertThat(new String(args[1], StandardCharsets.UTF_8)).isEqualTo("lock-1");
+            assertThat(new String(args[2], StandardCharsets.UTF_8)).isEqualTo(String.valueOf(LEASE.toMillis()));
+        });
+
+        // El perdido ya no se renueva ni se puede liberar; el renovado sigue en curso
+        heartbeat.renewAll();
+        assertThat(evaluated).extracting(args -> new String(args[0], StandardCharsets.UTF_8)).containsExactly("idempotency:renewed");
+        assertThat(heartbeat.release("idempotency:lost")).isNull();
+        assertThat(heartbeat.release("idempotency:renewed")).isEqualTo("lock-1".getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void locksPastTheMaxDurationAreLeftToExpire() throws InterruptedException {
+        RedisLockHeartbeat heartbeat = heartbeat(Duration.ofMillis(1));
+        heartbeat.track("idempotency:slow", "lock".getBytes(StandardCharsets.UTF_8));
+        Thread.sleep(5);
+
+        heartbeat.renewAll();
+
+        assertThat(counter("max_duration")).isEqualTo(1);
+        assertThat(counter("renewed")).isZero();
+        assertThat(heartbeat.release("idempotency:slow")).isNull();
+        // Nada que renovar: ni siquiera se abre el pipeline
+        verify(redisTemplate, never()).executePipelined(any(RedisCallback.class));
+    }
+
+    @Test
+    void locksAreKeptWhenRedisFails() {
+        RedisLockHeartbeat heartbeat = heartbeat(Duration.ofMinutes(10));
+        heartbeat.track("idempotency:k1", "lock".getBytes(StandardCharsets.UTF_8));
+        when(redisTemplate.executePipelined(any(RedisCallback.class))).thenThrow(new RedisConnectionFailureException("Redis caído"));
+
+        heartbeat.renewAll();
+
+        // El lease actual sigue vigente: se reintenta en el próximo latido
+        assertThat(counter("lost")).isZero();
+        assertThat(meterRegistry.get("idempotency.lock.held").gauge().value()).isEqualTo(1);
+    }
+
+    private RedisLockHeartbeat heartbeat(Duration maxDuration) {
+        IdempotencyProperties.Processing properties = new IdempotencyProperties.Processing();
+        properties.setLease(LEASE);
+        properties.setMaxDuration(maxDuration);
+        return new RedisLockHeartbeat(redisTemplate, properties, meterRegistry);
+    }
+
+    private double counter(String outcome) {
+        return meterRegistry.get("idempotency.lock.heartbeat").tag("outcome", outcome).counter().count();
+    }
+}